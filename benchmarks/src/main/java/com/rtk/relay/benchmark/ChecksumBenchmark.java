@@ -0,0 +1,76 @@
+package com.rtk.relay.benchmark;
+
+import com.rtk.relay.rtcm.Rtcm3;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CRC24Q校验基准测试
+ * 覆盖字节数组（转码、去重）和ByteBuf（帧解码器在堆内/直接内存上校验）两种入口。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChecksumBenchmark {
+
+    /**
+     * 消息体长度：短消息（1005约19字节）、典型MSM7、最大长度
+     */
+    @Param({"19", "300", "1023"})
+    public int payloadLength;
+
+    private byte[] frame;
+    private ByteBuf heapBuf;
+    private ByteBuf directBuf;
+    private int length;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        frame = RelayFixture.msm7Frame(payloadLength, payloadLength);
+        length = frame.length - Rtcm3.CRC_LENGTH;
+        heapBuf = Unpooled.wrappedBuffer(frame);
+        directBuf = Unpooled.directBuffer(frame.length).writeBytes(frame);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        heapBuf.release();
+        directBuf.release();
+    }
+
+    @Benchmark
+    public int byteArray() {
+        return Rtcm3.crc24q(frame, 0, length);
+    }
+
+    @Benchmark
+    public int heapByteBuf() {
+        return Rtcm3.crc24q(heapBuf, heapBuf.readerIndex(), length);
+    }
+
+    @Benchmark
+    public int directByteBuf() {
+        return Rtcm3.crc24q(directBuf, directBuf.readerIndex(), length);
+    }
+}
@@ -0,0 +1,109 @@
+package com.rtk.relay.benchmark;
+
+import com.rtk.relay.entity.ConnectionInfo;
+import com.rtk.relay.service.ConnectionRegistry;
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接注册/注销基准测试
+ * registry：只测连接注册表的句柄分配与回收；
+ * manager：完整的移动站注册/注销路径（注册表、订阅者快照重建、统计和生命周期记录入口）。
+ * 已有连接数影响订阅者快照重建的成本。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionChurnBenchmark {
+
+    /**
+     * 每次调用注册并注销的连接数（每个连接使用新通道，避免关闭监听器在同一通道上累积）
+     */
+    private static final int BATCH = 256;
+
+    /**
+     * 测量期间保持在线的连接数
+     */
+    @Param({"0", "1000"})
+    public int population;
+
+    private RelayFixture fixture;
+    private ConnectionRegistry registry;
+    private Channel registryChannel;
+    private ConnectionInfo[] registryInfos;
+    private Channel[] batchChannels;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new RelayFixture(population + BATCH + 1);
+        registry = new ConnectionRegistry();
+        registryChannel = new EmbeddedChannel();
+        for (int i = 0; i < population; i++) {
+            fixture.registerMobileStation(new EmbeddedChannel(), i);
+            registry.register(registryChannel, new ConnectionInfo());
+        }
+        registryInfos = new ConnectionInfo[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            registryInfos[i] = new ConnectionInfo();
+        }
+        batchChannels = new Channel[BATCH];
+    }
+
+    @Setup(Level.Invocation)
+    public void newChannels() {
+        for (int i = 0; i < BATCH; i++) {
+            batchChannels[i] = new EmbeddedChannel();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void registry() {
+        int[] handles = new int[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            handles[i] = registry.register(registryChannel, registryInfos[i]);
+        }
+        for (int i = 0; i < BATCH; i++) {
+            registry.remove(handles[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void manager() {
+        int[] handles = new int[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            handles[i] = fixture.registerMobileStation(batchChannels[i], population + i);
+        }
+        for (int i = 0; i < BATCH; i++) {
+            fixture.connectionManager.unregisterMobileStation(handles[i]);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.rtk.relay.benchmark;
+
+import com.rtk.relay.config.LiveRelayConfig;
+import com.rtk.relay.config.RtkDataBuffer;
+import com.rtk.relay.config.RtkProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 最近数据缓冲区基准测试
+ * 单线程写入/读取，以及多个基站转发线程写入、新移动站接入线程同时读取的竞争场景。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataBufferBenchmark {
+
+    private RtkDataBuffer buffer;
+    private byte[] frame;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        buffer = new RtkDataBuffer(new LiveRelayConfig(new RtkProperties()));
+        frame = RelayFixture.msm7Frame(300, 1);
+        // 预先填满，测量稳定状态（每次写入都会淘汰最旧的数据）
+        for (int i = 0; i < 256; i++) {
+            buffer.addData(frame);
+        }
+    }
+
+    @Benchmark
+    @Group("single_add")
+    public void addData() {
+        buffer.addData(frame);
+    }
+
+    @Benchmark
+    @Group("single_recent")
+    public List<byte[]> getRecentData() {
+        return buffer.getRecentData();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public void contendedAdd() {
+        buffer.addData(frame);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public List<byte[]> contendedRecent() {
+        return buffer.getRecentData();
+    }
+}
@@ -0,0 +1,189 @@
+package com.rtk.relay.benchmark;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 转发扇出基准测试
+ * 测量一帧基站数据经 {@link com.rtk.relay.service.DataRelayService#relayDataToMobileStations} 发送给全部移动站的吞吐量。
+ * embedded：移动站为EmbeddedChannel，写出的数据在管道头部直接释放，只测转发服务本身的开销；
+ * local：移动站为本地传输的真实通道对，包含事件循环切换和对端接收。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RelayFanOutBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int subscribers;
+
+    @Param({"embedded", "local"})
+    public String transport;
+
+    /**
+     * 帧消息体长度（典型的多星座MSM7约300字节）
+     */
+    @Param({"300"})
+    public int payloadLength;
+
+    private RelayFixture fixture;
+    private byte[] frame;
+    private int sourceHandle;
+    private final List<Channel> channels = new ArrayList<>();
+    private final List<EmbeddedChannel> embeddedChannels = new ArrayList<>();
+    private EventLoopGroup serverGroup;
+    private EventLoopGroup clientGroup;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = new RelayFixture(subscribers + 1);
+        frame = RelayFixture.msm7Frame(payloadLength, 1077);
+        sourceHandle = fixture.registerBaseStation(new EmbeddedChannel());
+
+        if ("local".equals(transport)) {
+            setUpLocalSubscribers();
+        } else {
+            for (int i = 0; i < subscribers; i++) {
+                EmbeddedChannel channel = new EmbeddedChannel(new DiscardOutbound());
+                channels.add(channel);
+                embeddedChannels.add(channel);
+                fixture.registerMobileStation(channel, i);
+            }
+        }
+    }
+
+    /**
+     * 建立本地传输的通道对，服务端一侧注册为移动站，客户端一侧丢弃收到的数据
+     */
+    private void setUpLocalSubscribers() throws Exception {
+        serverGroup = new DefaultEventLoopGroup(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        clientGroup = new DefaultEventLoopGroup(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        LocalAddress address = new LocalAddress("rtk-relay-bench-" + System.nanoTime());
+        LinkedBlockingQueue<Channel> accepted = new LinkedBlockingQueue<>();
+
+        Channel server = new ServerBootstrap()
+                .group(serverGroup)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                        accepted.add(ch);
+                    }
+                })
+                .bind(address).sync().channel();
+        channels.add(server);
+
+        Bootstrap client = new Bootstrap()
+                .group(clientGroup)
+                .channel(LocalChannel.class)
+                .handler(new DiscardInbound());
+        for (int i = 0; i < subscribers; i++) {
+            channels.add(client.connect(address).sync().channel());
+            Channel child = accepted.poll(5, TimeUnit.SECONDS);
+            if (child == null) {
+                throw new IllegalStateException("本地通道建立超时");
+            }
+            fixture.registerMobileStation(child, i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        // 测量期间移动站被判定为失效并清理时，结果不再代表该订阅者数量
+        int remaining = fixture.connectionManager.getMobileStationCount();
+        if (remaining != subscribers) {
+            System.err.println("警告: 测量期间移动站连接数从 " + subscribers + " 变为 " + remaining);
+        }
+
+        // 先停止转发线程，再关闭通道和事件循环
+        fixture.shutdown();
+        for (Channel channel : channels) {
+            channel.close().syncUninterruptibly();
+        }
+        if (serverGroup != null) {
+            serverGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    @Benchmark
+    public void relay() {
+        fixture.dataRelayService.relayDataToMobileStations(frame, sourceHandle);
+        // 异步转发的写入任务排在各移动站的事件循环中，EmbeddedChannel由基准测试线程执行
+        for (int i = 0; i < embeddedChannels.size(); i++) {
+            embeddedChannels.get(i).runPendingTasks();
+        }
+    }
+
+    /**
+     * 在管道头部释放写出的数据并标记发送成功
+     */
+    private static final class DiscardOutbound extends ChannelOutboundHandlerAdapter {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ReferenceCountUtil.release(msg);
+            promise.setSuccess();
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+        }
+
+        @Override
+        public boolean isSharable() {
+            return true;
+        }
+    }
+
+    /**
+     * 丢弃收到的数据
+     */
+    private static final class DiscardInbound extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ReferenceCountUtil.release(msg);
+        }
+
+        @Override
+        public boolean isSharable() {
+            return true;
+        }
+    }
+}
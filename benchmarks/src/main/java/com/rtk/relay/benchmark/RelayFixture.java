@@ -0,0 +1,111 @@
+package com.rtk.relay.benchmark;
+
+import com.rtk.relay.RelayComponents;
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.entity.ConnectionInfo;
+import com.rtk.relay.rtcm.Rtcm3;
+import com.rtk.relay.service.ConnectionManager;
+import com.rtk.relay.service.DataRelayService;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * 基准测试用的转发服务装配
+ * 不启动Spring容器和TCP服务器，由 {@link RelayComponents} 创建转发路径上的服务，数据库保持未启用。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+final class RelayFixture {
+
+    /**
+     * 连接信息属性键（与处理器中的键相同）
+     */
+    static final AttributeKey<ConnectionInfo> CONNECTION_INFO_KEY = AttributeKey.valueOf("connectionInfo");
+
+    final RtkProperties properties;
+    final RelayComponents components;
+    final ConnectionManager connectionManager;
+    final DataRelayService dataRelayService;
+
+    /**
+     * 构造函数
+     *
+     * @param maxMobileStations 移动站连接上限
+     */
+    RelayFixture(int maxMobileStations) {
+        properties = new RtkProperties();
+        properties.getServer2().setMaxConnections(maxMobileStations);
+        // 基准测试中基站不发送心跳，关闭超时检测
+        properties.getServer1().setTimeout(0);
+
+        components = RelayComponents.create(properties);
+        connectionManager = components.getConnectionManager();
+        dataRelayService = components.getDataRelayService();
+    }
+
+    /**
+     * 注册基站连接
+     *
+     * @param channel 通道
+     * @return 连接句柄
+     */
+    int registerBaseStation(Channel channel) {
+        return connectionManager.registerBaseStation(channel,
+                connectionInfo(channel, "BASE_BENCH", ConnectionInfo.ConnectionType.BASE_STATION, 0));
+    }
+
+    /**
+     * 注册移动站连接
+     *
+     * @param channel 通道
+     * @param index 移动站序号
+     * @return 连接句柄
+     */
+    int registerMobileStation(Channel channel, int index) {
+        return connectionManager.registerMobileStation(channel,
+                connectionInfo(channel, "MOBILE_BENCH_" + index, ConnectionInfo.ConnectionType.MOBILE_STATION, index));
+    }
+
+    /**
+     * 创建连接信息并绑定到通道
+     */
+    static ConnectionInfo connectionInfo(Channel channel, String connectionId, ConnectionInfo.ConnectionType type,
+                                         int index) {
+        ConnectionInfo connectionInfo = new ConnectionInfo();
+        connectionInfo.setConnectionId(connectionId);
+        connectionInfo.setType(type);
+        connectionInfo.setRemoteAddress("10.0." + ((index >>> 8) & 0xFF) + "." + (index & 0xFF));
+        connectionInfo.setRemotePort(40000 + (index & 0x3FFF));
+        connectionInfo.setConnectTime(LocalDateTime.now());
+        connectionInfo.setStatus(ConnectionInfo.ConnectionStatus.CONNECTED);
+        channel.attr(CONNECTION_INFO_KEY).set(connectionInfo);
+        return connectionInfo;
+    }
+
+    /**
+     * 生成一个CRC正确的MSM7帧（多电文标志为0，即历元最后一条消息）
+     *
+     * @param payloadLength 消息体长度
+     * @param seed 随机种子
+     * @return 帧数据
+     */
+    static byte[] msm7Frame(int payloadLength, long seed) {
+        byte[] frame = new byte[Rtcm3.HEADER_LENGTH + payloadLength + Rtcm3.CRC_LENGTH];
+        new Random(seed).nextBytes(frame);
+        Rtcm3.setBitU(frame, Rtcm3.HEADER_LENGTH * 8, 12, 1077);
+        Rtcm3.setBitU(frame, Rtcm3.HEADER_LENGTH * 8 + 54, 1, 0);
+        Rtcm3.sealFrame(frame);
+        return frame;
+    }
+
+    /**
+     * 停止后台线程
+     */
+    void shutdown() {
+        components.stop();
+    }
+}
@@ -0,0 +1,302 @@
+package com.rtk.relay.loadgen;
+
+import com.rtk.relay.netty.Rtcm3FrameDecoder;
+import com.rtk.relay.rtcm.Rtcm3;
+import com.rtk.relay.rtcm.RtcmCorpus;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.ReferenceCountUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RTCM语料录制工具
+ * 两种方式生成 {@link RtcmCorpus} 文件：
+ * <ul>
+ *   <li>实时录制（--listen）：监听端口，基站（或 str2str 等转发工具）像连接Server1一样连接，
+ *       每个连接为一个基站，按到达时间记录每一帧</li>
+ *   <li>导入（--import）：将已有的RTCM 3原始文件转换为语料，按MSM多电文标志划分历元，
+ *       历元时间按 --rate-hz 周期生成，多个文件的历元交错排列</li>
+ * </ul>
+ * 参考站ID从1005/1006消息中获取。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public final class CorpusRecorder {
+
+    /**
+     * 1005/1006消息中参考站ID（DF003）的位置
+     */
+    private static final int REFERENCE_STATION_BIT = Rtcm3.HEADER_LENGTH * 8 + 12;
+
+    /**
+     * 实时录制的结束信号，以及文件已关闭的信号（终止信号到来时等待写入完成再退出）
+     */
+    private static final CountDownLatch STOP = new CountDownLatch(1);
+    private static final CountDownLatch CLOSED = new CountDownLatch(1);
+
+    private CorpusRecorder() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println();
+            System.err.println(Options.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help) {
+            System.out.println(Options.USAGE);
+            return;
+        }
+
+        Path out = Paths.get(options.out);
+        try (RtcmCorpus.Writer writer = RtcmCorpus.create(out, System.currentTimeMillis())) {
+            if (options.listen > 0) {
+                record(options, writer);
+            } else {
+                importFiles(options, writer);
+            }
+            log("录制完成: %d 帧 -> %s", writer.getFrameCount(), out.toAbsolutePath());
+        } finally {
+            CLOSED.countDown();
+        }
+    }
+
+    /**
+     * 实时录制，到达 --duration 或进程收到终止信号时结束
+     */
+    private static void record(Options options, RtcmCorpus.Writer writer) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            STOP.countDown();
+            try {
+                CLOSED.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        // 单个事件循环线程：所有连接的写入在同一线程上进行，写入器无需同步
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        int[] nextStation = {0};
+        try {
+            Channel server = new ServerBootstrap()
+                    .group(group)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) throws IOException {
+                            int index = nextStation[0]++;
+                            String name = String.valueOf(ch.remoteAddress());
+                            writer.defineStation(new RtcmCorpus.Station(index, name,
+                                    RtcmCorpus.UNKNOWN_REFERENCE_STATION, "录制于 " + LocalDateTime.now()));
+                            log("基站已连接: #%d %s", index, name);
+                            ch.pipeline().addLast(new Rtcm3FrameDecoder(), new Recorder(writer, index, startNanos));
+                        }
+                    })
+                    .bind(options.listen).syncUninterruptibly().channel();
+            log("正在监听端口 %d，录制到 %s", options.listen, options.out);
+
+            if (options.durationSeconds > 0) {
+                STOP.await(options.durationSeconds, TimeUnit.SECONDS);
+            } else {
+                STOP.await();
+            }
+            server.close().syncUninterruptibly();
+        } finally {
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    /**
+     * 导入原始RTCM 3文件，每个文件为一个基站
+     */
+    private static void importFiles(Options options, RtcmCorpus.Writer writer) throws IOException {
+        List<List<byte[][]>> stations = new ArrayList<>();
+        int maxEpochs = 0;
+        for (int i = 0; i < options.imports.length; i++) {
+            Path file = Paths.get(options.imports[i]);
+            List<byte[][]> epochs = EpochTemplates.load(file);
+            stations.add(epochs);
+            maxEpochs = Math.max(maxEpochs, epochs.size());
+            writer.defineStation(new RtcmCorpus.Station(i, file.getFileName().toString(),
+                    referenceStationId(epochs), "导入自 " + file.toAbsolutePath()));
+        }
+
+        long periodMicros = Math.round(1_000_000 / options.rateHz);
+        for (int e = 0; e < maxEpochs; e++) {
+            for (int s = 0; s < stations.size(); s++) {
+                if (e >= stations.get(s).size()) {
+                    continue;
+                }
+                // 各基站在一个周期内错开
+                long offset = e * periodMicros + s * periodMicros / stations.size();
+                for (byte[] frame : stations.get(s).get(e)) {
+                    writer.writeFrame(offset, s, frame);
+                }
+            }
+        }
+    }
+
+    private static int referenceStationId(List<byte[][]> epochs) {
+        for (byte[][] epoch : epochs) {
+            for (byte[] frame : epoch) {
+                int type = Rtcm3.messageType(frame);
+                if (type == 1005 || type == 1006) {
+                    return Rtcm3.getBitU(frame, REFERENCE_STATION_BIT, 12);
+                }
+            }
+        }
+        return RtcmCorpus.UNKNOWN_REFERENCE_STATION;
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.println(LocalDateTime.now() + " " + String.format(format, args));
+    }
+
+    /**
+     * 记录一个基站连接的数据帧
+     */
+    private static final class Recorder extends ChannelInboundHandlerAdapter {
+
+        private final RtcmCorpus.Writer writer;
+        private final int index;
+        private final long startNanos;
+        private boolean referenceKnown;
+        private long skipped;
+
+        Recorder(RtcmCorpus.Writer writer, int index, long startNanos) {
+            this.writer = writer;
+            this.index = index;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            try {
+                if (msg instanceof ByteBuf) {
+                    ByteBuf buf = (ByteBuf) msg;
+                    byte[] data = new byte[buf.readableBytes()];
+                    buf.getBytes(buf.readerIndex(), data);
+                    // 解码器透传的非RTCM数据（如NMEA）不录制
+                    if (!Rtcm3.isFrame(data)) {
+                        skipped += data.length;
+                        return;
+                    }
+                    writer.writeFrame((System.nanoTime() - startNanos) / 1000, index, data);
+                    int type = Rtcm3.messageType(data);
+                    if (!referenceKnown && (type == 1005 || type == 1006)) {
+                        RtcmCorpus.Station station = writer.getStation(index);
+                        writer.defineStation(new RtcmCorpus.Station(index, station.getName(),
+                                Rtcm3.getBitU(data, REFERENCE_STATION_BIT, 12), station.getDescription()));
+                        referenceKnown = true;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws IOException {
+            writer.flush();
+            log("基站已断开: #%d，跳过非RTCM数据 %d 字节", index, skipped);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log("基站 #%d 录制失败: %s", index, cause.getMessage());
+            ctx.close();
+        }
+    }
+
+    /**
+     * 命令行参数（--name=value）
+     */
+    static final class Options {
+
+        static final String USAGE = String.join("\n",
+                "用法: java -cp target/benchmarks.jar com.rtk.relay.loadgen.CorpusRecorder --out=文件 (--listen=端口 | --import=文件,...)",
+                "  --out=                    语料文件",
+                "  --listen=                 实时录制：监听端口，每个连接为一个基站",
+                "  --duration=0              实时录制时长（秒，0为直到进程终止）",
+                "  --import=                 导入RTCM 3原始文件（逗号分隔，每个文件为一个基站）",
+                "  --rate-hz=1               导入时的历元频率");
+
+        String out = "";
+        int listen;
+        int durationSeconds;
+        String[] imports = new String[0];
+        double rateHz = 1;
+        boolean help;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if ("--help".equals(arg) || "-h".equals(arg)) {
+                    options.help = true;
+                    continue;
+                }
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("无法识别的参数: " + arg);
+                }
+                String name = arg.substring(2, eq);
+                String value = arg.substring(eq + 1);
+                try {
+                    options.set(name, value);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("参数值无效: " + arg);
+                }
+            }
+            if (options.help) {
+                return options;
+            }
+            if (options.out.isEmpty()) {
+                throw new IllegalArgumentException("缺少 --out");
+            }
+            if ((options.listen > 0) == (options.imports.length > 0)) {
+                throw new IllegalArgumentException("须指定 --listen 或 --import 之一");
+            }
+            if (options.rateHz <= 0 || options.durationSeconds < 0) {
+                throw new IllegalArgumentException("参数值超出范围");
+            }
+            return options;
+        }
+
+        private void set(String name, String value) {
+            switch (name) {
+                case "out": out = value; break;
+                case "listen": listen = Integer.parseInt(value); break;
+                case "duration": durationSeconds = Integer.parseInt(value); break;
+                case "import": imports = value.split(","); break;
+                case "rate-hz": rateHz = Double.parseDouble(value); break;
+                default:
+                    throw new IllegalArgumentException("未知参数: --" + name);
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.rtk.relay.loadgen;
+
+import com.rtk.relay.rtcm.Rtcm3;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 模拟基站发送的历元模板
+ * 每个历元是一组RTCM 3帧，模拟基站按顺序循环发送。MSM帧发送前会改写参考站ID和历元时间
+ * （用于在移动站端识别来源基站和序号，见 {@link #stamp}），其他帧原样发送。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+final class EpochTemplates {
+
+    /**
+     * MSM消息头中参考站ID、历元时间的位置
+     */
+    static final int STATION_ID_BIT = Rtcm3.HEADER_LENGTH * 8 + 12;
+    static final int EPOCH_TIME_BIT = Rtcm3.HEADER_LENGTH * 8 + 24;
+
+    /**
+     * 多电文标志位置
+     */
+    private static final int MULTIPLE_MESSAGE_BIT = Rtcm3.HEADER_LENGTH * 8 + 54;
+
+    /**
+     * 卫星掩码、信号掩码、单元掩码在消息体中的位置
+     */
+    private static final int SATELLITE_MASK_BIT = 73;
+    private static final int SIGNAL_MASK_BIT = 137;
+    private static final int CELL_MASK_BIT = 169;
+
+    /**
+     * MSM7每颗卫星、每个单元的数据位数
+     */
+    private static final int MSM7_SATELLITE_BITS = 36;
+    private static final int MSM7_CELL_BITS = 80;
+
+    /**
+     * 合成数据使用的两个信号（信号掩码中的位置）
+     */
+    private static final int[] SIGNALS = {1, 14};
+
+    private EpochTemplates() {
+    }
+
+    /**
+     * 合成MSM7历元模板，每个历元按给定消息类型各一条，最后一条的多电文标志为0
+     *
+     * @param messageTypes MSM7消息类型（如1077、1087、1097、1127）
+     * @param satellites 每个系统的卫星数（1-32）
+     * @param count 模板数量（卫星数据各不相同）
+     * @param seed 随机种子
+     * @return 历元模板
+     */
+    static List<byte[][]> synthesize(int[] messageTypes, int satellites, int count, long seed) {
+        if (satellites < 1 || satellites * SIGNALS.length > 64) {
+            throw new IllegalArgumentException("卫星数应在1到" + 64 / SIGNALS.length + "之间: " + satellites);
+        }
+        for (int type : messageTypes) {
+            if (!Rtcm3.isMsm(type) || Rtcm3.msmLevel(type) != 7) {
+                throw new IllegalArgumentException("只支持合成MSM7消息: " + type);
+            }
+        }
+
+        Random random = new Random(seed);
+        List<byte[][]> epochs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[][] epoch = new byte[messageTypes.length][];
+            for (int m = 0; m < messageTypes.length; m++) {
+                epoch[m] = msm7Frame(messageTypes[m], satellites, m < messageTypes.length - 1, random);
+            }
+            epochs.add(epoch);
+        }
+        return epochs;
+    }
+
+    /**
+     * 从录制的RTCM 3数据文件加载历元模板
+     * 按MSM多电文标志划分历元（标志为0的MSM帧结束一个历元），非MSM帧归入下一个历元；
+     * 文件中没有MSM消息时每帧作为一个历元。CRC错误的数据和非RTCM数据被丢弃。
+     *
+     * @param file 文件路径
+     * @return 历元模板
+     * @throws IOException 读取失败
+     */
+    static List<byte[][]> load(Path file) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        List<byte[]> frames = new ArrayList<>();
+        boolean hasMsm = false;
+        int pos = 0;
+        while (pos + Rtcm3.HEADER_LENGTH + Rtcm3.CRC_LENGTH <= data.length) {
+            if ((data[pos] & 0xFF) != Rtcm3.PREAMBLE || (data[pos + 1] & 0xFC) != 0) {
+                pos++;
+                continue;
+            }
+            int payloadLength = ((data[pos + 1] & 0x03) << 8) | (data[pos + 2] & 0xFF);
+            int frameLength = Rtcm3.HEADER_LENGTH + payloadLength + Rtcm3.CRC_LENGTH;
+            int crcOffset = pos + frameLength - Rtcm3.CRC_LENGTH;
+            if (pos + frameLength > data.length || Rtcm3.crc24q(data, pos, crcOffset - pos) != readCrc(data, crcOffset)) {
+                pos++;
+                continue;
+            }
+            byte[] frame = new byte[frameLength];
+            System.arraycopy(data, pos, frame, 0, frameLength);
+            frames.add(frame);
+            hasMsm |= Rtcm3.isMsm(Rtcm3.messageType(frame));
+            pos += frameLength;
+        }
+        if (frames.isEmpty()) {
+            throw new IllegalArgumentException("文件中没有有效的RTCM 3帧: " + file);
+        }
+
+        List<byte[][]> epochs = new ArrayList<>();
+        List<byte[]> current = new ArrayList<>();
+        for (byte[] frame : frames) {
+            current.add(frame);
+            int type = Rtcm3.messageType(frame);
+            if (!hasMsm || (Rtcm3.isMsm(type) && !Rtcm3.msmMultipleMessage(frame))) {
+                epochs.add(current.toArray(new byte[0][]));
+                current.clear();
+            }
+        }
+        if (!current.isEmpty()) {
+            epochs.add(current.toArray(new byte[0][]));
+        }
+        return epochs;
+    }
+
+    /**
+     * 复制MSM帧并写入参考站ID和历元时间，重新计算CRC
+     *
+     * @param template 模板帧
+     * @param stationId 参考站ID（0-4095）
+     * @param epochTime 历元时间（30位）
+     * @return 新帧
+     */
+    static byte[] stamp(byte[] template, int stationId, int epochTime) {
+        byte[] frame = template.clone();
+        Rtcm3.setBitU(frame, STATION_ID_BIT, 12, stationId);
+        Rtcm3.setBitU(frame, EPOCH_TIME_BIT, 30, epochTime);
+        Rtcm3.sealFrame(frame);
+        return frame;
+    }
+
+    /**
+     * 按RTCM 10403.3的MSM7结构生成一帧：卫星掩码取前N颗卫星，两个信号，单元掩码全1，
+     * 卫星数据和信号数据为随机值
+     */
+    private static byte[] msm7Frame(int messageType, int satellites, boolean multipleMessage, Random random) {
+        int cells = satellites * SIGNALS.length;
+        int payloadBits = CELL_MASK_BIT + cells + satellites * MSM7_SATELLITE_BITS + cells * MSM7_CELL_BITS;
+        int payloadLength = (payloadBits + 7) / 8;
+        byte[] frame = new byte[Rtcm3.HEADER_LENGTH + payloadLength + Rtcm3.CRC_LENGTH];
+        random.nextBytes(frame);
+
+        int payload = Rtcm3.HEADER_LENGTH * 8;
+        Rtcm3.setBitU(frame, payload, 12, messageType);
+        Rtcm3.setBitU(frame, MULTIPLE_MESSAGE_BIT, 1, multipleMessage ? 1 : 0);
+        for (int i = 0; i < 64; i += 32) {
+            Rtcm3.setBitU(frame, payload + SATELLITE_MASK_BIT + i, 32, 0);
+        }
+        for (int s = 0; s < satellites; s++) {
+            Rtcm3.setBitU(frame, payload + SATELLITE_MASK_BIT + s, 1, 1);
+        }
+        Rtcm3.setBitU(frame, payload + SIGNAL_MASK_BIT, 32, 0);
+        for (int signal : SIGNALS) {
+            Rtcm3.setBitU(frame, payload + SIGNAL_MASK_BIT + signal, 1, 1);
+        }
+        for (int c = 0; c < cells; c++) {
+            Rtcm3.setBitU(frame, payload + CELL_MASK_BIT + c, 1, 1);
+        }
+        // 填充位清零
+        int end = payload + payloadBits;
+        Rtcm3.setBitU(frame, end, payloadLength * 8 - payloadBits, 0);
+
+        Rtcm3.sealFrame(frame);
+        return frame;
+    }
+
+    private static int readCrc(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 16) | ((data[offset + 1] & 0xFF) << 8) | (data[offset + 2] & 0xFF);
+    }
+}
@@ -0,0 +1,107 @@
+package com.rtk.relay.loadgen;
+
+/**
+ * 延迟直方图（微秒）
+ * 按2的幂分段、每段32个子区间，相对误差约3%，内存固定，记录时不分配对象。
+ * 非线程安全，每个模拟移动站在自己的事件循环线程上记录，结束后再合并。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+final class LatencyHistogram {
+
+    /**
+     * 每段子区间位数
+     */
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    /**
+     * 可记录的最大值（约19小时），超过按最大值记录
+     */
+    private static final long MAX_VALUE = (1L << 36) - 1;
+
+    private final long[] counts = new long[(64 - Long.numberOfLeadingZeros(MAX_VALUE) - SUB_BITS + 1) * SUB_COUNT];
+    private long count;
+    private long sum;
+    private long max;
+
+    /**
+     * 记录一个值
+     *
+     * @param value 延迟（微秒），负数按0记录
+     */
+    void record(long value) {
+        long v = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts[index(v)]++;
+        count++;
+        sum += v;
+        if (v > max) {
+            max = v;
+        }
+    }
+
+    /**
+     * 合并另一个直方图
+     *
+     * @param other 直方图
+     */
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return count;
+    }
+
+    long max() {
+        return max;
+    }
+
+    double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * 获取百分位值（所在子区间的上界，不超过最大值）
+     *
+     * @param percentile 百分位（0-100）
+     * @return 延迟（微秒），没有数据时返回0
+     */
+    long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static int index(long v) {
+        if (v < SUB_COUNT) {
+            return (int) v;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        return (exp - SUB_BITS + 1) * SUB_COUNT + (int) ((v >>> (exp - SUB_BITS)) - SUB_COUNT);
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        long sub = index % SUB_COUNT + SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,454 @@
+package com.rtk.relay.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.ReferenceCountUtil;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本机负载生成器
+ * 模拟N个基站向Server1发送RTCM 3数据（合成的MSM7或录制文件回放），M个移动站连接Server2接收，
+ * 统计每个移动站的接收延迟分位数、丢失、乱序和接入耗时，结果输出为JSON报告。
+ * 用于提高 rtk.server2.max-connections 之前的容量评估，用法见 benchmarks/README.md。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public final class LoadGenerator {
+
+    private final Options options;
+    private final SimulatedBaseStation[] bases;
+    private final SimulatedRover[] rovers;
+
+    /**
+     * 运行期间（关闭连接之前）断开的基站数，以及开始关闭连接的时间
+     */
+    private int basesDropped;
+    private long runEndNanos;
+
+    private LoadGenerator(Options options, List<byte[][]> epochs) {
+        this.options = options;
+        this.bases = new SimulatedBaseStation[options.bases];
+        for (int i = 0; i < bases.length; i++) {
+            bases[i] = new SimulatedBaseStation(i, epochs, i * epochs.size() / bases.length, options.periodMs());
+        }
+        this.rovers = new SimulatedRover[options.rovers];
+        for (int i = 0; i < rovers.length; i++) {
+            rovers[i] = new SimulatedRover(i, bases);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println();
+            System.err.println(Options.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help) {
+            System.out.println(Options.USAGE);
+            return;
+        }
+
+        List<byte[][]> epochs = options.replay.isEmpty()
+                ? EpochTemplates.synthesize(options.messageTypes, options.satellites, 64, 42)
+                : EpochTemplates.load(Paths.get(options.replay));
+        Map<String, Object> report = new LoadGenerator(options, epochs).run();
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(new File(options.report), report);
+        System.out.println(mapper.writeValueAsString(report.get("summary")));
+        System.out.println("报告已写入: " + new File(options.report).getAbsolutePath());
+    }
+
+    /**
+     * 执行一次负载测试：基站开始发送 → 按速率接入移动站 → 持续运行 → 基站停止 → 等待在途数据 → 汇总
+     */
+    private Map<String, Object> run() throws InterruptedException {
+        EventLoopGroup baseGroup = new NioEventLoopGroup(options.baseThreads);
+        EventLoopGroup roverGroup = new NioEventLoopGroup(options.roverThreads);
+        try {
+            Bootstrap baseBootstrap = new Bootstrap()
+                    .group(baseGroup)
+                    .channel(NioSocketChannel.class)
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .handler(new DiscardInbound());
+            InetSocketAddress baseAddress = new InetSocketAddress(options.host, options.basePort);
+            List<ChannelFuture> baseFutures = new ArrayList<>();
+            for (int i = 0; i < bases.length; i++) {
+                baseFutures.add(bases[i].start(baseBootstrap, baseAddress, i * options.periodMs() / bases.length));
+            }
+            int basesConnected = 0;
+            for (ChannelFuture future : baseFutures) {
+                if (future.awaitUninterruptibly().isSuccess()) {
+                    basesConnected++;
+                }
+            }
+            log("基站已连接: %d/%d", basesConnected, bases.length);
+
+            Bootstrap roverBootstrap = new Bootstrap()
+                    .group(roverGroup)
+                    .channel(NioSocketChannel.class)
+                    .option(ChannelOption.TCP_NODELAY, true);
+            InetSocketAddress roverAddress = new InetSocketAddress(options.host, options.roverPort);
+            long connectIntervalNanos = (long) (1e9 / options.connectRate);
+            long nextConnect = System.nanoTime();
+            for (SimulatedRover rover : rovers) {
+                long wait = nextConnect - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                rover.connect(roverBootstrap, roverAddress, localAddress(rover.index()));
+                nextConnect += connectIntervalNanos;
+            }
+            log("移动站连接已全部发起: %d，运行 %d 秒", rovers.length, options.durationSeconds);
+
+            TimeUnit.SECONDS.sleep(options.durationSeconds);
+
+            for (SimulatedBaseStation base : bases) {
+                base.stop();
+            }
+            TimeUnit.MILLISECONDS.sleep(options.drainMs);
+            runEndNanos = System.nanoTime();
+            for (SimulatedBaseStation base : bases) {
+                if (base.isDisconnected()) {
+                    basesDropped++;
+                }
+                base.close();
+            }
+        } finally {
+            // 事件循环关闭后移动站统计对当前线程可见
+            roverGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            baseGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+        return buildReport();
+    }
+
+    /**
+     * 多个本地回环地址轮流使用，避免全部移动站来自同一IP
+     */
+    private InetSocketAddress localAddress(int index) {
+        if (options.localAddresses <= 1) {
+            return null;
+        }
+        return new InetSocketAddress("127.0.0." + (1 + index % options.localAddresses), 0);
+    }
+
+    private int countConnectedBases() {
+        int connected = 0;
+        for (SimulatedBaseStation base : bases) {
+            if (base.isConnected()) {
+                connected++;
+            }
+        }
+        return connected;
+    }
+
+    private Map<String, Object> buildReport() {
+        LatencyHistogram latency = new LatencyHistogram();
+        List<Double> connectMs = new ArrayList<>();
+        List<Double> joinMs = new ArrayList<>();
+        List<Map<String, Object>> perRover = new ArrayList<>();
+        long expected = 0;
+        long received = 0;
+        long lost = 0;
+        long reordered = 0;
+        long backlog = 0;
+        long stale = 0;
+        int connected = 0;
+        int joined = 0;
+        int closedDuringRun = 0;
+
+        for (SimulatedRover rover : rovers) {
+            latency.add(rover.latency());
+            expected += rover.expected();
+            received += rover.receivedTracked();
+            lost += rover.lost();
+            reordered += rover.reordered();
+            backlog += rover.backlogFrames();
+            stale += rover.stale();
+            if (rover.isConnected()) {
+                connected++;
+                connectMs.add(rover.connectMs());
+            }
+            if (rover.isJoined()) {
+                joined++;
+                joinMs.add(rover.joinMs());
+            }
+            // 测试结束前被服务端关闭的连接（如接纳控制拒绝、超过最大连接数、发送拥塞断开）
+            boolean closed = rover.closedNanos() >= 0 && rover.closedNanos() < runEndNanos;
+            if (closed) {
+                closedDuringRun++;
+            }
+
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("index", rover.index());
+            item.put("localAddress", rover.localAddress());
+            item.put("connected", rover.isConnected());
+            item.put("closedDuringRun", closed);
+            item.put("connectMs", round(rover.connectMs()));
+            item.put("joinMs", round(rover.joinMs()));
+            item.put("frames", rover.frames());
+            item.put("bytes", rover.bytes());
+            item.put("expectedFrames", rover.expected());
+            item.put("lostFrames", rover.lost());
+            item.put("unseenBases", rover.unseenBases());
+            item.put("reordered", rover.reordered());
+            item.put("backlogFrames", rover.backlogFrames());
+            item.put("latencyUs", latencySummary(rover.latency()));
+            perRover.add(item);
+        }
+
+        long epochsSent = 0;
+        long framesSent = 0;
+        long bytesSent = 0;
+        long trackedSent = 0;
+        long skipped = 0;
+        for (SimulatedBaseStation base : bases) {
+            epochsSent += base.epochsSent();
+            framesSent += base.framesSent();
+            bytesSent += base.bytesSent();
+            trackedSent += base.trackedSent();
+            skipped += base.skippedEpochs();
+        }
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("host", options.host);
+        config.put("basePort", options.basePort);
+        config.put("roverPort", options.roverPort);
+        config.put("bases", options.bases);
+        config.put("rovers", options.rovers);
+        config.put("rateHz", 1000.0 / options.periodMs());
+        config.put("durationSeconds", options.durationSeconds);
+        config.put("connectRate", options.connectRate);
+        config.put("localAddresses", options.localAddresses);
+        config.put("source", options.replay.isEmpty() ? "synthetic" : options.replay);
+        if (options.replay.isEmpty()) {
+            config.put("messageTypes", options.messageTypes);
+            config.put("satellites", options.satellites);
+        }
+
+        Map<String, Object> baseSummary = new LinkedHashMap<>();
+        baseSummary.put("connected", countConnectedBases());
+        baseSummary.put("closedDuringRun", basesDropped);
+        baseSummary.put("epochsSent", epochsSent);
+        baseSummary.put("framesSent", framesSent);
+        baseSummary.put("bytesSent", bytesSent);
+        baseSummary.put("trackedFramesSent", trackedSent);
+        baseSummary.put("skippedEpochs", skipped);
+
+        Map<String, Object> roverSummary = new LinkedHashMap<>();
+        roverSummary.put("requested", rovers.length);
+        roverSummary.put("connected", connected);
+        roverSummary.put("joined", joined);
+        roverSummary.put("closedDuringRun", closedDuringRun);
+        roverSummary.put("connectMs", distribution(connectMs));
+        roverSummary.put("joinMs", distribution(joinMs));
+
+        Map<String, Object> delivery = new LinkedHashMap<>();
+        delivery.put("expectedFrames", expected);
+        delivery.put("receivedFrames", received);
+        delivery.put("lostFrames", lost);
+        delivery.put("lossRate", expected == 0 ? 0.0 : (double) lost / expected);
+        delivery.put("reorderedFrames", reordered);
+        delivery.put("backlogFrames", backlog);
+        delivery.put("staleFrames", stale);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("bases", baseSummary);
+        summary.put("rovers", roverSummary);
+        summary.put("delivery", delivery);
+        summary.put("latencyUs", latencySummary(latency));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("generatedAt", LocalDateTime.now().toString());
+        report.put("config", config);
+        report.put("summary", summary);
+        report.put("perRover", perRover);
+        return report;
+    }
+
+    static Map<String, Object> latencySummary(LatencyHistogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.count());
+        summary.put("mean", round(histogram.mean()));
+        summary.put("p50", histogram.percentile(50));
+        summary.put("p90", histogram.percentile(90));
+        summary.put("p99", histogram.percentile(99));
+        summary.put("p999", histogram.percentile(99.9));
+        summary.put("max", histogram.max());
+        return summary;
+    }
+
+    private static Map<String, Object> distribution(List<Double> values) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", values.size());
+        if (values.isEmpty()) {
+            return summary;
+        }
+        double[] sorted = new double[values.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = values.get(i);
+        }
+        Arrays.sort(sorted);
+        summary.put("p50", round(sorted[rank(sorted.length, 50)]));
+        summary.put("p90", round(sorted[rank(sorted.length, 90)]));
+        summary.put("p99", round(sorted[rank(sorted.length, 99)]));
+        summary.put("max", round(sorted[sorted.length - 1]));
+        return summary;
+    }
+
+    private static int rank(int size, double percentile) {
+        return Math.min(size - 1, Math.max(0, (int) Math.ceil(size * percentile / 100.0) - 1));
+    }
+
+    static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.println(LocalDateTime.now() + " " + String.format(format, args));
+    }
+
+    /**
+     * 丢弃服务端发给模拟基站的数据
+     */
+    static final class DiscardInbound extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ReferenceCountUtil.release(msg);
+        }
+
+        @Override
+        public boolean isSharable() {
+            return true;
+        }
+    }
+
+    /**
+     * 命令行参数（--name=value）
+     */
+    static final class Options {
+
+        static final String USAGE = String.join("\n",
+                "用法: java -cp target/benchmarks.jar com.rtk.relay.loadgen.LoadGenerator [选项]",
+                "  --host=127.0.0.1          转发服务地址",
+                "  --base-port=9003          Server1端口（基站）",
+                "  --rover-port=9002         Server2端口（移动站）",
+                "  --bases=1                 模拟基站数（1-4096）",
+                "  --rovers=10               模拟移动站数",
+                "  --rate-hz=1               每个基站每秒发送的历元数",
+                "  --duration=60             移动站全部发起连接后的运行时间（秒）",
+                "  --drain-ms=2000           基站停止后等待在途数据的时间（毫秒）",
+                "  --connect-rate=10         移动站每秒发起的连接数",
+                "  --local-addresses=1       移动站轮流使用的本地回环地址数（127.0.0.1起）",
+                "  --message-types=1077,1087,1097,1127  合成数据的MSM7消息类型",
+                "  --satellites=10           合成数据每个系统的卫星数",
+                "  --replay=                 回放录制的RTCM 3文件（代替合成数据）",
+                "  --base-threads=1          基站事件循环线程数",
+                "  --rover-threads=0         移动站事件循环线程数（0为Netty默认）",
+                "  --report=loadgen-report.json  报告文件");
+
+        String host = "127.0.0.1";
+        int basePort = 9003;
+        int roverPort = 9002;
+        int bases = 1;
+        int rovers = 10;
+        double rateHz = 1;
+        int durationSeconds = 60;
+        long drainMs = 2000;
+        double connectRate = 10;
+        int localAddresses = 1;
+        int[] messageTypes = {1077, 1087, 1097, 1127};
+        int satellites = 10;
+        String replay = "";
+        int baseThreads = 1;
+        int roverThreads = 0;
+        String report = "loadgen-report.json";
+        boolean help;
+
+        long periodMs() {
+            return Math.max(1, Math.round(1000 / rateHz));
+        }
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if ("--help".equals(arg) || "-h".equals(arg)) {
+                    options.help = true;
+                    continue;
+                }
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("无法识别的参数: " + arg);
+                }
+                String name = arg.substring(2, eq);
+                String value = arg.substring(eq + 1);
+                try {
+                    options.set(name, value);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("参数值无效: " + arg);
+                }
+            }
+            if (options.bases < 1 || options.bases > 4096) {
+                throw new IllegalArgumentException("基站数应在1到4096之间（参考站ID为12位）");
+            }
+            if (options.rovers < 0 || options.rateHz <= 0 || options.connectRate <= 0
+                    || options.localAddresses < 1 || options.localAddresses > 254) {
+                throw new IllegalArgumentException("参数值超出范围");
+            }
+            return options;
+        }
+
+        private void set(String name, String value) {
+            switch (name) {
+                case "host": host = value; break;
+                case "base-port": basePort = Integer.parseInt(value); break;
+                case "rover-port": roverPort = Integer.parseInt(value); break;
+                case "bases": bases = Integer.parseInt(value); break;
+                case "rovers": rovers = Integer.parseInt(value); break;
+                case "rate-hz": rateHz = Double.parseDouble(value); break;
+                case "duration": durationSeconds = Integer.parseInt(value); break;
+                case "drain-ms": drainMs = Long.parseLong(value); break;
+                case "connect-rate": connectRate = Double.parseDouble(value); break;
+                case "local-addresses": localAddresses = Integer.parseInt(value); break;
+                case "message-types":
+                    String[] parts = value.split(",");
+                    messageTypes = new int[parts.length];
+                    for (int i = 0; i < parts.length; i++) {
+                        messageTypes[i] = Integer.parseInt(parts[i].trim());
+                    }
+                    break;
+                case "satellites": satellites = Integer.parseInt(value); break;
+                case "replay": replay = value; break;
+                case "base-threads": baseThreads = Integer.parseInt(value); break;
+                case "rover-threads": roverThreads = Integer.parseInt(value); break;
+                case "report": report = value; break;
+                default:
+                    throw new IllegalArgumentException("未知参数: --" + name);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.rtk.relay.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 转发服务进程资源采样
+ * 从监控接口 GET /api/v1/system/runtime 读取JVM内部指标（堆、直接内存、线程、文件句柄、ByteBuf泄漏报告、
+ * 缓冲区大小），并在指定进程号时从 /proc 读取常驻内存、线程数和文件句柄数（不依赖Web接口，Linux有效）。
+ * 采样失败的来源在结果中缺失，不中断测试。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+final class RuntimeProbe {
+
+    private static final int TIMEOUT_MS = 5000;
+
+    private final String monitorUrl;
+    private final int pid;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private int failures;
+
+    /**
+     * 构造函数
+     *
+     * @param monitorUrl 监控接口地址，空字符串为不使用
+     * @param pid 转发服务进程号，0为不使用
+     */
+    RuntimeProbe(String monitorUrl, int pid) {
+        this.monitorUrl = monitorUrl;
+        this.pid = pid;
+    }
+
+    /**
+     * 采样一次
+     *
+     * @return 指标名到数值
+     */
+    Map<String, Object> sample() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (!monitorUrl.isEmpty()) {
+            try {
+                values.putAll(fetch());
+            } catch (IOException | RuntimeException e) {
+                failures++;
+            }
+        }
+        if (pid > 0) {
+            try {
+                values.putAll(readProc());
+            } catch (IOException | RuntimeException e) {
+                failures++;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 采样失败次数
+     */
+    int failures() {
+        return failures;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> fetch() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(monitorUrl).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MS);
+        connection.setReadTimeout(TIMEOUT_MS);
+        try (InputStream in = connection.getInputStream()) {
+            Map<String, Object> response = mapper.readValue(in, Map.class);
+            Object data = response.get("data");
+            if (!(data instanceof Map)) {
+                throw new IOException("监控接口返回无数据: " + response.get("message"));
+            }
+            return (Map<String, Object>) data;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private Map<String, Object> readProc() throws IOException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        List<String> status = Files.readAllLines(Paths.get("/proc", String.valueOf(pid), "status"),
+                StandardCharsets.UTF_8);
+        for (String line : status) {
+            if (line.startsWith("VmRSS:")) {
+                values.put("rssKb", Long.parseLong(line.replaceAll("\\D", "")));
+            } else if (line.startsWith("Threads:")) {
+                values.put("procThreads", Long.parseLong(line.replaceAll("\\D", "")));
+            }
+        }
+        String[] fds = new File("/proc/" + pid + "/fd").list();
+        if (fds != null) {
+            values.put("procFds", fds.length);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,219 @@
+package com.rtk.relay.loadgen;
+
+import com.rtk.relay.rtcm.Rtcm3;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 模拟基站
+ * 连接Server1后在自己的事件循环上按固定周期发送历元，每个历元的MSM帧写入本站ID和历元序号
+ * （历元时间 = 序号 × 周期），并在环形表中记录发送时间和累计发送的MSM帧数，供移动站计算延迟和丢失。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+final class SimulatedBaseStation {
+
+    /**
+     * 一周的毫秒数（GPS历元时间范围）
+     */
+    private static final long WEEK_MS = 7L * 24 * 3600 * 1000;
+
+    /**
+     * 发送记录环形表大小（历元数）
+     */
+    private static final int RING_SIZE = 4096;
+    private static final int RING_MASK = RING_SIZE - 1;
+
+    private final int stationId;
+    private final List<byte[][]> epochs;
+    private final long periodMs;
+
+    /**
+     * 发送记录：历元序号、发送时间（纳秒）、该历元之前累计发送的MSM帧数、该历元的MSM帧数
+     */
+    private final AtomicLongArray ringSeq = new AtomicLongArray(RING_SIZE);
+    private final AtomicLongArray ringSendNanos = new AtomicLongArray(RING_SIZE);
+    private final AtomicLongArray ringTrackedBefore = new AtomicLongArray(RING_SIZE);
+    private final AtomicLongArray ringTracked = new AtomicLongArray(RING_SIZE);
+
+    private Channel channel;
+    private ScheduledFuture<?> task;
+    private int cursor;
+    private long seq;
+
+    /**
+     * 以下计数只在事件循环线程上更新，停止后读取
+     */
+    private volatile long trackedSent;
+    private volatile long epochsSent;
+    private volatile long framesSent;
+    private volatile long bytesSent;
+    private volatile long skippedEpochs;
+    private volatile boolean disconnected;
+
+    /**
+     * 构造函数
+     *
+     * @param stationId 参考站ID（即基站序号，0-4095）
+     * @param epochs 历元模板
+     * @param startEpoch 从第几个模板开始发送（使各基站的数据错开）
+     * @param periodMs 发送周期（毫秒）
+     */
+    SimulatedBaseStation(int stationId, List<byte[][]> epochs, int startEpoch, long periodMs) {
+        this.stationId = stationId;
+        this.epochs = epochs;
+        this.cursor = startEpoch % epochs.size();
+        this.periodMs = periodMs;
+        for (int i = 0; i < RING_SIZE; i++) {
+            ringSeq.set(i, -1);
+        }
+    }
+
+    /**
+     * 连接Server1并开始周期发送
+     *
+     * @param bootstrap 客户端引导
+     * @param address Server1地址
+     * @param initialDelayMs 首个历元的延迟（各基站错开发送时刻）
+     * @return 连接结果
+     */
+    ChannelFuture start(Bootstrap bootstrap, SocketAddress address, long initialDelayMs) {
+        ChannelFuture future = bootstrap.connect(address);
+        future.addListener(f -> {
+            if (!f.isSuccess()) {
+                disconnected = true;
+                return;
+            }
+            channel = future.channel();
+            channel.closeFuture().addListener(c -> disconnected = true);
+            task = channel.eventLoop().scheduleAtFixedRate(this::sendEpoch, initialDelayMs, periodMs,
+                    TimeUnit.MILLISECONDS);
+        });
+        return future;
+    }
+
+    /**
+     * 停止发送（等待事件循环上正在进行的发送完成），连接保持到 {@link #close()}
+     */
+    void stop() {
+        if (channel != null) {
+            channel.eventLoop().submit(() -> task.cancel(false)).syncUninterruptibly();
+        }
+    }
+
+    void close() {
+        if (channel != null) {
+            channel.close().syncUninterruptibly();
+        }
+    }
+
+    /**
+     * 发送一个历元，通道不可写时跳过（不占用序号，不计入丢失）
+     */
+    private void sendEpoch() {
+        if (!channel.isActive()) {
+            return;
+        }
+        if (!channel.isWritable()) {
+            skippedEpochs++;
+            return;
+        }
+
+        byte[][] epoch = epochs.get(cursor);
+        cursor = (cursor + 1) % epochs.size();
+        int epochTime = (int) ((seq * periodMs) % WEEK_MS);
+        int idx = (int) (seq & RING_MASK);
+        long tracked = 0;
+        long bytes = 0;
+
+        ringSendNanos.set(idx, System.nanoTime());
+        ringTrackedBefore.set(idx, trackedSent);
+        for (byte[] template : epoch) {
+            byte[] frame = template;
+            if (Rtcm3.isMsm(Rtcm3.messageType(template))) {
+                frame = EpochTemplates.stamp(template, stationId, epochTime);
+                tracked++;
+            }
+            bytes += frame.length;
+            channel.write(Unpooled.wrappedBuffer(frame), channel.voidPromise());
+        }
+        ringTracked.set(idx, tracked);
+        ringSeq.set(idx, seq);
+        channel.flush();
+
+        seq++;
+        trackedSent += tracked;
+        epochsSent++;
+        framesSent += epoch.length;
+        bytesSent += bytes;
+    }
+
+    /**
+     * 由MSM帧的历元时间换算历元序号
+     *
+     * @param epochTime 历元时间
+     * @return 历元序号
+     */
+    long seqOf(int epochTime) {
+        return epochTime / periodMs;
+    }
+
+    /**
+     * 获取历元的发送时间
+     *
+     * @param seq 历元序号
+     * @return 发送时间（纳秒），已移出环形表时返回-1
+     */
+    long sendNanos(long seq) {
+        int idx = (int) (seq & RING_MASK);
+        return ringSeq.get(idx) == seq ? ringSendNanos.get(idx) : -1;
+    }
+
+    /**
+     * 获取截至该历元（含）累计发送的MSM帧数
+     *
+     * @param seq 历元序号
+     * @return 累计帧数，已移出环形表时返回-1
+     */
+    long trackedThrough(long seq) {
+        int idx = (int) (seq & RING_MASK);
+        return ringSeq.get(idx) == seq ? ringTrackedBefore.get(idx) + ringTracked.get(idx) : -1;
+    }
+
+    long trackedSent() {
+        return trackedSent;
+    }
+
+    long epochsSent() {
+        return epochsSent;
+    }
+
+    long framesSent() {
+        return framesSent;
+    }
+
+    long bytesSent() {
+        return bytesSent;
+    }
+
+    long skippedEpochs() {
+        return skippedEpochs;
+    }
+
+    boolean isConnected() {
+        return channel != null;
+    }
+
+    boolean isDisconnected() {
+        return disconnected;
+    }
+}
@@ -0,0 +1,294 @@
+package com.rtk.relay.loadgen;
+
+import com.rtk.relay.netty.Rtcm3FrameDecoder;
+import com.rtk.relay.rtcm.Rtcm3;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.util.ReferenceCountUtil;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Arrays;
+
+/**
+ * 模拟移动站
+ * 连接Server2接收转发数据，按MSM帧中的参考站ID和历元时间找到来源基站的发送记录，统计延迟、丢失和乱序。
+ * 连接前由基站发出的数据（转发服务为新移动站补发的缓冲数据）只计数，不参与统计。
+ * 统计数据只在本连接的事件循环线程上更新，事件循环关闭后再读取。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+final class SimulatedRover extends ChannelInboundHandlerAdapter {
+
+    private final int index;
+    private final SimulatedBaseStation[] bases;
+    private final byte[] header = new byte[Rtcm3.HEADER_LENGTH + 8];
+
+    /**
+     * 每个基站：开始统计的历元序号（不含）、此前累计的MSM帧数、最后收到的历元序号、收到的帧数
+     */
+    private final long[] startSeq;
+    private final long[] startTracked;
+    private final long[] lastSeq;
+    private final long[] received;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private String localAddress;
+    private long connectStartNanos;
+    private long connectedNanos = -1;
+    private long firstLiveNanos = -1;
+    private long closedNanos = -1;
+    private long frames;
+    private long bytes;
+    private long backlogFrames;
+    private long untrackedFrames;
+    private long reordered;
+    private long stale;
+
+    /**
+     * 构造函数
+     *
+     * @param index 移动站序号
+     * @param bases 模拟基站（下标即参考站ID）
+     */
+    SimulatedRover(int index, SimulatedBaseStation[] bases) {
+        this.index = index;
+        this.bases = bases;
+        this.startSeq = new long[bases.length];
+        this.startTracked = new long[bases.length];
+        this.lastSeq = new long[bases.length];
+        this.received = new long[bases.length];
+        Arrays.fill(startSeq, -1);
+    }
+
+    /**
+     * 连接Server2
+     *
+     * @param bootstrap 客户端引导（不含处理器）
+     * @param remote Server2地址
+     * @param local 本地地址（用于在多个回环地址间分散，null为系统选择）
+     * @return 连接结果
+     */
+    ChannelFuture connect(Bootstrap bootstrap, SocketAddress remote, InetSocketAddress local) {
+        localAddress = local == null ? null : local.getAddress().getHostAddress();
+        connectStartNanos = System.nanoTime();
+        ChannelFuture future = bootstrap.clone()
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new Rtcm3FrameDecoder(), SimulatedRover.this);
+                    }
+                })
+                .connect(remote, local);
+        future.addListener(f -> {
+            if (f.isSuccess()) {
+                connectedNanos = System.nanoTime();
+                future.channel().closeFuture().addListener(c -> closedNanos = System.nanoTime());
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        try {
+            if (msg instanceof ByteBuf) {
+                onData((ByteBuf) msg);
+            }
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        ctx.close();
+    }
+
+    private void onData(ByteBuf buf) {
+        long now = System.nanoTime();
+        int length = buf.readableBytes();
+        bytes += length;
+        // 解码器输出的完整帧以前导字节开头且长度与帧头一致，其他为心跳等非RTCM数据
+        if (length < header.length + Rtcm3.CRC_LENGTH || buf.getUnsignedByte(buf.readerIndex()) != Rtcm3.PREAMBLE) {
+            return;
+        }
+        buf.getBytes(buf.readerIndex(), header);
+        if (Rtcm3.HEADER_LENGTH + Rtcm3.payloadLength(header) + Rtcm3.CRC_LENGTH != length) {
+            return;
+        }
+        frames++;
+
+        int type = Rtcm3.getBitU(header, Rtcm3.HEADER_LENGTH * 8, 12);
+        int station = Rtcm3.getBitU(header, EpochTemplates.STATION_ID_BIT, 12);
+        if (!Rtcm3.isMsm(type) || station >= bases.length) {
+            untrackedFrames++;
+            return;
+        }
+        SimulatedBaseStation base = bases[station];
+        long seq = base.seqOf(Rtcm3.getBitU(header, EpochTemplates.EPOCH_TIME_BIT, 30));
+        long sentNanos = base.sendNanos(seq);
+        if (sentNanos < 0) {
+            stale++;
+            return;
+        }
+        if (sentNanos < connectStartNanos) {
+            backlogFrames++;
+            return;
+        }
+
+        if (firstLiveNanos < 0) {
+            firstLiveNanos = now;
+        }
+        latency.record((now - sentNanos) / 1000);
+
+        if (startSeq[station] < 0) {
+            // 首个历元可能只收到一部分，从下一个历元开始统计丢失
+            long tracked = base.trackedThrough(seq);
+            if (tracked >= 0) {
+                startSeq[station] = seq;
+                startTracked[station] = tracked;
+                lastSeq[station] = seq;
+            }
+            return;
+        }
+        if (seq <= startSeq[station]) {
+            return;
+        }
+        if (seq < lastSeq[station]) {
+            reordered++;
+        } else {
+            lastSeq[station] = seq;
+        }
+        received[station]++;
+    }
+
+    /**
+     * 计算应收而未收到的MSM帧数（基站停止发送且等待在途数据之后调用）
+     *
+     * @return 丢失帧数
+     */
+    long lost() {
+        long lost = 0;
+        for (int i = 0; i < bases.length; i++) {
+            if (startSeq[i] >= 0) {
+                lost += Math.max(0, bases[i].trackedSent() - startTracked[i] - received[i]);
+            }
+        }
+        return lost;
+    }
+
+    /**
+     * 计算应收的MSM帧数
+     *
+     * @return 应收帧数
+     */
+    long expected() {
+        long expected = 0;
+        for (int i = 0; i < bases.length; i++) {
+            if (startSeq[i] >= 0) {
+                expected += bases[i].trackedSent() - startTracked[i];
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * 计算统计范围内收到的MSM帧数
+     *
+     * @return 帧数
+     */
+    long receivedTracked() {
+        long total = 0;
+        for (long count : received) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * 从未收到过数据的基站数（移动站在线期间这些基站的数据全部丢失）
+     *
+     * @return 基站数
+     */
+    int unseenBases() {
+        int unseen = 0;
+        for (int i = 0; i < bases.length; i++) {
+            if (startSeq[i] < 0 && bases[i].trackedSent() > 0) {
+                unseen++;
+            }
+        }
+        return unseen;
+    }
+
+    int index() {
+        return index;
+    }
+
+    String localAddress() {
+        return localAddress;
+    }
+
+    boolean isConnected() {
+        return connectedNanos >= 0;
+    }
+
+    boolean isJoined() {
+        return firstLiveNanos >= 0;
+    }
+
+    /**
+     * 连接结束时间（纳秒），未断开返回-1
+     */
+    long closedNanos() {
+        return closedNanos;
+    }
+
+    /**
+     * TCP连接建立耗时（毫秒），未连接返回-1
+     */
+    double connectMs() {
+        return connectedNanos < 0 ? -1 : (connectedNanos - connectStartNanos) / 1e6;
+    }
+
+    /**
+     * 从发起连接到收到第一帧实时数据的耗时（毫秒），未收到返回-1
+     */
+    double joinMs() {
+        return firstLiveNanos < 0 ? -1 : (firstLiveNanos - connectStartNanos) / 1e6;
+    }
+
+    LatencyHistogram latency() {
+        return latency;
+    }
+
+    long frames() {
+        return frames;
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    long backlogFrames() {
+        return backlogFrames;
+    }
+
+    long untrackedFrames() {
+        return untrackedFrames;
+    }
+
+    long reordered() {
+        return reordered;
+    }
+
+    long stale() {
+        return stale;
+    }
+}
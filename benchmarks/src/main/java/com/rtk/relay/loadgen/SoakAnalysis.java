@@ -0,0 +1,166 @@
+package com.rtk.relay.loadgen;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 浸泡测试样本分析
+ * 增长速度用预热期之后样本的最小二乘斜率（每小时），增量用预热期之后第一个与最后一个样本之差；
+ * 样本不足（少于两个或缺少该指标）的检查项标记为跳过，不影响结论。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+final class SoakAnalysis {
+
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final List<Map<String, Object>> samples;
+    private final List<Map<String, Object>> steady = new ArrayList<>();
+
+    SoakAnalysis(List<Map<String, Object>> samples, int warmupSeconds) {
+        this.samples = samples;
+        for (Map<String, Object> sample : samples) {
+            if (((Number) sample.get("elapsedSeconds")).doubleValue() >= warmupSeconds) {
+                steady.add(sample);
+            }
+        }
+    }
+
+    /**
+     * 样本中是否有该指标
+     */
+    boolean has(String key) {
+        for (Map<String, Object> sample : samples) {
+            if (sample.get(key) instanceof Number) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 预热期之后各数值指标的增长速度（原始单位/小时）
+     */
+    Map<String, Object> trends() {
+        Map<String, Object> trends = new LinkedHashMap<>();
+        if (steady.isEmpty()) {
+            return trends;
+        }
+        for (Map.Entry<String, Object> entry : steady.get(steady.size() - 1).entrySet()) {
+            String key = entry.getKey();
+            if (entry.getValue() instanceof Number && !"elapsedSeconds".equals(key)) {
+                double slope = slopePerHour(key);
+                if (!Double.isNaN(slope)) {
+                    trends.put(key, LoadGenerator.round(slope));
+                }
+            }
+        }
+        return trends;
+    }
+
+    /**
+     * 检查指标的增长速度（字节指标按MB/小时，rssKb按MB/小时）
+     */
+    void checkSlope(List<Map<String, Object>> checks, String name, String key, double limitMbPerHour) {
+        double slope = slopePerHour(key);
+        double scale = "rssKb".equals(key) ? 1024.0 : BYTES_PER_MB;
+        add(checks, name, key, Double.isNaN(slope) ? Double.NaN : slope / scale, limitMbPerHour, "MB/小时");
+    }
+
+    void checkRssSlope(List<Map<String, Object>> checks, double limitMbPerHour) {
+        checkSlope(checks, "rssGrowth", "rssKb", limitMbPerHour);
+    }
+
+    /**
+     * 检查指标在预热期之后的增量
+     */
+    void checkDelta(List<Map<String, Object>> checks, String name, String key, long limit, String unit) {
+        List<double[]> points = series(key);
+        double delta = points.size() < 2 ? Double.NaN : points.get(points.size() - 1)[1] - points.get(0)[1];
+        add(checks, name, key, delta, limit, unit);
+    }
+
+    /**
+     * 检查延迟漂移：最后三分之一窗口的p99均值减去最初三分之一窗口的p99均值
+     */
+    void checkLatencyDrift(List<Map<String, Object>> checks, double limitMs) {
+        List<Double> p99 = new ArrayList<>();
+        for (Map<String, Object> sample : steady) {
+            Object latency = sample.get("latencyUs");
+            if (latency instanceof Map && ((Number) ((Map<?, ?>) latency).get("count")).longValue() > 0) {
+                p99.add(((Number) ((Map<?, ?>) latency).get("p99")).doubleValue());
+            }
+        }
+        double drift = Double.NaN;
+        if (p99.size() >= 3) {
+            int third = p99.size() / 3;
+            drift = (mean(p99.subList(p99.size() - third, p99.size())) - mean(p99.subList(0, third))) / 1000.0;
+        }
+        add(checks, "latencyDrift", "latencyUs.p99", drift, limitMs, "毫秒");
+    }
+
+    private static void add(List<Map<String, Object>> checks, String name, String metric,
+                            double value, double limit, String unit) {
+        Map<String, Object> check = new LinkedHashMap<>();
+        check.put("name", name);
+        check.put("metric", metric);
+        check.put("limit", limit);
+        check.put("unit", unit);
+        if (Double.isNaN(value)) {
+            check.put("passed", null);
+            check.put("note", "样本不足，跳过");
+        } else {
+            check.put("value", LoadGenerator.round(value));
+            check.put("passed", value <= limit);
+        }
+        checks.add(check);
+    }
+
+    /**
+     * 预热期之后的 (秒, 值) 序列；累计型的泄漏报告次数使用全部样本
+     */
+    private List<double[]> series(String key) {
+        List<double[]> points = new ArrayList<>();
+        for (Map<String, Object> sample : "leakReports".equals(key) ? samples : steady) {
+            Object value = sample.get(key);
+            if (value instanceof Number) {
+                points.add(new double[]{((Number) sample.get("elapsedSeconds")).doubleValue(),
+                        ((Number) value).doubleValue()});
+            }
+        }
+        return points;
+    }
+
+    private double slopePerHour(String key) {
+        List<double[]> points = series(key);
+        if (points.size() < 2) {
+            return Double.NaN;
+        }
+        double meanX = 0;
+        double meanY = 0;
+        for (double[] point : points) {
+            meanX += point[0];
+            meanY += point[1];
+        }
+        meanX /= points.size();
+        meanY /= points.size();
+        double covariance = 0;
+        double variance = 0;
+        for (double[] point : points) {
+            covariance += (point[0] - meanX) * (point[1] - meanY);
+            variance += (point[0] - meanX) * (point[0] - meanX);
+        }
+        return variance == 0 ? Double.NaN : covariance / variance * 3600;
+    }
+
+    private static double mean(List<Double> values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.size();
+    }
+}
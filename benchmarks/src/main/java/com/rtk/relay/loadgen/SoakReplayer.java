@@ -0,0 +1,612 @@
+package com.rtk.relay.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rtk.relay.netty.Rtcm3FrameDecoder;
+import com.rtk.relay.rtcm.Rtcm3;
+import com.rtk.relay.rtcm.RtcmCorpus;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.ReferenceCountUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 语料回放与长时间运行（浸泡）测试
+ * 按录制的时间间隔（或 --speed 倍速）把 {@link RtcmCorpus} 中每个基站的数据发送到Server1，
+ * 语料放完后循环，直到 --duration；同时由若干移动站连接Server2接收，统计端到端延迟。
+ * 每隔 --sample-interval 秒通过 {@link RuntimeProbe} 采样转发服务的堆内存、直接内存、线程数、
+ * 文件句柄数、ByteBuf泄漏报告、数据缓冲区和每日消息计数缓存大小，运行结束后对预热期之后的样本
+ * 做线性回归，增长速度超过阈值、出现泄漏报告或延迟逐渐变大时判定失败（退出码1）。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public final class SoakReplayer {
+
+    /**
+     * 移动站报文头缓冲长度（MSM历元时间字段之前的字节）
+     */
+    private static final int KEY_HEADER_LENGTH = Rtcm3.HEADER_LENGTH + 8;
+
+    /**
+     * 发送记录保留时间，以及两次循环之间的间隔
+     */
+    private static final long SEND_RECORD_TTL_NANOS = TimeUnit.SECONDS.toNanos(120);
+    private static final long LOOP_GAP_MICROS = 1_000_000;
+
+    private final Options options;
+    private final Bootstrap baseBootstrap;
+    private final Bootstrap roverBootstrap;
+    private final InetSocketAddress baseAddress;
+    private final InetSocketAddress roverAddress;
+    private final RuntimeProbe probe;
+
+    /**
+     * MSM帧（按消息类型、参考站ID、历元时间、CRC）的最近发送时间，移动站据此计算延迟
+     */
+    private final Map<Long, Long> sendNanos = new ConcurrentHashMap<>();
+
+    /**
+     * 各语料基站的连接，只在发送线程上访问
+     */
+    private final List<Channel> stationChannels = new ArrayList<>();
+
+    private final Object latencyLock = new Object();
+    private LatencyHistogram latencyWindow = new LatencyHistogram();
+    private final LatencyHistogram latencyTotal = new LatencyHistogram();
+
+    /**
+     * 以下计数由发送线程更新
+     */
+    private volatile long framesSent;
+    private volatile long bytesSent;
+    private volatile long skippedFrames;
+    private volatile long loops;
+    private volatile long stationReconnects;
+    private volatile long connectFailures;
+
+    private final AtomicLong roverFrames = new AtomicLong();
+    private final AtomicLong roverReconnects = new AtomicLong();
+    private final List<Map<String, Object>> samples = new ArrayList<>();
+    private volatile boolean stopping;
+    private long startNanos;
+
+    private SoakReplayer(Options options, EventLoopGroup baseGroup, EventLoopGroup roverGroup) {
+        this.options = options;
+        this.baseBootstrap = new Bootstrap()
+                .group(baseGroup)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(new LoadGenerator.DiscardInbound());
+        this.roverBootstrap = new Bootstrap()
+                .group(roverGroup)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true);
+        this.baseAddress = new InetSocketAddress(options.host, options.basePort);
+        this.roverAddress = new InetSocketAddress(options.host, options.roverPort);
+        this.probe = new RuntimeProbe(options.monitorUrl, options.pid);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println();
+            System.err.println(Options.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help) {
+            System.out.println(Options.USAGE);
+            return;
+        }
+
+        EventLoopGroup baseGroup = new NioEventLoopGroup(1);
+        EventLoopGroup roverGroup = new NioEventLoopGroup(options.roverThreads);
+        Map<String, Object> report;
+        try {
+            report = new SoakReplayer(options, baseGroup, roverGroup).run();
+        } finally {
+            roverGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            baseGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(new File(options.report), report);
+        System.out.println(mapper.writeValueAsString(report.get("checks")));
+        System.out.println("结论: " + report.get("verdict") + "，报告已写入: " + new File(options.report).getAbsolutePath());
+        System.exit("PASS".equals(report.get("verdict")) ? 0 : 1);
+    }
+
+    /**
+     * 连接移动站 → 发送线程开始回放 → 定期采样 → 到时停止 → 等待在途数据 → 汇总
+     */
+    private Map<String, Object> run() throws InterruptedException {
+        List<Rover> rovers = new ArrayList<>();
+        for (int i = 0; i < options.rovers; i++) {
+            Rover rover = new Rover();
+            rovers.add(rover);
+            rover.connect();
+        }
+        log("移动站连接已发起: %d", options.rovers);
+
+        startNanos = System.nanoTime();
+        long deadline = options.durationSeconds > 0
+                ? startNanos + TimeUnit.SECONDS.toNanos(options.durationSeconds) : Long.MAX_VALUE;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(options.sampleIntervalSeconds);
+        Thread sender = new Thread(this::replay, "soak-sender");
+        sender.setDaemon(true);
+        sender.start();
+
+        takeSample();
+        long nextSample = startNanos + intervalNanos;
+        while (sender.isAlive()) {
+            long now = System.nanoTime();
+            if (now >= deadline) {
+                break;
+            }
+            if (now >= nextSample) {
+                takeSample();
+                nextSample += intervalNanos;
+                continue;
+            }
+            sender.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(Math.min(nextSample, deadline) - now)));
+        }
+        stopping = true;
+        sender.join();
+        TimeUnit.MILLISECONDS.sleep(options.drainMs);
+        takeSample();
+
+        for (Channel channel : stationChannels) {
+            if (channel != null) {
+                channel.close().syncUninterruptibly();
+            }
+        }
+        for (Rover rover : rovers) {
+            rover.close();
+        }
+        return buildReport();
+    }
+
+    /**
+     * 发送线程：按语料时间发送，放完后循环（--duration为0时只放一遍）
+     */
+    private void replay() {
+        Path corpus = Paths.get(options.corpus);
+        long loopBaseMicros = 0;
+        long nextReconnect = options.reconnectSeconds > 0
+                ? System.nanoTime() + TimeUnit.SECONDS.toNanos(options.reconnectSeconds) : Long.MAX_VALUE;
+        try {
+            while (!stopping) {
+                long lastOffset = 0;
+                try (RtcmCorpus.Reader reader = RtcmCorpus.open(corpus)) {
+                    RtcmCorpus.Frame frame;
+                    while (!stopping && (frame = reader.next()) != null) {
+                        long due = startNanos + (long) ((loopBaseMicros + frame.getOffsetMicros()) * 1000 / options.speed);
+                        long wait;
+                        while (!stopping && (wait = due - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(Math.min(wait, TimeUnit.MILLISECONDS.toNanos(100)));
+                        }
+                        if (System.nanoTime() >= nextReconnect) {
+                            reconnectStations();
+                            nextReconnect += TimeUnit.SECONDS.toNanos(options.reconnectSeconds);
+                        }
+                        send(frame);
+                        lastOffset = frame.getOffsetMicros();
+                    }
+                }
+                loops++;
+                if (options.durationSeconds == 0) {
+                    break;
+                }
+                loopBaseMicros += lastOffset + LOOP_GAP_MICROS;
+            }
+        } catch (IOException e) {
+            log("读取语料失败: %s", e.getMessage());
+        }
+    }
+
+    private void send(RtcmCorpus.Frame frame) {
+        Channel channel = stationChannel(frame.getStation());
+        if (channel == null) {
+            return;
+        }
+        if (!channel.isWritable()) {
+            skippedFrames++;
+            return;
+        }
+        byte[] data = frame.getData();
+        int type = Rtcm3.messageType(data);
+        if (Rtcm3.isMsm(type)) {
+            sendNanos.put(frameKey(data, data.length, readCrc(data, data.length - Rtcm3.CRC_LENGTH)), System.nanoTime());
+        }
+        channel.writeAndFlush(Unpooled.wrappedBuffer(data), channel.voidPromise());
+        framesSent++;
+        bytesSent += data.length;
+    }
+
+    /**
+     * 获取语料基站对应的连接，未连接或已断开时重新连接
+     */
+    private Channel stationChannel(int station) {
+        while (stationChannels.size() <= station) {
+            stationChannels.add(null);
+        }
+        Channel channel = stationChannels.get(station);
+        if (channel != null && channel.isActive()) {
+            return channel;
+        }
+        ChannelFuture future = baseBootstrap.connect(baseAddress).awaitUninterruptibly();
+        if (!future.isSuccess()) {
+            connectFailures++;
+            stationChannels.set(station, null);
+            return null;
+        }
+        if (channel != null) {
+            stationReconnects++;
+        }
+        stationChannels.set(station, future.channel());
+        return future.channel();
+    }
+
+    /**
+     * 关闭全部基站连接，下一帧到来时重新连接（检查连接建立和断开路径上的资源回收）
+     */
+    private void reconnectStations() {
+        for (Channel channel : stationChannels) {
+            if (channel != null) {
+                channel.close().syncUninterruptibly();
+            }
+        }
+    }
+
+    private void takeSample() {
+        long now = System.nanoTime();
+        LatencyHistogram window;
+        synchronized (latencyLock) {
+            window = latencyWindow;
+            latencyWindow = new LatencyHistogram();
+            latencyTotal.add(window);
+        }
+        sendNanos.values().removeIf(sent -> now - sent > SEND_RECORD_TTL_NANOS);
+
+        Map<String, Object> sample = new LinkedHashMap<>();
+        sample.put("elapsedSeconds", LoadGenerator.round((now - startNanos) / 1e9));
+        sample.put("framesSent", framesSent);
+        sample.put("bytesSent", bytesSent);
+        sample.put("skippedFrames", skippedFrames);
+        sample.put("roverFrames", roverFrames.get());
+        sample.put("latencyUs", LoadGenerator.latencySummary(window));
+        sample.putAll(probe.sample());
+        samples.add(sample);
+        log("采样 %s", sample);
+    }
+
+    private void recordLatency(long micros) {
+        synchronized (latencyLock) {
+            latencyWindow.record(micros);
+        }
+    }
+
+    private Map<String, Object> buildReport() {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("corpus", options.corpus);
+        config.put("host", options.host);
+        config.put("basePort", options.basePort);
+        config.put("roverPort", options.roverPort);
+        config.put("rovers", options.rovers);
+        config.put("speed", options.speed);
+        config.put("durationSeconds", options.durationSeconds);
+        config.put("reconnectSeconds", options.reconnectSeconds);
+        config.put("sampleIntervalSeconds", options.sampleIntervalSeconds);
+        config.put("warmupSeconds", options.warmupSeconds);
+        config.put("monitorUrl", options.monitorUrl);
+        config.put("pid", options.pid);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("elapsedSeconds", LoadGenerator.round((System.nanoTime() - startNanos) / 1e9));
+        summary.put("loops", loops);
+        summary.put("stations", stationChannels.size());
+        summary.put("framesSent", framesSent);
+        summary.put("bytesSent", bytesSent);
+        summary.put("skippedFrames", skippedFrames);
+        summary.put("stationReconnects", stationReconnects);
+        summary.put("connectFailures", connectFailures);
+        summary.put("roverFrames", roverFrames.get());
+        summary.put("roverReconnects", roverReconnects.get());
+        summary.put("probeFailures", probe.failures());
+        synchronized (latencyLock) {
+            summary.put("latencyUs", LoadGenerator.latencySummary(latencyTotal));
+        }
+
+        SoakAnalysis analysis = new SoakAnalysis(samples, options.warmupSeconds);
+        List<Map<String, Object>> checks = new ArrayList<>();
+        analysis.checkDelta(checks, "byteBufLeakReports", "leakReports", 0, "次");
+        analysis.checkSlope(checks, "heapAfterGcGrowth", "heapAfterGc", options.maxHeapGrowthMbPerHour);
+        analysis.checkSlope(checks, "directMemoryGrowth", "directMemoryUsed", options.maxDirectGrowthMbPerHour);
+        analysis.checkSlope(checks, "nettyDirectMemoryGrowth", "nettyDirectMemoryUsed", options.maxDirectGrowthMbPerHour);
+        analysis.checkSlope(checks, "dataBufferGrowth", "dataBufferBytes", options.maxBufferGrowthMbPerHour);
+        analysis.checkDelta(checks, "dailyMessageCountGrowth", "dailyMessageCountEntries", options.maxEntryGrowth, "条");
+        analysis.checkDelta(checks, "threadGrowth", analysis.has("threadCount") ? "threadCount" : "procThreads",
+                options.maxThreadGrowth, "个");
+        analysis.checkDelta(checks, "fdGrowth", analysis.has("openFileDescriptors") ? "openFileDescriptors" : "procFds",
+                options.maxFdGrowth, "个");
+        analysis.checkRssSlope(checks, options.maxRssGrowthMbPerHour);
+        analysis.checkLatencyDrift(checks, options.maxLatencyDriftMs);
+
+        boolean passed = true;
+        for (Map<String, Object> check : checks) {
+            if (Boolean.FALSE.equals(check.get("passed"))) {
+                passed = false;
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("generatedAt", LocalDateTime.now().toString());
+        report.put("config", config);
+        report.put("summary", summary);
+        report.put("trendsPerHour", analysis.trends());
+        report.put("checks", checks);
+        report.put("verdict", passed ? "PASS" : "FAIL");
+        report.put("samples", samples);
+        return report;
+    }
+
+    /**
+     * MSM帧的识别键：消息类型、参考站ID、历元时间、长度、CRC
+     */
+    private static long frameKey(byte[] header, int frameLength, int crc) {
+        int payload = Rtcm3.HEADER_LENGTH * 8;
+        long high = ((long) Rtcm3.getBitU(header, payload, 12) << 42)
+                | ((long) Rtcm3.getBitU(header, payload + 12, 12) << 30)
+                | Rtcm3.getBitU(header, payload + 24, 30);
+        return high * 0x9E3779B97F4A7C15L ^ (((long) frameLength << 24) | crc);
+    }
+
+    private static int readCrc(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 16) | ((data[offset + 1] & 0xFF) << 8) | (data[offset + 2] & 0xFF);
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.println(LocalDateTime.now() + " " + String.format(format, args));
+    }
+
+    /**
+     * 接收转发数据的移动站，被服务端断开后1秒重连
+     */
+    private final class Rover extends ChannelInboundHandlerAdapter {
+
+        private final byte[] header = new byte[KEY_HEADER_LENGTH];
+        private volatile Channel channel;
+        private long connectNanos;
+
+        void connect() {
+            if (stopping) {
+                return;
+            }
+            connectNanos = System.nanoTime();
+            roverBootstrap.clone()
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(new Rtcm3FrameDecoder(), Rover.this);
+                        }
+                    })
+                    .connect(roverAddress)
+                    .addListener((ChannelFuture f) -> {
+                        if (f.isSuccess()) {
+                            channel = f.channel();
+                        } else {
+                            scheduleReconnect(f.channel());
+                        }
+                    });
+        }
+
+        void close() {
+            Channel current = channel;
+            if (current != null) {
+                current.close().syncUninterruptibly();
+            }
+        }
+
+        @Override
+        public boolean isSharable() {
+            // 同一时刻只在一个连接上，重连时复用
+            return true;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            try {
+                if (msg instanceof ByteBuf) {
+                    onData((ByteBuf) msg);
+                }
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            scheduleReconnect(ctx.channel());
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+
+        private void scheduleReconnect(Channel closed) {
+            if (!stopping) {
+                roverReconnects.incrementAndGet();
+                closed.eventLoop().schedule(this::connect, 1, TimeUnit.SECONDS);
+            }
+        }
+
+        private void onData(ByteBuf buf) {
+            long now = System.nanoTime();
+            int length = buf.readableBytes();
+            if (length < header.length + Rtcm3.CRC_LENGTH || buf.getUnsignedByte(buf.readerIndex()) != Rtcm3.PREAMBLE) {
+                return;
+            }
+            buf.getBytes(buf.readerIndex(), header);
+            if (Rtcm3.HEADER_LENGTH + Rtcm3.payloadLength(header) + Rtcm3.CRC_LENGTH != length) {
+                return;
+            }
+            roverFrames.incrementAndGet();
+            if (!Rtcm3.isMsm(Rtcm3.getBitU(header, Rtcm3.HEADER_LENGTH * 8, 12))) {
+                return;
+            }
+            Long sent = sendNanos.get(frameKey(header, length, buf.getUnsignedMedium(buf.readerIndex() + length - Rtcm3.CRC_LENGTH)));
+            // 连接前发出的帧是服务端补发的缓冲数据，不计入延迟
+            if (sent != null && sent >= connectNanos) {
+                recordLatency((now - sent) / 1000);
+            }
+        }
+    }
+
+    /**
+     * 命令行参数（--name=value）
+     */
+    static final class Options {
+
+        static final String USAGE = String.join("\n",
+                "用法: java -cp target/benchmarks.jar com.rtk.relay.loadgen.SoakReplayer --corpus=文件 [选项]",
+                "  --corpus=                       RTCM语料文件（CorpusRecorder生成）",
+                "  --host=127.0.0.1                转发服务地址",
+                "  --base-port=9003                Server1端口（基站）",
+                "  --rover-port=9002               Server2端口（移动站）",
+                "  --rovers=10                     接收数据的移动站数",
+                "  --rover-threads=1               移动站事件循环线程数",
+                "  --speed=1                       回放倍速（1为按录制时间）",
+                "  --duration=0                    运行时长（秒），语料放完后循环；0为只放一遍",
+                "  --reconnect-every=0             每隔多少秒断开并重连全部基站（0为不断开）",
+                "  --drain-ms=2000                 停止发送后等待在途数据的时间（毫秒）",
+                "  --monitor-url=http://127.0.0.1:8899/api/v1/system/runtime  监控接口（空为不使用）",
+                "  --pid=0                         转发服务进程号，读取/proc中的常驻内存、线程和文件句柄（0为不使用）",
+                "  --sample-interval=30            采样间隔（秒）",
+                "  --warmup=300                    预热时长（秒），之前的样本不参与增长判断",
+                "  --max-heap-growth-mb-h=16       GC后堆内存增长上限（MB/小时）",
+                "  --max-direct-growth-mb-h=4      直接内存增长上限（MB/小时）",
+                "  --max-buffer-growth-mb-h=1      数据缓冲区增长上限（MB/小时）",
+                "  --max-rss-growth-mb-h=64        常驻内存增长上限（MB/小时，需--pid）",
+                "  --max-thread-growth=4           线程数增长上限",
+                "  --max-fd-growth=16              文件句柄数增长上限",
+                "  --max-entry-growth=64           每日消息计数缓存条目增长上限",
+                "  --max-latency-drift-ms=20       延迟p99漂移上限（最后三分之一相对最初三分之一，毫秒）",
+                "  --report=soak-report.json       报告文件");
+
+        String corpus = "";
+        String host = "127.0.0.1";
+        int basePort = 9003;
+        int roverPort = 9002;
+        int rovers = 10;
+        int roverThreads = 1;
+        double speed = 1;
+        int durationSeconds;
+        int reconnectSeconds;
+        long drainMs = 2000;
+        String monitorUrl = "http://127.0.0.1:8899/api/v1/system/runtime";
+        int pid;
+        int sampleIntervalSeconds = 30;
+        int warmupSeconds = 300;
+        double maxHeapGrowthMbPerHour = 16;
+        double maxDirectGrowthMbPerHour = 4;
+        double maxBufferGrowthMbPerHour = 1;
+        double maxRssGrowthMbPerHour = 64;
+        long maxThreadGrowth = 4;
+        long maxFdGrowth = 16;
+        long maxEntryGrowth = 64;
+        double maxLatencyDriftMs = 20;
+        String report = "soak-report.json";
+        boolean help;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if ("--help".equals(arg) || "-h".equals(arg)) {
+                    options.help = true;
+                    continue;
+                }
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("无法识别的参数: " + arg);
+                }
+                String name = arg.substring(2, eq);
+                String value = arg.substring(eq + 1);
+                try {
+                    options.set(name, value);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("参数值无效: " + arg);
+                }
+            }
+            if (options.help) {
+                return options;
+            }
+            if (options.corpus.isEmpty()) {
+                throw new IllegalArgumentException("缺少 --corpus");
+            }
+            if (options.rovers < 0 || options.speed <= 0 || options.durationSeconds < 0
+                    || options.reconnectSeconds < 0 || options.sampleIntervalSeconds < 1 || options.warmupSeconds < 0) {
+                throw new IllegalArgumentException("参数值超出范围");
+            }
+            return options;
+        }
+
+        private void set(String name, String value) {
+            switch (name) {
+                case "corpus": corpus = value; break;
+                case "host": host = value; break;
+                case "base-port": basePort = Integer.parseInt(value); break;
+                case "rover-port": roverPort = Integer.parseInt(value); break;
+                case "rovers": rovers = Integer.parseInt(value); break;
+                case "rover-threads": roverThreads = Integer.parseInt(value); break;
+                case "speed": speed = Double.parseDouble(value); break;
+                case "duration": durationSeconds = Integer.parseInt(value); break;
+                case "reconnect-every": reconnectSeconds = Integer.parseInt(value); break;
+                case "drain-ms": drainMs = Long.parseLong(value); break;
+                case "monitor-url": monitorUrl = value; break;
+                case "pid": pid = Integer.parseInt(value); break;
+                case "sample-interval": sampleIntervalSeconds = Integer.parseInt(value); break;
+                case "warmup": warmupSeconds = Integer.parseInt(value); break;
+                case "max-heap-growth-mb-h": maxHeapGrowthMbPerHour = Double.parseDouble(value); break;
+                case "max-direct-growth-mb-h": maxDirectGrowthMbPerHour = Double.parseDouble(value); break;
+                case "max-buffer-growth-mb-h": maxBufferGrowthMbPerHour = Double.parseDouble(value); break;
+                case "max-rss-growth-mb-h": maxRssGrowthMbPerHour = Double.parseDouble(value); break;
+                case "max-thread-growth": maxThreadGrowth = Long.parseLong(value); break;
+                case "max-fd-growth": maxFdGrowth = Long.parseLong(value); break;
+                case "max-entry-growth": maxEntryGrowth = Long.parseLong(value); break;
+                case "max-latency-drift-ms": maxLatencyDriftMs = Double.parseDouble(value); break;
+                case "report": report = value; break;
+                default:
+                    throw new IllegalArgumentException("未知参数: --" + name);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+#!/bin/bash
+
+# RTK数据转发服务 精简模式启动脚本
+# 只启动TCP转发链路（无Web接口、无数据库），适用于基站现场的ARM网关等小内存设备
+# 用法: ./run-headless.sh [配置文件]，默认读取脚本所在目录下的relay.properties
+
+set -e
+
+cd "$(dirname "$0")"
+
+JAR=$(ls rtk-data-relay-*-headless.jar 2>/dev/null | head -1)
+if [[ -z "$JAR" ]]; then
+    echo "未找到 rtk-data-relay-*-headless.jar，请先执行 mvn package -Pheadless" >&2
+    exit 1
+fi
+CONFIG=${1:-relay.properties}
+
+# 64MB堆足够转发数十路基站；串行GC和只用C1编译降低内存占用和启动耗时
+JAVA_OPTS=${JAVA_OPTS:-"-Xms16m -Xmx64m -Xss256k -XX:+UseSerialGC -XX:TieredStopAtLevel=1"}
+
+# JDK 13及以上：首次运行在退出时生成应用类数据共享归档（AppCDS），之后启动直接映射已加载的类，
+# 升级jar后删除relay.jsa即可重新生成
+JAVA_MAJOR=$(java -version 2>&1 | awk -F '"' '/version/ {split($2, v, "."); print (v[1] == "1") ? v[2] : v[1]}')
+CDS_OPTS=""
+if [[ "$JAVA_MAJOR" -ge 13 ]]; then
+    if [[ -f relay.jsa && relay.jsa -nt "$JAR" ]]; then
+        CDS_OPTS="-XX:SharedArchiveFile=relay.jsa"
+    else
+        rm -f relay.jsa
+        CDS_OPTS="-XX:ArchiveClassesAtExit=relay.jsa"
+    fi
+fi
+
+exec java $JAVA_OPTS $CDS_OPTS -Dfile.encoding=UTF-8 -jar "$JAR" --config="$CONFIG"
@@ -0,0 +1,343 @@
+package com.rtk.relay;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.netty.LeakReportCounter;
+import com.rtk.relay.service.ConnectionManager;
+import com.rtk.relay.service.TcpServerService;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 精简转发模式启动类（无Web、无数据库）
+ * 只创建转发链路所需的组件（{@link RelayComponents}）：{@link TcpServerService}、{@link ConnectionManager}、数据转发服务
+ * 及其依赖，不加载Spring、Tomcat、Security、Actuator、MyBatis-Plus、连接池和Hutool，
+ * 运行时只需要Netty和日志库，适合资源有限的基站现场网关（如ARM盒子）只做TCP转发。
+ * <p>
+ * 配置使用普通properties文件，键名与application.yml中的rtk配置一致（如 {@code rtk.server1.port=9003}，
+ * 列表为逗号分隔，对象列表用下标如 {@code rtk.failover.groups[0].name}），
+ * 默认读取工作目录下的 {@code relay.properties}，可用 {@code --config=路径} 指定；系统属性（-D）优先于文件。
+ * {@code logging.level.<包名>} 键用于设置日志级别。数据库持久化始终关闭，监控接口不可用。
+ * <p>
+ * 启动完成后输出启动耗时和常驻内存（RSS），之后每分钟输出一次连接数和内存占用。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Slf4j
+public final class HeadlessRelayApplication {
+
+    /**
+     * 启用精简模式的命令行参数（完整模式启动类识别该参数后转到这里）
+     */
+    public static final String HEADLESS_ARG = "--headless";
+
+    /**
+     * 默认配置文件
+     */
+    private static final String DEFAULT_CONFIG = "relay.properties";
+
+    private static final String CONFIG_ARG = "--config=";
+
+    private static final String RTK_PREFIX = "rtk.";
+
+    private static final String LOGGING_PREFIX = "logging.level.";
+
+    /**
+     * 状态日志间隔（秒）
+     */
+    private static final long STATUS_INTERVAL_SECONDS = 60;
+
+    /**
+     * 停止动作（按启动的逆序执行）
+     */
+    private final Deque<Runnable> stopActions = new ArrayDeque<>();
+
+    private TcpServerService tcpServerService;
+    private ConnectionManager connectionManager;
+
+    public static void main(String[] args) {
+        try {
+            Properties config = loadConfig(args);
+            applyLogLevels(config);
+            // 在Netty分配第一个ByteBuf之前安装，使泄漏报告可被统计
+            LeakReportCounter.install();
+
+            HeadlessRelayApplication application = new HeadlessRelayApplication();
+            application.start(bind(config));
+            CountDownLatch stopped = new CountDownLatch(1);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                application.stop();
+                stopped.countDown();
+            }, "rtk-headless-shutdown"));
+
+            log.info("RTK数据转发服务（精简模式）启动成功 - 启动耗时: {}ms, 常驻内存: {}, 已用堆: {}MB",
+                    ManagementFactory.getRuntimeMXBean().getUptime(), formatRss(), usedHeapMb());
+            application.startStatusLog();
+            stopped.await();
+        } catch (Exception e) {
+            log.error("RTK数据转发服务（精简模式）启动失败：", e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 按依赖顺序创建并初始化组件（见 {@link RelayComponents}），再启动TCP服务器，任一步失败时停止已启动的组件
+     *
+     * @param properties RTK配置
+     */
+    void start(RtkProperties properties) {
+        try {
+            RelayComponents components = RelayComponents.start(properties);
+            stopActions.push(components::stop);
+            connectionManager = components.getConnectionManager();
+            tcpServerService = components.getTcpServerService();
+            stopActions.push(tcpServerService::shutdownServers);
+            tcpServerService.startServers();
+        } catch (RuntimeException e) {
+            stop();
+            throw e;
+        }
+    }
+
+    /**
+     * 按启动的逆序停止组件
+     */
+    synchronized void stop() {
+        if (!stopActions.isEmpty()) {
+            log.info("正在关闭RTK数据转发服务（精简模式）...");
+        }
+        while (!stopActions.isEmpty()) {
+            try {
+                stopActions.pop().run();
+            } catch (RuntimeException e) {
+                log.warn("关闭组件失败", e);
+            }
+        }
+    }
+
+    TcpServerService getTcpServerService() {
+        return tcpServerService;
+    }
+
+    /**
+     * 定期输出连接数和内存占用（代替完整模式中的健康检查任务）
+     */
+    private void startStatusLog() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rtk-headless-status");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> log.info("运行状态 - 基站连接: {}, 移动站连接: {}, 常驻内存: {}, 已用堆: {}MB",
+                        connectionManager.getBaseStationCount(), connectionManager.getMobileStationCount(),
+                        formatRss(), usedHeapMb()),
+                STATUS_INTERVAL_SECONDS, STATUS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 读取配置文件（未指定时读取工作目录下的relay.properties，不存在则全部使用默认值），系统属性覆盖文件中的同名键
+     *
+     * @param args 命令行参数
+     * @return 配置
+     * @throws IOException 配置文件无法读取
+     */
+    static Properties loadConfig(String[] args) throws IOException {
+        String file = null;
+        for (String arg : args) {
+            if (arg.startsWith(CONFIG_ARG)) {
+                file = arg.substring(CONFIG_ARG.length());
+            }
+        }
+        Properties config = new Properties();
+        Path path = Paths.get(file != null ? file : DEFAULT_CONFIG);
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                config.load(reader);
+            }
+        } else if (file != null) {
+            throw new IOException("配置文件不存在: " + path.toAbsolutePath());
+        }
+        config.putAll(System.getProperties());
+        return config;
+    }
+
+    /**
+     * 将rtk.*配置绑定到配置对象
+     * 键名按短横线或驼峰书写均可；基本类型、枚举和逗号分隔的列表直接赋值，对象列表按下标创建元素。
+     *
+     * @param config 配置
+     * @return RTK配置
+     * @throws IllegalArgumentException 键不存在或值无法转换
+     */
+    static RtkProperties bind(Properties config) {
+        RtkProperties properties = new RtkProperties();
+        for (String key : config.stringPropertyNames()) {
+            if (key.startsWith(RTK_PREFIX)) {
+                try {
+                    bindProperty(properties, key.substring(RTK_PREFIX.length()), config.getProperty(key).trim());
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    throw new IllegalArgumentException("配置项无效: " + key + "=" + config.getProperty(key), e);
+                }
+            }
+        }
+        return properties;
+    }
+
+    private static void bindProperty(Object target, String path, String value) throws ReflectiveOperationException {
+        String[] segments = path.split("\\.");
+        Object current = target;
+        for (int i = 0; i < segments.length - 1; i++) {
+            String segment = segments[i];
+            int bracket = segment.indexOf('[');
+            if (bracket < 0) {
+                current = findMethod(current.getClass(), "get" + propertyName(segment), 0).invoke(current);
+                continue;
+            }
+            // 对象列表元素：groups[0]
+            Method getter = findMethod(current.getClass(), "get" + propertyName(segment.substring(0, bracket)), 0);
+            int index = Integer.parseInt(segment.substring(bracket + 1, segment.length() - 1));
+            @SuppressWarnings("unchecked")
+            List<Object> list = (List<Object>) getter.invoke(current);
+            Class<?> elementType = (Class<?>) elementType(getter.getGenericReturnType());
+            while (list.size() <= index) {
+                list.add(elementType.getDeclaredConstructor().newInstance());
+            }
+            current = list.get(index);
+        }
+        Method setter = findMethod(current.getClass(), "set" + propertyName(segments[segments.length - 1]), 1);
+        setter.invoke(current, convert(value, setter.getParameterTypes()[0], setter.getGenericParameterTypes()[0]));
+    }
+
+    private static Object convert(String value, Class<?> type, Type genericType) {
+        if (type == String.class) {
+            return value;
+        }
+        if (type == int.class || type == Integer.class) {
+            return Integer.valueOf(value);
+        }
+        if (type == long.class || type == Long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == double.class || type == Double.class) {
+            return Double.valueOf(value);
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+                throw new IllegalArgumentException("不是布尔值: " + value);
+            }
+            return Boolean.valueOf(value);
+        }
+        if (type.isEnum()) {
+            return enumValue(type, value.replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+        if (type == List.class) {
+            Class<?> elementType = (Class<?>) elementType(genericType);
+            List<Object> list = new ArrayList<>();
+            for (String item : value.split(",")) {
+                if (!item.trim().isEmpty()) {
+                    list.add(convert(item.trim(), elementType, elementType));
+                }
+            }
+            return list;
+        }
+        throw new IllegalArgumentException("不支持的配置类型: " + type.getSimpleName());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumValue(Class<?> type, String name) {
+        return Enum.valueOf((Class<? extends Enum>) type, name);
+    }
+
+    private static Type elementType(Type listType) {
+        return ((ParameterizedType) listType).getActualTypeArguments()[0];
+    }
+
+    private static Method findMethod(Class<?> type, String name, int parameterCount) throws NoSuchMethodException {
+        for (Method method : type.getMethods()) {
+            if (method.getName().equalsIgnoreCase(name) && method.getParameterCount() == parameterCount) {
+                return method;
+            }
+        }
+        throw new NoSuchMethodException(type.getSimpleName() + "." + name);
+    }
+
+    /**
+     * 短横线命名转为属性名（max-connections → maxconnections，与方法名忽略大小写比较）
+     */
+    private static String propertyName(String key) {
+        return key.replace("-", "");
+    }
+
+    /**
+     * 按 logging.level.* 设置日志级别（未配置时根日志为INFO，Netty为WARN，与application.yml一致）
+     */
+    private static void applyLogLevels(Properties config) {
+        setLevel(org.slf4j.Logger.ROOT_LOGGER_NAME, "INFO");
+        setLevel("io.netty", "WARN");
+        for (String key : config.stringPropertyNames()) {
+            if (key.startsWith(LOGGING_PREFIX)) {
+                String name = key.substring(LOGGING_PREFIX.length());
+                setLevel("root".equalsIgnoreCase(name) ? org.slf4j.Logger.ROOT_LOGGER_NAME : name,
+                        config.getProperty(key).trim());
+            }
+        }
+    }
+
+    private static void setLevel(String name, String level) {
+        org.slf4j.Logger logger = LoggerFactory.getLogger(name);
+        if (logger instanceof Logger) {
+            ((Logger) logger).setLevel(Level.toLevel(level, Level.INFO));
+        }
+    }
+
+    /**
+     * 读取进程常驻内存（Linux下为 /proc/self/status 中的VmRSS，其他系统返回unknown）
+     *
+     * @return 如 "48MB"
+     */
+    static String formatRss() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return "unknown";
+        }
+        try {
+            for (String line : Files.readAllLines(status, StandardCharsets.US_ASCII)) {
+                if (line.startsWith("VmRSS:")) {
+                    long kb = Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim());
+                    return (kb / 1024) + "MB";
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.debug("读取常驻内存失败", e);
+        }
+        return "unknown";
+    }
+
+    private static long usedHeapMb() {
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+    }
+}
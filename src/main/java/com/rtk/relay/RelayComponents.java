@@ -0,0 +1,179 @@
+package com.rtk.relay;
+
+import com.rtk.relay.config.LiveRelayConfig;
+import com.rtk.relay.config.RtkDataBuffer;
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.service.ConnectionAdmissionService;
+import com.rtk.relay.service.ConnectionLifecycleRecorder;
+import com.rtk.relay.service.ConnectionManager;
+import com.rtk.relay.service.DataPersistenceService;
+import com.rtk.relay.service.DataRelayService;
+import com.rtk.relay.service.DuplicateFrameFilter;
+import com.rtk.relay.service.FailoverManager;
+import com.rtk.relay.service.LiveConfigWatcher;
+import com.rtk.relay.service.MulticastPublisher;
+import com.rtk.relay.service.RoverSubscriptionService;
+import com.rtk.relay.service.RtcmJournal;
+import com.rtk.relay.service.StationSnapshotService;
+import com.rtk.relay.service.TcpServerService;
+import com.rtk.relay.service.TrafficShapingService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 不经过Spring容器装配转发链路组件
+ * 按依赖顺序通过构造函数创建 {@link TcpServerService}、{@link ConnectionManager}、{@link DataRelayService} 及其依赖，
+ * 与Spring容器中的装配结果相同，数据库持久化保持未启用（不注入映射器）。
+ * 精简模式启动类、基准测试和单元测试共用这一份装配。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Slf4j
+public final class RelayComponents {
+
+    /**
+     * 是否调用各组件的初始化方法（启动后台线程、读取文件、绑定端口等）
+     */
+    private final boolean started;
+
+    /**
+     * 停止动作（按创建/启动的逆序执行）
+     */
+    private final Deque<Runnable> stopActions = new ArrayDeque<>();
+
+    private LiveRelayConfig liveRelayConfig;
+    private FailoverManager failoverManager;
+    private TrafficShapingService trafficShapingService;
+    private ConnectionManager connectionManager;
+    private DataRelayService dataRelayService;
+    private RoverSubscriptionService roverSubscriptionService;
+    private TcpServerService tcpServerService;
+
+    private RelayComponents(RtkProperties properties, boolean started) {
+        this.started = started;
+        try {
+            assemble(properties);
+        } catch (RuntimeException e) {
+            stop();
+            throw e;
+        }
+    }
+
+    /**
+     * 只创建组件，不调用初始化方法（热备检测、归档、组播、参数文件监视等不启动），用于测试和基准测试
+     *
+     * @param properties RTK配置
+     * @return 组件
+     */
+    public static RelayComponents create(RtkProperties properties) {
+        return new RelayComponents(properties, false);
+    }
+
+    /**
+     * 创建组件并依次调用初始化方法，任一步失败时停止已启动的组件；TCP服务器由调用方启动
+     *
+     * @param properties RTK配置
+     * @return 组件
+     */
+    public static RelayComponents start(RtkProperties properties) {
+        return new RelayComponents(properties, true);
+    }
+
+    private void assemble(RtkProperties properties) {
+        // 不注入映射器，isDatabaseEnabled() 为false，持久化调用直接跳过
+        DataPersistenceService dataPersistenceService = new DataPersistenceService();
+        // 没有管理接口，运行时参数只能通过 rtk.relay.live-config-file 调整
+        liveRelayConfig = new LiveRelayConfig(properties);
+        LiveConfigWatcher liveConfigWatcher = new LiveConfigWatcher(properties, liveRelayConfig);
+        lifecycle(liveConfigWatcher::init, liveConfigWatcher::destroy);
+
+        ConnectionLifecycleRecorder lifecycleRecorder = new ConnectionLifecycleRecorder(properties, dataPersistenceService);
+        lifecycle(lifecycleRecorder::init, lifecycleRecorder::destroy);
+
+        failoverManager = new FailoverManager(properties);
+        lifecycle(failoverManager::init, failoverManager::destroy);
+        DuplicateFrameFilter duplicateFrameFilter = new DuplicateFrameFilter(properties);
+        trafficShapingService = new TrafficShapingService(properties, failoverManager);
+        lifecycle(trafficShapingService::init, trafficShapingService::destroy);
+
+        // 构造时即启动连接计数校正任务和超时时间轮
+        connectionManager = new ConnectionManager(properties, liveRelayConfig, lifecycleRecorder, failoverManager,
+                duplicateFrameFilter);
+        stopActions.push(connectionManager::shutdown);
+
+        MulticastPublisher multicastPublisher = new MulticastPublisher(properties);
+        lifecycle(multicastPublisher::init, multicastPublisher::destroy);
+        RtcmJournal rtcmJournal = new RtcmJournal(properties);
+        lifecycle(rtcmJournal::init, rtcmJournal::destroy);
+        StationSnapshotService stationSnapshotService = new StationSnapshotService(properties, failoverManager);
+        lifecycle(stationSnapshotService::init, stationSnapshotService::destroy);
+
+        // 转发线程池在构造时创建
+        dataRelayService = new DataRelayService(connectionManager, new RtkDataBuffer(liveRelayConfig),
+                failoverManager, duplicateFrameFilter, multicastPublisher, rtcmJournal, stationSnapshotService,
+                liveRelayConfig, trafficShapingService, dataPersistenceService, lifecycleRecorder, properties);
+        if (started) {
+            dataRelayService.init();
+        }
+        stopActions.push(dataRelayService::destroy);
+
+        roverSubscriptionService = new RoverSubscriptionService(properties, connectionManager, trafficShapingService);
+        tcpServerService = new TcpServerService(properties, connectionManager, dataRelayService,
+                roverSubscriptionService, new ConnectionAdmissionService(properties, connectionManager),
+                liveRelayConfig, trafficShapingService);
+    }
+
+    /**
+     * 启动模式下调用初始化方法并登记对应的停止动作
+     */
+    private void lifecycle(Runnable init, Runnable destroy) {
+        if (started) {
+            init.run();
+            stopActions.push(destroy);
+        }
+    }
+
+    /**
+     * 按逆序停止组件（TCP服务器由启动它的调用方停止）
+     */
+    public synchronized void stop() {
+        while (!stopActions.isEmpty()) {
+            try {
+                stopActions.pop().run();
+            } catch (RuntimeException e) {
+                log.warn("关闭组件失败", e);
+            }
+        }
+    }
+
+    public LiveRelayConfig getLiveRelayConfig() {
+        return liveRelayConfig;
+    }
+
+    public FailoverManager getFailoverManager() {
+        return failoverManager;
+    }
+
+    public TrafficShapingService getTrafficShapingService() {
+        return trafficShapingService;
+    }
+
+    public ConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    public DataRelayService getDataRelayService() {
+        return dataRelayService;
+    }
+
+    public RoverSubscriptionService getRoverSubscriptionService() {
+        return roverSubscriptionService;
+    }
+
+    public TcpServerService getTcpServerService() {
+        return tcpServerService;
+    }
+}
@@ -1,5 +1,6 @@
 package com.rtk.relay;
 
+import com.rtk.relay.netty.LeakReportCounter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -23,7 +24,14 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 public class RtkDataRelayApplication {
 
     public static void main(String[] args) {
+        if (args.length > 0 && HeadlessRelayApplication.HEADLESS_ARG.equals(args[0])) {
+            // 精简模式：不创建Spring Boot应用上下文
+            HeadlessRelayApplication.main(args);
+            return;
+        }
         try {
+            // 在Netty分配第一个ByteBuf之前安装，使泄漏报告可被监控
+            LeakReportCounter.install();
             SpringApplication.run(RtkDataRelayApplication.class, args);
             log.info("RTK数据转发服务启动成功！");
         } catch (Exception e) {
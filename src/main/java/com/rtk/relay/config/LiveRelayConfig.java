@@ -0,0 +1,92 @@
+package com.rtk.relay.config;
+
+import com.rtk.relay.exception.RtkRelayException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 运行时转发参数
+ * 持有当前的 {@link RelayTuning} 快照：读取方（转发线程、事件循环）每次只做一次volatile读取，
+ * 修改方（管理接口、配置文件监视）串行生成新快照后整体替换，不需要重启服务、不断开已连接的移动站。
+ * <p>
+ * 调低最大连接数时已连接的移动站不受影响，只拒绝新的连接；需要调整已有对象的参数（如心跳间隔）通过
+ * {@link #addListener} 在新快照生效后得到通知。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class LiveRelayConfig {
+
+    private volatile RelayTuning current;
+
+    /**
+     * 参数变更监听器
+     */
+    private final List<Consumer<RelayTuning>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 构造函数
+     *
+     * @param rtkProperties RTK配置（初始值）
+     */
+    public LiveRelayConfig(RtkProperties rtkProperties) {
+        this.current = RelayTuning.from(rtkProperties);
+    }
+
+    /**
+     * 当前参数快照
+     *
+     * @return 快照（不可变）
+     */
+    public RelayTuning current() {
+        return current;
+    }
+
+    /**
+     * 注册参数变更监听器，每次新快照生效后按修改顺序调用（在修改线程中执行，不应阻塞）
+     *
+     * @param listener 监听器，参数为新快照
+     */
+    public void addListener(Consumer<RelayTuning> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 修改一组参数，全部有效时原子地替换为新快照
+     *
+     * @param changes 参数名到新值
+     * @param source 修改来源（api、file:路径）
+     * @return 新快照
+     * @throws RtkRelayException 参数无效，当前快照保持不变
+     */
+    public synchronized RelayTuning update(Map<String, ?> changes, String source) {
+        if (changes == null || changes.isEmpty()) {
+            throw new RtkRelayException("INVALID_RELAY_CONFIG", "没有要修改的参数");
+        }
+        RelayTuning previous = current;
+        RelayTuning next;
+        try {
+            next = previous.with(changes, source);
+        } catch (IllegalArgumentException e) {
+            throw new RtkRelayException("INVALID_RELAY_CONFIG", e.getMessage());
+        }
+        current = next;
+        log.info("转发参数已更新 - 版本: {} -> {}, 来源: {}, 修改: {}", previous.getVersion(), next.getVersion(),
+                source, changes);
+        for (Consumer<RelayTuning> listener : listeners) {
+            try {
+                listener.accept(next);
+            } catch (RuntimeException e) {
+                log.warn("转发参数变更通知失败 - 版本: {}", next.getVersion(), e);
+            }
+        }
+        return next;
+    }
+}
@@ -0,0 +1,198 @@
+package com.rtk.relay.config;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 可在运行期间调整的转发参数快照（不可变）
+ * 每次调整生成一个版本号加一的新快照并整体替换，热路径通过 {@link LiveRelayConfig#current()} 一次volatile读取
+ * 得到一组一致的参数，同一次转发或同一次缓冲不会读到新旧混合的值。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Getter
+public final class RelayTuning {
+
+    public static final String SYNC_RELAY_THRESHOLD = "sync-relay-threshold";
+    public static final String SEND_TIMEOUT_MS = "send-timeout-ms";
+    public static final String HEARTBEAT_INTERVAL = "heartbeat-interval";
+    public static final String MAX_CONNECTIONS = "max-connections";
+    public static final String BUFFER_MAX_ENTRIES = "buffer-max-entries";
+    public static final String BUFFER_MAX_BYTES = "buffer-max-bytes";
+    public static final String BUFFER_MAX_AGE_SECONDS = "buffer-max-age-seconds";
+
+    /**
+     * 可调整的参数名
+     */
+    public static final List<String> KEYS = Collections.unmodifiableList(Arrays.asList(
+            SYNC_RELAY_THRESHOLD, SEND_TIMEOUT_MS, HEARTBEAT_INTERVAL, MAX_CONNECTIONS,
+            BUFFER_MAX_ENTRIES, BUFFER_MAX_BYTES, BUFFER_MAX_AGE_SECONDS));
+
+    /**
+     * 各参数的取值范围（含），与 {@link #KEYS} 顺序一致
+     */
+    private static final long[][] RANGES = {
+            {0, 10_000},
+            {1, 10_000},
+            {0, 3600},
+            {1, 1_000_000},
+            {1, 100_000},
+            {1024, 256L * 1024 * 1024},
+            {1, 86_400},
+    };
+
+    /**
+     * 快照版本，启动时为1，每次调整加一
+     */
+    private final long version;
+
+    /**
+     * 修改来源（startup、api、file:路径）
+     */
+    private final String source;
+
+    /**
+     * 生效时间（Unix毫秒）
+     */
+    private final long updatedMillis;
+
+    /**
+     * 移动站数量不超过该值时同步转发，超过时异步转发
+     */
+    private final int syncRelayThreshold;
+
+    /**
+     * 同步转发等待发送完成的超时时间（毫秒）
+     */
+    private final long sendTimeoutMs;
+
+    /**
+     * 移动站心跳间隔（秒），0为不发送
+     */
+    private final int heartbeatInterval;
+
+    /**
+     * 最大移动站连接数
+     */
+    private final int maxConnections;
+
+    /**
+     * 新移动站补发缓冲区最大条数
+     */
+    private final int bufferMaxEntries;
+
+    /**
+     * 新移动站补发缓冲区最大内存（字节）
+     */
+    private final long bufferMaxBytes;
+
+    /**
+     * 新移动站补发缓冲区数据最大保留时间（毫秒）
+     */
+    private final long bufferMaxAgeMs;
+
+    private RelayTuning(long version, String source, long[] values) {
+        this.version = version;
+        this.source = source;
+        this.updatedMillis = System.currentTimeMillis();
+        this.syncRelayThreshold = (int) values[0];
+        this.sendTimeoutMs = values[1];
+        this.heartbeatInterval = (int) values[2];
+        this.maxConnections = (int) values[3];
+        this.bufferMaxEntries = (int) values[4];
+        this.bufferMaxBytes = values[5];
+        this.bufferMaxAgeMs = values[6] * 1000L;
+    }
+
+    /**
+     * 由启动配置生成第一个快照
+     *
+     * @param rtkProperties RTK配置
+     * @return 版本1的快照
+     * @throws IllegalArgumentException 启动配置超出取值范围
+     */
+    public static RelayTuning from(RtkProperties rtkProperties) {
+        RtkProperties.RelayConfig relay = rtkProperties.getRelay();
+        RtkProperties.Server2Config server2 = rtkProperties.getServer2();
+        long[] values = {
+                relay.getSyncRelayThreshold(),
+                relay.getSendTimeoutMs(),
+                server2.getHeartbeatInterval(),
+                server2.getMaxConnections(),
+                relay.getBufferMaxEntries(),
+                relay.getBufferMaxBytes(),
+                relay.getBufferMaxAgeSeconds(),
+        };
+        validate(values);
+        return new RelayTuning(1, "startup", values);
+    }
+
+    /**
+     * 在当前快照上应用一组修改，生成下一个版本；任一参数无效时整组不生效
+     *
+     * @param changes 参数名到新值（数字或数字字符串），未出现的参数保持不变
+     * @param source 修改来源
+     * @return 新快照
+     * @throws IllegalArgumentException 参数名未知、值不是整数或超出取值范围
+     */
+    public RelayTuning with(Map<String, ?> changes, String source) {
+        long[] values = values();
+        for (Map.Entry<String, ?> change : changes.entrySet()) {
+            int index = KEYS.indexOf(change.getKey());
+            if (index < 0) {
+                throw new IllegalArgumentException("未知参数: " + change.getKey() + "，可调整的参数: " + KEYS);
+            }
+            values[index] = parse(change.getKey(), change.getValue());
+        }
+        validate(values);
+        return new RelayTuning(version + 1, source, values);
+    }
+
+    /**
+     * 以参数名输出当前值（用于监控和日志）
+     *
+     * @return 参数名到值
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("version", version);
+        map.put("source", source);
+        map.put("updatedMillis", updatedMillis);
+        long[] values = values();
+        for (int i = 0; i < KEYS.size(); i++) {
+            map.put(KEYS.get(i), values[i]);
+        }
+        return map;
+    }
+
+    private long[] values() {
+        return new long[]{syncRelayThreshold, sendTimeoutMs, heartbeatInterval, maxConnections,
+                bufferMaxEntries, bufferMaxBytes, bufferMaxAgeMs / 1000L};
+    }
+
+    private static long parse(String key, Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return Long.parseLong(String.valueOf(value).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("参数 " + key + " 必须为整数: " + value);
+        }
+    }
+
+    private static void validate(long[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] < RANGES[i][0] || values[i] > RANGES[i][1]) {
+                throw new IllegalArgumentException("参数 " + KEYS.get(i) + " 超出范围 [" + RANGES[i][0] + ", "
+                        + RANGES[i][1] + "]: " + values[i]);
+            }
+        }
+    }
+}
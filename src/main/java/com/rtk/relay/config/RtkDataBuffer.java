@@ -14,12 +14,12 @@ public class RtkDataBuffer {
     // 使用ArrayDeque作为环形缓冲区存储最近的数据
     private final ArrayDeque<RtkDataEntry> buffer = new ArrayDeque<>();
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-    private final int maxSize;
     private volatile long totalMemoryUsage = 0; // 内存使用统计
-    private static final long MAX_MEMORY_USAGE = 10 * 1024 * 1024; // 最大10MB内存使用
+    // 条数、内存和保留时间上限（默认200条、10MB、5分钟），可运行时调整
+    private final LiveRelayConfig liveRelayConfig;
 
-    public RtkDataBuffer() {
-        this.maxSize = 200; // 增加缓存容量到200条数据
+    public RtkDataBuffer(LiveRelayConfig liveRelayConfig) {
+        this.liveRelayConfig = liveRelayConfig;
     }
     
     /**
@@ -67,15 +67,19 @@ public class RtkDataBuffer {
             return;
         }
 
+        RelayTuning tuning = liveRelayConfig.current();
+        long maxMemoryUsage = tuning.getBufferMaxBytes();
+        int maxSize = tuning.getBufferMaxEntries();
+
         lock.writeLock().lock();
         try {
             RtkDataEntry entry = new RtkDataEntry(data);
             
-            // 清理过期数据（超过5分钟的数据）
-            cleanupExpiredData(5 * 60 * 1000L);
+            // 清理过期数据
+            cleanupExpiredData(tuning.getBufferMaxAgeMs());
             
             // 内存限制检查：如果添加新数据会超过内存限制，清理旧数据
-            while (totalMemoryUsage + data.length > MAX_MEMORY_USAGE && !buffer.isEmpty()) {
+            while (totalMemoryUsage + data.length > maxMemoryUsage && !buffer.isEmpty()) {
                 RtkDataEntry removed = buffer.removeFirst();
                 totalMemoryUsage -= removed.getSize();
                 log.debug("内存限制清理旧数据 - 大小: {} 字节", removed.getSize());
@@ -95,7 +99,7 @@ public class RtkDataBuffer {
             if (log.isDebugEnabled()) {
                 log.debug("数据已添加到缓冲区 - 大小: {} 字节, 缓冲区: {}/{} 条, 内存: {}/{} KB", 
                     data.length, buffer.size(), maxSize, 
-                    totalMemoryUsage / 1024, MAX_MEMORY_USAGE / 1024);
+                    totalMemoryUsage / 1024, maxMemoryUsage / 1024);
             }
         } finally {
             lock.writeLock().unlock();
@@ -182,11 +186,12 @@ public class RtkDataBuffer {
      * 获取缓冲区统计信息
      */
     public String getBufferStats() {
+        RelayTuning tuning = liveRelayConfig.current();
         lock.readLock().lock();
         try {
             return String.format("Buffer[Size: %d/%d, Memory: %d/%d KB, Oldest: %s]",
-                    buffer.size(), maxSize,
-                    totalMemoryUsage / 1024, MAX_MEMORY_USAGE / 1024,
+                    buffer.size(), tuning.getBufferMaxEntries(),
+                    totalMemoryUsage / 1024, tuning.getBufferMaxBytes() / 1024,
                     buffer.isEmpty() ? "N/A" : formatAge(buffer.peekFirst().getTimestamp()));
         } finally {
             lock.readLock().unlock();
@@ -1,9 +1,13 @@
 package com.rtk.relay.config;
 
+import com.rtk.relay.rtcm.MsmForm;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * RTK服务配置属性类
  * 从application.yml中读取rtk配置
@@ -31,6 +35,31 @@ public class RtkProperties {
      */
     private RelayConfig relay = new RelayConfig();
     
+    /**
+     * 基站热备切换配置
+     */
+    private FailoverConfig failover = new FailoverConfig();
+    
+    /**
+     * 重复帧抑制配置
+     */
+    private DedupConfig dedup = new DedupConfig();
+    
+    /**
+     * UDP组播转发配置
+     */
+    private MulticastConfig multicast = new MulticastConfig();
+    
+    /**
+     * RTCM原始数据归档配置
+     */
+    private JournalConfig journal = new JournalConfig();
+    
+    /**
+     * 基站快照检查点配置
+     */
+    private SnapshotConfig snapshot = new SnapshotConfig();
+    
     /**
      * Server1配置类
      */
@@ -73,9 +102,185 @@ public class RtkProperties {
         private int timeout = 30;
         
         /**
-         * 心跳检测间隔（秒）
+         * 心跳间隔（秒），移动站超过该时间没有收到任何数据时发送心跳，0表示不发送
          */
         private int heartbeatInterval = 10;
+        
+        /**
+         * 是否按历元批量发送：同一历元的消息先写入发送缓冲区，收到历元最后一条MSM消息或超过刷新时限时一次性发送
+         */
+        private boolean epochBatching = false;
+        
+        /**
+         * 按历元批量发送时，未结束历元的数据最长等待时间（微秒）
+         */
+        private long flushBudgetUs = 2000;
+        
+        /**
+         * 是否启用发送优先级：移动站拥塞时观测值优先于星历等辅助消息，排队的同类消息只保留最新一份
+         */
+        private boolean priorityLanes = true;
+        
+        /**
+         * 移动站订阅规则，按移动站IP地址匹配，"*"表示默认规则
+         */
+        private List<SubscriptionRule> subscriptions = new ArrayList<>();
+        
+        /**
+         * 新连接接纳控制
+         */
+        private AdmissionConfig admission = new AdmissionConfig();
+        
+        /**
+         * 发送流量整形与配额
+         */
+        private ShapingConfig shaping = new ShapingConfig();
+    }
+    
+    /**
+     * 移动站新连接接纳控制配置类
+     * 硬上限为 max-connections；超过软上限后新连接按更低的速率接纳
+     */
+    @Data
+    public static class AdmissionConfig {
+        /**
+         * 是否启用
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 单个IP每秒允许的新连接数
+         */
+        private double perIpRate = 2.0;
+        
+        /**
+         * 单个IP允许的突发新连接数（同一运营商NAT出口下可能有多台移动站）
+         */
+        private int perIpBurst = 20;
+        
+        /**
+         * 全局每秒允许的新连接数
+         */
+        private double globalRate = 200.0;
+        
+        /**
+         * 全局允许的突发新连接数
+         */
+        private int globalBurst = 500;
+        
+        /**
+         * 软上限，0表示不启用
+         */
+        private int softLimit = 0;
+        
+        /**
+         * 超过软上限后全局每秒允许的新连接数
+         */
+        private double softLimitRate = 10.0;
+    }
+    
+    /**
+     * Server2发送流量整形与配额配置类
+     * 各速率为0表示不限制；每日配额在订阅规则中按移动站IP配置
+     */
+    @Data
+    public static class ShapingConfig {
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 所有移动站合计的发送速率上限（字节/秒）
+         */
+        private long globalByteRate = 0;
+        
+        /**
+         * 单个移动站的发送速率上限（字节/秒）
+         */
+        private long channelByteRate = 0;
+        
+        /**
+         * 整形统计周期（毫秒），越小整形越平滑
+         */
+        private long checkIntervalMs = 250;
+        
+        /**
+         * 整形排队的数据预计等待超过该时间（毫秒）时移动站按拥塞处理，后续数据进入发送优先级队列合并
+         */
+        private long maxWriteDelayMs = 1000;
+        
+        /**
+         * 单个挂载点转发给每个移动站的数据速率上限（字节/秒），超出时整历元丢弃观测值，不排队
+         */
+        private long mountpointByteRate = 0;
+        
+        /**
+         * 单独配置的挂载点速率上限
+         */
+        private List<MountpointLimit> mountpointLimits = new ArrayList<>();
+        
+        /**
+         * 每日配额计数汇总间隔（秒），决定当日用量保存到 quota-file 的频率；转发时按实时用量判断配额，不受该间隔影响
+         */
+        private int quotaFlushSeconds = 10;
+        
+        /**
+         * 当日配额用量保存文件，为空时只保存在内存中（重启后清零）
+         */
+        private String quotaFile = "";
+    }
+    
+    /**
+     * 挂载点速率上限配置类
+     */
+    @Data
+    public static class MountpointLimit {
+        /**
+         * 挂载点：热备组的挂载点名称，或未加入热备组的基站IP地址
+         */
+        private String mountpoint;
+        
+        /**
+         * 速率上限（字节/秒），0表示不限制
+         */
+        private long byteRate = 0;
+    }
+    
+    /**
+     * 移动站订阅规则配置类
+     */
+    @Data
+    public static class SubscriptionRule {
+        /**
+         * 移动站IP地址，"*"匹配所有未单独配置的移动站
+         */
+        private String address = "*";
+        
+        /**
+         * 只转发这些RTCM消息类型（与denyTypes二选一）
+         */
+        private List<Integer> allowTypes = new ArrayList<>();
+        
+        /**
+         * 不转发这些RTCM消息类型
+         */
+        private List<Integer> denyTypes = new ArrayList<>();
+        
+        /**
+         * MSM观测值输出间隔（毫秒），0表示按基站原始频率转发
+         */
+        private int outputIntervalMs = 0;
+        
+        /**
+         * MSM7观测值的接收形式（ORIGINAL/MSM4/MSM5），降级可减少约一半流量
+         */
+        private MsmForm msmForm = MsmForm.ORIGINAL;
+        
+        /**
+         * 每日流量配额（MB），按移动站IP地址计，0表示不限制；需启用 rtk.server2.shaping
+         */
+        private long dailyQuotaMb = 0;
     }
     
     /**
@@ -84,9 +289,34 @@ public class RtkProperties {
     @Data
     public static class RelayConfig {
         /**
-         * 数据缓冲区大小（字节）
+         * 移动站数量不超过该值时同步转发（等待发送完成），超过时异步转发（可运行时调整）
          */
-        private int bufferSize = 8192;
+        private int syncRelayThreshold = 5;
+        
+        /**
+         * 同步转发等待发送完成的超时时间（毫秒，可运行时调整）
+         */
+        private long sendTimeoutMs = 200;
+        
+        /**
+         * 新移动站补发缓冲区最大条数（可运行时调整）
+         */
+        private int bufferMaxEntries = 200;
+        
+        /**
+         * 新移动站补发缓冲区最大内存（字节，可运行时调整）
+         */
+        private long bufferMaxBytes = 10 * 1024 * 1024;
+        
+        /**
+         * 新移动站补发缓冲区数据最大保留时间（秒，可运行时调整）
+         */
+        private long bufferMaxAgeSeconds = 300;
+        
+        /**
+         * 运行时参数文件（properties格式），修改后自动生效；为空时不监视
+         */
+        private String liveConfigFile = "";
         
         /**
          * 统计数据保留时间（小时）
@@ -102,5 +332,238 @@ public class RtkProperties {
          * 最大重连次数
          */
         private int maxReconnectAttempts = 10;
+        
+        /**
+         * 连接超时检测时间轮刻度（毫秒），决定超时检测的精度
+         */
+        private long timeoutTickMs = 100;
+        
+        /**
+         * 连接生命周期记录批量写库间隔（毫秒）
+         */
+        private long lifecycleFlushMs = 1000;
+        
+        /**
+         * 连接生命周期记录队列上限，数据库不可用时超出部分丢弃
+         */
+        private int lifecycleQueueLimit = 100000;
+    }
+    
+    /**
+     * 基站热备切换配置类
+     */
+    @Data
+    public static class FailoverConfig {
+        /**
+         * 是否启用热备切换
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 当前基站静默多久后切换到备用基站（毫秒）
+         */
+        private long gapThresholdMs = 2000;
+        
+        /**
+         * 主基站恢复后需连续稳定发送多久才切回（毫秒），防止来回抖动
+         */
+        private long switchBackHoldMs = 10000;
+        
+        /**
+         * 时间轮刻度（毫秒），决定切换检测的时间精度
+         */
+        private long tickMs = 50;
+        
+        /**
+         * 热备组列表
+         */
+        private List<FailoverGroupConfig> groups = new ArrayList<>();
+    }
+    
+    /**
+     * 热备组配置类
+     */
+    @Data
+    public static class FailoverGroupConfig {
+        /**
+         * 挂载点名称
+         */
+        private String mountpoint;
+        
+        /**
+         * 主基站IP地址
+         */
+        private String primary;
+        
+        /**
+         * 备用基站IP地址（按优先级排列）
+         */
+        private List<String> backups = new ArrayList<>();
+    }
+    
+    /**
+     * 重复帧抑制配置类
+     */
+    @Data
+    public static class DedupConfig {
+        /**
+         * 是否启用（同一基站通过多条链路接入时开启）
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 去重时间窗口（毫秒），超过该时间的记录自动失效
+         */
+        private long windowMs = 2000;
+        
+        /**
+         * 哈希表槽位数（向上取整为2的幂）
+         */
+        private int tableSize = 4096;
+    }
+    
+    /**
+     * UDP组播转发配置类
+     * 与TCP转发并行，每个挂载点的数据发布到一个组播组，局域网内的移动站数量不影响发送开销
+     */
+    @Data
+    public static class MulticastConfig {
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 发送组播使用的网卡名称，为空时由操作系统选择且不开启控制端口
+         */
+        private String networkInterface = "";
+        
+        /**
+         * 组播TTL（1表示不跨路由器）
+         */
+        private int ttl = 1;
+        
+        /**
+         * 补发/同步请求的UDP控制端口（绑定在组播网卡地址上，只响应该网段内的请求）
+         */
+        private int controlPort = 9004;
+        
+        /**
+         * 每个请求来源每秒最多回复的数据报数（补发和同步快照合计）
+         */
+        private int controlReplyRate = 512;
+        
+        /**
+         * 每个挂载点保留的最近数据报数量，用于响应补发请求
+         */
+        private int retransmitBufferSize = 1024;
+        
+        /**
+         * 组播流列表
+         */
+        private List<MulticastStreamConfig> streams = new ArrayList<>();
+    }
+    
+    /**
+     * 组播流配置类
+     */
+    @Data
+    public static class MulticastStreamConfig {
+        /**
+         * 挂载点名称
+         */
+        private String mountpoint;
+        
+        /**
+         * 组播组地址
+         */
+        private String group;
+        
+        /**
+         * 组播端口
+         */
+        private int port = 5000;
+        
+        /**
+         * 数据来源基站IP地址，为空时发布所有基站的数据
+         */
+        private List<String> sources = new ArrayList<>();
+    }
+    
+    /**
+     * RTCM原始数据归档配置类
+     */
+    @Data
+    public static class JournalConfig {
+        /**
+         * 是否启用归档
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 归档根目录，每个基站一个子目录
+         */
+        private String directory = "journal";
+        
+        /**
+         * 单个分段文件大小（MB，1-2047），写满后滚动
+         */
+        private int segmentSizeMb = 64;
+        
+        /**
+         * 单个分段最长时长（分钟），到期后滚动
+         */
+        private int segmentMaxAgeMinutes = 60;
+        
+        /**
+         * 归档总磁盘预算（MB），超出时删除最旧的分段
+         */
+        private long diskBudgetMb = 10240;
+        
+        /**
+         * 待写入帧队列容量，队列满时丢弃新帧
+         */
+        private int queueCapacity = 65536;
+        
+        /**
+         * 归档回放TCP端口，0为不启用
+         */
+        private int replayPort = 9005;
+        
+        /**
+         * 同时进行的回放会话数上限
+         */
+        private int maxReplaySessions = 4;
+    }
+    
+    /**
+     * 基站快照检查点配置类
+     */
+    @Data
+    public static class SnapshotConfig {
+        /**
+         * 是否启用快照检查点（定期和停止时保存，启动时恢复）
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 检查点文件
+         */
+        private String file = "data/station-snapshot.bin";
+        
+        /**
+         * 定期保存间隔（秒）
+         */
+        private int checkpointIntervalSeconds = 30;
+        
+        /**
+         * 基准站坐标、星历等消息的最长保留时间（分钟），超过后不再发送给新接入的移动站
+         */
+        private int maxAgeMinutes = 120;
+        
+        /**
+         * 最后一个观测历元的最长保留时间（秒）
+         */
+        private int epochMaxAgeSeconds = 30;
     }
 }
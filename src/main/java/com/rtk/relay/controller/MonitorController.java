@@ -1,14 +1,23 @@
 package com.rtk.relay.controller;
 
+import com.rtk.relay.config.LiveRelayConfig;
 import com.rtk.relay.dto.*;
 import com.rtk.relay.entity.ConnectionInfo;
 import com.rtk.relay.entity.RelayStatistics;
+import com.rtk.relay.exception.RtkRelayException;
+import com.rtk.relay.rtcm.EpochDecimator;
+import com.rtk.relay.rtcm.MessageTypeFilter;
+import com.rtk.relay.rtcm.MsmForm;
 import com.rtk.relay.service.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -38,6 +47,39 @@ public class MonitorController {
     
     @Autowired
     private DataPersistenceService dataPersistenceService;
+    
+    @Autowired
+    private FailoverManager failoverManager;
+    
+    @Autowired
+    private RoverSubscriptionService roverSubscriptionService;
+    
+    @Autowired
+    private ConnectionAdmissionService connectionAdmissionService;
+    
+    @Autowired
+    private MulticastPublisher multicastPublisher;
+    
+    @Autowired
+    private RtcmJournal rtcmJournal;
+    
+    @Autowired
+    private JournalReplayServer journalReplayServer;
+    
+    @Autowired
+    private StationSnapshotService stationSnapshotService;
+    
+    @Autowired
+    private LiveRelayConfig liveRelayConfig;
+    
+    @Autowired
+    private LiveConfigWatcher liveConfigWatcher;
+    
+    @Autowired
+    private TrafficShapingService trafficShapingService;
+    
+    @Autowired
+    private HealthCheckService healthCheckService;
 
     // ==================== 系统状态相关接口 ====================
     
@@ -97,6 +139,22 @@ public class MonitorController {
         }
     }
 
+    /**
+     * 获取进程资源使用情况（内存、线程、文件句柄、ByteBuf泄漏报告）
+     * GET /api/v1/system/runtime
+     */
+    @GetMapping("/system/runtime")
+    public ApiResponse<Map<String, Object>> getRuntimeStatus(HttpServletRequest request) {
+        try {
+            Map<String, Object> runtime = healthCheckService.getRuntimeStatus();
+            return ApiResponse.success(runtime, "运行资源获取成功").path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("获取运行资源失败", e);
+            return ApiResponse.<Map<String, Object>>error("获取运行资源失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+
     // ==================== 基站相关接口 ====================
     
     /**
@@ -159,6 +217,121 @@ public class MonitorController {
         }
     }
 
+    /**
+     * 设置移动站消息类型过滤器
+     * PUT /api/v1/mobile-stations/{mobileStationId}/message-filter
+     */
+    @PutMapping("/mobile-stations/{mobileStationId}/message-filter")
+    public ApiResponse<MessageFilterDTO> updateMessageFilter(
+            @PathVariable String mobileStationId,
+            @RequestBody MessageFilterDTO filterRequest,
+            HttpServletRequest request) {
+        MessageTypeFilter.Mode mode;
+        try {
+            mode = MessageTypeFilter.Mode.valueOf(String.valueOf(filterRequest.getMode()).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.<MessageFilterDTO>badRequest("过滤模式必须为ALLOW或DENY").path(request.getRequestURI());
+        }
+        try {
+            MessageTypeFilter filter = roverSubscriptionService.updateMessageFilter(
+                    mobileStationId, mode, filterRequest.getTypes());
+            return ApiResponse.success(toMessageFilterDTO(filter), "消息过滤器设置成功").path(request.getRequestURI());
+        } catch (RtkRelayException e) {
+            return ApiResponse.<MessageFilterDTO>badRequest(e.getMessage()).path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("设置消息过滤器失败: {}", mobileStationId, e);
+            return ApiResponse.<MessageFilterDTO>error("设置消息过滤器失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+    
+    /**
+     * 清除移动站消息类型过滤器（转发全部消息）
+     * DELETE /api/v1/mobile-stations/{mobileStationId}/message-filter
+     */
+    @DeleteMapping("/mobile-stations/{mobileStationId}/message-filter")
+    public ApiResponse<MessageFilterDTO> clearMessageFilter(
+            @PathVariable String mobileStationId,
+            HttpServletRequest request) {
+        try {
+            MessageTypeFilter filter = roverSubscriptionService.updateMessageFilter(
+                    mobileStationId, MessageTypeFilter.Mode.DENY, null);
+            return ApiResponse.success(toMessageFilterDTO(filter), "消息过滤器已清除").path(request.getRequestURI());
+        } catch (RtkRelayException e) {
+            return ApiResponse.<MessageFilterDTO>badRequest(e.getMessage()).path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("清除消息过滤器失败: {}", mobileStationId, e);
+            return ApiResponse.<MessageFilterDTO>error("清除消息过滤器失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+
+    /**
+     * 设置移动站观测值输出间隔（历元抽稀）
+     * PUT /api/v1/mobile-stations/{mobileStationId}/output-interval?intervalMs=1000
+     */
+    @PutMapping("/mobile-stations/{mobileStationId}/output-interval")
+    public ApiResponse<Integer> updateOutputInterval(
+            @PathVariable String mobileStationId,
+            @RequestParam int intervalMs,
+            HttpServletRequest request) {
+        try {
+            roverSubscriptionService.updateOutputInterval(mobileStationId, intervalMs);
+            return ApiResponse.success(intervalMs, "输出间隔设置成功").path(request.getRequestURI());
+        } catch (RtkRelayException e) {
+            return ApiResponse.<Integer>badRequest(e.getMessage()).path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("设置输出间隔失败: {}", mobileStationId, e);
+            return ApiResponse.<Integer>error("设置输出间隔失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+
+    /**
+     * 设置移动站接收MSM7观测值的形式
+     * PUT /api/v1/mobile-stations/{mobileStationId}/msm-form?form=MSM4
+     */
+    @PutMapping("/mobile-stations/{mobileStationId}/msm-form")
+    public ApiResponse<MsmForm> updateMsmForm(
+            @PathVariable String mobileStationId,
+            @RequestParam String form,
+            HttpServletRequest request) {
+        try {
+            MsmForm msmForm;
+            try {
+                msmForm = MsmForm.valueOf(form.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ApiResponse.<MsmForm>badRequest("无效的MSM形式: " + form).path(request.getRequestURI());
+            }
+            roverSubscriptionService.updateMsmForm(mobileStationId, msmForm);
+            return ApiResponse.success(msmForm, "MSM形式设置成功").path(request.getRequestURI());
+        } catch (RtkRelayException e) {
+            return ApiResponse.<MsmForm>badRequest(e.getMessage()).path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("设置MSM形式失败: {}", mobileStationId, e);
+            return ApiResponse.<MsmForm>error("设置MSM形式失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+
+    // ==================== 基站热备相关接口 ====================
+    
+    /**
+     * 获取基站热备组状态
+     * GET /api/v1/failover/groups
+     */
+    @GetMapping("/failover/groups")
+    public ApiResponse<List<Map<String, Object>>> getFailoverGroups(HttpServletRequest request) {
+        try {
+            List<Map<String, Object>> groups = failoverManager.getGroupStatus();
+            return ApiResponse.success(groups, "热备组状态获取成功").path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("获取热备组状态失败", e);
+            return ApiResponse.<List<Map<String, Object>>>error("获取热备组状态失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+
     // ==================== 转发性能相关接口 ====================
     
     /**
@@ -180,6 +353,187 @@ public class MonitorController {
         }
     }
 
+    /**
+     * 获取重复帧抑制统计（含各上行链路的到达先后）
+     * GET /api/v1/relay/dedup
+     */
+    @GetMapping("/relay/dedup")
+    public ApiResponse<Map<String, Object>> getDedupStatus(HttpServletRequest request) {
+        try {
+            Map<String, Object> status = dataRelayService.getDedupStatus();
+            return ApiResponse.success(status, "重复帧抑制统计获取成功").path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("获取重复帧抑制统计失败", e);
+            return ApiResponse.<Map<String, Object>>error("获取重复帧抑制统计失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+
+    /**
+     * 获取移动站新连接接纳控制统计
+     * GET /api/v1/relay/admission
+     */
+    @GetMapping("/relay/admission")
+    public ApiResponse<Map<String, Object>> getAdmissionStatus(HttpServletRequest request) {
+        try {
+            Map<String, Object> status = connectionAdmissionService.getStatus();
+            return ApiResponse.success(status, "接纳控制统计获取成功").path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("获取接纳控制统计失败", e);
+            return ApiResponse.<Map<String, Object>>error("获取接纳控制统计失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+
+    /**
+     * 获取UDP组播转发统计
+     * GET /api/v1/relay/multicast
+     */
+    @GetMapping("/relay/multicast")
+    public ApiResponse<Map<String, Object>> getMulticastStatus(HttpServletRequest request) {
+        try {
+            Map<String, Object> status = multicastPublisher.getStatus();
+            return ApiResponse.success(status, "组播转发统计获取成功").path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("获取组播转发统计失败", e);
+            return ApiResponse.<Map<String, Object>>error("获取组播转发统计失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+
+    /**
+     * 获取RTCM原始数据归档统计
+     * GET /api/v1/relay/journal
+     */
+    @GetMapping("/relay/journal")
+    public ApiResponse<Map<String, Object>> getJournalStatus(HttpServletRequest request) {
+        try {
+            Map<String, Object> status = rtcmJournal.getStatus();
+            status.put("replay", journalReplayServer.getStatus());
+            return ApiResponse.success(status, "归档统计获取成功").path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("获取归档统计失败", e);
+            return ApiResponse.<Map<String, Object>>error("获取归档统计失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+
+    /**
+     * 获取各基站的归档时间范围
+     * GET /api/v1/relay/journal/stations
+     */
+    @GetMapping("/relay/journal/stations")
+    public ApiResponse<List<Map<String, Object>>> getJournalStations(HttpServletRequest request) {
+        try {
+            List<Map<String, Object>> stations = rtcmJournal.getStations();
+            return ApiResponse.success(stations, "归档范围获取成功").path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("获取归档范围失败", e);
+            return ApiResponse.<List<Map<String, Object>>>error("获取归档范围失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+
+    /**
+     * 下载时间窗口内的归档RTCM原始数据
+     * GET /api/v1/relay/journal/replay?station=192.168.1.100&from=...&to=...
+     * 响应体为原始RTCM 3数据流；按速率回放使用回放TCP端口
+     */
+    @GetMapping("/relay/journal/replay")
+    public void downloadJournal(HttpServletResponse response,
+                                @RequestParam String station,
+                                @RequestParam String from,
+                                @RequestParam String to) throws IOException {
+        JournalCursor cursor;
+        try {
+            long fromMillis = RtcmJournal.parseTime(from);
+            long toMillis = RtcmJournal.parseTime(to);
+            if (toMillis <= fromMillis) {
+                throw new IllegalArgumentException("终点须晚于起点");
+            }
+            cursor = rtcmJournal.openCursor(station, fromMillis, toMillis);
+        } catch (IllegalArgumentException | RtkRelayException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        try (JournalCursor replay = cursor) {
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\""
+                    + RtcmJournal.stationDirectory(station) + "_" + from.replaceAll("[^0-9A-Za-z]", "") + ".rtcm3\"");
+            long bytes = replay.writeTo(response.getOutputStream());
+            log.info("归档数据下载完成 - 基站: {}, 窗口: {} - {}, 字节数: {}", station, from, to, bytes);
+        }
+    }
+
+    /**
+     * 获取基站快照统计
+     * GET /api/v1/relay/snapshot
+     */
+    @GetMapping("/relay/snapshot")
+    public ApiResponse<Map<String, Object>> getSnapshotStatus(HttpServletRequest request) {
+        try {
+            Map<String, Object> status = stationSnapshotService.getStatus();
+            return ApiResponse.success(status, "基站快照统计获取成功").path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("获取基站快照统计失败", e);
+            return ApiResponse.<Map<String, Object>>error("获取基站快照统计失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+
+    /**
+     * 获取发送流量整形与配额统计
+     * GET /api/v1/relay/shaping
+     */
+    @GetMapping("/relay/shaping")
+    public ApiResponse<Map<String, Object>> getShapingStatus(HttpServletRequest request) {
+        try {
+            Map<String, Object> status = trafficShapingService.getStatus();
+            return ApiResponse.success(status, "流量整形统计获取成功").path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("获取流量整形统计失败", e);
+            return ApiResponse.<Map<String, Object>>error("获取流量整形统计失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+
+    /**
+     * 获取运行时转发参数（当前快照及参数文件监视状态）
+     * GET /api/v1/relay/config
+     */
+    @GetMapping("/relay/config")
+    public ApiResponse<Map<String, Object>> getRelayConfig(HttpServletRequest request) {
+        try {
+            Map<String, Object> config = liveRelayConfig.current().toMap();
+            config.put("watcher", liveConfigWatcher.getStatus());
+            return ApiResponse.success(config, "转发参数获取成功").path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("获取转发参数失败", e);
+            return ApiResponse.<Map<String, Object>>error("获取转发参数失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+
+    /**
+     * 修改运行时转发参数（一组参数全部有效时原子生效，无需重启）
+     * PUT /api/v1/relay/config
+     */
+    @PutMapping("/relay/config")
+    public ApiResponse<Map<String, Object>> updateRelayConfig(
+            @RequestBody Map<String, Object> changes,
+            HttpServletRequest request) {
+        try {
+            Map<String, Object> config = liveRelayConfig.update(changes, "api").toMap();
+            return ApiResponse.success(config, "转发参数修改成功").path(request.getRequestURI());
+        } catch (RtkRelayException e) {
+            return ApiResponse.<Map<String, Object>>badRequest(e.getMessage()).path(request.getRequestURI());
+        } catch (Exception e) {
+            log.error("修改转发参数失败", e);
+            return ApiResponse.<Map<String, Object>>error("修改转发参数失败: " + e.getMessage())
+                    .path(request.getRequestURI());
+        }
+    }
+
     // ==================== 数据库相关接口 ====================
     
     /**
@@ -434,6 +788,12 @@ public class MonitorController {
                 mobile.put("receivedBytes", conn.getReceivedBytes());
                 mobile.put("receivedMessages", conn.getReceivedMessages());
                 mobile.put("status", conn.getStatus().toString());
+                if (conn.getSubscription() != null) {
+                    mobile.put("messageFilter", toMessageFilterDTO(conn.getSubscription().getMessageFilter()));
+                    EpochDecimator decimator = conn.getSubscription().getDecimator();
+                    mobile.put("outputIntervalMs", decimator != null ? decimator.getIntervalMs() : 0);
+                    mobile.put("msmForm", conn.getSubscription().getMsmForm());
+                }
                 
                 if (conn.getLastActiveTime() != null) {
                     mobile.put("inactiveSeconds", 
@@ -445,6 +805,16 @@ public class MonitorController {
             .collect(Collectors.toList());
     }
     
+    /**
+     * 转换消息类型过滤器DTO
+     */
+    private MessageFilterDTO toMessageFilterDTO(MessageTypeFilter filter) {
+        MessageFilterDTO dto = new MessageFilterDTO();
+        dto.setMode(filter.getMode().name());
+        dto.setTypes(new ArrayList<>(filter.getTypes()));
+        return dto;
+    }
+    
     /**
      * 计算连接利用率
      */
@@ -488,6 +858,7 @@ public class MonitorController {
         
         errors.put("connectionErrors", stats.getConnectionErrors().get());
         errors.put("relayErrors", stats.getRelayErrors().get());
+        errors.put("supersededMessages", stats.getSupersededMessages().get());
         errors.put("totalErrors", totalErrors);
         
         if (totalConnections > 0) {
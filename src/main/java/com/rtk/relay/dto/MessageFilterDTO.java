@@ -0,0 +1,27 @@
+package com.rtk.relay.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 移动站消息类型过滤器DTO
+ * 用于RESTful API请求和响应
+ * 
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Data
+public class MessageFilterDTO {
+    
+    /**
+     * 过滤模式：ALLOW（只转发列出的类型）、DENY（不转发列出的类型）
+     */
+    private String mode;
+    
+    /**
+     * RTCM消息类型列表
+     */
+    private List<Integer> types = new ArrayList<>();
+}
@@ -0,0 +1,128 @@
+package com.rtk.relay.entity;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 连接热点计数器
+ * 接收侧由连接自身的I/O线程更新，发送侧由转发线程和心跳线程并发更新。计数使用原始long字段配合
+ * {@link AtomicLongFieldUpdater}原子累加，不产生对象分配，也不会丢失并发更新；两组字段之间用填充隔开，
+ * 避免不同线程写入同一缓存行。最后接收和最后发送时刻分别位于两组字段中（System.nanoTime），
+ * 最后活跃时刻取两者中较晚的一个，只在接口展示时换算为LocalDateTime。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public final class ConnectionCounters extends ConnectionCountersSendFields {
+
+    private static final AtomicLongFieldUpdater<ConnectionCountersReceiveFields> RECEIVED_BYTES =
+            AtomicLongFieldUpdater.newUpdater(ConnectionCountersReceiveFields.class, "receivedBytes");
+    private static final AtomicLongFieldUpdater<ConnectionCountersReceiveFields> RECEIVED_MESSAGES =
+            AtomicLongFieldUpdater.newUpdater(ConnectionCountersReceiveFields.class, "receivedMessages");
+    private static final AtomicLongFieldUpdater<ConnectionCountersSendFields> SENT_BYTES =
+            AtomicLongFieldUpdater.newUpdater(ConnectionCountersSendFields.class, "sentBytes");
+    private static final AtomicLongFieldUpdater<ConnectionCountersSendFields> SENT_MESSAGES =
+            AtomicLongFieldUpdater.newUpdater(ConnectionCountersSendFields.class, "sentMessages");
+
+    /**
+     * 记录一次接收并刷新最后接收时刻
+     *
+     * @param bytes 接收字节数
+     */
+    public void recordReceived(int bytes) {
+        RECEIVED_BYTES.addAndGet(this, bytes);
+        RECEIVED_MESSAGES.incrementAndGet(this);
+        lastReceiveNanos = System.nanoTime();
+    }
+
+    /**
+     * 记录一次发送并刷新最后发送时刻
+     *
+     * @param bytes 发送字节数
+     */
+    public void recordSent(int bytes) {
+        SENT_BYTES.addAndGet(this, bytes);
+        SENT_MESSAGES.incrementAndGet(this);
+        lastSendNanos = System.nanoTime();
+    }
+
+    /**
+     * 刷新活跃时刻（心跳发送成功时调用，写入发送侧）
+     */
+    public void touch() {
+        lastSendNanos = System.nanoTime();
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+
+    public long getReceivedMessages() {
+        return receivedMessages;
+    }
+
+    public long getSentBytes() {
+        return sentBytes;
+    }
+
+    public long getSentMessages() {
+        return sentMessages;
+    }
+
+    /**
+     * 最后活跃时刻：最后接收和最后发送中较晚的一个
+     *
+     * @return 纳秒时刻（System.nanoTime）
+     */
+    public long getLastActiveNanos() {
+        long receive = lastReceiveNanos;
+        long send = lastSendNanos;
+        // nanoTime可能为负，按差值比较
+        return send - receive > 0 ? send : receive;
+    }
+
+    /**
+     * 最后活跃时间（展示用，按当前时间回推）
+     *
+     * @return 最后活跃时间
+     */
+    public LocalDateTime getLastActiveTime() {
+        return LocalDateTime.now().minusNanos(Math.max(0, System.nanoTime() - getLastActiveNanos()));
+    }
+
+    /**
+     * 自最后活跃以来经过的时间
+     *
+     * @param unit 时间单位
+     * @return 空闲时长
+     */
+    public long getIdleTime(TimeUnit unit) {
+        return unit.convert(System.nanoTime() - getLastActiveNanos(), TimeUnit.NANOSECONDS);
+    }
+}
+
+/**
+ * 接收侧字段（连接I/O线程写入）
+ */
+abstract class ConnectionCountersReceiveFields {
+    volatile long receivedBytes;
+    volatile long receivedMessages;
+    volatile long lastReceiveNanos = System.nanoTime();
+}
+
+/**
+ * 缓存行填充，隔开接收侧和发送侧字段
+ */
+abstract class ConnectionCountersPadding extends ConnectionCountersReceiveFields {
+    long p1, p2, p3, p4, p5, p6, p7, p8;
+}
+
+/**
+ * 发送侧字段（转发线程写入）
+ */
+abstract class ConnectionCountersSendFields extends ConnectionCountersPadding {
+    volatile long sentBytes;
+    volatile long sentMessages;
+    volatile long lastSendNanos = lastReceiveNanos;
+}
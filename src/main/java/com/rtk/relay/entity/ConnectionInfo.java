@@ -1,6 +1,11 @@
 package com.rtk.relay.entity;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
@@ -19,6 +24,11 @@ public class ConnectionInfo {
      */
     private String connectionId;
     
+    /**
+     * 连接句柄，由连接注册表分配，转发路径按句柄查找连接（-1表示未注册）
+     */
+    private int handle = -1;
+    
     /**
      * 连接类型：BASE_STATION（基站）、MOBILE_STATION（移动站）
      */
@@ -40,34 +50,82 @@ public class ConnectionInfo {
     private LocalDateTime connectTime;
     
     /**
-     * 最后活跃时间
+     * 连接状态
      */
-    private LocalDateTime lastActiveTime;
+    private ConnectionStatus status;
     
     /**
-     * 连接状态
+     * 收发计数和最后活跃时刻
      */
-    private ConnectionStatus status;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final ConnectionCounters counters = new ConnectionCounters();
+    
+    /**
+     * 移动站订阅设置（基站连接为null）
+     */
+    private RoverSubscription subscription;
+    
+    /**
+     * 记录一次接收并刷新活跃时刻
+     *
+     * @param bytes 接收字节数
+     */
+    public void recordReceived(int bytes) {
+        counters.recordReceived(bytes);
+    }
     
     /**
-     * 接收字节数
+     * 记录一次发送并刷新活跃时刻
+     *
+     * @param bytes 发送字节数
      */
-    private long receivedBytes;
+    public void recordSent(int bytes) {
+        counters.recordSent(bytes);
+    }
     
     /**
-     * 发送字节数
+     * 刷新活跃时刻
      */
-    private long sentBytes;
+    public void touch() {
+        counters.touch();
+    }
+    
+    public long getReceivedBytes() {
+        return counters.getReceivedBytes();
+    }
+    
+    public long getSentBytes() {
+        return counters.getSentBytes();
+    }
+    
+    public long getReceivedMessages() {
+        return counters.getReceivedMessages();
+    }
+    
+    public long getSentMessages() {
+        return counters.getSentMessages();
+    }
     
     /**
-     * 接收消息数
+     * 最后活跃时刻（System.nanoTime）
+     *
+     * @return 纳秒时刻
      */
-    private long receivedMessages;
+    public long getLastActiveNanos() {
+        return counters.getLastActiveNanos();
+    }
     
     /**
-     * 发送消息数
+     * 最后活跃时间（展示用）
+     *
+     * @return 最后活跃时间
      */
-    private long sentMessages;
+    public LocalDateTime getLastActiveTime() {
+        return counters.getLastActiveTime();
+    }
     
     /**
      * 连接类型枚举
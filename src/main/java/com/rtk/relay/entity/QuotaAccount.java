@@ -0,0 +1,110 @@
+package com.rtk.relay.entity;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 移动站每日流量配额账户（按移动站IP地址）
+ * 转发线程只向分段计数器 {@link LongAdder} 累加，不争用同一个缓存行；
+ * 累加器从不清零，当日用量为累计值加偏移量（新的一天或启动恢复时重新设置偏移量），
+ * 汇总时只读取累加器，不会丢失汇总过程中并发记录的字节数。汇总线程定期计算当日用量并持久化；
+ * 转发路径在汇总标志之外还直接计算当日用量，配额用完后立即停止转发，只有已经发出、尚未完成的写入会超出配额。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public final class QuotaAccount {
+
+    /**
+     * 移动站IP地址
+     */
+    private final String address;
+
+    /**
+     * 每日配额（字节）
+     */
+    private final long limitBytes;
+
+    /**
+     * 累计发送字节数（从不清零）
+     */
+    private final LongAdder recordedBytes = new LongAdder();
+
+    /**
+     * 当日用量相对累计发送字节数的偏移量（只由汇总线程写入）
+     */
+    private volatile long offsetBytes;
+
+    /**
+     * 最近一次汇总的当日用量（只由汇总线程写入）
+     */
+    private volatile long usedBytes;
+
+    /**
+     * 汇总时当日配额是否已用完
+     */
+    private volatile boolean exhausted;
+
+    /**
+     * 构造函数
+     *
+     * @param address 移动站IP地址
+     * @param limitBytes 每日配额（字节）
+     */
+    public QuotaAccount(String address, long limitBytes) {
+        this.address = address;
+        this.limitBytes = limitBytes;
+    }
+
+    /**
+     * 记录一次发送（转发线程调用）
+     *
+     * @param bytes 发送字节数
+     */
+    public void record(int bytes) {
+        recordedBytes.add(bytes);
+    }
+
+    /**
+     * 当日配额是否已用完（含尚未汇总的发送字节数）
+     *
+     * @return 是否用完
+     */
+    public boolean isExhausted() {
+        return exhausted || recordedBytes.sum() + offsetBytes >= limitBytes;
+    }
+
+    /**
+     * 汇总当日用量并更新配额状态（汇总线程调用）
+     *
+     * @return 当日用量（字节）
+     */
+    public long flush() {
+        long used = recordedBytes.sum() + offsetBytes;
+        usedBytes = used;
+        exhausted = used >= limitBytes;
+        return used;
+    }
+
+    /**
+     * 设置当日用量（新的一天清零，或启动时恢复；汇总线程调用）
+     *
+     * @param bytes 当日用量（字节）
+     */
+    public void reset(long bytes) {
+        offsetBytes = bytes - recordedBytes.sum();
+        usedBytes = bytes;
+        exhausted = bytes >= limitBytes;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public long getLimitBytes() {
+        return limitBytes;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+}
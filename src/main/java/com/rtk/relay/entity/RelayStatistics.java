@@ -1,6 +1,9 @@
 package com.rtk.relay.entity;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.time.LocalDateTime;
 import java.util.concurrent.atomic.AtomicLong;
@@ -21,9 +24,11 @@ public class RelayStatistics {
     private LocalDateTime startTime;
     
     /**
-     * 最后更新时间
+     * 最后更新时刻（System.nanoTime），转发路径每条消息都会刷新，只在展示时换算为时间
      */
-    private LocalDateTime lastUpdateTime;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile long lastUpdateNanos;
     
     /**
      * 基站连接数（当前）
@@ -75,18 +80,32 @@ public class RelayStatistics {
      */
     private AtomicLong relayErrors = new AtomicLong(0);
     
+    /**
+     * 移动站拥塞时被更新数据替换而未发送的消息数
+     */
+    private AtomicLong supersededMessages = new AtomicLong(0);
+    
     /**
      * 构造函数，初始化启动时间
      */
     public RelayStatistics() {
         this.startTime = LocalDateTime.now();
-        this.lastUpdateTime = LocalDateTime.now();
+        this.lastUpdateNanos = System.nanoTime();
     }
     
     /**
      * 更新最后活跃时间
      */
     public void updateLastActiveTime() {
-        this.lastUpdateTime = LocalDateTime.now();
+        this.lastUpdateNanos = System.nanoTime();
+    }
+    
+    /**
+     * 获取最后更新时间
+     *
+     * @return 最后更新时间
+     */
+    public LocalDateTime getLastUpdateTime() {
+        return LocalDateTime.now().minusNanos(Math.max(0, System.nanoTime() - lastUpdateNanos));
     }
 }
@@ -0,0 +1,82 @@
+package com.rtk.relay.entity;
+
+import com.rtk.relay.rtcm.EpochDecimator;
+import com.rtk.relay.rtcm.MessageTypeFilter;
+import com.rtk.relay.rtcm.MsmForm;
+import com.rtk.relay.rtcm.RelayFrame;
+import lombok.Data;
+
+/**
+ * 移动站订阅设置
+ * 决定转发给单个移动站的RTCM数据内容，可在运行期间通过管理接口修改
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Data
+public class RoverSubscription {
+
+    /**
+     * 消息类型过滤器
+     */
+    private volatile MessageTypeFilter messageFilter = MessageTypeFilter.ACCEPT_ALL;
+    
+    /**
+     * 观测历元抽稀器（null表示按基站原始频率转发）
+     */
+    private volatile EpochDecimator decimator;
+    
+    /**
+     * MSM7观测值的接收形式
+     */
+    private volatile MsmForm msmForm = MsmForm.ORIGINAL;
+    
+    /**
+     * 每日流量配额账户（null表示不限制）
+     */
+    private volatile QuotaAccount quota;
+    
+    /**
+     * 选择转发给该移动站的帧数据
+     * 按订阅的MSM形式取得（共享的）转换结果，再按转换后的消息类型过滤；当日配额用完后不再转发
+     *
+     * @param frame 转发帧
+     * @return 帧数据，不转发时返回null
+     */
+    public byte[] select(RelayFrame frame) {
+        QuotaAccount currentQuota = quota;
+        if (currentQuota != null && currentQuota.isExhausted()) {
+            return null;
+        }
+        MsmForm form = msmForm;
+        byte[] data = frame.get(form);
+        return accepts(data, frame.getMessageType(form)) ? data : null;
+    }
+    
+    /**
+     * 记录发送给该移动站的字节数（计入每日配额）
+     *
+     * @param bytes 发送字节数
+     */
+    public void recordSent(int bytes) {
+        QuotaAccount currentQuota = quota;
+        if (currentQuota != null) {
+            currentQuota.record(bytes);
+        }
+    }
+    
+    /**
+     * 判断帧是否应当转发给该移动站
+     *
+     * @param frame 帧数据
+     * @param messageType 消息编号
+     * @return 是否转发
+     */
+    public boolean accepts(byte[] frame, int messageType) {
+        if (!messageFilter.accepts(messageType)) {
+            return false;
+        }
+        EpochDecimator currentDecimator = decimator;
+        return currentDecimator == null || currentDecimator.accept(frame, messageType);
+    }
+}
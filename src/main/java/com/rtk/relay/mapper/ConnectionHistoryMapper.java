@@ -6,6 +6,8 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,6 +22,34 @@ public interface ConnectionHistoryMapper extends BaseMapper<ConnectionHistory> {
     @Select("SELECT * FROM connection_history WHERE connection_id = #{connectionId} ORDER BY connect_time DESC LIMIT 1")
     ConnectionHistory selectByConnectionId(@Param("connectionId") String connectionId);
 
+    /**
+     * 批量插入连接记录
+     *
+     * @param histories 连接记录列表
+     * @return 插入数量
+     */
+    @Insert("<script>" +
+            "INSERT INTO connection_history (connection_id, connection_type, remote_address, remote_port, connect_time, " +
+            "disconnect_time, duration_seconds, received_bytes, sent_bytes, received_messages, sent_messages, status, created_at) VALUES " +
+            "<foreach collection='histories' item='h' separator=','>" +
+            "(#{h.connectionId}, #{h.connectionType}, #{h.remoteAddress}, #{h.remotePort}, #{h.connectTime}, " +
+            "#{h.disconnectTime}, #{h.durationSeconds}, #{h.receivedBytes}, #{h.sentBytes}, #{h.receivedMessages}, #{h.sentMessages}, #{h.status}, NOW())" +
+            "</foreach>" +
+            "</script>")
+    int batchInsert(@Param("histories") List<ConnectionHistory> histories);
+
+    /**
+     * 按连接ID更新断开信息（只更新尚未断开的记录）
+     *
+     * @param history 断开信息
+     * @return 更新数量
+     */
+    @Update("UPDATE connection_history SET disconnect_time = #{h.disconnectTime}, " +
+            "duration_seconds = #{h.durationSeconds}, received_bytes = #{h.receivedBytes}, sent_bytes = #{h.sentBytes}, " +
+            "received_messages = #{h.receivedMessages}, sent_messages = #{h.sentMessages}, status = #{h.status} " +
+            "WHERE connection_id = #{h.connectionId} AND disconnect_time IS NULL")
+    int updateClosed(@Param("h") ConnectionHistory history);
+
     /**
      * 删除指定时间之前的旧记录
      */
@@ -69,14 +69,13 @@ public class BaseStationHandler extends ChannelInboundHandlerAdapter {
         connectionInfo.setRemoteAddress(remoteAddress.getAddress().getHostAddress());
         connectionInfo.setRemotePort(remoteAddress.getPort());
         connectionInfo.setConnectTime(LocalDateTime.now());
-        connectionInfo.setLastActiveTime(LocalDateTime.now());
         connectionInfo.setStatus(ConnectionInfo.ConnectionStatus.CONNECTED);
         
         // 将连接信息绑定到通道
         ctx.channel().attr(CONNECTION_INFO_KEY).set(connectionInfo);
         
         // 注册基站连接
-        connectionManager.registerBaseStation(connectionId, ctx.channel(), connectionInfo);
+        connectionManager.registerBaseStation(ctx.channel(), connectionInfo);
         
         log.info("基站连接建立成功 - 连接ID: {}, 远程地址: {}:{}", 
                 connectionId, connectionInfo.getRemoteAddress(), connectionInfo.getRemotePort());
@@ -107,15 +106,13 @@ public class BaseStationHandler extends ChannelInboundHandlerAdapter {
             byteBuf.readBytes(data);
             
             // 更新连接统计信息
-            connectionInfo.setLastActiveTime(LocalDateTime.now());
-            connectionInfo.setReceivedBytes(connectionInfo.getReceivedBytes() + data.length);
-            connectionInfo.setReceivedMessages(connectionInfo.getReceivedMessages() + 1);
+            connectionInfo.recordReceived(data.length);
             
             log.debug("接收到基站数据 - 连接ID: {}, 数据长度: {} 字节", 
                     connectionInfo.getConnectionId(), data.length);
             
             // 转发数据到所有移动站
-            dataRelayService.relayDataToMobileStations(data, connectionInfo.getConnectionId());
+            dataRelayService.relayDataToMobileStations(data, connectionInfo.getHandle());
             
         } catch (Exception e) {
             log.error("处理基站数据时发生错误 - 连接ID: {}", connectionInfo.getConnectionId(), e);
@@ -134,7 +131,7 @@ public class BaseStationHandler extends ChannelInboundHandlerAdapter {
         ConnectionInfo connectionInfo = ctx.channel().attr(CONNECTION_INFO_KEY).get();
         if (connectionInfo != null) {
             connectionInfo.setStatus(ConnectionInfo.ConnectionStatus.DISCONNECTED);
-            connectionManager.unregisterBaseStation(connectionInfo.getConnectionId());
+            connectionManager.unregisterBaseStation(connectionInfo.getHandle());
             
             log.info("基站连接断开 - 连接ID: {}, 远程地址: {}:{}", 
                     connectionInfo.getConnectionId(), 
@@ -0,0 +1,80 @@
+package com.rtk.relay.netty;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 历元批量发送的刷新时限处理器
+ * 按历元批量发送时，转发服务对未结束历元的消息只调用 write，在历元最后一条MSM消息处才 flush。
+ * 本处理器在第一条未刷新的写入时启动定时器，超过刷新时限仍未 flush 则主动刷新，
+ * 保证移动站过滤掉历元末尾消息或基站缺少多电文标志时数据也不会滞留。
+ * 显式 flush 时取消定时器，下一批写入重新计时，每批都有完整的刷新时限。
+ * 每个通道一个实例，状态只在通道的事件循环中访问。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public class EpochFlushHandler extends ChannelDuplexHandler {
+
+    /**
+     * 刷新时限（纳秒）
+     */
+    private final long flushBudgetNanos;
+
+    /**
+     * 已启动的超时刷新定时器
+     */
+    private ScheduledFuture<?> pendingFlush;
+
+    /**
+     * 是否有尚未刷新的写入
+     */
+    private boolean unflushed;
+
+    /**
+     * 构造函数
+     *
+     * @param flushBudgetUs 刷新时限（微秒）
+     */
+    public EpochFlushHandler(long flushBudgetUs) {
+        this.flushBudgetNanos = TimeUnit.MICROSECONDS.toNanos(flushBudgetUs);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        ctx.write(msg, promise);
+        unflushed = true;
+        if (pendingFlush == null) {
+            pendingFlush = ctx.executor().schedule(() -> {
+                pendingFlush = null;
+                if (unflushed) {
+                    unflushed = false;
+                    ctx.flush();
+                }
+            }, flushBudgetNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        unflushed = false;
+        cancelPendingFlush();
+        ctx.flush();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        cancelPendingFlush();
+    }
+
+    private void cancelPendingFlush() {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+    }
+}
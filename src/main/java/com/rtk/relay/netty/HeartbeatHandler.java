@@ -0,0 +1,153 @@
+package com.rtk.relay.netty;
+
+import com.rtk.relay.config.LiveRelayConfig;
+import com.rtk.relay.entity.ConnectionInfo;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.AttributeKey;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 移动站心跳处理器
+ * 配合前面的 IdleStateHandler 使用：只有在设定间隔内没有任何写出的通道才会收到写空闲事件并发送心跳，
+ * 正在接收差分数据的移动站不再发送心跳，保持TCP连接经过frp等中间设备时不被断开。
+ * 心跳内容为共享的只读直接内存缓冲区，发送时只复制读写索引。
+ * <p>
+ * IdleStateHandler 的写空闲时间就是心跳间隔；间隔为0时管道中没有 IdleStateHandler，不做任何空闲检测。
+ * 间隔运行时调整后由 {@link #applyInterval} 在通道的事件循环中替换、添加或移除 IdleStateHandler；
+ * 通道激活（移动站注册）之后再按当前间隔检查一次，避免错过注册前发生的调整。
+ * 本处理器无状态，所有通道共用一个实例。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Slf4j
+@ChannelHandler.Sharable
+public class HeartbeatHandler extends ChannelInboundHandlerAdapter {
+
+    /**
+     * 本处理器在管道中的名称
+     */
+    public static final String NAME = "heartbeat";
+
+    /**
+     * 写空闲检测处理器在管道中的名称
+     */
+    public static final String IDLE_STATE_NAME = "heartbeatIdleState";
+
+    /**
+     * 连接信息属性键
+     */
+    private static final AttributeKey<ConnectionInfo> CONNECTION_INFO_KEY = AttributeKey.valueOf("connectionInfo");
+
+    /**
+     * 心跳数据包 - 发送最小的数据包保持连接活跃
+     * 使用NMEA-0183格式的注释行，不会影响正常数据解析
+     */
+    private static final ByteBuf HEARTBEAT_PACKET = Unpooled.unreleasableBuffer(
+            Unpooled.directBuffer(32).writeBytes("$RTKH,HEARTBEAT*00\r\n".getBytes(StandardCharsets.US_ASCII))
+                    .asReadOnly());
+
+    /**
+     * 运行时转发参数（心跳间隔）
+     */
+    private final LiveRelayConfig liveRelayConfig;
+
+    /**
+     * 构造函数
+     *
+     * @param liveRelayConfig 运行时转发参数
+     */
+    public HeartbeatHandler(LiveRelayConfig liveRelayConfig) {
+        this.liveRelayConfig = liveRelayConfig;
+    }
+
+    /**
+     * 在管道末尾添加写空闲检测（当前间隔大于0时）和本处理器
+     *
+     * @param pipeline 移动站通道管道
+     */
+    public void install(ChannelPipeline pipeline) {
+        int heartbeatInterval = liveRelayConfig.current().getHeartbeatInterval();
+        if (heartbeatInterval > 0) {
+            pipeline.addLast(IDLE_STATE_NAME, newIdleStateHandler(heartbeatInterval));
+        }
+        pipeline.addLast(NAME, this);
+    }
+
+    /**
+     * 按新的心跳间隔调整写空闲检测，须在通道的事件循环中调用
+     *
+     * @param pipeline 移动站通道管道（已通过 {@link #install} 添加心跳处理器）
+     * @param heartbeatInterval 心跳间隔（秒），0为不发送
+     */
+    public static void applyInterval(ChannelPipeline pipeline, int heartbeatInterval) {
+        if (pipeline.get(NAME) == null) {
+            // 通道已关闭，处理器已移除
+            return;
+        }
+        IdleStateHandler current = (IdleStateHandler) pipeline.get(IDLE_STATE_NAME);
+        if (heartbeatInterval <= 0) {
+            if (current != null) {
+                pipeline.remove(current);
+            }
+        } else if (current == null) {
+            pipeline.addBefore(NAME, IDLE_STATE_NAME, newIdleStateHandler(heartbeatInterval));
+        } else if (current.getWriterIdleTimeInMillis() != TimeUnit.SECONDS.toMillis(heartbeatInterval)) {
+            pipeline.replace(current, IDLE_STATE_NAME, newIdleStateHandler(heartbeatInterval));
+        }
+    }
+
+    private static IdleStateHandler newIdleStateHandler(int heartbeatInterval) {
+        return new IdleStateHandler(0, heartbeatInterval, 0, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        // 后面的移动站处理器注册连接之后再读取间隔：注册前的调整在这里补上，注册后的调整由参数变更通知处理
+        ctx.fireChannelActive();
+        applyInterval(ctx.pipeline(), liveRelayConfig.current().getHeartbeatInterval());
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (!(evt instanceof IdleStateEvent) || ((IdleStateEvent) evt).state() != IdleState.WRITER_IDLE) {
+            super.userEventTriggered(ctx, evt);
+            return;
+        }
+
+        if (!ctx.channel().isActive()) {
+            return;
+        }
+        if (!ctx.channel().isWritable()) {
+            // 写缓冲区仍有积压，说明数据在发送中，不需要心跳
+            return;
+        }
+
+        ConnectionInfo connectionInfo = ctx.channel().attr(CONNECTION_INFO_KEY).get();
+        ctx.writeAndFlush(HEARTBEAT_PACKET.duplicate()).addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                if (connectionInfo != null) {
+                    connectionInfo.touch();
+                    log.trace("发送心跳到移动站: {}", connectionInfo.getConnectionId());
+                }
+            } else {
+                // 心跳都发不出去的连接视为死连接，关闭后由连接管理器注销
+                log.warn("心跳发送失败，关闭连接: {}, 原因: {}",
+                        ctx.channel().remoteAddress(), future.cause().getMessage());
+                future.channel().close();
+            }
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package com.rtk.relay.netty;
+
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetectorFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ByteBuf泄漏报告计数
+ * 替换Netty默认的泄漏检测器工厂，检测器照常输出 "LEAK:" 错误日志，同时累计报告次数供监控接口读取，
+ * 长时间运行测试据此判断是否存在泄漏。泄漏检测按采样进行，测试时可加
+ * -Dio.netty.leakDetection.level=paranoid 检查每个缓冲区。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public final class LeakReportCounter extends ResourceLeakDetectorFactory {
+
+    private static final AtomicLong LEAK_REPORTS = new AtomicLong();
+
+    private LeakReportCounter() {
+    }
+
+    /**
+     * 安装计数工厂，须在首次分配ByteBuf之前调用（检测器在缓冲区类初始化时创建）
+     */
+    public static void install() {
+        ResourceLeakDetectorFactory.setResourceLeakDetectorFactory(new LeakReportCounter());
+    }
+
+    /**
+     * 获取启动以来的泄漏报告次数
+     *
+     * @return 报告次数
+     */
+    public static long getLeakReports() {
+        return LEAK_REPORTS.get();
+    }
+
+    @Override
+    public <T> ResourceLeakDetector<T> newResourceLeakDetector(Class<T> resource, int samplingInterval, long maxActive) {
+        return new CountingDetector<>(resource, samplingInterval);
+    }
+
+    /**
+     * 报告泄漏时计数的检测器
+     */
+    private static final class CountingDetector<T> extends ResourceLeakDetector<T> {
+
+        CountingDetector(Class<?> resourceType, int samplingInterval) {
+            super(resourceType, samplingInterval);
+        }
+
+        @Override
+        protected void reportTracedLeak(String resourceType, String records) {
+            LEAK_REPORTS.incrementAndGet();
+            super.reportTracedLeak(resourceType, records);
+        }
+
+        @Override
+        protected void reportUntracedLeak(String resourceType) {
+            LEAK_REPORTS.incrementAndGet();
+            super.reportUntracedLeak(resourceType);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.rtk.relay.netty;
 import com.rtk.relay.entity.ConnectionInfo;
 import com.rtk.relay.service.ConnectionManager;
 import com.rtk.relay.service.DataRelayService;
+import com.rtk.relay.service.RoverSubscriptionService;
 import com.rtk.relay.util.ConnectionIdGenerator;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
@@ -39,15 +40,23 @@ public class MobileStationHandler extends ChannelInboundHandlerAdapter {
      */
     private final DataRelayService dataRelayService;
     
+    /**
+     * 移动站订阅服务
+     */
+    private final RoverSubscriptionService roverSubscriptionService;
+    
     /**
      * 构造函数
      * 
      * @param connectionManager 连接管理器
      * @param dataRelayService 数据转发服务
+     * @param roverSubscriptionService 移动站订阅服务
      */
-    public MobileStationHandler(ConnectionManager connectionManager, DataRelayService dataRelayService) {
+    public MobileStationHandler(ConnectionManager connectionManager, DataRelayService dataRelayService,
+                                RoverSubscriptionService roverSubscriptionService) {
         this.connectionManager = connectionManager;
         this.dataRelayService = dataRelayService;
+        this.roverSubscriptionService = roverSubscriptionService;
     }
     
     /**
@@ -58,12 +67,8 @@ public class MobileStationHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void channelActive(ChannelHandlerContext ctx) {
         InetSocketAddress remoteAddress = (InetSocketAddress) ctx.channel().remoteAddress();
-        String connectionId = ConnectionIdGenerator.generateMobileStationId(
-            remoteAddress.getAddress().getHostAddress(), 
-            remoteAddress.getPort()
-        );
         
-        // 检查连接数限制
+        // 检查连接数限制（接纳控制已提前拒绝大部分超限连接，这里兜底并发接入时的竞争）
         if (connectionManager.getMobileStationCount() >= connectionManager.getMaxMobileStationConnections()) {
             log.warn("移动站连接数已达上限，拒绝新连接 - 远程地址: {}:{}", 
                     remoteAddress.getAddress().getHostAddress(), remoteAddress.getPort());
@@ -71,6 +76,11 @@ public class MobileStationHandler extends ChannelInboundHandlerAdapter {
             return;
         }
         
+        String connectionId = ConnectionIdGenerator.generateMobileStationId(
+            remoteAddress.getAddress().getHostAddress(), 
+            remoteAddress.getPort()
+        );
+        
         // 创建连接信息
         ConnectionInfo connectionInfo = new ConnectionInfo();
         connectionInfo.setConnectionId(connectionId);
@@ -78,14 +88,14 @@ public class MobileStationHandler extends ChannelInboundHandlerAdapter {
         connectionInfo.setRemoteAddress(remoteAddress.getAddress().getHostAddress());
         connectionInfo.setRemotePort(remoteAddress.getPort());
         connectionInfo.setConnectTime(LocalDateTime.now());
-        connectionInfo.setLastActiveTime(LocalDateTime.now());
         connectionInfo.setStatus(ConnectionInfo.ConnectionStatus.CONNECTED);
+        connectionInfo.setSubscription(roverSubscriptionService.createSubscription(connectionInfo.getRemoteAddress()));
         
         // 将连接信息绑定到通道
         ctx.channel().attr(CONNECTION_INFO_KEY).set(connectionInfo);
         
         // 注册移动站连接
-        connectionManager.registerMobileStation(connectionId, ctx.channel(), connectionInfo);
+        connectionManager.registerMobileStation(ctx.channel(), connectionInfo);
         
         log.info("移动站连接建立成功 - 连接ID: {}, 远程地址: {}:{}", 
                 connectionId, connectionInfo.getRemoteAddress(), connectionInfo.getRemotePort());
@@ -129,9 +139,7 @@ public class MobileStationHandler extends ChannelInboundHandlerAdapter {
             byteBuf.readBytes(data);
             
             // 更新连接统计信息
-            connectionInfo.setLastActiveTime(LocalDateTime.now());
-            connectionInfo.setReceivedBytes(connectionInfo.getReceivedBytes() + data.length);
-            connectionInfo.setReceivedMessages(connectionInfo.getReceivedMessages() + 1);
+            connectionInfo.recordReceived(data.length);
             
             log.debug("接收到移动站数据 - 连接ID: {}, 数据长度: {} 字节", 
                     connectionInfo.getConnectionId(), data.length);
@@ -153,7 +161,7 @@ public class MobileStationHandler extends ChannelInboundHandlerAdapter {
         ConnectionInfo connectionInfo = ctx.channel().attr(CONNECTION_INFO_KEY).get();
         if (connectionInfo != null) {
             connectionInfo.setStatus(ConnectionInfo.ConnectionStatus.DISCONNECTED);
-            connectionManager.unregisterMobileStation(connectionInfo.getConnectionId());
+            connectionManager.unregisterMobileStation(connectionInfo.getHandle());
             
             log.info("移动站连接断开 - 连接ID: {}, 远程地址: {}:{}", 
                     connectionInfo.getConnectionId(), 
@@ -0,0 +1,329 @@
+package com.rtk.relay.netty;
+
+import com.rtk.relay.rtcm.Rtcm3;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 移动站发送优先级处理器
+ * 通道可写时数据直接透传；通道拥塞（不可写）时按消息类型进入两条优先级队列：
+ * 高优先级为观测值（MSM及传统观测值消息）和基准站坐标/天线信息，低优先级为星历、文本等辅助消息。
+ * 队列内按键合并，只保留最新一份：坐标按消息类型，星历按消息类型和卫星号，非RTCM数据只保留最新一段。
+ * 观测值按（消息类型、基站ID、历元时间、拆分序号）入队，同一历元拆分成多条的MSM消息（DF393）全部保留；
+ * 同一基站的新历元到达时，整组丢弃排队中的旧历元观测值，不会把不同历元的观测值混发给移动站。
+ * 通道恢复可写后先发送高优先级队列，再发送低优先级队列。
+ * 带宽受限时移动站优先拿到最新历元的观测值保持固定解，不会因排队发送已有的星历而整体落后。
+ * 被更新数据替换的消息以 {@link SupersededException} 结束其写入结果。每个通道一个实例，状态只在事件循环中访问。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public class PriorityLaneHandler extends ChannelDuplexHandler {
+
+    /**
+     * 消息被同一键的更新数据替换（未发送）
+     */
+    public static final class SupersededException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private SupersededException() {
+            super("消息已被更新的数据替换", null, false, false);
+        }
+    }
+
+    /**
+     * 共享的替换异常实例（无堆栈）
+     */
+    public static final SupersededException SUPERSEDED = new SupersededException();
+
+    /**
+     * 消息体起始位
+     */
+    private static final int PAYLOAD_BIT = Rtcm3.HEADER_LENGTH * 8;
+
+    /**
+     * 观测值头部（消息编号、基站ID、历元时间、多电文/同步标志）所需的最少字节数
+     */
+    private static final int OBSERVATION_HEADER_BYTES = Rtcm3.HEADER_LENGTH + 7;
+
+    /**
+     * 高优先级队列
+     */
+    private final Map<Long, Pending> highLane = new LinkedHashMap<>();
+
+    /**
+     * 低优先级队列
+     */
+    private final Map<Long, Pending> lowLane = new LinkedHashMap<>();
+
+    /**
+     * 基站ID -> 排队期间的历元跟踪（队列清空后重新开始）
+     */
+    private final Map<Integer, EpochTracker> epochs = new HashMap<>();
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (!(msg instanceof ByteBuf)) {
+            ctx.write(msg, promise);
+            return;
+        }
+        if (highLane.isEmpty() && lowLane.isEmpty() && ctx.channel().isWritable()) {
+            ctx.write(msg, promise);
+            return;
+        }
+
+        if (highLane.isEmpty() && lowLane.isEmpty()) {
+            epochs.clear();
+        }
+
+        ByteBuf buf = (ByteBuf) msg;
+        int messageType = messageType(buf);
+        Pending pending = new Pending(buf, promise);
+        long key;
+        if (Rtcm3.isObservation(messageType) && buf.readableBytes() >= OBSERVATION_HEADER_BYTES) {
+            key = observationKey(buf, messageType, pending);
+        } else {
+            key = coalescingKey(buf, messageType);
+        }
+        Map<Long, Pending> lane = isHighPriority(messageType) ? highLane : lowLane;
+        // 先移除再放入，使替换后的消息排到队尾，保持发送顺序与到达顺序一致
+        supersede(lane.remove(key));
+        lane.put(key, pending);
+
+        if (ctx.channel().isWritable()) {
+            drain(ctx);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            drain(ctx);
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        discardAll();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        discardAll();
+    }
+
+    /**
+     * 计算观测值的队列键，并整组丢弃同一基站排队中的旧历元
+     * 历元按到达顺序划分：上一条观测值结束了历元（多电文/同步标志为0），
+     * 或同一卫星系统的历元时间发生变化（结束历元的消息丢失）时，开始新的历元。
+     * 各卫星系统的历元时间基准不同（GPS周内秒、GLONASS日内秒、北斗时），只在同一系统内比较。
+     */
+    private long observationKey(ByteBuf buf, int messageType, Pending pending) {
+        int index = buf.readerIndex();
+        int station = (int) bits(buf, index, PAYLOAD_BIT + 12, 12);
+        boolean legacyGlonass = messageType >= 1009 && messageType <= 1012;
+        int epochTime = (int) bits(buf, index, PAYLOAD_BIT + 24, legacyGlonass ? 27 : 30);
+        // MSM的DF393与GPS传统观测值的同步标志在同一位置，GLONASS传统观测值的历元时间少3位
+        boolean lastOfEpoch = bits(buf, index, PAYLOAD_BIT + (legacyGlonass ? 51 : 54), 1) == 0;
+        int system = Rtcm3.isMsm(messageType) ? messageType / 10 : (legacyGlonass ? 101 : 100);
+
+        EpochTracker tracker = epochs.get(station);
+        if (tracker == null) {
+            tracker = new EpochTracker();
+            epochs.put(station, tracker);
+        }
+        Integer previousTime = tracker.systemEpochTime.get(system);
+        if (tracker.closed || (previousTime != null && previousTime != epochTime)) {
+            tracker.sequence++;
+            tracker.systemEpochTime.clear();
+            tracker.parts.clear();
+            dropStaleEpochs(station, tracker.sequence);
+        }
+        tracker.systemEpochTime.put(system, epochTime);
+        tracker.closed = lastOfEpoch;
+        Integer part = tracker.parts.get(messageType);
+        part = part == null ? 0 : part + 1;
+        tracker.parts.put(messageType, part);
+
+        pending.station = station;
+        pending.epochSequence = tracker.sequence;
+        return ((long) (part & 0xFF) << 54) | ((long) messageType << 42) | ((long) station << 30) | epochTime;
+    }
+
+    /**
+     * 丢弃同一基站排队中早于指定历元的全部观测值
+     */
+    private void dropStaleEpochs(int station, long currentSequence) {
+        Iterator<Pending> iterator = highLane.values().iterator();
+        while (iterator.hasNext()) {
+            Pending pending = iterator.next();
+            if (pending.epochSequence >= 0 && pending.station == station && pending.epochSequence < currentSequence) {
+                iterator.remove();
+                supersede(pending);
+            }
+        }
+    }
+
+    private static void supersede(Pending pending) {
+        if (pending != null) {
+            pending.msg.release();
+            pending.promise.tryFailure(SUPERSEDED);
+        }
+    }
+
+    /**
+     * 按优先级发送队列中的消息，直到队列为空或通道再次不可写
+     */
+    private void drain(ChannelHandlerContext ctx) {
+        boolean written = false;
+        while (ctx.channel().isWritable()) {
+            Map<Long, Pending> lane = !highLane.isEmpty() ? highLane : lowLane;
+            if (lane.isEmpty()) {
+                break;
+            }
+            Iterator<Pending> iterator = lane.values().iterator();
+            Pending pending = iterator.next();
+            iterator.remove();
+            ctx.write(pending.msg, pending.promise);
+            written = true;
+        }
+        if (written) {
+            ctx.flush();
+        }
+    }
+
+    /**
+     * 通道关闭时释放队列中的消息
+     */
+    private void discardAll() {
+        discard(highLane);
+        discard(lowLane);
+        epochs.clear();
+    }
+
+    private static void discard(Map<Long, Pending> lane) {
+        for (Pending pending : lane.values()) {
+            pending.msg.release();
+            pending.promise.tryFailure(new ClosedChannelException());
+        }
+        lane.clear();
+    }
+
+    /**
+     * 读取帧的消息编号，非RTCM 3帧返回 {@link Rtcm3#NOT_RTCM}
+     */
+    private static int messageType(ByteBuf buf) {
+        int index = buf.readerIndex();
+        if (buf.readableBytes() < Rtcm3.HEADER_LENGTH + 2 || buf.getUnsignedByte(index) != Rtcm3.PREAMBLE) {
+            return Rtcm3.NOT_RTCM;
+        }
+        return (buf.getUnsignedByte(index + 3) << 4) | (buf.getUnsignedByte(index + 4) >>> 4);
+    }
+
+    /**
+     * 从帧中读取无符号位段（bitPos从帧起始计，最多32位）
+     */
+    private static long bits(ByteBuf buf, int index, int bitPos, int bitLength) {
+        long value = 0;
+        for (int i = bitPos; i < bitPos + bitLength; i++) {
+            int bit = (buf.getUnsignedByte(index + (i >>> 3)) >>> (7 - (i & 7))) & 1;
+            value = (value << 1) | bit;
+        }
+        return value;
+    }
+
+    /**
+     * 判断消息是否属于高优先级（观测值、基准站坐标和天线信息）
+     *
+     * @param messageType 消息编号
+     * @return 是否高优先级
+     */
+    private static boolean isHighPriority(int messageType) {
+        if (Rtcm3.isObservation(messageType)) {
+            return true;
+        }
+        switch (messageType) {
+            case 1005: case 1006:                         // 基准站坐标
+            case 1007: case 1008: case 1033:              // 天线及接收机描述
+            case 1230:                                    // GLONASS码相位偏差
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 计算观测值以外消息的合并键：星历按消息类型和卫星号，其余按消息类型
+     */
+    private static long coalescingKey(ByteBuf buf, int messageType) {
+        int satelliteBits = Rtcm3.ephemerisSatelliteBits(messageType);
+        if (satelliteBits == 0 || buf.readableBytes() < Rtcm3.HEADER_LENGTH + 3) {
+            return messageType;
+        }
+        // 卫星号落在帧的第4、5字节内
+        int index = buf.readerIndex() + Rtcm3.EPHEMERIS_SATELLITE_BIT / 8;
+        int bits = (buf.getUnsignedByte(index) << 8) | buf.getUnsignedByte(index + 1);
+        int satellite = (bits >>> (16 - Rtcm3.EPHEMERIS_SATELLITE_BIT % 8 - satelliteBits)) & ((1 << satelliteBits) - 1);
+        return (messageType << 8) | satellite;
+    }
+
+    /**
+     * 排队中的写入
+     */
+    private static final class Pending {
+        private final ByteBuf msg;
+        private final ChannelPromise promise;
+
+        /**
+         * 观测值所属基站ID
+         */
+        private int station;
+
+        /**
+         * 观测值所属历元的序号，非观测值为-1
+         */
+        private long epochSequence = -1;
+
+        Pending(ByteBuf msg, ChannelPromise promise) {
+            this.msg = msg;
+            this.promise = promise;
+        }
+    }
+
+    /**
+     * 单个基站排队期间的历元划分状态
+     */
+    private static final class EpochTracker {
+
+        /**
+         * 当前历元序号
+         */
+        private long sequence;
+
+        /**
+         * 上一条观测值是否结束了历元
+         */
+        private boolean closed;
+
+        /**
+         * 当前历元内各卫星系统的历元时间
+         */
+        private final Map<Integer, Integer> systemEpochTime = new HashMap<>();
+
+        /**
+         * 当前历元内各消息类型已入队的条数（同一历元拆分的MSM消息编号相同）
+         */
+        private final Map<Integer, Integer> parts = new HashMap<>();
+    }
+}
@@ -0,0 +1,78 @@
+package com.rtk.relay.netty;
+
+import com.rtk.relay.rtcm.Rtcm3;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.util.List;
+
+/**
+ * RTCM 3 帧解码器
+ * 将基站TCP字节流切分为完整且CRC正确的RTCM 3帧，每帧作为一条消息向后传递。
+ * 非RTCM数据（如NMEA语句）不做处理，按原样分段透传，保证与旧的透明转发行为兼容。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public class Rtcm3FrameDecoder extends ByteToMessageDecoder {
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        int start = in.readerIndex();
+        int end = in.writerIndex();
+        int pos = start;
+
+        while (pos < end) {
+            int candidate = in.indexOf(pos, end, (byte) Rtcm3.PREAMBLE);
+            if (candidate < 0) {
+                break;
+            }
+
+            // 帧头不完整，等待更多数据
+            if (end - candidate < Rtcm3.HEADER_LENGTH) {
+                emitRaw(in, start, candidate, out);
+                return;
+            }
+
+            int header = in.getUnsignedByte(candidate + 1);
+            if ((header & 0xFC) != 0) {
+                // 保留位非零，不是帧起始
+                pos = candidate + 1;
+                continue;
+            }
+
+            int payloadLength = ((header & 0x03) << 8) | in.getUnsignedByte(candidate + 2);
+            int frameLength = Rtcm3.HEADER_LENGTH + payloadLength + Rtcm3.CRC_LENGTH;
+
+            // 帧不完整，等待更多数据
+            if (end - candidate < frameLength) {
+                emitRaw(in, start, candidate, out);
+                return;
+            }
+
+            int crcOffset = candidate + frameLength - Rtcm3.CRC_LENGTH;
+            if (Rtcm3.crc24q(in, candidate, crcOffset - candidate) != in.getUnsignedMedium(crcOffset)) {
+                pos = candidate + 1;
+                continue;
+            }
+
+            emitRaw(in, start, candidate, out);
+            out.add(in.readRetainedSlice(frameLength));
+            start = candidate + frameLength;
+            pos = start;
+        }
+
+        emitRaw(in, start, end, out);
+    }
+
+    /**
+     * 透传非RTCM数据段
+     */
+    private void emitRaw(ByteBuf in, int from, int to, List<Object> out) {
+        if (to > from) {
+            in.readerIndex(from);
+            out.add(in.readRetainedSlice(to - from));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.rtk.relay.rtcm;
+
+/**
+ * MSM观测历元抽稀器
+ * 按移动站请求的输出间隔只转发每个时间窗口内的第一个完整历元，基站坐标、星历等非MSM消息始终转发。
+ * 各卫星系统的历元时间先统一换算到GPS日内毫秒，保证同一时刻的多系统观测值一起转发或一起跳过。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public class EpochDecimator {
+
+    /**
+     * 一天的毫秒数
+     */
+    private static final int DAY_MS = 86_400_000;
+
+    /**
+     * GLONASS时间（莫斯科时间）与UTC之差（毫秒）
+     */
+    private static final int GLONASS_UTC_OFFSET_MS = 3 * 3_600_000;
+
+    /**
+     * GPS时间与UTC之差（闰秒，毫秒）
+     */
+    private static final int GPS_UTC_LEAP_MS = 18_000;
+
+    /**
+     * GPS时间与北斗时间之差（毫秒）
+     */
+    private static final int GPS_BDT_OFFSET_MS = 14_000;
+
+    /**
+     * 输出间隔（毫秒）
+     */
+    private final int intervalMs;
+
+    /**
+     * 各卫星系统最近一次处理的历元时间（原始值）
+     */
+    private final int[] lastEpoch = new int[Rtcm3.MSM_SYSTEM_COUNT];
+
+    /**
+     * 各卫星系统最近一次处理的历元是否转发
+     */
+    private final boolean[] lastDecision = new boolean[Rtcm3.MSM_SYSTEM_COUNT];
+
+    /**
+     * 各卫星系统最近一次转发历元所在的时间窗口
+     */
+    private final int[] lastForwardedWindow = new int[Rtcm3.MSM_SYSTEM_COUNT];
+
+    /**
+     * 构造函数
+     *
+     * @param intervalMs 输出间隔（毫秒）
+     */
+    public EpochDecimator(int intervalMs) {
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("输出间隔必须大于0: " + intervalMs);
+        }
+        this.intervalMs = intervalMs;
+        for (int i = 0; i < Rtcm3.MSM_SYSTEM_COUNT; i++) {
+            lastEpoch[i] = -1;
+            lastForwardedWindow[i] = -1;
+        }
+    }
+
+    /**
+     * 判断帧是否应当转发给该移动站
+     * 同一卫星系统同一历元的多条MSM消息（多消息标志）得到相同结果
+     *
+     * @param frame 帧数据
+     * @param messageType 消息编号
+     * @return 是否转发
+     */
+    public synchronized boolean accept(byte[] frame, int messageType) {
+        if (!Rtcm3.isMsm(messageType)) {
+            return true;
+        }
+
+        int system = Rtcm3.msmSystem(messageType);
+        int epoch = Rtcm3.msmEpochTime(frame);
+        if (epoch == lastEpoch[system]) {
+            return lastDecision[system];
+        }
+
+        int window = toGpsDayMs(system, epoch) / intervalMs;
+        boolean forward = window != lastForwardedWindow[system];
+        if (forward) {
+            lastForwardedWindow[system] = window;
+        }
+        lastEpoch[system] = epoch;
+        lastDecision[system] = forward;
+        return forward;
+    }
+
+    public int getIntervalMs() {
+        return intervalMs;
+    }
+
+    /**
+     * 将MSM历元时间换算为GPS日内毫秒
+     */
+    private static int toGpsDayMs(int system, int epoch) {
+        long gpsMs;
+        if (system == Rtcm3.SYSTEM_GLONASS) {
+            // 3位星期 + 27位莫斯科日内毫秒
+            gpsMs = (epoch & 0x7FFFFFF) - GLONASS_UTC_OFFSET_MS + GPS_UTC_LEAP_MS;
+        } else if (system == Rtcm3.SYSTEM_BEIDOU) {
+            gpsMs = (long) epoch + GPS_BDT_OFFSET_MS;
+        } else {
+            gpsMs = epoch;
+        }
+        return (int) Math.floorMod(gpsMs, (long) DAY_MS);
+    }
+}
@@ -0,0 +1,109 @@
+package com.rtk.relay.rtcm;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * RTCM消息类型过滤器（不可变）
+ * 使用覆盖全部4096个消息编号的位图，转发时按帧判断只需一次数组访问和位运算，不产生对象分配。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public final class MessageTypeFilter {
+
+    /**
+     * 过滤模式
+     */
+    public enum Mode {
+        /**
+         * 只转发列出的消息类型
+         */
+        ALLOW,
+
+        /**
+         * 转发除列出类型以外的所有消息
+         */
+        DENY
+    }
+
+    /**
+     * 不过滤任何消息
+     */
+    public static final MessageTypeFilter ACCEPT_ALL = new MessageTypeFilter(Mode.DENY, new TreeSet<>());
+
+    private final Mode mode;
+
+    private final Set<Integer> types;
+
+    /**
+     * 允许转发的消息类型位图（DENY模式下已取反）
+     */
+    private final long[] accepted = new long[Rtcm3.MESSAGE_TYPE_COUNT / 64];
+
+    private MessageTypeFilter(Mode mode, Set<Integer> types) {
+        this.mode = mode;
+        this.types = Collections.unmodifiableSet(types);
+        for (int type : types) {
+            accepted[type >>> 6] |= 1L << type;
+        }
+        if (mode == Mode.DENY) {
+            for (int i = 0; i < accepted.length; i++) {
+                accepted[i] = ~accepted[i];
+            }
+        }
+    }
+
+    /**
+     * 创建过滤器
+     *
+     * @param mode 过滤模式
+     * @param types 消息类型列表
+     * @return 过滤器
+     * @throws IllegalArgumentException 消息类型超出0-4095范围
+     */
+    public static MessageTypeFilter of(Mode mode, Collection<Integer> types) {
+        Set<Integer> sorted = new TreeSet<>();
+        if (types != null) {
+            for (Integer type : types) {
+                if (type == null || type < 0 || type >= Rtcm3.MESSAGE_TYPE_COUNT) {
+                    throw new IllegalArgumentException("无效的RTCM消息类型: " + type);
+                }
+                sorted.add(type);
+            }
+        }
+        if (mode == Mode.DENY && sorted.isEmpty()) {
+            return ACCEPT_ALL;
+        }
+        return new MessageTypeFilter(mode, sorted);
+    }
+
+    /**
+     * 判断消息是否应当转发
+     * 非RTCM数据（{@link Rtcm3#NOT_RTCM}）在DENY模式下透传，在ALLOW模式下丢弃
+     *
+     * @param messageType 消息编号
+     * @return 是否转发
+     */
+    public boolean accepts(int messageType) {
+        if (messageType < 0) {
+            return mode == Mode.DENY;
+        }
+        return (accepted[messageType >>> 6] & (1L << messageType)) != 0;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Set<Integer> getTypes() {
+        return types;
+    }
+
+    @Override
+    public String toString() {
+        return mode + types.toString();
+    }
+}
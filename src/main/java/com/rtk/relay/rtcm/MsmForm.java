@@ -0,0 +1,24 @@
+package com.rtk.relay.rtcm;
+
+/**
+ * 移动站接收的MSM观测值形式
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public enum MsmForm {
+    /**
+     * 按基站原样转发
+     */
+    ORIGINAL,
+
+    /**
+     * MSM7转换为MSM4（伪距、载波相位、锁定时间、载噪比）
+     */
+    MSM4,
+
+    /**
+     * MSM7转换为MSM5（MSM4内容加多普勒）
+     */
+    MSM5
+}
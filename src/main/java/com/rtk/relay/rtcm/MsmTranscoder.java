@@ -0,0 +1,249 @@
+package com.rtk.relay.rtcm;
+
+/**
+ * MSM7观测值降级转换器
+ * 将高精度的MSM7消息（1077/1087/1097/1127等）重新编码为MSM4或MSM5，帧长度约为原来的一半。
+ * 消息头原样保留（仅替换消息编号），信号数据按RTCM 10403.3的分辨率差异做移位取整，
+ * 锁定时间由扩展指示（DF407）换算为4位指示（DF402），最后重新计算CRC。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public final class MsmTranscoder {
+
+    /**
+     * 消息体起始位
+     */
+    private static final int PAYLOAD_BIT = Rtcm3.HEADER_LENGTH * 8;
+
+    /**
+     * 卫星掩码、信号掩码、单元掩码在消息体中的位置
+     */
+    private static final int SATELLITE_MASK_BIT = 73;
+    private static final int SIGNAL_MASK_BIT = 137;
+    private static final int CELL_MASK_BIT = 169;
+
+    /**
+     * 单元掩码最大位数
+     */
+    private static final int MAX_CELL_MASK_BITS = 64;
+
+    /**
+     * MSM7卫星数据每颗卫星的位数：整毫秒(8) + 扩展信息(4) + 毫秒余数(10) + 粗略距离变化率(14)
+     */
+    private static final int MSM7_SATELLITE_BITS = 36;
+
+    /**
+     * MSM7信号数据每个单元的位数：伪距(20) + 相位(24) + 锁定时间(10) + 半周(1) + 载噪比(10) + 距离变化率(15)
+     */
+    private static final int MSM7_CELL_BITS = 80;
+
+    /**
+     * MSM4卫星数据位数：整毫秒(8) + 毫秒余数(10)
+     */
+    private static final int MSM4_SATELLITE_BITS = 18;
+
+    /**
+     * MSM4信号数据位数：伪距(15) + 相位(22) + 锁定时间(4) + 半周(1) + 载噪比(6)
+     */
+    private static final int MSM4_CELL_BITS = 48;
+
+    /**
+     * MSM5信号数据位数：MSM4信号数据 + 距离变化率(15)
+     */
+    private static final int MSM5_CELL_BITS = 63;
+
+    /**
+     * MSM7精伪距无效值（-2^19）及MSM4对应值（-2^14）
+     */
+    private static final int MSM7_INVALID_PSEUDORANGE = -(1 << 19);
+    private static final int MSM4_INVALID_PSEUDORANGE = -(1 << 14);
+
+    /**
+     * MSM7精相位无效值（-2^23）及MSM4对应值（-2^21）
+     */
+    private static final int MSM7_INVALID_PHASE = -(1 << 23);
+    private static final int MSM4_INVALID_PHASE = -(1 << 21);
+
+    /**
+     * 扩展锁定时间指示的最大有效值
+     */
+    private static final int MAX_EXTENDED_LOCK_INDICATOR = 704;
+
+    private MsmTranscoder() {
+    }
+
+    /**
+     * 判断该消息能否转换为指定形式
+     *
+     * @param messageType 消息编号
+     * @param form 目标形式
+     * @return 是否需要转换
+     */
+    public static boolean isTranscodable(int messageType, MsmForm form) {
+        return form != MsmForm.ORIGINAL && Rtcm3.isMsm(messageType) && Rtcm3.msmLevel(messageType) == 7;
+    }
+
+    /**
+     * 获取转换后的消息编号
+     *
+     * @param messageType 原消息编号
+     * @param form 目标形式
+     * @return 转换后的消息编号，无需转换时返回原编号
+     */
+    public static int targetType(int messageType, MsmForm form) {
+        if (!isTranscodable(messageType, form)) {
+            return messageType;
+        }
+        return messageType - 7 + (form == MsmForm.MSM4 ? 4 : 5);
+    }
+
+    /**
+     * 转换MSM7帧
+     *
+     * @param frame MSM7帧数据
+     * @param messageType 消息编号
+     * @param form 目标形式
+     * @return 转换后的帧，无需转换或帧结构不完整时返回原帧
+     */
+    public static byte[] transcode(byte[] frame, int messageType, MsmForm form) {
+        if (!isTranscodable(messageType, form)) {
+            return frame;
+        }
+
+        int payloadBits = Rtcm3.payloadLength(frame) * 8;
+        if (payloadBits < CELL_MASK_BIT) {
+            return frame;
+        }
+
+        int satelliteCount = Integer.bitCount(Rtcm3.getBitU(frame, PAYLOAD_BIT + SATELLITE_MASK_BIT, 32))
+                + Integer.bitCount(Rtcm3.getBitU(frame, PAYLOAD_BIT + SATELLITE_MASK_BIT + 32, 32));
+        int signalCount = Integer.bitCount(Rtcm3.getBitU(frame, PAYLOAD_BIT + SIGNAL_MASK_BIT, 32));
+        int cellMaskBits = satelliteCount * signalCount;
+        if (cellMaskBits > MAX_CELL_MASK_BITS) {
+            return frame;
+        }
+
+        int headerBits = CELL_MASK_BIT + cellMaskBits;
+        if (payloadBits < headerBits) {
+            return frame;
+        }
+        int cellCount = 0;
+        for (int i = 0; i < cellMaskBits; i += 32) {
+            cellCount += Integer.bitCount(Rtcm3.getBitU(frame, PAYLOAD_BIT + CELL_MASK_BIT + i,
+                    Math.min(32, cellMaskBits - i)));
+        }
+        if (payloadBits < headerBits + satelliteCount * MSM7_SATELLITE_BITS + cellCount * MSM7_CELL_BITS) {
+            return frame;
+        }
+
+        boolean msm5 = form == MsmForm.MSM5;
+        int satelliteBits = msm5 ? MSM7_SATELLITE_BITS : MSM4_SATELLITE_BITS;
+        int cellBits = msm5 ? MSM5_CELL_BITS : MSM4_CELL_BITS;
+        int outputBits = headerBits + satelliteCount * satelliteBits + cellCount * cellBits;
+        byte[] output = new byte[Rtcm3.HEADER_LENGTH + (outputBits + 7) / 8 + Rtcm3.CRC_LENGTH];
+
+        // 消息头：原样复制后替换消息编号
+        copyBits(frame, PAYLOAD_BIT, output, PAYLOAD_BIT, headerBits);
+        Rtcm3.setBitU(output, PAYLOAD_BIT, 12, targetType(messageType, form));
+
+        // 卫星数据：MSM5与MSM7相同，MSM4只保留整毫秒和毫秒余数
+        int in = PAYLOAD_BIT + headerBits;
+        int out = PAYLOAD_BIT + headerBits;
+        if (msm5) {
+            copyBits(frame, in, output, out, satelliteCount * MSM7_SATELLITE_BITS);
+            out += satelliteCount * MSM7_SATELLITE_BITS;
+        } else {
+            copyBits(frame, in, output, out, satelliteCount * 8);
+            out += satelliteCount * 8;
+            copyBits(frame, in + satelliteCount * 12, output, out, satelliteCount * 10);
+            out += satelliteCount * 10;
+        }
+        in += satelliteCount * MSM7_SATELLITE_BITS;
+
+        // 精伪距：2^-29ms -> 2^-24ms
+        for (int i = 0; i < cellCount; i++, in += 20, out += 15) {
+            int value = Rtcm3.getBitS(frame, in, 20);
+            int converted = value == MSM7_INVALID_PSEUDORANGE
+                    ? MSM4_INVALID_PSEUDORANGE : clamp((value + 16) >> 5, MSM4_INVALID_PSEUDORANGE);
+            Rtcm3.setBitU(output, out, 15, converted);
+        }
+
+        // 精相位：2^-31ms -> 2^-29ms
+        for (int i = 0; i < cellCount; i++, in += 24, out += 22) {
+            int value = Rtcm3.getBitS(frame, in, 24);
+            int converted = value == MSM7_INVALID_PHASE
+                    ? MSM4_INVALID_PHASE : clamp((value + 2) >> 2, MSM4_INVALID_PHASE);
+            Rtcm3.setBitU(output, out, 22, converted);
+        }
+
+        // 锁定时间：DF407 -> DF402
+        for (int i = 0; i < cellCount; i++, in += 10, out += 4) {
+            Rtcm3.setBitU(output, out, 4, toLockTimeIndicator(Rtcm3.getBitU(frame, in, 10)));
+        }
+
+        // 半周模糊度标志
+        copyBits(frame, in, output, out, cellCount);
+        in += cellCount;
+        out += cellCount;
+
+        // 载噪比：2^-4 dB-Hz -> 1 dB-Hz
+        for (int i = 0; i < cellCount; i++, in += 10, out += 6) {
+            Rtcm3.setBitU(output, out, 6, Math.min(63, (Rtcm3.getBitU(frame, in, 10) + 8) >> 4));
+        }
+
+        // 精距离变化率：MSM5与MSM7分辨率相同
+        if (msm5) {
+            copyBits(frame, in, output, out, cellCount * 15);
+        }
+
+        Rtcm3.sealFrame(output);
+        return output;
+    }
+
+    /**
+     * 将扩展锁定时间指示（DF407）换算为锁定时间指示（DF402）
+     *
+     * @param extendedIndicator 扩展锁定时间指示（0-704）
+     * @return 锁定时间指示（0-15）
+     */
+    static int toLockTimeIndicator(int extendedIndicator) {
+        long lockTimeMs = extendedLockTimeMs(extendedIndicator);
+        if (lockTimeMs < 32) {
+            return 0;
+        }
+        int log2 = 63 - Long.numberOfLeadingZeros(lockTimeMs / 32);
+        return Math.min(15, log2 + 1);
+    }
+
+    /**
+     * 扩展锁定时间指示对应的最小锁定时间（毫秒）
+     */
+    static long extendedLockTimeMs(int indicator) {
+        if (indicator < 64) {
+            return indicator;
+        }
+        int i = Math.min(indicator, MAX_EXTENDED_LOCK_INDICATOR);
+        int block = i >>> 5;
+        long scale = 1L << (block - 1);
+        return scale * i - (block - 1) * scale * 32;
+    }
+
+    /**
+     * 将数值限制在有效范围内，避免与无效值或相反符号冲突
+     */
+    private static int clamp(int value, int invalid) {
+        int max = -invalid - 1;
+        return Math.max(-max, Math.min(max, value));
+    }
+
+    /**
+     * 按位复制
+     */
+    private static void copyBits(byte[] src, int srcBit, byte[] dst, int dstBit, int length) {
+        for (int done = 0; done < length; done += 32) {
+            int chunk = Math.min(32, length - done);
+            Rtcm3.setBitU(dst, dstBit + done, chunk, Rtcm3.getBitU(src, srcBit + done, chunk));
+        }
+    }
+}
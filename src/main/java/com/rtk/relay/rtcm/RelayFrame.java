@@ -0,0 +1,85 @@
+package com.rtk.relay.rtcm;
+
+/**
+ * 一次转发中的帧及其转换结果
+ * MSM7帧的MSM4/MSM5形式在第一个需要它的移动站处理时生成，之后所有订阅同一形式的移动站共享同一个字节数组，
+ * 每帧每种形式只编码一次，与移动站数量无关。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public final class RelayFrame {
+
+    /**
+     * 原始帧
+     */
+    private final byte[] original;
+
+    /**
+     * 原始消息编号
+     */
+    private final int messageType;
+
+    /**
+     * 各形式的转换结果（按MsmForm序号，懒加载）
+     */
+    private final byte[][] variants = new byte[MsmForm.values().length][];
+
+    /**
+     * 构造函数
+     *
+     * @param original 原始帧
+     * @param messageType 原始消息编号
+     */
+    public RelayFrame(byte[] original, int messageType) {
+        this.original = original;
+        this.messageType = messageType;
+    }
+
+    public byte[] getOriginal() {
+        return original;
+    }
+
+    public int getMessageType() {
+        return messageType;
+    }
+
+    /**
+     * 是否为一个历元的最后一条观测值消息（多电文标志为0的MSM消息）
+     *
+     * @return 是否结束历元
+     */
+    public boolean endsEpoch() {
+        return Rtcm3.isMsm(messageType) && !Rtcm3.msmMultipleMessage(original);
+    }
+
+    /**
+     * 获取指定形式的帧数据
+     *
+     * @param form 目标形式
+     * @return 帧数据，无需转换时返回原始帧
+     */
+    public byte[] get(MsmForm form) {
+        if (!MsmTranscoder.isTranscodable(messageType, form)) {
+            return original;
+        }
+        synchronized (variants) {
+            byte[] variant = variants[form.ordinal()];
+            if (variant == null) {
+                variant = MsmTranscoder.transcode(original, messageType, form);
+                variants[form.ordinal()] = variant;
+            }
+            return variant;
+        }
+    }
+
+    /**
+     * 获取指定形式的消息编号
+     *
+     * @param form 目标形式
+     * @return 消息编号
+     */
+    public int getMessageType(MsmForm form) {
+        return get(form) == original ? messageType : MsmTranscoder.targetType(messageType, form);
+    }
+}
@@ -0,0 +1,329 @@
+package com.rtk.relay.rtcm;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * RTCM 3 帧格式工具类
+ * 帧结构：前导字节0xD3(8位) + 保留(6位) + 消息长度(10位) + 消息体 + CRC24Q(24位)
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public final class Rtcm3 {
+
+    /**
+     * 帧前导字节
+     */
+    public static final int PREAMBLE = 0xD3;
+
+    /**
+     * 帧头长度（字节）
+     */
+    public static final int HEADER_LENGTH = 3;
+
+    /**
+     * CRC长度（字节）
+     */
+    public static final int CRC_LENGTH = 3;
+
+    /**
+     * 消息体最大长度（字节）
+     */
+    public static final int MAX_PAYLOAD_LENGTH = 1023;
+
+    /**
+     * 消息编号取值范围（12位）
+     */
+    public static final int MESSAGE_TYPE_COUNT = 4096;
+
+    /**
+     * 非RTCM数据的消息类型
+     */
+    public static final int NOT_RTCM = -1;
+
+    /**
+     * MSM消息编号范围（GPS 1071 至 NavIC 1137）
+     */
+    public static final int MSM_FIRST_TYPE = 1071;
+    public static final int MSM_LAST_TYPE = 1137;
+
+    /**
+     * MSM消息覆盖的卫星系统数量（GPS、GLONASS、Galileo、SBAS、QZSS、BeiDou、NavIC）
+     */
+    public static final int MSM_SYSTEM_COUNT = 7;
+
+    /**
+     * MSM卫星系统序号
+     */
+    public static final int SYSTEM_GLONASS = 1;
+    public static final int SYSTEM_BEIDOU = 5;
+
+    /**
+     * 消息体起始位（帧头之后）
+     */
+    private static final int PAYLOAD_BIT = HEADER_LENGTH * 8;
+
+    /**
+     * 星历消息中卫星号的起始位（消息体中12位消息编号之后）
+     */
+    public static final int EPHEMERIS_SATELLITE_BIT = PAYLOAD_BIT + 12;
+
+    /**
+     * CRC24Q查找表
+     */
+    private static final int[] CRC24Q_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 16;
+            for (int j = 0; j < 8; j++) {
+                crc <<= 1;
+                if ((crc & 0x1000000) != 0) {
+                    crc ^= 0x1864CFB;
+                }
+            }
+            CRC24Q_TABLE[i] = crc & 0xFFFFFF;
+        }
+    }
+
+    private Rtcm3() {
+    }
+
+    /**
+     * 计算CRC24Q校验值
+     *
+     * @param buf 数据缓冲区
+     * @param offset 起始位置（绝对索引）
+     * @param length 长度
+     * @return 24位校验值
+     */
+    public static int crc24q(ByteBuf buf, int offset, int length) {
+        int crc = 0;
+        for (int i = offset; i < offset + length; i++) {
+            crc = ((crc << 8) & 0xFFFFFF) ^ CRC24Q_TABLE[((crc >>> 16) ^ buf.getByte(i)) & 0xFF];
+        }
+        return crc;
+    }
+
+    /**
+     * 计算CRC24Q校验值
+     *
+     * @param data 数据
+     * @param offset 起始位置
+     * @param length 长度
+     * @return 24位校验值
+     */
+    public static int crc24q(byte[] data, int offset, int length) {
+        int crc = 0;
+        for (int i = offset; i < offset + length; i++) {
+            crc = ((crc << 8) & 0xFFFFFF) ^ CRC24Q_TABLE[((crc >>> 16) ^ data[i]) & 0xFF];
+        }
+        return crc;
+    }
+
+    /**
+     * 读取无符号位字段（大端位序）
+     *
+     * @param data 数据
+     * @param bitPos 起始位
+     * @param bitLength 位长度（不超过32）
+     * @return 字段值
+     */
+    public static int getBitU(byte[] data, int bitPos, int bitLength) {
+        int value = 0;
+        for (int i = bitPos; i < bitPos + bitLength; i++) {
+            value = (value << 1) | ((data[i >>> 3] >>> (7 - (i & 7))) & 1);
+        }
+        return value;
+    }
+
+    /**
+     * 读取有符号位字段（二进制补码）
+     *
+     * @param data 数据
+     * @param bitPos 起始位
+     * @param bitLength 位长度（不超过32）
+     * @return 字段值
+     */
+    public static int getBitS(byte[] data, int bitPos, int bitLength) {
+        int value = getBitU(data, bitPos, bitLength);
+        return bitLength < 32 ? (value << (32 - bitLength)) >> (32 - bitLength) : value;
+    }
+
+    /**
+     * 写入位字段（大端位序，负数按二进制补码截断）
+     *
+     * @param data 数据
+     * @param bitPos 起始位
+     * @param bitLength 位长度（不超过32）
+     * @param value 字段值
+     */
+    public static void setBitU(byte[] data, int bitPos, int bitLength, int value) {
+        for (int i = 0; i < bitLength; i++) {
+            int bit = bitPos + i;
+            int mask = 1 << (7 - (bit & 7));
+            if (((value >>> (bitLength - 1 - i)) & 1) != 0) {
+                data[bit >>> 3] |= mask;
+            } else {
+                data[bit >>> 3] &= ~mask;
+            }
+        }
+    }
+
+    /**
+     * 填写帧头（前导字节和长度）及帧尾CRC
+     *
+     * @param frame 帧数据，长度为帧头+消息体+CRC
+     */
+    public static void sealFrame(byte[] frame) {
+        int payloadLength = frame.length - HEADER_LENGTH - CRC_LENGTH;
+        frame[0] = (byte) PREAMBLE;
+        frame[1] = (byte) ((payloadLength >>> 8) & 0x03);
+        frame[2] = (byte) payloadLength;
+        int crcOffset = frame.length - CRC_LENGTH;
+        int crc = crc24q(frame, 0, crcOffset);
+        frame[crcOffset] = (byte) (crc >>> 16);
+        frame[crcOffset + 1] = (byte) (crc >>> 8);
+        frame[crcOffset + 2] = (byte) crc;
+    }
+
+    /**
+     * 判断数据是否为一个完整的RTCM 3帧（只检查帧结构，不校验CRC）
+     *
+     * @param frame 数据
+     * @return 是否为RTCM 3帧
+     */
+    public static boolean isFrame(byte[] frame) {
+        return frame != null
+                && frame.length >= HEADER_LENGTH + CRC_LENGTH + 2
+                && (frame[0] & 0xFF) == PREAMBLE
+                && (frame[1] & 0xFC) == 0
+                && payloadLength(frame) + HEADER_LENGTH + CRC_LENGTH == frame.length;
+    }
+
+    /**
+     * 获取帧的消息体长度
+     *
+     * @param frame 帧数据
+     * @return 消息体长度（字节）
+     */
+    public static int payloadLength(byte[] frame) {
+        return ((frame[1] & 0x03) << 8) | (frame[2] & 0xFF);
+    }
+
+    /**
+     * 获取帧的消息编号
+     *
+     * @param frame 帧数据
+     * @return 消息编号，非RTCM 3帧返回 {@link #NOT_RTCM}
+     */
+    public static int messageType(byte[] frame) {
+        if (!isFrame(frame)) {
+            return NOT_RTCM;
+        }
+        return ((frame[3] & 0xFF) << 4) | ((frame[4] & 0xF0) >>> 4);
+    }
+
+    /**
+     * 判断消息编号是否为MSM1-MSM7观测值消息
+     *
+     * @param messageType 消息编号
+     * @return 是否为MSM消息
+     */
+    public static boolean isMsm(int messageType) {
+        if (messageType < MSM_FIRST_TYPE || messageType > MSM_LAST_TYPE) {
+            return false;
+        }
+        int level = messageType % 10;
+        return level >= 1 && level <= 7;
+    }
+
+    /**
+     * 判断消息是否为观测值消息（MSM或GPS/GLONASS传统观测值1001-1004、1009-1012）
+     *
+     * @param messageType 消息编号
+     * @return 是否为观测值消息
+     */
+    public static boolean isObservation(int messageType) {
+        return isMsm(messageType)
+                || (messageType >= 1001 && messageType <= 1004)
+                || (messageType >= 1009 && messageType <= 1012);
+    }
+
+    /**
+     * 获取星历消息中卫星号字段的位数
+     *
+     * @param messageType 消息编号
+     * @return 卫星号位数，非星历消息返回0
+     */
+    public static int ephemerisSatelliteBits(int messageType) {
+        switch (messageType) {
+            case 1019: // GPS
+            case 1020: // GLONASS
+            case 1042: // BeiDou
+            case 1045: // Galileo F/NAV
+            case 1046: // Galileo I/NAV
+                return 6;
+            case 1044: // QZSS
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * 非观测值消息在快照中的键：星历按消息编号和卫星号区分，其余按消息编号
+     * 同一键的新消息替换旧消息，快照中每种基准站坐标、天线信息和每颗卫星的星历各保留最新一份
+     *
+     * @param frame 帧数据
+     * @param messageType 消息编号
+     * @return 快照键
+     */
+    public static int snapshotKey(byte[] frame, int messageType) {
+        int satelliteBits = ephemerisSatelliteBits(messageType);
+        if (satelliteBits == 0) {
+            return messageType;
+        }
+        return (messageType << 8) | getBitU(frame, EPHEMERIS_SATELLITE_BIT, satelliteBits);
+    }
+
+    /**
+     * 获取MSM消息的级别（1-7）
+     *
+     * @param messageType MSM消息编号
+     * @return MSM级别
+     */
+    public static int msmLevel(int messageType) {
+        return messageType % 10;
+    }
+
+    /**
+     * 获取MSM消息的卫星系统序号
+     *
+     * @param messageType MSM消息编号
+     * @return 卫星系统序号（0-6）
+     */
+    public static int msmSystem(int messageType) {
+        return (messageType - MSM_FIRST_TYPE) / 10;
+    }
+
+    /**
+     * 获取MSM消息的历元时间字段（DF004/DF416+DF034等，30位原始值）
+     *
+     * @param frame MSM帧数据
+     * @return 历元时间原始值
+     */
+    public static int msmEpochTime(byte[] frame) {
+        return getBitU(frame, PAYLOAD_BIT + 24, 30);
+    }
+
+    /**
+     * 获取MSM消息的多电文标志（DF393），为1表示同一历元还有后续MSM消息
+     *
+     * @param frame MSM帧数据
+     * @return 同一历元是否还有后续消息
+     */
+    public static boolean msmMultipleMessage(byte[] frame) {
+        return getBitU(frame, PAYLOAD_BIT + 54, 1) == 1;
+    }
+}
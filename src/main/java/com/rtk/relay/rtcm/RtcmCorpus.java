@@ -0,0 +1,368 @@
+package com.rtk.relay.rtcm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 录制的RTCM 3数据集（语料）文件格式
+ * 用于保存多个基站的真实数据流及到达时间，供回放测试和长时间运行测试使用。
+ *
+ * <pre>
+ * 文件头: "RTCMCORP"(8字节) 版本(u16) 录制开始时间(i64, Unix毫秒)
+ * 记录:   类型(u8) 内容
+ *   'S' 基站定义: 序号(varint) 名称(UTF) 参考站ID(i32, -1为未知) 说明(UTF)
+ *       同一序号可重复定义，后出现的覆盖前者（如录制中从1005消息得到参考站ID）
+ *   'F' 数据帧:   距上一帧的时间(varint, 微秒) 基站序号(varint) 完整的RTCM 3帧（含帧头和CRC，长度由帧头确定）
+ * </pre>
+ * 整数为大端序，varint为无符号LEB128。帧按到达时间排列，文件可直接追加，
+ * 录制中断导致的末尾不完整记录在读取时忽略。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public final class RtcmCorpus {
+
+    /**
+     * 文件魔数和当前版本
+     */
+    private static final byte[] MAGIC = {'R', 'T', 'C', 'M', 'C', 'O', 'R', 'P'};
+    public static final int VERSION = 1;
+
+    /**
+     * 记录类型
+     */
+    private static final int RECORD_STATION = 'S';
+    private static final int RECORD_FRAME = 'F';
+
+    /**
+     * 参考站ID未知
+     */
+    public static final int UNKNOWN_REFERENCE_STATION = -1;
+
+    private RtcmCorpus() {
+    }
+
+    /**
+     * 创建写入器（覆盖已有文件）
+     *
+     * @param file 文件路径
+     * @param startTimeMillis 录制开始时间（Unix毫秒）
+     * @return 写入器
+     * @throws IOException 写入失败
+     */
+    public static Writer create(Path file, long startTimeMillis) throws IOException {
+        return new Writer(new BufferedOutputStream(Files.newOutputStream(file)), startTimeMillis);
+    }
+
+    /**
+     * 打开读取器
+     *
+     * @param file 文件路径
+     * @return 读取器
+     * @throws IOException 读取失败或不是语料文件
+     */
+    public static Reader open(Path file) throws IOException {
+        return new Reader(new BufferedInputStream(Files.newInputStream(file)));
+    }
+
+    /**
+     * 基站元数据
+     */
+    public static final class Station {
+
+        private final int index;
+        private final String name;
+        private final int referenceStationId;
+        private final String description;
+
+        public Station(int index, String name, int referenceStationId, String description) {
+            this.index = index;
+            this.name = name;
+            this.referenceStationId = referenceStationId;
+            this.description = description;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getReferenceStationId() {
+            return referenceStationId;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public String toString() {
+            return "Station[" + index + ", " + name + ", ref=" + referenceStationId + "]";
+        }
+    }
+
+    /**
+     * 一条数据帧记录
+     */
+    public static final class Frame {
+
+        private final long offsetMicros;
+        private final int station;
+        private final byte[] data;
+
+        public Frame(long offsetMicros, int station, byte[] data) {
+            this.offsetMicros = offsetMicros;
+            this.station = station;
+            this.data = data;
+        }
+
+        /**
+         * 距录制开始的时间（微秒）
+         */
+        public long getOffsetMicros() {
+            return offsetMicros;
+        }
+
+        /**
+         * 基站序号
+         */
+        public int getStation() {
+            return station;
+        }
+
+        /**
+         * 完整的RTCM 3帧
+         */
+        public byte[] getData() {
+            return data;
+        }
+    }
+
+    /**
+     * 语料写入器，非线程安全
+     */
+    public static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+        private final List<Station> stations = new ArrayList<>();
+        private long lastOffsetMicros;
+        private long frames;
+
+        public Writer(OutputStream out, long startTimeMillis) throws IOException {
+            this.out = new DataOutputStream(out);
+            this.out.write(MAGIC);
+            this.out.writeShort(VERSION);
+            this.out.writeLong(startTimeMillis);
+        }
+
+        /**
+         * 定义或更新基站
+         *
+         * @param station 基站元数据
+         * @throws IOException 写入失败
+         */
+        public void defineStation(Station station) throws IOException {
+            if (station.getIndex() < 0) {
+                throw new IllegalArgumentException("基站序号不能为负: " + station.getIndex());
+            }
+            out.writeByte(RECORD_STATION);
+            writeVarint(station.getIndex());
+            out.writeUTF(station.getName() == null ? "" : station.getName());
+            out.writeInt(station.getReferenceStationId());
+            out.writeUTF(station.getDescription() == null ? "" : station.getDescription());
+            while (stations.size() <= station.getIndex()) {
+                stations.add(null);
+            }
+            stations.set(station.getIndex(), station);
+        }
+
+        /**
+         * 写入一帧，时间早于上一帧时按上一帧时间记录（保持顺序）
+         *
+         * @param offsetMicros 距录制开始的时间（微秒）
+         * @param station 基站序号（须已定义）
+         * @param frame 完整的RTCM 3帧
+         * @throws IOException 写入失败
+         */
+        public void writeFrame(long offsetMicros, int station, byte[] frame) throws IOException {
+            if (station < 0 || station >= stations.size() || stations.get(station) == null) {
+                throw new IllegalArgumentException("基站未定义: " + station);
+            }
+            if (!Rtcm3.isFrame(frame)) {
+                throw new IllegalArgumentException("不是完整的RTCM 3帧");
+            }
+            long offset = Math.max(offsetMicros, lastOffsetMicros);
+            out.writeByte(RECORD_FRAME);
+            writeVarint(offset - lastOffsetMicros);
+            writeVarint(station);
+            out.write(frame);
+            lastOffsetMicros = offset;
+            frames++;
+        }
+
+        /**
+         * 已定义的基站
+         */
+        public Station getStation(int index) {
+            return index < stations.size() ? stations.get(index) : null;
+        }
+
+        public long getFrameCount() {
+            return frames;
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+    }
+
+    /**
+     * 语料读取器，非线程安全
+     */
+    public static final class Reader implements Closeable {
+
+        private final DataInputStream in;
+        private final long startTimeMillis;
+        private final List<Station> stations = new ArrayList<>();
+        private long offsetMicros;
+        private boolean truncated;
+
+        public Reader(InputStream in) throws IOException {
+            this.in = new DataInputStream(in);
+            byte[] magic = new byte[MAGIC.length];
+            try {
+                this.in.readFully(magic);
+                if (!Arrays.equals(magic, MAGIC)) {
+                    throw new IOException("不是RTCM语料文件");
+                }
+                int version = this.in.readUnsignedShort();
+                if (version != VERSION) {
+                    throw new IOException("不支持的语料版本: " + version);
+                }
+                this.startTimeMillis = this.in.readLong();
+            } catch (EOFException e) {
+                throw new IOException("语料文件头不完整", e);
+            }
+        }
+
+        /**
+         * 读取下一帧（期间遇到的基站定义自动处理）
+         *
+         * @return 数据帧，文件结束返回null
+         * @throws IOException 读取失败或记录类型未知
+         */
+        public Frame next() throws IOException {
+            while (true) {
+                int type = in.read();
+                if (type < 0) {
+                    return null;
+                }
+                try {
+                    if (type == RECORD_STATION) {
+                        int index = (int) readVarint();
+                        Station station = new Station(index, in.readUTF(), in.readInt(), in.readUTF());
+                        while (stations.size() <= index) {
+                            stations.add(null);
+                        }
+                        stations.set(index, station);
+                    } else if (type == RECORD_FRAME) {
+                        long delta = readVarint();
+                        int station = (int) readVarint();
+                        byte[] header = new byte[Rtcm3.HEADER_LENGTH];
+                        in.readFully(header);
+                        if ((header[0] & 0xFF) != Rtcm3.PREAMBLE || (header[1] & 0xFC) != 0) {
+                            throw new IOException("语料数据损坏：帧头无效");
+                        }
+                        byte[] frame = new byte[Rtcm3.HEADER_LENGTH + Rtcm3.payloadLength(header) + Rtcm3.CRC_LENGTH];
+                        System.arraycopy(header, 0, frame, 0, header.length);
+                        in.readFully(frame, header.length, frame.length - header.length);
+                        offsetMicros += delta;
+                        return new Frame(offsetMicros, station, frame);
+                    } else {
+                        throw new IOException("语料数据损坏：未知记录类型 " + type);
+                    }
+                } catch (EOFException e) {
+                    truncated = true;
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * 录制开始时间（Unix毫秒）
+         */
+        public long getStartTimeMillis() {
+            return startTimeMillis;
+        }
+
+        /**
+         * 基站元数据
+         *
+         * @param index 基站序号
+         * @return 元数据，未定义返回null
+         */
+        public Station getStation(int index) {
+            return index >= 0 && index < stations.size() ? stations.get(index) : null;
+        }
+
+        /**
+         * 目前读到的全部基站（按序号，未定义的序号为null）
+         */
+        public List<Station> getStations() {
+            return Collections.unmodifiableList(stations);
+        }
+
+        /**
+         * 末尾是否有不完整的记录（录制中断）
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("语料数据损坏：varint过长");
+        }
+    }
+}
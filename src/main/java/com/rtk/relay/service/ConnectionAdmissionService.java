@@ -0,0 +1,224 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 移动站新连接接纳控制
+ * 在新连接建立处理器管道（通道初始化）、分配连接ID、创建连接信息和写库之前决定是否接纳：
+ * 依次检查硬上限（max-connections）、单IP令牌桶、软上限后的低速令牌桶和全局令牌桶。
+ * 基站断网恢复或蜂窝网络中断后大量移动站同时重连时，超出速率的连接被直接关闭，事件循环不被重连风暴占满。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class ConnectionAdmissionService {
+
+    /**
+     * 接纳结果
+     */
+    public enum Decision {
+        ACCEPT,
+        REJECT_HARD_LIMIT,
+        REJECT_IP_RATE,
+        REJECT_SOFT_LIMIT,
+        REJECT_GLOBAL_RATE
+    }
+
+    /**
+     * 单IP令牌桶数量超过该值时清理已回满的令牌桶
+     */
+    private static final int SWEEP_THRESHOLD = 1024;
+
+    /**
+     * 两次清理的最小间隔（纳秒）
+     */
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 连接管理器
+     */
+    private final ConnectionManager connectionManager;
+
+    /**
+     * 接纳控制配置
+     */
+    private final RtkProperties.AdmissionConfig config;
+
+    /**
+     * 全局令牌桶
+     */
+    private final TokenBucket globalBucket;
+
+    /**
+     * 超过软上限后使用的令牌桶
+     */
+    private final TokenBucket softLimitBucket;
+
+    /**
+     * 单IP令牌桶
+     */
+    private final ConcurrentHashMap<InetAddress, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * 各接纳结果的计数，按 {@link Decision} 序号存放
+     */
+    private final AtomicLongArray decisionCounts = new AtomicLongArray(Decision.values().length);
+
+    /**
+     * 上次清理单IP令牌桶的时间
+     */
+    private volatile long lastSweepNanos = System.nanoTime();
+
+    /**
+     * 构造函数
+     *
+     * @param rtkProperties RTK配置
+     * @param connectionManager 连接管理器
+     */
+    public ConnectionAdmissionService(RtkProperties rtkProperties, ConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+        this.config = rtkProperties.getServer2().getAdmission();
+        this.globalBucket = new TokenBucket(config.getGlobalRate(), config.getGlobalBurst());
+        this.softLimitBucket = new TokenBucket(config.getSoftLimitRate(), Math.max(1, (int) Math.ceil(config.getSoftLimitRate())));
+    }
+
+    /**
+     * 是否启用接纳控制
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * 判断是否接纳来自该地址的新连接
+     *
+     * @param address 远程IP地址
+     * @return 接纳结果
+     */
+    public Decision admit(InetAddress address) {
+        return admit(address, System.nanoTime());
+    }
+
+    /**
+     * 按指定时间判断是否接纳来自该地址的新连接
+     *
+     * @param address 远程IP地址
+     * @param now 当前时间（System.nanoTime）
+     * @return 接纳结果
+     */
+    Decision admit(InetAddress address, long now) {
+        Decision decision = decide(address, now);
+        decisionCounts.incrementAndGet(decision.ordinal());
+        return decision;
+    }
+
+    private Decision decide(InetAddress address, long now) {
+        int current = connectionManager.getMobileStationCount();
+        if (current >= connectionManager.getMaxMobileStationConnections()) {
+            return Decision.REJECT_HARD_LIMIT;
+        }
+
+        if (!ipBucket(address, now).tryAcquire(now)) {
+            return Decision.REJECT_IP_RATE;
+        }
+        int softLimit = config.getSoftLimit();
+        if (softLimit > 0 && current >= softLimit && !softLimitBucket.tryAcquire(now)) {
+            return Decision.REJECT_SOFT_LIMIT;
+        }
+        if (!globalBucket.tryAcquire(now)) {
+            return Decision.REJECT_GLOBAL_RATE;
+        }
+        return Decision.ACCEPT;
+    }
+
+    /**
+     * 获取（必要时创建）单IP令牌桶，并按需清理已回满的令牌桶
+     */
+    private TokenBucket ipBucket(InetAddress address, long now) {
+        TokenBucket bucket = ipBuckets.get(address);
+        if (bucket == null) {
+            if (ipBuckets.size() >= SWEEP_THRESHOLD && now - lastSweepNanos >= SWEEP_INTERVAL_NANOS) {
+                lastSweepNanos = now;
+                ipBuckets.values().removeIf(b -> b.isFull(now));
+            }
+            bucket = ipBuckets.computeIfAbsent(address,
+                    key -> new TokenBucket(config.getPerIpRate(), config.getPerIpBurst()));
+        }
+        return bucket;
+    }
+
+    /**
+     * 获取接纳控制统计（用于监控）
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", config.isEnabled());
+        status.put("hardLimit", connectionManager.getMaxMobileStationConnections());
+        status.put("softLimit", config.getSoftLimit());
+        status.put("currentConnections", connectionManager.getMobileStationCount());
+        status.put("trackedAddresses", ipBuckets.size());
+
+        Map<String, Long> decisions = new LinkedHashMap<>();
+        for (Decision decision : Decision.values()) {
+            decisions.put(decision.name(), decisionCounts.get(decision.ordinal()));
+        }
+        status.put("decisions", decisions);
+        return status;
+    }
+
+    /**
+     * 令牌桶
+     * 按纳秒时间差补充令牌，不需要定时任务
+     */
+    private static final class TokenBucket {
+
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(double ratePerSecond, int burst) {
+            this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1, burst);
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            refill(now);
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            long elapsed = now - lastRefillNanos;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+                lastRefillNanos = now;
+            }
+        }
+    }
+}
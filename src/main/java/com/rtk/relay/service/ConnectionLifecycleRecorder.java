@@ -0,0 +1,211 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.entity.ConnectionHistory;
+import com.rtk.relay.entity.ConnectionInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 连接生命周期记录器
+ * 连接建立和断开事件在Netty I/O线程上只做一次无锁入队，由后台线程定期批量写入数据库，
+ * 同一批次内同一连接的建立和断开合并为一条插入，重连风暴时不会让事件循环阻塞在数据库I/O上。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class ConnectionLifecycleRecorder {
+
+    /**
+     * 待写入的事件队列
+     */
+    private final ConcurrentLinkedQueue<ConnectionHistory> events = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 队列中的事件数
+     */
+    private final AtomicInteger pendingEvents = new AtomicInteger();
+
+    /**
+     * 因队列已满而丢弃的事件数
+     */
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    /**
+     * RTK配置
+     */
+    private final RtkProperties rtkProperties;
+
+    /**
+     * 数据持久化服务
+     */
+    private final DataPersistenceService dataPersistenceService;
+
+    /**
+     * 后台写库线程
+     */
+    private ScheduledExecutorService writer;
+
+    /**
+     * 构造函数
+     *
+     * @param rtkProperties RTK配置
+     * @param dataPersistenceService 数据持久化服务
+     */
+    public ConnectionLifecycleRecorder(RtkProperties rtkProperties, DataPersistenceService dataPersistenceService) {
+        this.rtkProperties = rtkProperties;
+        this.dataPersistenceService = dataPersistenceService;
+    }
+
+    /**
+     * 启动后台写库线程
+     */
+    @PostConstruct
+    public void init() {
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rtk-lifecycle-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long flushMs = rtkProperties.getRelay().getLifecycleFlushMs();
+        writer.scheduleWithFixedDelay(this::flushSafely, flushMs, flushMs, TimeUnit.MILLISECONDS);
+        log.info("连接生命周期记录器已启动 - 写库间隔: {}ms", flushMs);
+    }
+
+    /**
+     * 停止时写入剩余事件
+     */
+    @PreDestroy
+    public void destroy() {
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushSafely();
+    }
+
+    /**
+     * 记录连接建立
+     *
+     * @param connectionInfo 连接信息
+     */
+    public void connectionEstablished(ConnectionInfo connectionInfo) {
+        ConnectionHistory history = new ConnectionHistory();
+        history.setConnectionId(connectionInfo.getConnectionId());
+        history.setConnectionType(connectionInfo.getType().name());
+        history.setRemoteAddress(connectionInfo.getRemoteAddress());
+        history.setRemotePort(connectionInfo.getRemotePort());
+        history.setConnectTime(connectionInfo.getConnectTime() != null ? connectionInfo.getConnectTime() : LocalDateTime.now());
+        history.setStatus("CONNECTED");
+        enqueue(history);
+    }
+
+    /**
+     * 记录连接断开
+     *
+     * @param connectionInfo 连接信息
+     * @param status 最终状态
+     */
+    public void connectionClosed(ConnectionInfo connectionInfo, String status) {
+        LocalDateTime now = LocalDateTime.now();
+        ConnectionHistory history = new ConnectionHistory();
+        history.setConnectionId(connectionInfo.getConnectionId());
+        history.setConnectionType(connectionInfo.getType().name());
+        history.setRemoteAddress(connectionInfo.getRemoteAddress());
+        history.setRemotePort(connectionInfo.getRemotePort());
+        history.setConnectTime(connectionInfo.getConnectTime() != null ? connectionInfo.getConnectTime() : now);
+        history.setDisconnectTime(now);
+        history.setDurationSeconds(ChronoUnit.SECONDS.between(history.getConnectTime(), now));
+        history.setReceivedBytes(connectionInfo.getReceivedBytes());
+        history.setSentBytes(connectionInfo.getSentBytes());
+        history.setReceivedMessages(connectionInfo.getReceivedMessages());
+        history.setSentMessages(connectionInfo.getSentMessages());
+        history.setStatus(status);
+        enqueue(history);
+    }
+
+    /**
+     * 获取记录器状态（用于监控）
+     *
+     * @return 状态信息
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pendingEvents", pendingEvents.get());
+        status.put("droppedEvents", droppedEvents.get());
+        return status;
+    }
+
+    /**
+     * 事件入队（无锁）
+     */
+    private void enqueue(ConnectionHistory history) {
+        if (dataPersistenceService == null || !dataPersistenceService.isDatabaseEnabled()) {
+            return;
+        }
+        if (pendingEvents.incrementAndGet() > rtkProperties.getRelay().getLifecycleQueueLimit()) {
+            pendingEvents.decrementAndGet();
+            if (droppedEvents.incrementAndGet() % 1000 == 1) {
+                log.warn("连接记录队列已满，丢弃事件 - 累计丢弃: {}", droppedEvents.get());
+            }
+            return;
+        }
+        events.offer(history);
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("批量记录连接生命周期失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 取出当前队列中的全部事件，按连接合并后批量写入
+     */
+    private void flush() {
+        // 按连接ID合并：建立事件生成插入，同批次的断开事件覆盖为完整记录
+        Map<String, ConnectionHistory> inserts = new LinkedHashMap<>();
+        List<ConnectionHistory> closes = new ArrayList<>();
+
+        ConnectionHistory history;
+        while ((history = events.poll()) != null) {
+            pendingEvents.decrementAndGet();
+            boolean closed = history.getDisconnectTime() != null;
+            if (!closed) {
+                inserts.put(history.getConnectionId(), history);
+            } else if (inserts.containsKey(history.getConnectionId())) {
+                inserts.put(history.getConnectionId(), history);
+            } else {
+                closes.add(history);
+            }
+        }
+
+        if (inserts.isEmpty() && closes.isEmpty()) {
+            return;
+        }
+        dataPersistenceService.recordConnectionLifecycle(new ArrayList<>(inserts.values()), closes);
+    }
+}
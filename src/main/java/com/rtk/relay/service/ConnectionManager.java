@@ -1,16 +1,19 @@
 package com.rtk.relay.service;
 
+import com.rtk.relay.config.LiveRelayConfig;
 import com.rtk.relay.config.RtkProperties;
 import com.rtk.relay.entity.ConnectionInfo;
 import com.rtk.relay.entity.RelayStatistics;
 import io.netty.channel.Channel;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -27,19 +30,25 @@ import java.util.concurrent.TimeUnit;
 public class ConnectionManager {
 
     /**
-     * 基站连接映射表：连接ID -> Channel
+     * 基站连接注册表：句柄 -> Channel/ConnectionInfo
      */
-    private final ConcurrentHashMap<String, Channel> baseStationChannels = new ConcurrentHashMap<>();
+    private final ConnectionRegistry baseStations = new ConnectionRegistry();
 
     /**
-     * 移动站连接映射表：连接ID -> Channel
+     * 移动站连接注册表：句柄 -> Channel/ConnectionInfo
      */
-    private final ConcurrentHashMap<String, Channel> mobileStationChannels = new ConcurrentHashMap<>();
+    private final ConnectionRegistry mobileStations = new ConnectionRegistry();
 
     /**
-     * 连接信息映射表：连接ID -> ConnectionInfo
+     * 空通道数组
      */
-    private final ConcurrentHashMap<String, ConnectionInfo> connectionInfoMap = new ConcurrentHashMap<>();
+    private static final Channel[] NO_CHANNELS = new Channel[0];
+
+    /**
+     * 移动站通道快照（不可变，写时复制）
+     * 只在移动站注册和注销时重新发布，转发路径一次volatile读取即可得到本条消息内一致的订阅者集合
+     */
+    private volatile Channel[] mobileStationSnapshot = NO_CHANNELS;
 
     /**
      * 统计信息
@@ -52,156 +61,203 @@ public class ConnectionManager {
     private final RtkProperties rtkProperties;
     
     /**
-     * 数据持久化服务
+     * 连接生命周期记录器（异步批量写库）
+     */
+    private final ConnectionLifecycleRecorder lifecycleRecorder;
+    
+    /**
+     * 基站热备切换管理器
+     */
+    private final FailoverManager failoverManager;
+    
+    /**
+     * 重复帧抑制器
+     */
+    private final DuplicateFrameFilter duplicateFrameFilter;
+
+    /**
+     * 定时任务执行器（用于连接计数校正）
+     */
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+
+    /**
+     * 连接超时时间轮：每个基站连接一个截止时间，只在到期时检查
      */
-    @Autowired
-    private DataPersistenceService dataPersistenceService;
+    private final Timer timeoutTimer;
 
     /**
-     * 定时任务执行器（用于连接检查和清理）
+     * 基站连接超时时间（纳秒），0表示不检测
      */
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final long baseStationTimeoutNanos;
+
+    /**
+     * 运行时转发参数（最大移动站连接数）
+     */
+    private final LiveRelayConfig liveRelayConfig;
 
     /**
      * 构造函数
      *
      * @param rtkProperties RTK配置
+     * @param liveRelayConfig 运行时转发参数
+     * @param lifecycleRecorder 连接生命周期记录器
+     * @param failoverManager 基站热备切换管理器
+     * @param duplicateFrameFilter 重复帧抑制器
      */
-    public ConnectionManager(RtkProperties rtkProperties) {
+    public ConnectionManager(RtkProperties rtkProperties, LiveRelayConfig liveRelayConfig,
+                             ConnectionLifecycleRecorder lifecycleRecorder, FailoverManager failoverManager,
+                             DuplicateFrameFilter duplicateFrameFilter) {
         this.rtkProperties = rtkProperties;
-        // 启动连接检查任务
+        this.liveRelayConfig = liveRelayConfig;
+        this.lifecycleRecorder = lifecycleRecorder;
+        this.failoverManager = failoverManager;
+        this.duplicateFrameFilter = duplicateFrameFilter;
+        this.baseStationTimeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(0, rtkProperties.getServer1().getTimeout()));
+        this.timeoutTimer = new HashedWheelTimer(r -> {
+            Thread thread = new Thread(r, "rtk-connection-timeout");
+            thread.setDaemon(true);
+            return thread;
+        }, rtkProperties.getRelay().getTimeoutTickMs(), TimeUnit.MILLISECONDS, 512);
+        // 启动连接计数校正任务
         startConnectionCheckTask();
     }
 
     /**
-     * 注册基站连接
+     * 注册基站连接，分配的句柄写入连接信息
      *
-     * @param connectionId 连接ID
      * @param channel 通道
      * @param connectionInfo 连接信息
+     * @return 连接句柄
      */
-    public void registerBaseStation(String connectionId, Channel channel, ConnectionInfo connectionInfo) {
-        baseStationChannels.put(connectionId, channel);
-        connectionInfoMap.put(connectionId, connectionInfo);
+    public int registerBaseStation(Channel channel, ConnectionInfo connectionInfo) {
+        String connectionId = connectionInfo.getConnectionId();
+        int handle = baseStations.register(channel, connectionInfo);
+        channel.closeFuture().addListener(future -> unregisterBaseStation(handle));
+        scheduleBaseStationTimeout(handle, baseStationTimeoutNanos);
         statistics.getCurrentBaseStationConnections().incrementAndGet();
         statistics.getTotalBaseStationConnections().incrementAndGet();
         statistics.updateLastActiveTime();
+        failoverManager.onStationConnected(connectionId, connectionInfo.getRemoteAddress());
 
-        // 记录连接建立到数据库
-        try {
-            dataPersistenceService.recordConnectionEstablished(
-                connectionId, 
-                "BASE_STATION", 
-                connectionInfo.getRemoteAddress(),
-                connectionInfo.getRemotePort()
-            );
-        } catch (Exception e) {
-            log.warn("记录基站连接建立失败: {}", e.getMessage());
-        }
+        // 记录连接建立（入队，由后台线程批量写库）
+        lifecycleRecorder.connectionEstablished(connectionInfo);
 
         log.info("基站连接已注册 - 连接ID: {}, 当前基站连接数: {}",
                 connectionId, statistics.getCurrentBaseStationConnections().get());
+        return handle;
     }
 
     /**
-     * 注册移动站连接
+     * 注册移动站连接，分配的句柄写入连接信息
      *
-     * @param connectionId 连接ID
      * @param channel 通道
      * @param connectionInfo 连接信息
+     * @return 连接句柄
      */
-    public void registerMobileStation(String connectionId, Channel channel, ConnectionInfo connectionInfo) {
-        mobileStationChannels.put(connectionId, channel);
-        connectionInfoMap.put(connectionId, connectionInfo);
+    public int registerMobileStation(Channel channel, ConnectionInfo connectionInfo) {
+        String connectionId = connectionInfo.getConnectionId();
+        int handle = addMobileStation(channel, connectionInfo);
+        channel.closeFuture().addListener(future -> unregisterMobileStation(handle));
         statistics.getCurrentMobileStationConnections().incrementAndGet();
         statistics.getTotalMobileStationConnections().incrementAndGet();
         statistics.updateLastActiveTime();
 
-        // 记录连接建立到数据库
-        try {
-            dataPersistenceService.recordConnectionEstablished(
-                connectionId, 
-                "MOBILE_STATION", 
-                connectionInfo.getRemoteAddress(),
-                connectionInfo.getRemotePort()
-            );
-        } catch (Exception e) {
-            log.warn("记录移动站连接建立失败: {}", e.getMessage());
-        }
+        // 记录连接建立（入队，由后台线程批量写库）
+        lifecycleRecorder.connectionEstablished(connectionInfo);
 
         log.info("移动站连接已注册 - 连接ID: {}, 当前移动站连接数: {}",
                 connectionId, statistics.getCurrentMobileStationConnections().get());
+        return handle;
     }
 
     /**
-     * 注销基站连接
+     * 注销基站连接（重复注销不做任何操作）
      *
-     * @param connectionId 连接ID
+     * @param handle 连接句柄
      */
-    public void unregisterBaseStation(String connectionId) {
-        ConnectionInfo connectionInfo = connectionInfoMap.get(connectionId);
+    public void unregisterBaseStation(int handle) {
+        ConnectionInfo connectionInfo = baseStations.remove(handle);
+        if (connectionInfo == null) {
+            return;
+        }
+        String connectionId = connectionInfo.getConnectionId();
         
-        baseStationChannels.remove(connectionId);
-        connectionInfoMap.remove(connectionId);
         statistics.getCurrentBaseStationConnections().decrementAndGet();
         statistics.updateLastActiveTime();
+        failoverManager.onStationDisconnected(connectionId);
+        duplicateFrameFilter.onStationDisconnected(connectionId);
 
-        // 记录连接断开到数据库
-        if (connectionInfo != null) {
-            try {
-                dataPersistenceService.recordConnectionClosed(
-                    connectionId, 
-                    connectionInfo.getReceivedBytes(),
-                    connectionInfo.getSentBytes(),
-                    "DISCONNECTED"
-                );
-            } catch (Exception e) {
-                log.warn("记录基站连接断开失败: {}", e.getMessage());
-            }
-        }
+        // 记录连接断开（入队，由后台线程批量写库）
+        lifecycleRecorder.connectionClosed(connectionInfo, "DISCONNECTED");
 
         log.info("基站连接已注销 - 连接ID: {}, 当前基站连接数: {}",
                 connectionId, statistics.getCurrentBaseStationConnections().get());
     }
 
     /**
-     * 注销移动站连接
+     * 注销移动站连接（重复注销不做任何操作）
      *
-     * @param connectionId 连接ID
+     * @param handle 连接句柄
      */
-    public void unregisterMobileStation(String connectionId) {
-        ConnectionInfo connectionInfo = connectionInfoMap.get(connectionId);
+    public void unregisterMobileStation(int handle) {
+        ConnectionInfo connectionInfo = removeMobileStation(handle);
+        if (connectionInfo == null) {
+            return;
+        }
+        String connectionId = connectionInfo.getConnectionId();
         
-        mobileStationChannels.remove(connectionId);
-        connectionInfoMap.remove(connectionId);
         statistics.getCurrentMobileStationConnections().decrementAndGet();
         statistics.updateLastActiveTime();
 
-        // 记录连接断开到数据库
-        if (connectionInfo != null) {
-            try {
-                dataPersistenceService.recordConnectionClosed(
-                    connectionId,
-                    connectionInfo.getReceivedBytes(),
-                    connectionInfo.getSentBytes(),
-                    "DISCONNECTED"
-                );
-            } catch (Exception e) {
-                log.warn("记录移动站连接断开失败: {}", e.getMessage());
-            }
-        }
+        // 记录连接断开（入队，由后台线程批量写库）
+        lifecycleRecorder.connectionClosed(connectionInfo, "DISCONNECTED");
 
         log.info("移动站连接已注销 - 连接ID: {}, 当前移动站连接数: {}",
                 connectionId, statistics.getCurrentMobileStationConnections().get());
     }
 
     /**
-     * 获取所有移动站通道
+     * 获取移动站通道快照
+     * 返回的数组不可修改，调用方可直接遍历；移动站变化时发布新数组，不影响正在进行的遍历
      *
-     * @return 移动站通道集合
+     * @return 移动站通道数组
+     */
+    public Channel[] getMobileStationChannels() {
+        return mobileStationSnapshot;
+    }
+
+    /**
+     * 注册移动站并发布新的通道快照（与注销互斥，保证快照与注册表一致）
+     */
+    private synchronized int addMobileStation(Channel channel, ConnectionInfo connectionInfo) {
+        int handle = mobileStations.register(channel, connectionInfo);
+        Channel[] current = mobileStationSnapshot;
+        Channel[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = channel;
+        mobileStationSnapshot = updated;
+        return handle;
+    }
+
+    /**
+     * 注销移动站并发布新的通道快照
      */
-    public Collection<Channel> getAllMobileStationChannels() {
-        return mobileStationChannels.values();
+    private synchronized ConnectionInfo removeMobileStation(int handle) {
+        Channel channel = mobileStations.getChannel(handle);
+        ConnectionInfo connectionInfo = mobileStations.remove(handle);
+        if (connectionInfo == null) {
+            return null;
+        }
+        Channel[] current = mobileStationSnapshot;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == channel) {
+                Channel[] updated = new Channel[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                mobileStationSnapshot = updated.length == 0 ? NO_CHANNELS : updated;
+                break;
+            }
+        }
+        return connectionInfo;
     }
 
     /**
@@ -210,7 +266,7 @@ public class ConnectionManager {
      * @return 移动站连接数
      */
     public int getMobileStationCount() {
-        return mobileStationChannels.size();
+        return mobileStations.size();
     }
 
     /**
@@ -219,16 +275,16 @@ public class ConnectionManager {
      * @return 基站连接数
      */
     public int getBaseStationCount() {
-        return baseStationChannels.size();
+        return baseStations.size();
     }
 
     /**
-     * 获取最大移动站连接数
+     * 获取最大移动站连接数（可运行时调整）
      *
      * @return 最大移动站连接数
      */
     public int getMaxMobileStationConnections() {
-        return rtkProperties.getServer2().getMaxConnections();
+        return liveRelayConfig.current().getMaxConnections();
     }
 
     /**
@@ -246,113 +302,111 @@ public class ConnectionManager {
      * @return 连接信息集合
      */
     public Collection<ConnectionInfo> getAllConnectionInfo() {
-        return connectionInfoMap.values();
+        List<ConnectionInfo> all = new ArrayList<>(baseStations.size() + mobileStations.size());
+        all.addAll(baseStations.infos());
+        all.addAll(mobileStations.infos());
+        return all;
     }
     
     /**
-     * 获取指定连接的信息
+     * 按连接ID获取连接信息（供管理接口使用，需遍历注册表）
      *
      * @param connectionId 连接ID
      * @return 连接信息，如果不存在则返回null
      */
     public ConnectionInfo getConnectionInfo(String connectionId) {
-        return connectionInfoMap.get(connectionId);
+        for (ConnectionInfo connectionInfo : getAllConnectionInfo()) {
+            if (connectionInfo.getConnectionId().equals(connectionId)) {
+                return connectionInfo;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 按句柄获取基站连接信息
+     *
+     * @param handle 连接句柄
+     * @return 连接信息，句柄无效时返回null
+     */
+    public ConnectionInfo getBaseStationInfo(int handle) {
+        return baseStations.get(handle);
     }
 
     /**
-     * 启动连接检查任务
-     * 定期检查连接状态，清理无效连接
+     * 安排基站超时检查
+     *
+     * @param handle 基站连接句柄
+     * @param delayNanos 延迟（纳秒）
+     */
+    private void scheduleBaseStationTimeout(int handle, long delayNanos) {
+        if (baseStationTimeoutNanos <= 0) {
+            return;
+        }
+        try {
+            timeoutTimer.newTimeout(timeout -> checkBaseStationTimeout(handle), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (IllegalStateException e) {
+            // 时间轮已停止（服务关闭中）
+            log.debug("超时检测已停止，忽略 - 句柄: {}", handle);
+        }
+    }
+
+    /**
+     * 基站超时检查
+     * 活动时只更新最后活跃时刻，不重新安排定时器；到期时若期间有活动，则按剩余时间重新安排
+     *
+     * @param handle 基站连接句柄
+     */
+    private void checkBaseStationTimeout(int handle) {
+        ConnectionInfo connectionInfo = baseStations.get(handle);
+        if (connectionInfo == null) {
+            return;
+        }
+
+        long idleNanos = System.nanoTime() - connectionInfo.getLastActiveNanos();
+        long remainingNanos = baseStationTimeoutNanos - idleNanos;
+        if (remainingNanos > 0) {
+            scheduleBaseStationTimeout(handle, remainingNanos);
+            return;
+        }
+
+        log.warn("基站连接超时 - 连接ID: {}, 最后活跃: {}",
+                connectionInfo.getConnectionId(), connectionInfo.getLastActiveTime());
+        Channel channel = baseStations.getChannel(handle);
+        unregisterBaseStation(handle);
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (Exception e) {
+                log.error("关闭超时基站连接失败", e);
+            }
+        }
+    }
+
+    /**
+     * 启动连接计数校正任务
+     * 连接断开和超时由通道关闭回调和时间轮处理，这里只做O(1)的计数器兜底校正
      */
     private void startConnectionCheckTask() {
-        // 每30秒检查一次连接状态
+        // 每30秒校正一次连接计数
         scheduler.scheduleWithFixedDelay(() -> {
             try {
-                checkAndCleanupConnections();
+                reconcileConnectionCounters();
             } catch (Exception e) {
-                log.error("连接检查任务执行失败", e);
+                log.error("连接计数校正任务执行失败", e);
             }
         }, 30, 30, TimeUnit.SECONDS);
 
-        log.info("连接检查任务已启动，检查间隔: 30秒");
+        log.info("连接超时检测已启动 - 基站超时: {}秒, 时间轮刻度: {}ms",
+                rtkProperties.getServer1().getTimeout(), rtkProperties.getRelay().getTimeoutTickMs());
     }
 
     /**
-     * 检查并清理无效连接
-     * 【修复】：避免重复扣减计数器，只清理Map中的连接，不重复扣减统计计数
-     */
-    private void checkAndCleanupConnections() {
-        log.debug("开始检查连接状态...");
-
-        // 基站连接：检查channel状态和超时
-        baseStationChannels.entrySet().removeIf(entry -> {
-            String connectionId = entry.getKey();
-            Channel channel = entry.getValue();
-            ConnectionInfo connectionInfo = connectionInfoMap.get(connectionId);
-
-            // 只检查channel是否还活跃
-            if (!channel.isActive()) {
-                log.warn("清理无效基站连接 - 连接ID: {} (channel已断开)", connectionId);
-                connectionInfoMap.remove(connectionId);
-                // 【关键修复】不在这里扣减计数器，避免与channelInactive重复扣减
-                // statistics.getCurrentBaseStationConnections().decrementAndGet();
-                try {
-                    channel.close();
-                } catch (Exception e) {
-                    log.error("关闭基站连接失败", e);
-                }
-                return true;
-            }
-
-            // 基站可以检查超时（如果需要）
-            if (connectionInfo != null) {
-                LocalDateTime now = LocalDateTime.now();
-                int timeoutSeconds = rtkProperties.getServer1().getTimeout();
-                if (connectionInfo.getLastActiveTime().plusSeconds(timeoutSeconds).isBefore(now)) {
-                    log.warn("基站连接超时 - 连接ID: {}, 最后活跃: {}",
-                            connectionId, connectionInfo.getLastActiveTime());
-                    connectionInfoMap.remove(connectionId);
-                    // 【关键修复】超时的情况下才扣减，因为channelInactive可能不会被调用
-                    statistics.getCurrentBaseStationConnections().decrementAndGet();
-                    try {
-                        channel.close();
-                    } catch (Exception e) {
-                        log.error("关闭超时基站连接失败", e);
-                    }
-                    return true;
-                }
-            }
-
-            return false;
-        });
-
-        // 【关键修复】移动站连接：只检查channel状态，不检查超时
-        mobileStationChannels.entrySet().removeIf(entry -> {
-            String connectionId = entry.getKey();
-            Channel channel = entry.getValue();
-
-            // 只检查channel是否还活跃，不检查lastActiveTime
-            if (!channel.isActive()) {
-                log.warn("清理无效移动站连接 - 连接ID: {} (channel已断开)", connectionId);
-                connectionInfoMap.remove(connectionId);
-                // 【关键修复】不在这里扣减计数器，避免与channelInactive重复扣减
-                // statistics.getCurrentMobileStationConnections().decrementAndGet();
-                try {
-                    channel.close();
-                } catch (Exception e) {
-                    log.error("关闭移动站连接失败", e);
-                }
-                return true;
-            }
-
-            // 【重要】移动站不检查超时，因为移动站只接收数据不发送数据
-            // 保持连接直到客户端主动断开或网络异常
-
-            return false;
-        });
-
-        // 【新增】修正计数器，确保与实际Map大小一致
-        int actualBaseStations = baseStationChannels.size();
-        int actualMobileStations = mobileStationChannels.size();
+     * 修正计数器，确保与实际注册表大小一致
+     */
+    private void reconcileConnectionCounters() {
+        int actualBaseStations = baseStations.size();
+        int actualMobileStations = mobileStations.size();
         long currentBaseStations = statistics.getCurrentBaseStationConnections().get();
         long currentMobileStations = statistics.getCurrentMobileStationConnections().get();
         
@@ -367,9 +421,6 @@ public class ConnectionManager {
                     actualMobileStations, currentMobileStations, actualMobileStations);
             statistics.getCurrentMobileStationConnections().set(actualMobileStations);
         }
-
-        log.debug("连接检查完成 - 基站: {}, 移动站: {}",
-                baseStationChannels.size(), mobileStationChannels.size());
     }
 
     /**
@@ -379,18 +430,17 @@ public class ConnectionManager {
         log.info("正在关闭连接管理器...");
 
         // 关闭所有基站连接
-        baseStationChannels.values().forEach(Channel::close);
-        baseStationChannels.clear();
+        baseStations.channels().forEach(Channel::close);
+        baseStations.clear();
 
         // 关闭所有移动站连接
-        mobileStationChannels.values().forEach(Channel::close);
-        mobileStationChannels.clear();
-
-        // 清理连接信息
-        connectionInfoMap.clear();
+        mobileStations.channels().forEach(Channel::close);
+        mobileStations.clear();
+        mobileStationSnapshot = NO_CHANNELS;
 
         // 关闭定时任务
         scheduler.shutdown();
+        timeoutTimer.stop();
 
         log.info("连接管理器已关闭");
     }
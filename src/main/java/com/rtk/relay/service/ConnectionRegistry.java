@@ -0,0 +1,306 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.entity.ConnectionInfo;
+import io.netty.channel.Channel;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 连接注册表
+ * 为每个连接分配紧凑的整数句柄，通道和连接信息按句柄存放在槽位数组中，释放的槽位通过空闲链表复用。
+ * 转发路径按句柄查找只需一次数组访问；字符串连接ID只在管理接口等边缘位置使用。
+ * 句柄低20位为槽位号，高位为槽位代数，槽位被复用后旧句柄自动失效。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public class ConnectionRegistry {
+
+    /**
+     * 无效句柄
+     */
+    public static final int INVALID_HANDLE = -1;
+
+    /**
+     * 槽位号位数
+     */
+    private static final int SLOT_BITS = 20;
+
+    /**
+     * 最大槽位数
+     */
+    private static final int MAX_SLOTS = 1 << SLOT_BITS;
+
+    /**
+     * 槽位号掩码
+     */
+    private static final int SLOT_MASK = MAX_SLOTS - 1;
+
+    /**
+     * 槽位代数掩码（保证句柄非负）
+     */
+    private static final int GENERATION_MASK = (1 << (31 - SLOT_BITS)) - 1;
+
+    /**
+     * 初始槽位数
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * 当前槽位数组（扩容时整体替换）
+     */
+    private volatile Slots slots = new Slots(INITIAL_CAPACITY);
+
+    /**
+     * 各槽位的代数（写操作持锁访问）
+     */
+    private int[] generations = new int[INITIAL_CAPACITY];
+
+    /**
+     * 空闲槽位栈（写操作持锁访问）
+     */
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+
+    /**
+     * 空闲槽位数
+     */
+    private int freeCount;
+
+    /**
+     * 曾经使用过的最大槽位号+1
+     */
+    private volatile int highWater;
+
+    /**
+     * 已注册连接数
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * 注册连接并分配句柄，句柄同时写入连接信息
+     *
+     * @param channel 通道
+     * @param connectionInfo 连接信息
+     * @return 连接句柄
+     */
+    public synchronized int register(Channel channel, ConnectionInfo connectionInfo) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = highWater;
+            if (slot >= MAX_SLOTS) {
+                throw new IllegalStateException("连接数超过注册表容量: " + MAX_SLOTS);
+            }
+            if (slot >= slots.length()) {
+                grow();
+            }
+            highWater = slot + 1;
+        }
+
+        int handle = (generations[slot] << SLOT_BITS) | slot;
+        connectionInfo.setHandle(handle);
+        Slots current = slots;
+        current.channels.set(slot, channel);
+        current.infos.set(slot, connectionInfo);
+        size.incrementAndGet();
+        return handle;
+    }
+
+    /**
+     * 注销连接，句柄已失效时不做任何操作
+     *
+     * @param handle 连接句柄
+     * @return 被注销的连接信息，句柄无效时返回null
+     */
+    public synchronized ConnectionInfo remove(int handle) {
+        ConnectionInfo connectionInfo = get(handle);
+        if (connectionInfo == null) {
+            return null;
+        }
+
+        int slot = handle & SLOT_MASK;
+        Slots current = slots;
+        current.channels.set(slot, null);
+        current.infos.set(slot, null);
+        generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+        freeSlots[freeCount++] = slot;
+        size.decrementAndGet();
+        return connectionInfo;
+    }
+
+    /**
+     * 按句柄获取连接信息
+     *
+     * @param handle 连接句柄
+     * @return 连接信息，句柄无效时返回null
+     */
+    public ConnectionInfo get(int handle) {
+        if (handle < 0) {
+            return null;
+        }
+        Slots current = slots;
+        int slot = handle & SLOT_MASK;
+        if (slot >= current.length()) {
+            return null;
+        }
+        ConnectionInfo connectionInfo = current.infos.get(slot);
+        return connectionInfo != null && connectionInfo.getHandle() == handle ? connectionInfo : null;
+    }
+
+    /**
+     * 按句柄获取通道
+     *
+     * @param handle 连接句柄
+     * @return 通道，句柄无效时返回null
+     */
+    public Channel getChannel(int handle) {
+        if (get(handle) == null) {
+            return null;
+        }
+        return slots.channels.get(handle & SLOT_MASK);
+    }
+
+    /**
+     * 已注册连接数
+     *
+     * @return 连接数
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * 所有通道的只读视图（弱一致）
+     *
+     * @return 通道集合
+     */
+    public Collection<Channel> channels() {
+        return new SlotView<Channel>() {
+            @Override
+            Channel at(Slots current, int slot) {
+                return current.channels.get(slot);
+            }
+        };
+    }
+
+    /**
+     * 所有连接信息的只读视图（弱一致）
+     *
+     * @return 连接信息集合
+     */
+    public Collection<ConnectionInfo> infos() {
+        return new SlotView<ConnectionInfo>() {
+            @Override
+            ConnectionInfo at(Slots current, int slot) {
+                return current.infos.get(slot);
+            }
+        };
+    }
+
+    /**
+     * 清空注册表
+     */
+    public synchronized void clear() {
+        Slots current = slots;
+        for (int slot = 0; slot < highWater; slot++) {
+            if (current.infos.get(slot) != null) {
+                current.channels.set(slot, null);
+                current.infos.set(slot, null);
+                generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+                freeSlots[freeCount++] = slot;
+            }
+        }
+        size.set(0);
+    }
+
+    /**
+     * 槽位数组扩容为原来的两倍
+     */
+    private void grow() {
+        Slots current = slots;
+        int capacity = Math.min(current.length() * 2, MAX_SLOTS);
+        Slots grown = new Slots(capacity);
+        for (int slot = 0; slot < current.length(); slot++) {
+            grown.channels.set(slot, current.channels.get(slot));
+            grown.infos.set(slot, current.infos.get(slot));
+        }
+        int[] grownGenerations = new int[capacity];
+        System.arraycopy(generations, 0, grownGenerations, 0, generations.length);
+        int[] grownFreeSlots = new int[capacity];
+        System.arraycopy(freeSlots, 0, grownFreeSlots, 0, freeCount);
+        generations = grownGenerations;
+        freeSlots = grownFreeSlots;
+        slots = grown;
+    }
+
+    /**
+     * 槽位数组
+     */
+    private static final class Slots {
+        private final AtomicReferenceArray<Channel> channels;
+        private final AtomicReferenceArray<ConnectionInfo> infos;
+
+        Slots(int capacity) {
+            this.channels = new AtomicReferenceArray<>(capacity);
+            this.infos = new AtomicReferenceArray<>(capacity);
+        }
+
+        int length() {
+            return infos.length();
+        }
+    }
+
+    /**
+     * 按槽位顺序遍历已占用槽位的只读视图
+     */
+    private abstract class SlotView<T> extends AbstractCollection<T> {
+
+        abstract T at(Slots current, int slot);
+
+        @Override
+        public int size() {
+            return size.get();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            final Slots current = slots;
+            final int limit = Math.min(highWater, current.length());
+            return new Iterator<T>() {
+                private int slot;
+                private T next = advance();
+
+                private T advance() {
+                    while (slot < limit) {
+                        T value = at(current, slot++);
+                        if (value != null) {
+                            return value;
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public T next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    T value = next;
+                    next = advance();
+                    return value;
+                }
+            };
+        }
+    }
+}
@@ -96,6 +96,29 @@ public class DataPersistenceService {
         }
     }
 
+    /**
+     * 批量写入连接生命周期记录
+     * 同一批次内已合并：既建立又断开的连接只插入一条完整记录
+     *
+     * @param inserts 需要插入的连接记录（新建立的连接）
+     * @param closes 需要更新断开信息的连接记录（建立记录已在之前批次写入）
+     */
+    @Transactional
+    public void recordConnectionLifecycle(List<ConnectionHistory> inserts, List<ConnectionHistory> closes) {
+        if (historyMapper == null) {
+            log.debug("数据持久化服务未启用，跳过连接记录");
+            return;
+        }
+
+        if (!inserts.isEmpty()) {
+            historyMapper.batchInsert(inserts);
+        }
+        for (ConnectionHistory history : closes) {
+            historyMapper.updateClosed(history);
+        }
+        log.debug("批量记录连接生命周期 - 插入: {}, 更新: {}", inserts.size(), closes.size());
+    }
+
     /**
      * 存储基站RTCM差分数据（核心优化功能）
      * 实现1小时内更新策略，大幅减少数据量
@@ -394,6 +417,13 @@ public class DataPersistenceService {
         }
     }
     
+    /**
+     * 获取每日消息计数缓存的条目数（用于监控内存增长）
+     */
+    public int getDailyMessageCountSize() {
+        return dailyMessageCount.size();
+    }
+
     /**
      * 检查数据库连接状态
      */
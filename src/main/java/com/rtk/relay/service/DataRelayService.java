@@ -1,22 +1,29 @@
 package com.rtk.relay.service;
 
+import com.rtk.relay.config.LiveRelayConfig;
+import com.rtk.relay.config.RelayTuning;
 import com.rtk.relay.config.RtkDataBuffer;
+import com.rtk.relay.config.RtkProperties;
 import com.rtk.relay.entity.ConnectionInfo;
 import com.rtk.relay.entity.RelayStatistics;
+import com.rtk.relay.entity.RoverSubscription;
+import com.rtk.relay.netty.PriorityLaneHandler;
+import com.rtk.relay.rtcm.RelayFrame;
+import com.rtk.relay.rtcm.Rtcm3;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
-import java.time.LocalDateTime;
-import java.util.Collection;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.*;
@@ -25,7 +32,6 @@ import java.util.concurrent.atomic.AtomicLong;
 /**
  * 数据转发服务
  * 负责将基站数据转发给所有连接的移动站
- * 包含心跳机制，确保长连接稳定
  *
  * @author RTK Team
  * @version 1.0.0
@@ -40,27 +46,19 @@ public class DataRelayService {
     private static final AttributeKey<ConnectionInfo> CONNECTION_INFO_KEY = AttributeKey.valueOf("connectionInfo");
 
     /**
-     * 心跳数据包 - 发送最小的数据包保持连接活跃
-     * 使用NMEA-0183格式的注释行，不会影响正常数据解析
+     * 连接管理器
      */
-    private static final byte[] HEARTBEAT_PACKET = "$RTKH,HEARTBEAT*00\r\n".getBytes();
+    private final ConnectionManager connectionManager;
     
     /**
-     * 同步转发的移动站数量阈值
-     * 小于等于此数量时使用同步转发，确保数据可靠性
-     * 大于此数量时使用异步转发，提高性能
+     * 是否按历元批量发送
      */
-    private static final int SYNC_RELAY_THRESHOLD = 5;
+    private final boolean epochBatching;
     
     /**
-     * 数据发送超时时间（毫秒）
-     */
-    private static final long SEND_TIMEOUT_MS = 200;
-
-    /**
-     * 连接管理器
+     * 是否启用发送优先级（拥塞的移动站由通道内的优先级队列处理，不再跳过）
      */
-    private final ConnectionManager connectionManager;
+    private final boolean priorityLanes;
     
     /**
      * 数据缓冲区
@@ -68,13 +66,58 @@ public class DataRelayService {
     private final RtkDataBuffer dataBuffer;
     
     /**
-     * 数据持久化服务（可选依赖）
+     * 基站热备切换管理器
+     */
+    private final FailoverManager failoverManager;
+    
+    /**
+     * 重复帧抑制器
+     */
+    private final DuplicateFrameFilter duplicateFrameFilter;
+    
+    /**
+     * UDP组播发布器
+     */
+    private final MulticastPublisher multicastPublisher;
+    
+    /**
+     * RTCM原始数据归档
+     */
+    private final RtcmJournal rtcmJournal;
+    
+    /**
+     * 基站快照
+     */
+    private final StationSnapshotService stationSnapshotService;
+    
+    /**
+     * 运行时转发参数（同步转发阈值、发送超时）
+     */
+    private final LiveRelayConfig liveRelayConfig;
+    
+    /**
+     * 发送流量整形与配额（挂载点速率上限）
      */
-    @Autowired
-    private DataPersistenceService dataPersistenceService;
+    private final TrafficShapingService trafficShapingService;
+    
+    /**
+     * 移动站通道是否整形（整形的写入可能被延后，同步转发不等待其完成）
+     */
+    private final boolean shapedWrites;
+    
+    /**
+     * 数据持久化服务（未注入映射器时不写库）
+     */
+    private final DataPersistenceService dataPersistenceService;
+    
+    /**
+     * 连接生命周期记录器
+     */
+    private final ConnectionLifecycleRecorder lifecycleRecorder;
 
     /**
      * 数据转发线程池 - 使用有界队列防止内存溢出
+     * 各移动站的写入在通道自己的事件循环中执行，本线程池只处理每帧转发完成后的死连接清理和统计日志
      */
     private final ThreadPoolExecutor relayExecutor = new ThreadPoolExecutor(
             Runtime.getRuntime().availableProcessors(), // 核心线程数
@@ -90,114 +133,53 @@ public class DataRelayService {
             new ThreadPoolExecutor.CallerRunsPolicy() // 队列满时由调用线程执行
     );
 
-    /**
-     * 心跳定时器
-     */
-    private ScheduledExecutorService heartbeatScheduler;
-
     /**
      * 构造函数
      *
      * @param connectionManager 连接管理器
      * @param dataBuffer 数据缓冲区
+     * @param failoverManager 基站热备切换管理器
+     * @param duplicateFrameFilter 重复帧抑制器
+     * @param multicastPublisher UDP组播发布器
+     * @param rtcmJournal RTCM原始数据归档
+     * @param stationSnapshotService 基站快照
+     * @param liveRelayConfig 运行时转发参数
+     * @param trafficShapingService 发送流量整形与配额
+     * @param dataPersistenceService 数据持久化服务
+     * @param lifecycleRecorder 连接生命周期记录器
+     * @param rtkProperties RTK配置
      */
-    public DataRelayService(ConnectionManager connectionManager, RtkDataBuffer dataBuffer) {
+    public DataRelayService(ConnectionManager connectionManager, RtkDataBuffer dataBuffer,
+                            FailoverManager failoverManager, DuplicateFrameFilter duplicateFrameFilter,
+                            MulticastPublisher multicastPublisher, RtcmJournal rtcmJournal,
+                            StationSnapshotService stationSnapshotService, LiveRelayConfig liveRelayConfig,
+                            TrafficShapingService trafficShapingService, DataPersistenceService dataPersistenceService,
+                            ConnectionLifecycleRecorder lifecycleRecorder, RtkProperties rtkProperties) {
+        this.dataPersistenceService = dataPersistenceService;
+        this.lifecycleRecorder = lifecycleRecorder;
+        this.multicastPublisher = multicastPublisher;
+        this.rtcmJournal = rtcmJournal;
+        this.stationSnapshotService = stationSnapshotService;
+        this.liveRelayConfig = liveRelayConfig;
+        this.trafficShapingService = trafficShapingService;
+        this.shapedWrites = trafficShapingService.isShapingChannels();
         this.connectionManager = connectionManager;
+        this.epochBatching = rtkProperties.getServer2().isEpochBatching();
+        this.priorityLanes = rtkProperties.getServer2().isPriorityLanes();
         this.dataBuffer = dataBuffer;
+        this.failoverManager = failoverManager;
+        this.duplicateFrameFilter = duplicateFrameFilter;
     }
 
     /**
-     * 初始化服务，启动心跳机制
+     * 初始化服务
+     * 移动站心跳由Server2管道中的写空闲检测触发，见 {@link com.rtk.relay.netty.HeartbeatHandler}
      */
     @PostConstruct
     public void init() {
-        // 创建心跳定时器
-        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread thread = new Thread(r);
-            thread.setName("rtk-heartbeat");
-            thread.setDaemon(true);
-            return thread;
-        });
-
-        // 每20秒发送一次心跳（小于frp的30秒间隔，留有足够缓冲）
-        heartbeatScheduler.scheduleWithFixedDelay(this::sendHeartbeat, 30, 20, TimeUnit.SECONDS);
-
-        log.info("数据转发服务启动，心跳机制已启用（间隔20秒）");
-        log.info("转发策略：移动站数量 <= {} 使用同步转发，> {} 使用异步转发", SYNC_RELAY_THRESHOLD, SYNC_RELAY_THRESHOLD);
-    }
-
-    /**
-     * 发送心跳包到所有移动站
-     * 保持TCP连接活跃，防止被frp或其他中间设备断开
-     */
-    private void sendHeartbeat() {
-        try {
-            Collection<Channel> mobileStationChannels = connectionManager.getAllMobileStationChannels();
-
-            if (mobileStationChannels.isEmpty()) {
-                log.debug("没有移动站连接，跳过心跳");
-                return;
-            }
-
-            int successCount = 0;
-            int failureCount = 0;
-            List<Channel> deadChannels = new ArrayList<>();
-
-            for (Channel channel : mobileStationChannels) {
-                try {
-                    if (channel.isActive() && channel.isWritable()) {
-                        // 发送心跳数据并检查结果
-                        ChannelFuture future = channel.writeAndFlush(Unpooled.wrappedBuffer(HEARTBEAT_PACKET));
-                        
-                        // 异步检查发送结果，避免阻塞心跳线程
-                        future.addListener(channelFuture -> {
-                            if (!channelFuture.isSuccess()) {
-                                log.warn("心跳发送失败: {}, 原因: {}", 
-                                    channel.remoteAddress(), channelFuture.cause().getMessage());
-                            }
-                        });
-
-                        // 更新连接信息的最后活跃时间
-                        ConnectionInfo connectionInfo = channel.attr(CONNECTION_INFO_KEY).get();
-                        if (connectionInfo != null) {
-                            connectionInfo.setLastActiveTime(LocalDateTime.now());
-                            log.trace("发送心跳到移动站: {}", connectionInfo.getConnectionId());
-                        }
-
-                        successCount++;
-                    } else {
-                        // 标记死连接，稍后清理
-                        deadChannels.add(channel);
-                        failureCount++;
-                    }
-                } catch (Exception e) {
-                    log.warn("发送心跳失败: {}, 通道: {}", e.getMessage(), channel.remoteAddress());
-                    deadChannels.add(channel);
-                    failureCount++;
-                }
-            }
-            
-            // 清理死连接
-            for (Channel deadChannel : deadChannels) {
-                try {
-                    ConnectionInfo connectionInfo = deadChannel.attr(CONNECTION_INFO_KEY).get();
-                    if (connectionInfo != null) {
-                        log.info("清理死连接: {}", connectionInfo.getConnectionId());
-                        connectionManager.unregisterMobileStation(connectionInfo.getConnectionId());
-                    }
-                } catch (Exception e) {
-                    log.warn("清理死连接时出错: {}", e.getMessage());
-                }
-            }
-
-            if (successCount > 0 || failureCount > 0) {
-                log.debug("心跳发送完成 - 成功: {}, 失败: {}, 清理死连接: {}", 
-                    successCount, failureCount, deadChannels.size());
-            }
-
-        } catch (Exception e) {
-            log.error("心跳任务执行失败", e);
-        }
+        log.info("数据转发服务启动");
+        int threshold = liveRelayConfig.current().getSyncRelayThreshold();
+        log.info("转发策略：移动站数量 <= {} 使用同步转发，> {} 使用异步转发（阈值可运行时调整）", threshold, threshold);
     }
 
     /**
@@ -205,16 +187,51 @@ public class DataRelayService {
      * 使用混合策略：少量移动站同步转发，大量移动站异步转发
      *
      * @param data 要转发的数据
-     * @param sourceConnectionId 数据源连接ID（基站连接ID）
+     * @param sourceHandle 数据源基站连接句柄
      */
-    public void relayDataToMobileStations(byte[] data, String sourceConnectionId) {
+    public void relayDataToMobileStations(byte[] data, int sourceHandle) {
+        // 按句柄查找基站连接（数组访问）
+        ConnectionInfo source = connectionManager.getBaseStationInfo(sourceHandle);
+        if (source == null) {
+            log.debug("基站连接已注销，跳过转发 - 句柄: {}", sourceHandle);
+            return;
+        }
+        String sourceConnectionId = source.getConnectionId();
+
         if (data == null || data.length == 0) {
             log.warn("数据为空，跳过转发 - 源连接ID: {}", sourceConnectionId);
             return;
         }
 
-        Collection<Channel> mobileStationChannels = connectionManager.getAllMobileStationChannels();
-        if (mobileStationChannels.isEmpty()) {
+        // 解析一次消息类型，供归档、去重和各移动站按订阅过滤
+        int messageType = Rtcm3.messageType(data);
+
+        // 原始数据归档：每个基站的完整数据流（含备用基站和重复链路），非RTCM数据不归档
+        if (messageType != Rtcm3.NOT_RTCM) {
+            rtcmJournal.append(source.getRemoteAddress(), sourceHandle, data);
+        }
+
+        // 热备组中非生效基站的数据不转发（仍需记录到达时间用于静默检测）
+        if (!failoverManager.acceptData(sourceConnectionId)) {
+            log.trace("备用基站数据，跳过转发 - 源连接ID: {}", sourceConnectionId);
+            return;
+        }
+
+        // 多链路接入的同一基站：只转发最先到达的一份
+        if (!duplicateFrameFilter.firstArrival(data, messageType, sourceConnectionId)) {
+            log.trace("重复帧，跳过转发 - 源连接ID: {}, 消息类型: {}", sourceConnectionId, messageType);
+            return;
+        }
+
+        // 局域网组播发布（与TCP移动站连接数无关）
+        multicastPublisher.publish(data, messageType, source.getRemoteAddress());
+
+        // 基站快照：坐标、星历和最后一个观测历元，供新接入的移动站使用
+        stationSnapshotService.record(source.getRemoteAddress(), data, messageType);
+
+        // 一次volatile读取得到本条消息的订阅者快照
+        Channel[] mobileStationChannels = connectionManager.getMobileStationChannels();
+        if (mobileStationChannels.length == 0) {
             log.debug("没有移动站连接，跳过数据转发 - 源连接ID: {}, 数据长度: {} 字节",
                     sourceConnectionId, data.length);
             return;
@@ -227,31 +244,43 @@ public class DataRelayService {
         statistics.getTotalReceivedMessages().incrementAndGet();
         statistics.updateLastActiveTime();
         
-        // 将数据添加到缓冲区（供新连接的移动站使用）
-        try {
-            dataBuffer.addData(data);
-        } catch (Exception e) {
-            log.warn("添加数据到缓冲区失败: {}", e.getMessage());
+        // 挂载点速率上限：超出时整历元丢弃观测值，不排队
+        boolean admitted = trafficShapingService.admitToRovers(source.getRemoteAddress(), data, messageType);
+
+        // 将数据添加到缓冲区（供新连接的移动站使用），丢弃的历元不进入缓冲区
+        if (admitted) {
+            try {
+                dataBuffer.addData(data);
+            } catch (Exception e) {
+                log.warn("添加数据到缓冲区失败: {}", e.getMessage());
+            }
         }
         
         // 存储基站RTCM差分数据（优化存储策略）
         if (dataPersistenceService.isDatabaseEnabled()) {
             try {
-                // 获取基站IP地址（从连接管理器获取）
-                String remoteAddress = getBaseStationAddress(sourceConnectionId);
-                dataPersistenceService.storeBaseStationRtcmData(sourceConnectionId, remoteAddress, data);
+                dataPersistenceService.storeBaseStationRtcmData(sourceConnectionId, source.getRemoteAddress(), data);
             } catch (Exception e) {
                 log.warn("存储基站RTCM数据失败: {}", e.getMessage());
             }
         }
 
-        // 根据移动站数量选择转发策略
-        if (mobileStationChannels.size() <= SYNC_RELAY_THRESHOLD) {
+        if (!admitted) {
+            log.trace("超出挂载点速率上限，丢弃 - 源连接ID: {}, 消息类型: {}", sourceConnectionId, messageType);
+            return;
+        }
+
+        // 各移动站共享同一个转发帧，MSM7降级转换每种形式只做一次
+        RelayFrame frame = new RelayFrame(data, messageType);
+
+        // 根据移动站数量选择转发策略，本帧使用同一个参数快照
+        RelayTuning tuning = liveRelayConfig.current();
+        if (mobileStationChannels.length <= tuning.getSyncRelayThreshold()) {
             // 少量移动站：同步转发，保证数据可靠性
-            relaySynchronously(data, mobileStationChannels, sourceConnectionId, statistics);
+            relaySynchronously(frame, mobileStationChannels, sourceConnectionId, statistics, tuning.getSendTimeoutMs());
         } else {
             // 大量移动站：异步转发，提高性能
-            relayAsynchronously(data, mobileStationChannels, sourceConnectionId, statistics);
+            relayAsynchronously(frame, mobileStationChannels, sourceConnectionId, statistics);
         }
     }
     
@@ -259,8 +288,8 @@ public class DataRelayService {
      * 同步转发数据到移动站
      * 确保每条数据都成功发送，适用于少量移动站
      */
-    private void relaySynchronously(byte[] data, Collection<Channel> channels, 
-                                   String sourceConnectionId, RelayStatistics statistics) {
+    private void relaySynchronously(RelayFrame frame, Channel[] channels,
+                                   String sourceConnectionId, RelayStatistics statistics, long sendTimeoutMs) {
         int successCount = 0;
         int failureCount = 0;
         List<Channel> deadChannels = new ArrayList<>();
@@ -268,13 +297,27 @@ public class DataRelayService {
         long startTime = System.currentTimeMillis();
         
         for (Channel channel : channels) {
+            byte[] data = selectData(channel, frame);
+            if (data == null) {
+                flushEpochEnd(channel, frame);
+                continue;
+            }
             try {
-                if (channel.isActive() && channel.isWritable()) {
+                if (channel.isActive() && (priorityLanes || channel.isWritable())) {
+                    boolean congested = !channel.isWritable();
+                    
                     // 同步发送数据
-                    ChannelFuture future = channel.writeAndFlush(Unpooled.wrappedBuffer(data));
+                    ChannelFuture future = send(channel, data, frame);
+                    
+                    // 历元中间的消息只写入发送缓冲区、拥塞通道的消息进入优先级队列、整形的写入可能被延后，都不等待发送完成
+                    if (congested || shapedWrites || holdsForEpoch(frame)) {
+                        future.addListener(channelFuture -> onHeldWriteComplete(channel, data, statistics, channelFuture));
+                        successCount++;
+                        continue;
+                    }
                     
                     // 等待发送完成，设置超时时间
-                    if (future.await(SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    if (future.await(sendTimeoutMs, TimeUnit.MILLISECONDS)) {
                         if (future.isSuccess()) {
                             // 发送成功，更新统计信息
                             updateConnectionStats(channel, data, statistics);
@@ -291,7 +334,7 @@ public class DataRelayService {
                         }
                     } else {
                         log.warn("同步转发超时 - 目标: {}, 超时时间: {}ms",
-                                channel.remoteAddress(), SEND_TIMEOUT_MS);
+                                channel.remoteAddress(), sendTimeoutMs);
                         deadChannels.add(channel);
                         failureCount++;
                         statistics.getRelayErrors().incrementAndGet();
@@ -316,14 +359,16 @@ public class DataRelayService {
         
         long endTime = System.currentTimeMillis();
         log.info("同步转发完成 - 源: {}, 数据: {}字节, 成功: {}, 失败: {}, 耗时: {}ms",
-                sourceConnectionId, data.length, successCount, failureCount, (endTime - startTime));
+                sourceConnectionId, frame.getOriginal().length, successCount, failureCount, (endTime - startTime));
     }
     
     /**
      * 异步转发数据到移动站
-     * 提高并发性能，适用于大量移动站
+     * 提高并发性能，适用于大量移动站。写入任务提交到移动站通道的事件循环，
+     * 同一移动站的历元中间 write 和历元结束 writeAndFlush/flush 按接收顺序在同一线程执行，
+     * 刷新不会越过之前的写入
      */
-    private void relayAsynchronously(byte[] data, Collection<Channel> channels, 
+    private void relayAsynchronously(RelayFrame frame, Channel[] channels,
                                     String sourceConnectionId, RelayStatistics statistics) {
         AtomicLong successCount = new AtomicLong(0);
         AtomicLong failureCount = new AtomicLong(0);
@@ -332,54 +377,62 @@ public class DataRelayService {
         long startTime = System.currentTimeMillis();
         
         // 创建异步任务
-        @SuppressWarnings("unchecked")
-        CompletableFuture<Void>[] futures = channels.stream()
-                .map(channel -> CompletableFuture.runAsync(() -> {
-                    try {
-                        if (channel.isActive() && channel.isWritable()) {
-                            // 异步发送数据
-                            ChannelFuture future = channel.writeAndFlush(Unpooled.wrappedBuffer(data));
-                            
-                            // 添加监听器处理发送结果
-                            future.addListener(channelFuture -> {
-                                if (channelFuture.isSuccess()) {
-                                    updateConnectionStats(channel, data, statistics);
-                                    successCount.incrementAndGet();
-                                    
-                                    log.debug("异步转发成功 - 目标: {}, 数据长度: {} 字节",
-                                            channel.remoteAddress(), data.length);
-                                } else {
-                                    log.warn("异步转发失败 - 目标: {}, 原因: {}",
-                                            channel.remoteAddress(), channelFuture.cause().getMessage());
-                                    synchronized (deadChannels) {
-                                        deadChannels.add(channel);
-                                    }
-                                    failureCount.incrementAndGet();
-                                    statistics.getRelayErrors().incrementAndGet();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            Channel channel = channels[i];
+            futures[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    byte[] data = selectData(channel, frame);
+                    if (data == null) {
+                        flushEpochEnd(channel, frame);
+                        return;
+                    }
+                    if (channel.isActive() && (priorityLanes || channel.isWritable())) {
+                        // 异步发送数据（拥塞通道的消息进入优先级队列）
+                        ChannelFuture future = send(channel, data, frame);
+                        
+                        // 添加监听器处理发送结果
+                        future.addListener(channelFuture -> {
+                            if (channelFuture.isSuccess()) {
+                                updateConnectionStats(channel, data, statistics);
+                                successCount.incrementAndGet();
+                                
+                                log.debug("异步转发成功 - 目标: {}, 数据长度: {} 字节",
+                                        channel.remoteAddress(), data.length);
+                            } else if (channelFuture.cause() == PriorityLaneHandler.SUPERSEDED) {
+                                statistics.getSupersededMessages().incrementAndGet();
+                            } else {
+                                log.warn("异步转发失败 - 目标: {}, 原因: {}",
+                                        channel.remoteAddress(), channelFuture.cause().getMessage());
+                                synchronized (deadChannels) {
+                                    deadChannels.add(channel);
                                 }
-                            });
-                        } else {
-                            log.warn("通道不可用，跳过转发 - 目标: {}, isActive: {}, isWritable: {}",
-                                    channel.remoteAddress(), channel.isActive(), channel.isWritable());
-                            synchronized (deadChannels) {
-                                deadChannels.add(channel);
+                                failureCount.incrementAndGet();
+                                statistics.getRelayErrors().incrementAndGet();
                             }
-                            failureCount.incrementAndGet();
-                        }
-                    } catch (Exception e) {
-                        log.error("异步转发异常 - 目标: {}, 错误: {}",
-                                channel.remoteAddress(), e.getMessage());
+                        });
+                    } else {
+                        log.warn("通道不可用，跳过转发 - 目标: {}, isActive: {}, isWritable: {}",
+                                channel.remoteAddress(), channel.isActive(), channel.isWritable());
                         synchronized (deadChannels) {
                             deadChannels.add(channel);
                         }
                         failureCount.incrementAndGet();
-                        statistics.getRelayErrors().incrementAndGet();
                     }
-                }, relayExecutor))
-                .toArray(CompletableFuture[]::new);
+                } catch (Exception e) {
+                    log.error("异步转发异常 - 目标: {}, 错误: {}",
+                            channel.remoteAddress(), e.getMessage());
+                    synchronized (deadChannels) {
+                        deadChannels.add(channel);
+                    }
+                    failureCount.incrementAndGet();
+                    statistics.getRelayErrors().incrementAndGet();
+                }
+            }, channel.eventLoop());
+        }
 
         // 等待所有异步任务完成
-        CompletableFuture.allOf(futures).whenComplete((result, throwable) -> {
+        CompletableFuture.allOf(futures).whenCompleteAsync((result, throwable) -> {
             if (throwable != null) {
                 log.error("异步转发过程中发生异常 - 源连接ID: {}", sourceConnectionId, throwable);
             }
@@ -389,8 +442,58 @@ public class DataRelayService {
             
             long endTime = System.currentTimeMillis();
             log.info("异步转发完成 - 源: {}, 数据: {}字节, 成功: {}, 失败: {}, 耗时: {}ms",
-                    sourceConnectionId, data.length, successCount.get(), failureCount.get(), (endTime - startTime));
-        });
+                    sourceConnectionId, frame.getOriginal().length, successCount.get(), failureCount.get(), (endTime - startTime));
+        }, relayExecutor);
+    }
+    
+    /**
+     * 发送帧数据；按历元批量发送时，历元中间的消息只写入不刷新
+     */
+    private ChannelFuture send(Channel channel, byte[] data, RelayFrame frame) {
+        ByteBuf buf = Unpooled.wrappedBuffer(data);
+        return holdsForEpoch(frame) ? channel.write(buf) : channel.writeAndFlush(buf);
+    }
+    
+    /**
+     * 该帧发送后是否暂不刷新（按历元批量发送且帧不是历元的最后一条MSM消息）
+     */
+    private boolean holdsForEpoch(RelayFrame frame) {
+        return epochBatching && !frame.endsEpoch();
+    }
+    
+    /**
+     * 移动站未订阅历元的最后一条消息时，仍在此处刷新该历元已写入的数据
+     */
+    private void flushEpochEnd(Channel channel, RelayFrame frame) {
+        if (epochBatching && frame.endsEpoch()) {
+            channel.flush();
+        }
+    }
+    
+    /**
+     * 未等待的写入（历元中间消息或拥塞排队消息）完成后的处理
+     */
+    private void onHeldWriteComplete(Channel channel, byte[] data, RelayStatistics statistics, Future<?> future) {
+        if (future.isSuccess()) {
+            updateConnectionStats(channel, data, statistics);
+        } else if (future.cause() == PriorityLaneHandler.SUPERSEDED) {
+            statistics.getSupersededMessages().incrementAndGet();
+        } else {
+            log.warn("同步转发失败 - 目标: {}, 原因: {}", channel.remoteAddress(), future.cause().getMessage());
+            statistics.getRelayErrors().incrementAndGet();
+            cleanupDeadChannels(Collections.singletonList(channel));
+        }
+    }
+    
+    /**
+     * 按移动站订阅选择要发送的帧数据（MSM形式、消息类型过滤和历元抽稀）
+     *
+     * @return 帧数据，移动站未订阅该帧时返回null
+     */
+    private byte[] selectData(Channel channel, RelayFrame frame) {
+        ConnectionInfo connectionInfo = channel.attr(CONNECTION_INFO_KEY).get();
+        RoverSubscription subscription = connectionInfo != null ? connectionInfo.getSubscription() : null;
+        return subscription == null ? frame.getOriginal() : subscription.select(frame);
     }
     
     /**
@@ -400,9 +503,11 @@ public class DataRelayService {
         // 更新移动站连接信息
         ConnectionInfo connectionInfo = channel.attr(CONNECTION_INFO_KEY).get();
         if (connectionInfo != null) {
-            connectionInfo.setLastActiveTime(LocalDateTime.now());
-            connectionInfo.setSentBytes(connectionInfo.getSentBytes() + data.length);
-            connectionInfo.setSentMessages(connectionInfo.getSentMessages() + 1);
+            connectionInfo.recordSent(data.length);
+            RoverSubscription subscription = connectionInfo.getSubscription();
+            if (subscription != null) {
+                subscription.recordSent(data.length);
+            }
         }
         
         // 更新全局统计
@@ -419,7 +524,7 @@ public class DataRelayService {
                 ConnectionInfo connectionInfo = deadChannel.attr(CONNECTION_INFO_KEY).get();
                 if (connectionInfo != null) {
                     log.info("清理死连接: {}", connectionInfo.getConnectionId());
-                    connectionManager.unregisterMobileStation(connectionInfo.getConnectionId());
+                    connectionManager.unregisterMobileStation(connectionInfo.getHandle());
                 } else {
                     // 强制关闭没有连接信息的通道
                     deadChannel.close();
@@ -456,6 +561,12 @@ public class DataRelayService {
     public void sendBufferedDataToNewMobileStation(Channel channel, String connectionId) {
         try {
             List<byte[]> recentData = dataBuffer.getRecentData();
+            // 基站快照在最近数据之前发送；缓冲区为空（如刚重启）时包含恢复的最后一个观测历元
+            List<byte[]> snapshot = stationSnapshotService.getJoinFrames(recentData.isEmpty());
+            if (!snapshot.isEmpty()) {
+                snapshot.addAll(recentData);
+                recentData = snapshot;
+            }
             if (recentData.isEmpty()) {
                 log.debug("无缓存数据可发送给新移动站: {}", connectionId);
                 return;
@@ -464,7 +575,11 @@ public class DataRelayService {
             int successCount = 0;
             int failureCount = 0;
             
-            for (byte[] data : recentData) {
+            for (byte[] bufferedData : recentData) {
+                byte[] data = selectData(channel, new RelayFrame(bufferedData, Rtcm3.messageType(bufferedData)));
+                if (data == null) {
+                    continue;
+                }
                 try {
                     if (channel.isActive() && channel.isWritable()) {
                         ChannelFuture future = channel.writeAndFlush(Unpooled.wrappedBuffer(data));
@@ -519,19 +634,10 @@ public class DataRelayService {
     }
     
     /**
-     * 获取基站IP地址
+     * 获取重复帧抑制统计（用于监控）
      */
-    private String getBaseStationAddress(String baseStationId) {
-        try {
-            // 从连接管理器获取基站连接信息
-            ConnectionInfo connectionInfo = connectionManager.getConnectionInfo(baseStationId);
-            if (connectionInfo != null) {
-                return connectionInfo.getRemoteAddress();
-            }
-        } catch (Exception e) {
-            log.debug("获取基站IP地址失败: {}", e.getMessage());
-        }
-        return "unknown";
+    public Map<String, Object> getDedupStatus() {
+        return duplicateFrameFilter.getStatus();
     }
     
     /**
@@ -548,6 +654,7 @@ public class DataRelayService {
             status.put("dataQuality", dataPersistenceService.getDataQualitySummary(7));
             status.put("relayPerformance", dataPersistenceService.getRelayPerformanceStats(24));
             status.put("baseStationStatus", dataPersistenceService.getCurrentBaseStationStatus());
+            status.put("connectionLifecycle", lifecycleRecorder.getStatus());
         } else {
             status.put("enabled", false);
             status.put("reason", "Database connection not available");
@@ -563,22 +670,6 @@ public class DataRelayService {
     public void destroy() {
         log.info("正在关闭数据转发服务...");
         
-        // 停止心跳机制
-        if (heartbeatScheduler != null) {
-            log.info("停止心跳机制");
-            heartbeatScheduler.shutdown();
-            try {
-                if (!heartbeatScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    log.warn("心跳调度器未能正常关闭，强制关闭");
-                    heartbeatScheduler.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                log.warn("等待心跳调度器关闭时被中断");
-                heartbeatScheduler.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
-        
         // 关闭转发线程池
         if (relayExecutor != null) {
             log.info("停止数据转发线程池");
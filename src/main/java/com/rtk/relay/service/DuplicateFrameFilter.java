@@ -0,0 +1,261 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.rtcm.Rtcm3;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 重复帧抑制器
+ * 同一基站通过多条上行链路（如光纤和4G）同时接入时，相同的RTCM帧会到达多次，只转发最先到达的一份。
+ * 帧以（基站ID、消息类型、历元、CRC24）为键记录在固定大小的开放寻址哈希表中，超过时间窗口的记录视为空槽，
+ * 查找和插入都不产生对象分配。重复帧与首帧的到达时间差按链路统计，用于判断哪条链路更快。
+ * 只抑制其他链路送来的重复帧；同一链路在时间窗口内重发相同的帧（如周期性的1005/1033/星历）照常转发。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class DuplicateFrameFilter {
+
+    /**
+     * 每次查找最多探测的槽位数
+     */
+    private static final int MAX_PROBES = 16;
+
+    /**
+     * 消息体起始位
+     */
+    private static final int PAYLOAD_BIT = Rtcm3.HEADER_LENGTH * 8;
+
+    /**
+     * 是否启用
+     */
+    private final boolean enabled;
+
+    /**
+     * 记录保留时间（纳秒）
+     */
+    private final long windowNanos;
+
+    /**
+     * 槽位掩码（表大小为2的幂）
+     */
+    private final int mask;
+
+    /**
+     * 键高位：消息类型(12) + 基站ID(12) + 历元(30)
+     */
+    private final long[] keyHigh;
+
+    /**
+     * 键低位：帧长度(10) + CRC24(24)
+     */
+    private final long[] keyLow;
+
+    /**
+     * 首帧到达时间，0表示空槽
+     */
+    private final long[] arrivalNanos;
+
+    /**
+     * 首帧来源连接ID
+     */
+    private final String[] firstSource;
+
+    /**
+     * 被抑制的重复帧总数
+     */
+    private final AtomicLong suppressedFrames = new AtomicLong();
+
+    /**
+     * 各基站连接的链路统计
+     */
+    private final ConcurrentHashMap<String, LinkStats> linkStats = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param rtkProperties RTK配置
+     */
+    public DuplicateFrameFilter(RtkProperties rtkProperties) {
+        RtkProperties.DedupConfig config = rtkProperties.getDedup();
+        this.enabled = config.isEnabled();
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(config.getWindowMs());
+
+        int size = Integer.highestOneBit(Math.max(config.getTableSize(), MAX_PROBES) - 1) << 1;
+        this.mask = size - 1;
+        int allocated = enabled ? size : 0;
+        this.keyHigh = new long[allocated];
+        this.keyLow = new long[allocated];
+        this.arrivalNanos = new long[allocated];
+        this.firstSource = new String[allocated];
+
+        if (enabled) {
+            log.info("重复帧抑制已启用 - 哈希表大小: {}, 时间窗口: {}ms", size, config.getWindowMs());
+        }
+    }
+
+    /**
+     * 是否启用
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 判断帧是否为首次到达，其他链路已送达过的重复帧返回false
+     * 非RTCM数据不参与去重，始终返回true；同一链路的重发刷新记录后返回true
+     *
+     * @param frame 帧数据
+     * @param messageType 消息编号
+     * @param sourceConnectionId 来源基站连接ID
+     * @return 是否为首次到达
+     */
+    public boolean firstArrival(byte[] frame, int messageType, String sourceConnectionId) {
+        if (!enabled || messageType < 0) {
+            return true;
+        }
+
+        int stationId = Rtcm3.getBitU(frame, PAYLOAD_BIT + 12, 12);
+        int epoch = Rtcm3.isMsm(messageType) ? Rtcm3.msmEpochTime(frame) : 0;
+        int crcOffset = frame.length - Rtcm3.CRC_LENGTH;
+        int crc = ((frame[crcOffset] & 0xFF) << 16) | ((frame[crcOffset + 1] & 0xFF) << 8) | (frame[crcOffset + 2] & 0xFF);
+
+        long high = ((long) messageType << 42) | ((long) stationId << 30) | epoch;
+        long low = ((long) Rtcm3.payloadLength(frame) << 24) | crc;
+
+        long now = System.nanoTime();
+        int slot = hash(high, low) & mask;
+        int freeSlot = -1;
+        int oldestSlot = slot;
+        boolean repeated = false;
+
+        synchronized (this) {
+            for (int i = 0; i < MAX_PROBES; i++) {
+                int index = (slot + i) & mask;
+                long arrival = arrivalNanos[index];
+                boolean live = arrival != 0 && now - arrival <= windowNanos;
+
+                if (live && keyHigh[index] == high && keyLow[index] == low) {
+                    if (sourceConnectionId.equals(firstSource[index])) {
+                        // 同一链路的重发（非MSM消息没有历元，基站周期性重发的坐标、星历键相同），刷新记录并照常转发
+                        arrivalNanos[index] = now;
+                        repeated = true;
+                        break;
+                    }
+                    // 其他链路送来的重复帧
+                    suppressedFrames.incrementAndGet();
+                    stats(sourceConnectionId).recordLag(now - arrival);
+                    return false;
+                }
+
+                if (!live && freeSlot < 0) {
+                    freeSlot = index;
+                } else if (live && arrival < arrivalNanos[oldestSlot]) {
+                    oldestSlot = index;
+                }
+            }
+
+            // 首次到达：写入空槽，探测范围内没有空槽时覆盖最旧的记录
+            if (!repeated) {
+                int target = freeSlot >= 0 ? freeSlot : oldestSlot;
+                keyHigh[target] = high;
+                keyLow[target] = low;
+                arrivalNanos[target] = now;
+                firstSource[target] = sourceConnectionId;
+            }
+        }
+
+        stats(sourceConnectionId).firstArrivals.increment();
+        return true;
+    }
+
+    /**
+     * 基站连接断开时清理链路统计
+     *
+     * @param connectionId 基站连接ID
+     */
+    public void onStationDisconnected(String connectionId) {
+        linkStats.remove(connectionId);
+    }
+
+    /**
+     * 获取去重统计（用于监控）
+     *
+     * @return 去重统计
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("tableSize", arrivalNanos.length);
+        status.put("suppressedFrames", suppressedFrames.get());
+
+        List<Map<String, Object>> links = new ArrayList<>();
+        for (Map.Entry<String, LinkStats> entry : linkStats.entrySet()) {
+            LinkStats stats = entry.getValue();
+            long duplicates = stats.duplicates.sum();
+            Map<String, Object> link = new LinkedHashMap<>();
+            link.put("connectionId", entry.getKey());
+            link.put("firstArrivals", stats.firstArrivals.sum());
+            link.put("duplicates", duplicates);
+            link.put("avgLagMs", duplicates > 0 ? stats.totalLagNanos.sum() / duplicates / 1_000_000.0 : 0.0);
+            link.put("maxLagMs", stats.maxLagNanos.get() / 1_000_000.0);
+            links.add(link);
+        }
+        status.put("links", links);
+        return status;
+    }
+
+    private LinkStats stats(String connectionId) {
+        return linkStats.computeIfAbsent(connectionId, id -> new LinkStats());
+    }
+
+    private static int hash(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L ^ low * 0xC2B2AE3D27D4EB4FL;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 单条链路的到达统计
+     */
+    private static class LinkStats {
+        /**
+         * 本链路最先送达的帧数
+         */
+        private final LongAdder firstArrivals = new LongAdder();
+
+        /**
+         * 本链路晚于其他链路送达（被抑制）的帧数
+         */
+        private final LongAdder duplicates = new LongAdder();
+
+        /**
+         * 落后时间累计（纳秒）
+         */
+        private final LongAdder totalLagNanos = new LongAdder();
+
+        /**
+         * 最大落后时间（纳秒）
+         */
+        private final AtomicLong maxLagNanos = new AtomicLong();
+
+        void recordLag(long lagNanos) {
+            duplicates.increment();
+            totalLagNanos.add(lagNanos);
+            maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+        }
+    }
+}
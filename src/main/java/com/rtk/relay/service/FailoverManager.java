@@ -0,0 +1,350 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基站热备切换管理器
+ * 按挂载点维护主/备基站组，只有组内当前生效的基站数据会被转发给移动站。
+ * 生效基站静默超过阈值时切换到备用基站，主基站恢复并稳定一段时间后再切回，
+ * 移动站连接保持不变，无需重连。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class FailoverManager {
+
+    /**
+     * 热备配置
+     */
+    private final RtkProperties.FailoverConfig config;
+
+    /**
+     * 基站IP地址 -> 组成员
+     */
+    private final Map<String, Member> membersByAddress = new HashMap<>();
+
+    /**
+     * 基站连接ID -> 组成员（只包含属于热备组的基站连接）
+     */
+    private final ConcurrentHashMap<String, Member> membersByConnection = new ConcurrentHashMap<>();
+
+    /**
+     * 所有热备组
+     */
+    private final List<Group> groups = new ArrayList<>();
+
+    /**
+     * 静默检测时间轮
+     */
+    private Timer timer;
+
+    /**
+     * 构造函数
+     *
+     * @param rtkProperties RTK配置
+     */
+    public FailoverManager(RtkProperties rtkProperties) {
+        this.config = rtkProperties.getFailover();
+    }
+
+    /**
+     * 初始化热备组并启动静默检测
+     */
+    @PostConstruct
+    public void init() {
+        if (!config.isEnabled() || config.getGroups().isEmpty()) {
+            log.info("基站热备切换未启用");
+            return;
+        }
+
+        for (RtkProperties.FailoverGroupConfig groupConfig : config.getGroups()) {
+            List<String> addresses = new ArrayList<>();
+            addresses.add(groupConfig.getPrimary());
+            addresses.addAll(groupConfig.getBackups());
+
+            Group group = new Group(groupConfig.getMountpoint(), addresses.size());
+            for (int i = 0; i < addresses.size(); i++) {
+                Member member = new Member(group, i, addresses.get(i));
+                if (membersByAddress.putIfAbsent(member.address, member) != null) {
+                    log.warn("基站 {} 已属于其他热备组，忽略其在挂载点 {} 中的配置", member.address, group.mountpoint);
+                }
+                group.members[i] = member;
+            }
+            groups.add(group);
+        }
+
+        timer = new HashedWheelTimer(r -> {
+            Thread thread = new Thread(r);
+            thread.setName("rtk-failover");
+            thread.setDaemon(true);
+            return thread;
+        }, config.getTickMs(), TimeUnit.MILLISECONDS);
+
+        for (Group group : groups) {
+            schedule(group, TimeUnit.MILLISECONDS.toNanos(config.getGapThresholdMs()));
+        }
+
+        log.info("基站热备切换已启用 - 热备组: {}, 静默阈值: {}ms, 切回保持: {}ms, 时间轮刻度: {}ms",
+                groups.size(), config.getGapThresholdMs(), config.getSwitchBackHoldMs(), config.getTickMs());
+    }
+
+    /**
+     * 基站连接建立
+     *
+     * @param connectionId 基站连接ID
+     * @param remoteAddress 基站IP地址
+     */
+    public void onStationConnected(String connectionId, String remoteAddress) {
+        Member member = membersByAddress.get(remoteAddress);
+        if (member == null) {
+            return;
+        }
+        membersByConnection.put(connectionId, member);
+        member.connections.incrementAndGet();
+        log.info("热备组基站上线 - 挂载点: {}, 基站: {}, 角色: {}",
+                member.group.mountpoint, remoteAddress, member.role());
+    }
+
+    /**
+     * 基站连接断开，如果断开的是当前生效基站则立即尝试切换
+     *
+     * @param connectionId 基站连接ID
+     */
+    public void onStationDisconnected(String connectionId) {
+        Member member = membersByConnection.remove(connectionId);
+        if (member == null) {
+            return;
+        }
+        if (member.connections.decrementAndGet() <= 0) {
+            member.connections.set(0);
+            log.warn("热备组基站离线 - 挂载点: {}, 基站: {}, 角色: {}",
+                    member.group.mountpoint, member.address, member.role());
+            if (member.group.activeIndex == member.index) {
+                evaluate(member.group);
+            }
+        }
+    }
+
+    /**
+     * 记录基站数据到达，并判断该数据是否应当转发
+     * 不属于任何热备组的基站始终转发
+     *
+     * @param connectionId 基站连接ID
+     * @return 是否转发
+     */
+    public boolean acceptData(String connectionId) {
+        if (membersByConnection.isEmpty()) {
+            return true;
+        }
+        return acceptData(connectionId, System.nanoTime());
+    }
+
+    boolean acceptData(String connectionId, long now) {
+        Member member = membersByConnection.get(connectionId);
+        if (member == null) {
+            return true;
+        }
+
+        if (member.lastDataNanos == 0 || now - member.lastDataNanos > gapNanos()) {
+            // 出现过静默，重新计算连续稳定时间
+            member.streakStartNanos = now;
+        }
+        member.lastDataNanos = now;
+
+        return member.group.activeIndex == member.index;
+    }
+
+    /**
+     * 获取基站所属热备组的挂载点
+     *
+     * @param remoteAddress 基站IP地址
+     * @return 挂载点名称，不属于任何热备组时返回null
+     */
+    public String mountpointOf(String remoteAddress) {
+        Member member = membersByAddress.get(remoteAddress);
+        return member == null ? null : member.group.mountpoint;
+    }
+
+    /**
+     * 获取热备组状态（用于监控）
+     *
+     * @return 热备组状态列表
+     */
+    public List<Map<String, Object>> getGroupStatus() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        long now = System.nanoTime();
+        for (Group group : groups) {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("mountpoint", group.mountpoint);
+            status.put("activeStation", group.members[group.activeIndex].address);
+            status.put("switchCount", group.switchCount.get());
+
+            List<Map<String, Object>> members = new ArrayList<>();
+            for (Member member : group.members) {
+                Map<String, Object> memberStatus = new LinkedHashMap<>();
+                memberStatus.put("address", member.address);
+                memberStatus.put("role", member.role());
+                memberStatus.put("active", group.activeIndex == member.index);
+                memberStatus.put("connected", member.connections.get() > 0);
+                memberStatus.put("lastDataAgeMs", member.lastDataNanos == 0 ? null
+                        : TimeUnit.NANOSECONDS.toMillis(now - member.lastDataNanos));
+                members.add(memberStatus);
+            }
+            status.put("members", members);
+            result.add(status);
+        }
+        return result;
+    }
+
+    /**
+     * 检查组内生效基站，必要时切换到备用基站或切回高优先级基站
+     */
+    private void evaluate(Group group) {
+        evaluate(group, System.nanoTime());
+    }
+
+    /**
+     * 按指定时间检查所有热备组
+     *
+     * @param now 当前时间（System.nanoTime）
+     */
+    void evaluateAll(long now) {
+        for (Group group : groups) {
+            evaluate(group, now);
+        }
+    }
+
+    private void evaluate(Group group, long now) {
+        synchronized (group) {
+            long gapNanos = gapNanos();
+            long holdNanos = TimeUnit.MILLISECONDS.toNanos(config.getSwitchBackHoldMs());
+            Member active = group.members[group.activeIndex];
+
+            if (!active.isHealthy(now, gapNanos)) {
+                // 生效基站静默：切换到优先级最高的健康基站
+                for (Member candidate : group.members) {
+                    if (candidate != active && candidate.isHealthy(now, gapNanos)) {
+                        switchTo(group, candidate, "生效基站静默");
+                        break;
+                    }
+                }
+            } else {
+                // 生效基站正常：检查是否有更高优先级的基站已稳定足够长时间
+                for (int i = 0; i < group.activeIndex; i++) {
+                    Member candidate = group.members[i];
+                    if (candidate.isHealthy(now, gapNanos) && now - candidate.streakStartNanos >= holdNanos) {
+                        switchTo(group, candidate, "高优先级基站已恢复稳定");
+                        break;
+                    }
+                }
+            }
+
+            // 下次检查时间：生效基站的静默截止点；运行在备用基站上时还需定期检查切回条件
+            Member current = group.members[group.activeIndex];
+            long delay = current.isHealthy(now, gapNanos) ? current.lastDataNanos + gapNanos - now : gapNanos;
+            if (group.activeIndex != 0) {
+                delay = Math.min(delay, Math.max(holdNanos / 4, gapNanos / 2));
+            }
+            schedule(group, delay);
+        }
+    }
+
+    /**
+     * 切换组内生效基站
+     */
+    private void switchTo(Group group, Member target, String reason) {
+        Member previous = group.members[group.activeIndex];
+        group.activeIndex = target.index;
+        group.switchCount.incrementAndGet();
+        log.warn("热备切换 - 挂载点: {}, {} ({}) -> {} ({}), 原因: {}",
+                group.mountpoint, previous.address, previous.role(), target.address, target.role(), reason);
+    }
+
+    /**
+     * 在时间轮上安排下一次检查
+     */
+    private void schedule(Group group, long delayNanos) {
+        if (timer == null) {
+            return;
+        }
+        if (group.timeout != null) {
+            group.timeout.cancel();
+        }
+        long minDelay = TimeUnit.MILLISECONDS.toNanos(config.getTickMs());
+        group.timeout = timer.newTimeout(t -> evaluate(group), Math.max(delayNanos, minDelay), TimeUnit.NANOSECONDS);
+    }
+
+    private long gapNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(config.getGapThresholdMs());
+    }
+
+    /**
+     * 停止静默检测
+     */
+    @PreDestroy
+    public void destroy() {
+        if (timer != null) {
+            timer.stop();
+        }
+    }
+
+    /**
+     * 热备组
+     */
+    private static class Group {
+        private final String mountpoint;
+        private final Member[] members;
+        private final AtomicInteger switchCount = new AtomicInteger();
+        private volatile int activeIndex = 0;
+        private Timeout timeout;
+
+        Group(String mountpoint, int size) {
+            this.mountpoint = mountpoint;
+            this.members = new Member[size];
+        }
+    }
+
+    /**
+     * 热备组成员（基站）
+     */
+    private static class Member {
+        private final Group group;
+        private final int index;
+        private final String address;
+        private final AtomicInteger connections = new AtomicInteger();
+        private volatile long lastDataNanos;
+        private volatile long streakStartNanos;
+
+        Member(Group group, int index, String address) {
+            this.group = group;
+            this.index = index;
+            this.address = address;
+        }
+
+        boolean isHealthy(long now, long gapNanos) {
+            return connections.get() > 0 && lastDataNanos != 0 && now - lastDataNanos <= gapNanos;
+        }
+
+        String role() {
+            return index == 0 ? "PRIMARY" : "BACKUP-" + index;
+        }
+    }
+}
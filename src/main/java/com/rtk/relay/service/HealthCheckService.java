@@ -1,12 +1,26 @@
 package com.rtk.relay.service;
 
+import com.rtk.relay.config.RtkDataBuffer;
 import com.rtk.relay.entity.RelayStatistics;
+import com.rtk.relay.netty.LeakReportCounter;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocatorMetric;
+import io.netty.util.internal.PlatformDependent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * 健康检查服务
@@ -34,19 +48,35 @@ public class HealthCheckService {
      */
     private final TcpServerService tcpServerService;
     
+    /**
+     * 数据缓冲区
+     */
+    private final RtkDataBuffer dataBuffer;
+    
+    /**
+     * 数据持久化服务
+     */
+    private final DataPersistenceService dataPersistenceService;
+    
     /**
      * 构造函数
      * 
      * @param connectionManager 连接管理器
      * @param dataRelayService 数据转发服务
      * @param tcpServerService TCP服务器服务
+     * @param dataBuffer 数据缓冲区
+     * @param dataPersistenceService 数据持久化服务
      */
     public HealthCheckService(ConnectionManager connectionManager, 
                             DataRelayService dataRelayService,
-                            TcpServerService tcpServerService) {
+                            TcpServerService tcpServerService,
+                            RtkDataBuffer dataBuffer,
+                            DataPersistenceService dataPersistenceService) {
         this.connectionManager = connectionManager;
         this.dataRelayService = dataRelayService;
         this.tcpServerService = tcpServerService;
+        this.dataBuffer = dataBuffer;
+        this.dataPersistenceService = dataPersistenceService;
     }
     
     /**
@@ -123,4 +153,61 @@ public class HealthCheckService {
             log.error("生成统计报告失败", e);
         }
     }
+
+    /**
+     * 获取进程资源使用情况（用于长时间运行测试判断内存、线程、文件句柄是否持续增长）
+     * 
+     * @return 堆内存（含最近一次GC后的存活量）、直接内存、Netty池化内存、线程数、文件句柄数、
+     *         ByteBuf泄漏报告次数、数据缓冲区和每日消息计数缓存的大小
+     */
+    public Map<String, Object> getRuntimeStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("uptimeMs", ManagementFactory.getRuntimeMXBean().getUptime());
+        
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long heapAfterGc = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage collected = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && collected != null) {
+                heapAfterGc += collected.getUsed();
+            }
+        }
+        status.put("heapUsed", heap.getUsed());
+        status.put("heapCommitted", heap.getCommitted());
+        status.put("heapMax", heap.getMax());
+        status.put("heapAfterGc", heapAfterGc);
+        
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                status.put("directMemoryUsed", pool.getMemoryUsed());
+                status.put("directBufferCount", pool.getCount());
+            }
+        }
+        // Netty自行统计的直接内存，未启用计数时（如JDK 9+默认配置）为-1，不输出
+        long nettyDirect = PlatformDependent.usedDirectMemory();
+        if (nettyDirect >= 0) {
+            status.put("nettyDirectMemoryUsed", nettyDirect);
+        }
+        PooledByteBufAllocatorMetric pooled = PooledByteBufAllocator.DEFAULT.metric();
+        status.put("pooledDirectMemoryUsed", pooled.usedDirectMemory());
+        status.put("pooledHeapMemoryUsed", pooled.usedHeapMemory());
+        status.put("leakReports", LeakReportCounter.getLeakReports());
+        
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        status.put("threadCount", threads.getThreadCount());
+        status.put("peakThreadCount", threads.getPeakThreadCount());
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.UnixOperatingSystemMXBean) {
+            com.sun.management.UnixOperatingSystemMXBean unix = (com.sun.management.UnixOperatingSystemMXBean) os;
+            status.put("openFileDescriptors", unix.getOpenFileDescriptorCount());
+            status.put("maxFileDescriptors", unix.getMaxFileDescriptorCount());
+        }
+        
+        status.put("dataBufferEntries", dataBuffer.getBufferSize());
+        status.put("dataBufferBytes", dataBuffer.getMemoryUsage());
+        status.put("dailyMessageCountEntries", dataPersistenceService.getDailyMessageCountSize());
+        status.put("baseStationConnections", dataRelayService.getActiveBaseStationCount());
+        status.put("mobileStationConnections", dataRelayService.getActiveMobileStationCount());
+        return status;
+    }
 }
@@ -0,0 +1,247 @@
+package com.rtk.relay.service;
+
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 归档回放游标
+ * 按时间顺序遍历一个基站在时间窗口内的归档帧：首个分段按时间索引定位起点，记录头从只读映射中读取，
+ * 帧数据通过 {@link #region()} 以文件区域的形式交给Netty发送（NIO传输下为sendfile，不经过用户态复制）。
+ * 文件通道在游标关闭时统一关闭，关闭前须等待已提交的文件区域发送完成或连接断开。
+ * <p>
+ * 非线程安全，由一个回放会话独占使用。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public final class JournalCursor implements Closeable {
+
+    /**
+     * HTTP下载时的复制缓冲区大小
+     */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final List<Span> spans;
+    private final long fromNanos;
+    private final long toNanos;
+    private final List<FileChannel> channels = new ArrayList<>();
+    private int nextSpan;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private ByteBuffer view;
+    private long timestampNanos;
+    private int frameOffset;
+    private int frameLength;
+    private boolean finished;
+
+    /**
+     * 构造函数
+     *
+     * @param spans 按时间排序的分段
+     * @param fromMillis 窗口起点（含，Unix毫秒）
+     * @param toMillis 窗口终点（不含，Unix毫秒）
+     */
+    JournalCursor(List<Span> spans, long fromMillis, long toMillis) {
+        this.spans = spans;
+        // 限制在纳秒时间戳可表示的范围内，避免换算溢出
+        this.fromNanos = Math.min(Math.max(fromMillis, 0), RtcmJournal.MAX_TIME_MILLIS) * 1_000_000L;
+        this.toNanos = Math.min(Math.max(toMillis, 0), RtcmJournal.MAX_TIME_MILLIS) * 1_000_000L;
+    }
+
+    /**
+     * 移动到窗口内的下一帧
+     *
+     * @return 没有更多帧时返回false
+     * @throws IOException 分段文件无法读取
+     */
+    public boolean next() throws IOException {
+        while (!finished) {
+            if (buffer == null && !openNextSpan()) {
+                finished = true;
+                break;
+            }
+            int position = buffer.position();
+            if (buffer.remaining() < RtcmJournal.RECORD_HEADER_LENGTH || buffer.getLong(position) == 0) {
+                closeSpan();
+                continue;
+            }
+            long timestamp = buffer.getLong(position);
+            int length = buffer.getShort(position + 12) & 0xFFFF;
+            if (buffer.remaining() < RtcmJournal.RECORD_HEADER_LENGTH + length) {
+                closeSpan();
+                continue;
+            }
+            buffer.position(position + RtcmJournal.RECORD_HEADER_LENGTH + length);
+            if (timestamp < fromNanos) {
+                continue;
+            }
+            if (timestamp >= toNanos) {
+                finished = true;
+                break;
+            }
+            timestampNanos = timestamp;
+            frameOffset = position + RtcmJournal.RECORD_HEADER_LENGTH;
+            frameLength = length;
+            return true;
+        }
+        closeSpan();
+        return false;
+    }
+
+    /**
+     * 当前帧的到达时间
+     *
+     * @return Unix纪元纳秒
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    /**
+     * 当前帧的文件区域（不持有文件通道，释放时不关闭文件）
+     *
+     * @return 文件区域
+     */
+    public FileRegion region() {
+        return new SharedFileRegion(channel, frameOffset, frameLength);
+    }
+
+    /**
+     * 复制当前帧数据
+     *
+     * @param target 目标数组
+     * @param offset 目标偏移
+     */
+    public void copyFrame(byte[] target, int offset) {
+        view.position(frameOffset);
+        view.get(target, offset, frameLength);
+    }
+
+    /**
+     * 将剩余的帧依次写入输出流（HTTP下载，经过一次缓冲区复制）
+     *
+     * @param out 输出流
+     * @return 写入的字节数
+     * @throws IOException 读取或写入失败
+     */
+    public long writeTo(OutputStream out) throws IOException {
+        byte[] chunk = new byte[COPY_BUFFER_SIZE];
+        int length = 0;
+        long total = 0;
+        while (next()) {
+            if (length + frameLength > chunk.length) {
+                out.write(chunk, 0, length);
+                length = 0;
+            }
+            copyFrame(chunk, length);
+            length += frameLength;
+            total += frameLength;
+        }
+        out.write(chunk, 0, length);
+        return total;
+    }
+
+    @Override
+    public void close() {
+        finished = true;
+        closeSpan();
+        for (FileChannel opened : channels) {
+            try {
+                opened.close();
+            } catch (IOException ignored) {
+                // 只读通道，关闭失败无影响
+            }
+        }
+        channels.clear();
+    }
+
+    private boolean openNextSpan() throws IOException {
+        while (nextSpan < spans.size()) {
+            Span span = spans.get(nextSpan++);
+            FileChannel opened;
+            try {
+                opened = FileChannel.open(span.path, StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                // 已按磁盘预算删除
+                continue;
+            }
+            channels.add(opened);
+            long limit = Math.min(span.limit, opened.size());
+            if (limit < RtcmJournal.HEADER_LENGTH) {
+                continue;
+            }
+            MappedByteBuffer mapped = opened.map(FileChannel.MapMode.READ_ONLY, 0, limit);
+            if (mapped.getInt(0) != RtcmJournal.MAGIC) {
+                PlatformDependent.freeDirectBuffer(mapped);
+                continue;
+            }
+            int start = span.index == null ? -1 : span.index.floorOffset(fromNanos / 1_000_000_000L);
+            mapped.position(Math.max(RtcmJournal.HEADER_LENGTH, start));
+            channel = opened;
+            buffer = mapped;
+            view = mapped.duplicate();
+            return true;
+        }
+        return false;
+    }
+
+    private void closeSpan() {
+        if (buffer != null) {
+            PlatformDependent.freeDirectBuffer(buffer);
+            buffer = null;
+            view = null;
+        }
+    }
+
+    /**
+     * 回放范围内的一个分段
+     */
+    static final class Span {
+        private final Path path;
+        private final long limit;
+        private final JournalIndex index;
+
+        /**
+         * @param path 分段文件
+         * @param limit 可读取的长度（正在写入的分段为已提交长度）
+         * @param index 时间索引，没有时为null
+         */
+        Span(Path path, long limit, JournalIndex index) {
+            this.path = path;
+            this.limit = limit;
+            this.index = index;
+        }
+    }
+
+    /**
+     * 共享文件通道的文件区域：同一分段的各帧共用游标打开的通道，释放时不关闭通道
+     */
+    private static final class SharedFileRegion extends DefaultFileRegion {
+
+        SharedFileRegion(FileChannel file, long position, long count) {
+            super(file, position, count);
+        }
+
+        @Override
+        protected void deallocate() {
+            // 文件通道由游标关闭
+        }
+    }
+}
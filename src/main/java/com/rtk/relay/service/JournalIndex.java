@@ -0,0 +1,144 @@
+package com.rtk.relay.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * 归档分段的稀疏时间索引
+ * 每秒一项：该秒第一条记录在分段文件中的偏移，回放时据此定位起点，无需从分段开头逐条扫描。
+ * 写线程在追加记录时维护正在写入分段的索引，分段关闭时写入同名的 .idx 文件；
+ * 文件格式为连续的索引项（大端）：秒（Unix纪元秒，i64）、偏移（i32）。
+ * <p>
+ * 正在写入分段的索引由写线程追加、回放线程读取，方法均加锁（每秒只追加一次）。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public final class JournalIndex {
+
+    /**
+     * 索引项长度
+     */
+    public static final int ENTRY_LENGTH = 12;
+
+    private long[] seconds = new long[64];
+    private int[] offsets = new int[64];
+    private int size;
+
+    /**
+     * 追加一项，秒数不大于最后一项时忽略
+     *
+     * @param second Unix纪元秒
+     * @param offset 该秒第一条记录的偏移
+     */
+    public synchronized void add(long second, int offset) {
+        if (size > 0 && second <= seconds[size - 1]) {
+            return;
+        }
+        if (size == seconds.length) {
+            seconds = Arrays.copyOf(seconds, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        seconds[size] = second;
+        offsets[size] = offset;
+        size++;
+    }
+
+    /**
+     * 查找回放起点：不晚于指定秒的最后一项的偏移
+     *
+     * @param second Unix纪元秒
+     * @return 偏移，指定秒早于第一项时返回-1（从分段开头读取）
+     */
+    public synchronized int floorOffset(long second) {
+        int index = Arrays.binarySearch(seconds, 0, size, second);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return index < 0 ? -1 : offsets[index];
+    }
+
+    /**
+     * 索引项数量
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 第一项的秒数
+     *
+     * @return Unix纪元秒，索引为空时返回-1
+     */
+    public synchronized long firstSecond() {
+        return size == 0 ? -1 : seconds[0];
+    }
+
+    /**
+     * 最后一项的秒数
+     *
+     * @return Unix纪元秒，索引为空时返回-1
+     */
+    public synchronized long lastSecond() {
+        return size == 0 ? -1 : seconds[size - 1];
+    }
+
+    /**
+     * 写入索引文件（先写临时文件再替换，读取方不会看到写了一半的索引）
+     *
+     * @param path 索引文件
+     * @throws IOException 写入失败
+     */
+    public synchronized void write(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            for (int i = 0; i < size; i++) {
+                out.writeLong(seconds[i]);
+                out.writeInt(offsets[i]);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 读取索引文件
+     *
+     * @param path 索引文件
+     * @return 索引
+     * @throws IOException 读取失败
+     */
+    public static JournalIndex read(Path path) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        JournalIndex index = new JournalIndex();
+        while (data.remaining() >= ENTRY_LENGTH) {
+            index.add(data.getLong(), data.getInt());
+        }
+        return index;
+    }
+
+    /**
+     * 扫描分段文件建立索引（进程异常退出时未写索引的分段）
+     *
+     * @param segment 分段文件
+     * @return 索引
+     * @throws IOException 读取失败
+     */
+    public static JournalIndex build(Path segment) throws IOException {
+        JournalIndex index = new JournalIndex();
+        try (RtcmJournal.SegmentReader reader = RtcmJournal.SegmentReader.open(segment)) {
+            while (reader.next()) {
+                index.add(reader.getTimestampNanos() / 1_000_000_000L,
+                        reader.getFrameOffset() - RtcmJournal.RECORD_HEADER_LENGTH);
+            }
+        }
+        return index;
+    }
+}
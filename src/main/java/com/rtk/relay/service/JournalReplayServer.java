@@ -0,0 +1,316 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.exception.RtkRelayException;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 归档回放服务（TCP）
+ * 客户端连接回放端口后发送一行请求：{@code <基站IP> <起点> <终点> [速率]}，时间为Unix毫秒或ISO-8601时刻，
+ * 速率缺省或为 {@code raw} 时尽快发送，为正数时按原始到达间隔除以速率发送（1为实时）。
+ * 服务器随后发送窗口内的原始RTCM 3数据流，发送完毕后关闭连接；请求无效时回复一行 {@code ERROR 原因} 并关闭。
+ * <p>
+ * 帧数据以文件区域（sendfile）从归档分段直接发送，不经过JVM堆；按通道可写状态推进，慢速客户端不会堆积内存。
+ * 回放使用独立的事件循环，打开分段等文件操作不影响基站和移动站的转发。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class JournalReplayServer {
+
+    /**
+     * 请求行最大长度
+     */
+    private static final int MAX_REQUEST_LENGTH = 256;
+
+    /**
+     * 等待请求行的超时时间
+     */
+    private static final long REQUEST_TIMEOUT_SECONDS = 10;
+
+    /**
+     * 每轮最多提交的帧数，之后让出事件循环
+     */
+    private static final int FRAMES_PER_TURN = 1024;
+
+    private final RtkProperties.JournalConfig config;
+    private final RtcmJournal rtcmJournal;
+
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final AtomicLong completedSessions = new AtomicLong();
+    private final AtomicLong rejectedSessions = new AtomicLong();
+    private final AtomicLong sentFrames = new AtomicLong();
+    private final AtomicLong sentBytes = new AtomicLong();
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+
+    /**
+     * 构造函数
+     *
+     * @param rtkProperties RTK配置
+     * @param rtcmJournal RTCM原始数据归档
+     */
+    public JournalReplayServer(RtkProperties rtkProperties, RtcmJournal rtcmJournal) {
+        this.config = rtkProperties.getJournal();
+        this.rtcmJournal = rtcmJournal;
+    }
+
+    /**
+     * 启动回放端口（归档启用且端口不为0时）
+     */
+    @PostConstruct
+    public void init() {
+        if (!rtcmJournal.isEnabled() || config.getReplayPort() <= 0) {
+            log.info("归档回放服务未启用");
+            return;
+        }
+        group = new NioEventLoopGroup(1, r -> {
+            Thread thread = new Thread(r);
+            thread.setName("rtk-journal-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            serverChannel = new ServerBootstrap()
+                    .group(group)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline().addLast(new LineBasedFrameDecoder(MAX_REQUEST_LENGTH), new ReplaySession());
+                        }
+                    })
+                    .bind(config.getReplayPort()).sync().channel();
+        } catch (Exception e) {
+            group.shutdownGracefully();
+            throw new RtkRelayException("JOURNAL_REPLAY_START_FAILED", "归档回放服务启动失败", e);
+        }
+        log.info("归档回放服务已启用 - 端口: {}, 最大会话数: {}", config.getReplayPort(), config.getMaxReplaySessions());
+    }
+
+    /**
+     * 获取回放统计（用于监控）
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", serverChannel != null);
+        status.put("port", config.getReplayPort());
+        status.put("activeSessions", activeSessions.get());
+        status.put("completedSessions", completedSessions.get());
+        status.put("rejectedSessions", rejectedSessions.get());
+        status.put("sentFrames", sentFrames.get());
+        status.put("sentBytes", sentBytes.get());
+        return status;
+    }
+
+    /**
+     * 停止回放服务
+     */
+    @PreDestroy
+    public void destroy() {
+        if (serverChannel != null) {
+            serverChannel.close();
+            serverChannel = null;
+        }
+        if (group != null) {
+            group.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 一个回放连接：读取请求行后按通道可写状态推进游标
+     */
+    private final class ReplaySession extends ChannelInboundHandlerAdapter {
+
+        private JournalCursor cursor;
+        private boolean requested;
+        private boolean counted;
+        private double rate;
+        private long firstTimestamp;
+        private long startNanos;
+        private boolean pending;
+        private boolean pumping;
+        private boolean finished;
+        private ScheduledFuture<?> timer;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            timer = ctx.executor().schedule(() -> reject(ctx, "等待请求超时"),
+                    REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            ctx.fireChannelActive();
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            try {
+                if (!requested && msg instanceof ByteBuf) {
+                    requested = true;
+                    timer.cancel(false);
+                    start(ctx, ((ByteBuf) msg).toString(StandardCharsets.US_ASCII).trim());
+                }
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+            if (ctx.channel().isWritable()) {
+                pump(ctx);
+            }
+            ctx.fireChannelWritabilityChanged();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (cursor != null) {
+                cursor.close();
+            }
+            if (counted) {
+                activeSessions.decrementAndGet();
+                completedSessions.incrementAndGet();
+            }
+            ctx.fireChannelInactive();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.debug("归档回放连接异常 - 客户端: {}, 原因: {}", ctx.channel().remoteAddress(), cause.getMessage());
+            ctx.close();
+        }
+
+        private void start(ChannelHandlerContext ctx, String request) {
+            String[] parts = request.split("\\s+");
+            if (parts.length < 3 || parts.length > 4) {
+                reject(ctx, "请求格式: <基站IP> <起点> <终点> [速率]");
+                return;
+            }
+            long from;
+            long to;
+            try {
+                from = RtcmJournal.parseTime(parts[1]);
+                to = RtcmJournal.parseTime(parts[2]);
+                rate = parts.length < 4 || "raw".equalsIgnoreCase(parts[3]) ? 0 : Double.parseDouble(parts[3]);
+            } catch (IllegalArgumentException e) {
+                reject(ctx, e.getMessage());
+                return;
+            }
+            if (to <= from || rate < 0 || Double.isNaN(rate) || Double.isInfinite(rate)) {
+                reject(ctx, "时间窗口或速率无效");
+                return;
+            }
+            if (activeSessions.incrementAndGet() > config.getMaxReplaySessions()) {
+                activeSessions.decrementAndGet();
+                reject(ctx, "回放会话数已达上限");
+                return;
+            }
+            try {
+                cursor = rtcmJournal.openCursor(parts[0], from, to);
+            } catch (IOException | RuntimeException e) {
+                activeSessions.decrementAndGet();
+                reject(ctx, "打开归档失败: " + e.getMessage());
+                return;
+            }
+            counted = true;
+            // 请求之后的输入不再解析
+            ctx.pipeline().remove(LineBasedFrameDecoder.class);
+            firstTimestamp = -1;
+            log.info("归档回放开始 - 客户端: {}, 基站: {}, 窗口: {} - {}, 速率: {}", ctx.channel().remoteAddress(),
+                    parts[0], parts[1], parts[2], rate == 0 ? "raw" : rate);
+            pump(ctx);
+        }
+
+        /**
+         * 提交帧直到通道不可写、下一帧未到发送时间、本轮达到上限或窗口结束
+         */
+        private void pump(ChannelHandlerContext ctx) {
+            if (pumping || finished || cursor == null || !ctx.channel().isActive()) {
+                return;
+            }
+            pumping = true;
+            try {
+                int frames = 0;
+                while (ctx.channel().isWritable()) {
+                    if (!pending) {
+                        if (!cursor.next()) {
+                            // 文件通道在连接关闭后（已提交的文件区域发送完毕）由 channelInactive 关闭
+                            finished = true;
+                            ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+                            return;
+                        }
+                        pending = true;
+                    }
+                    if (rate > 0) {
+                        long now = System.nanoTime();
+                        if (firstTimestamp < 0) {
+                            firstTimestamp = cursor.getTimestampNanos();
+                            startNanos = now;
+                        }
+                        long due = startNanos + (long) ((cursor.getTimestampNanos() - firstTimestamp) / rate);
+                        if (due > now) {
+                            ctx.flush();
+                            ctx.executor().schedule(() -> pump(ctx), due - now, TimeUnit.NANOSECONDS);
+                            return;
+                        }
+                    }
+                    ctx.write(cursor.region(), ctx.voidPromise());
+                    sentFrames.incrementAndGet();
+                    sentBytes.addAndGet(cursor.getFrameLength());
+                    pending = false;
+                    if (++frames >= FRAMES_PER_TURN) {
+                        ctx.flush();
+                        ctx.executor().execute(() -> pump(ctx));
+                        return;
+                    }
+                }
+                // 不可写：等待 channelWritabilityChanged 继续
+                ctx.flush();
+            } catch (IOException e) {
+                log.warn("读取归档失败，回放中止 - 客户端: {}", ctx.channel().remoteAddress(), e);
+                ctx.close();
+            } finally {
+                pumping = false;
+            }
+        }
+
+        private void reject(ChannelHandlerContext ctx, String reason) {
+            rejectedSessions.incrementAndGet();
+            ctx.writeAndFlush(Unpooled.copiedBuffer("ERROR " + reason + "\r\n", StandardCharsets.UTF_8))
+                    .addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+}
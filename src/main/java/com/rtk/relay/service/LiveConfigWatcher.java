@@ -0,0 +1,198 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.LiveRelayConfig;
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.exception.RtkRelayException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 运行时参数文件监视
+ * 监视 {@code rtk.relay.live-config-file} 所在目录，文件创建、修改或被替换（先写临时文件再改名）后读取整个文件，
+ * 作为一组修改原子地应用到 {@link LiveRelayConfig}；文件中有任一参数无效时整组不生效并记录警告。
+ * 文件只需包含要覆盖的参数，未出现的参数保持当前值；与管理接口的修改以最后一次为准。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class LiveConfigWatcher {
+
+    /**
+     * 收到变更事件后等待写入完成的时间
+     */
+    private static final long SETTLE_MILLIS = 100;
+
+    private final LiveRelayConfig liveRelayConfig;
+    private final Path file;
+
+    private final AtomicLong appliedReloads = new AtomicLong();
+    private final AtomicLong rejectedReloads = new AtomicLong();
+    private volatile String lastError;
+
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * 构造函数
+     *
+     * @param rtkProperties RTK配置
+     * @param liveRelayConfig 运行时转发参数
+     */
+    public LiveConfigWatcher(RtkProperties rtkProperties, LiveRelayConfig liveRelayConfig) {
+        this.liveRelayConfig = liveRelayConfig;
+        String configured = rtkProperties.getRelay().getLiveConfigFile();
+        this.file = configured == null || configured.trim().isEmpty()
+                ? null : Paths.get(configured.trim()).toAbsolutePath();
+    }
+
+    /**
+     * 应用文件中的参数并开始监视（未配置文件时不启动）
+     */
+    @PostConstruct
+    public void init() {
+        if (file == null) {
+            log.info("运行时参数文件未配置，仅可通过管理接口调整转发参数");
+            return;
+        }
+        if (Files.exists(file)) {
+            reload();
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            watchService = FileSystems.getDefault().newWatchService();
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new RtkRelayException("LIVE_CONFIG_WATCH_FAILED", "无法监视运行时参数文件: " + file, e);
+        }
+        watcher = new Thread(this::watch, "rtk-live-config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("运行时参数文件监视已启动 - 文件: {}", file);
+    }
+
+    /**
+     * 获取监视状态（用于监控）
+     *
+     * @return 状态信息
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("file", file == null ? null : file.toString());
+        status.put("watching", watcher != null && watcher.isAlive());
+        status.put("appliedReloads", appliedReloads.get());
+        status.put("rejectedReloads", rejectedReloads.get());
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    /**
+     * 停止监视
+     */
+    @PreDestroy
+    public void destroy() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("关闭文件监视失败", e);
+            }
+        }
+    }
+
+    private void watch() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                return;
+            }
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                Object context = event.context();
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                        || (context instanceof Path && file.getFileName().equals(context))) {
+                    changed = true;
+                }
+            }
+            key.reset();
+            if (changed) {
+                try {
+                    // 编辑器保存时可能产生多个事件，等写入完成后合并为一次读取
+                    TimeUnit.MILLISECONDS.sleep(SETTLE_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                drain();
+                reload();
+            }
+        }
+    }
+
+    private void drain() {
+        WatchKey pending;
+        while ((pending = watchService.poll()) != null) {
+            pending.pollEvents();
+            pending.reset();
+        }
+    }
+
+    /**
+     * 读取整个文件并作为一组修改应用
+     */
+    void reload() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            rejected("读取失败: " + e.getMessage());
+            return;
+        }
+        Map<String, String> changes = new LinkedHashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            changes.put(name.trim(), properties.getProperty(name));
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            liveRelayConfig.update(changes, "file:" + file);
+            appliedReloads.incrementAndGet();
+            lastError = null;
+        } catch (RtkRelayException e) {
+            rejected(e.getMessage());
+        }
+    }
+
+    private void rejected(String reason) {
+        rejectedReloads.incrementAndGet();
+        lastError = reason;
+        log.warn("运行时参数文件未生效，保持当前参数 - 文件: {}, 原因: {}", file, reason);
+    }
+}
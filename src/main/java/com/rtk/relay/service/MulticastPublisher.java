@@ -0,0 +1,551 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.exception.RtkRelayException;
+import com.rtk.relay.rtcm.Rtcm3;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.InternetProtocolFamily;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UDP组播发布器
+ * 与Server2的TCP转发并行，把每个挂载点的RTCM帧发布到配置的组播组，局域网内的移动站数量不影响发送开销。
+ * 每个数据报带有挂载点流号和序号，移动站按序号发现丢包后可通过控制端口请求补发（NACK）；
+ * 刚加入的移动站可请求同步快照，获得基准站坐标、星历等低频消息的最新一份，不必等待下一次播发。
+ * 控制端口绑定在组播网卡的地址上，只响应该网段内的请求，并按来源限制每秒回复的数据报数，
+ * 防止伪造来源地址的请求把补发/快照回复放大后打向第三方。组播发送队列已满时丢弃新帧并计数，不无限堆积。
+ *
+ * <p>数据报格式（大端）：魔数"RM"(2) + 版本(1) + 标志(1，bit0补发，bit1快照) + 流号(2) + 序号(4) + RTCM帧</p>
+ * <p>控制请求格式：魔数"RM"(2) + 版本(1) + 类型(1，'N'补发，'S'同步) + 流号(2) + 起始序号(4) + 数量(2)</p>
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class MulticastPublisher {
+
+    /**
+     * 数据报魔数（"RM"）
+     */
+    public static final int MAGIC = 0x524D;
+
+    /**
+     * 协议版本
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * 数据报头长度
+     */
+    public static final int HEADER_LENGTH = 10;
+
+    /**
+     * 标志：补发的数据报
+     */
+    public static final int FLAG_RETRANSMIT = 0x01;
+
+    /**
+     * 标志：同步快照中的数据报
+     */
+    public static final int FLAG_SNAPSHOT = 0x02;
+
+    /**
+     * 请求类型：补发
+     */
+    public static final int REQUEST_NACK = 'N';
+
+    /**
+     * 请求类型：同步快照
+     */
+    public static final int REQUEST_RESYNC = 'S';
+
+    /**
+     * 控制请求长度
+     */
+    private static final int REQUEST_LENGTH = 12;
+
+    /**
+     * 单次补发请求的最大数据报数
+     */
+    private static final int MAX_NACK_COUNT = 256;
+
+    /**
+     * 回复限速跟踪的最大来源数，超出时淘汰最久未请求的来源
+     */
+    private static final int MAX_TRACKED_SENDERS = 1024;
+
+    /**
+     * 组播配置
+     */
+    private final RtkProperties.MulticastConfig config;
+
+    /**
+     * 组播流（下标即流号）
+     */
+    private final List<Stream> streams = new ArrayList<>();
+
+    /**
+     * 组播事件循环组
+     */
+    private EventLoopGroup group;
+
+    /**
+     * 组播发送及控制请求通道
+     */
+    private volatile Channel channel;
+
+    /**
+     * 控制端口绑定的网卡地址（含网段前缀），为null时不开启控制端口
+     */
+    private InterfaceAddress controlAddress;
+
+    /**
+     * 网段外来源的控制请求数
+     */
+    private final AtomicLong rejectedRequests = new AtomicLong();
+
+    /**
+     * 超出来源回复速率而未发送的数据报数
+     */
+    private final AtomicLong throttledReplies = new AtomicLong();
+
+    /**
+     * 构造函数
+     *
+     * @param rtkProperties RTK配置
+     */
+    public MulticastPublisher(RtkProperties rtkProperties) {
+        this.config = rtkProperties.getMulticast();
+    }
+
+    /**
+     * 初始化组播流并绑定控制端口
+     */
+    @PostConstruct
+    public void init() {
+        if (!config.isEnabled() || config.getStreams().isEmpty()) {
+            log.info("UDP组播转发未启用");
+            return;
+        }
+
+        int ringSize = Integer.highestOneBit(Math.max(16, config.getRetransmitBufferSize()) - 1) << 1;
+        for (RtkProperties.MulticastStreamConfig streamConfig : config.getStreams()) {
+            InetSocketAddress groupAddress = new InetSocketAddress(streamConfig.getGroup(), streamConfig.getPort());
+            if (groupAddress.isUnresolved() || !groupAddress.getAddress().isMulticastAddress()) {
+                throw new RtkRelayException("INVALID_MULTICAST_GROUP",
+                        "挂载点 " + streamConfig.getMountpoint() + " 的组播地址无效: " + streamConfig.getGroup());
+            }
+            streams.add(new Stream(streams.size(), streamConfig, groupAddress, ringSize));
+        }
+
+        group = new NioEventLoopGroup(1, r -> {
+            Thread thread = new Thread(r);
+            thread.setName("rtk-multicast");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Bootstrap bootstrap = new Bootstrap()
+                    .group(group)
+                    .channelFactory(() -> new NioDatagramChannel(InternetProtocolFamily.IPv4))
+                    .option(ChannelOption.IP_MULTICAST_TTL, config.getTtl());
+            InetSocketAddress localAddress;
+            if (!config.getNetworkInterface().isEmpty()) {
+                NetworkInterface networkInterface = NetworkInterface.getByName(config.getNetworkInterface());
+                if (networkInterface == null) {
+                    throw new RtkRelayException("INVALID_MULTICAST_INTERFACE",
+                            "组播网卡不存在: " + config.getNetworkInterface());
+                }
+                controlAddress = ipv4Address(networkInterface);
+                bootstrap.option(ChannelOption.IP_MULTICAST_IF, networkInterface)
+                        .handler(new ControlHandler());
+                localAddress = new InetSocketAddress(controlAddress.getAddress(), config.getControlPort());
+            } else {
+                // 不知道移动站所在网段，不开启控制端口，只发送组播
+                bootstrap.handler(new DiscardHandler());
+                localAddress = new InetSocketAddress(0);
+                log.warn("未配置组播网卡（rtk.multicast.network-interface），补发和同步快照请求不可用");
+            }
+            channel = bootstrap.bind(localAddress).sync().channel();
+        } catch (RtkRelayException e) {
+            group.shutdownGracefully();
+            throw e;
+        } catch (Exception e) {
+            group.shutdownGracefully();
+            throw new RtkRelayException("MULTICAST_START_FAILED", "UDP组播转发启动失败", e);
+        }
+
+        for (Stream stream : streams) {
+            log.info("UDP组播流已启用 - 流号: {}, 挂载点: {}, 组播地址: {}, 来源基站: {}", stream.id, stream.mountpoint,
+                    stream.groupAddress, stream.sources.isEmpty() ? "全部" : stream.sources);
+        }
+        log.info("UDP组播转发已启用 - 控制地址: {}, 补发缓存: {}帧/流, 单个来源回复上限: {}个/秒",
+                controlAddress == null ? "未开启" : controlAddress.getAddress().getHostAddress() + ":" + config.getControlPort(),
+                ringSize, config.getControlReplyRate());
+    }
+
+    /**
+     * 获取网卡的第一个IPv4地址
+     */
+    private static InterfaceAddress ipv4Address(NetworkInterface networkInterface) {
+        for (InterfaceAddress address : networkInterface.getInterfaceAddresses()) {
+            if (address.getAddress() instanceof Inet4Address) {
+                return address;
+            }
+        }
+        throw new RtkRelayException("INVALID_MULTICAST_INTERFACE",
+                "组播网卡没有IPv4地址: " + networkInterface.getName());
+    }
+
+    /**
+     * 判断请求来源是否与控制端口在同一网段
+     */
+    private boolean inControlSubnet(InetAddress sender) {
+        if (!(sender instanceof Inet4Address)) {
+            return false;
+        }
+        int prefix = controlAddress.getNetworkPrefixLength();
+        int mask = prefix <= 0 ? 0 : -1 << (32 - Math.min(prefix, 32));
+        return (toInt(sender) & mask) == (toInt(controlAddress.getAddress()) & mask);
+    }
+
+    private static int toInt(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        return ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+    }
+
+    /**
+     * 发布一帧数据到来源基站所属的组播流
+     *
+     * @param frame 帧数据
+     * @param messageType 消息编号
+     * @param sourceAddress 来源基站IP地址
+     */
+    public void publish(byte[] frame, int messageType, String sourceAddress) {
+        Channel current = channel;
+        if (current == null) {
+            return;
+        }
+        for (Stream stream : streams) {
+            if (stream.sources.isEmpty() || stream.sources.contains(sourceAddress)) {
+                stream.publish(current, frame, messageType);
+            }
+        }
+    }
+
+    /**
+     * 获取组播转发统计（用于监控）
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", channel != null);
+        status.put("controlPort", config.getControlPort());
+        status.put("controlAddress", controlAddress == null ? null
+                : controlAddress.getAddress().getHostAddress() + "/" + controlAddress.getNetworkPrefixLength());
+        status.put("rejectedRequests", rejectedRequests.get());
+        status.put("throttledReplies", throttledReplies.get());
+        List<Map<String, Object>> streamStatus = new ArrayList<>();
+        for (Stream stream : streams) {
+            streamStatus.add(stream.getStatus());
+        }
+        status.put("streams", streamStatus);
+        return status;
+    }
+
+    /**
+     * 停止组播转发
+     */
+    @PreDestroy
+    public void destroy() {
+        Channel current = channel;
+        channel = null;
+        if (current != null) {
+            current.close();
+        }
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    /**
+     * 构造数据报
+     */
+    private static DatagramPacket datagram(int flags, int streamId, int sequence, byte[] frame,
+                                           InetSocketAddress recipient) {
+        byte[] header = new byte[HEADER_LENGTH];
+        header[0] = (byte) (MAGIC >>> 8);
+        header[1] = (byte) MAGIC;
+        header[2] = (byte) VERSION;
+        header[3] = (byte) flags;
+        header[4] = (byte) (streamId >>> 8);
+        header[5] = (byte) streamId;
+        header[6] = (byte) (sequence >>> 24);
+        header[7] = (byte) (sequence >>> 16);
+        header[8] = (byte) (sequence >>> 8);
+        header[9] = (byte) sequence;
+        return new DatagramPacket(Unpooled.wrappedBuffer(header, frame), recipient);
+    }
+
+    /**
+     * 一个挂载点的组播流
+     * 序号分配、补发缓存和快照在同一把锁下更新
+     */
+    private static final class Stream {
+
+        private final int id;
+        private final String mountpoint;
+        private final InetSocketAddress groupAddress;
+        private final Set<String> sources;
+
+        /**
+         * 补发缓存：按序号取模存放最近的帧
+         */
+        private final byte[][] ringFrames;
+        private final int[] ringSequences;
+        private final int ringMask;
+
+        /**
+         * 同步快照：基准站坐标、星历等非观测值消息的最新一份（星历按卫星）
+         */
+        private final Map<Integer, byte[]> snapshot = new LinkedHashMap<>();
+
+        private int nextSequence;
+        private long published;
+        private long dropped;
+        private long retransmitted;
+        private long retransmitMisses;
+        private long resyncs;
+
+        Stream(int id, RtkProperties.MulticastStreamConfig config, InetSocketAddress groupAddress, int ringSize) {
+            this.id = id;
+            this.mountpoint = config.getMountpoint();
+            this.groupAddress = groupAddress;
+            this.sources = new HashSet<>(config.getSources());
+            this.ringFrames = new byte[ringSize][];
+            this.ringSequences = new int[ringSize];
+            this.ringMask = ringSize - 1;
+        }
+
+        synchronized void publish(Channel channel, byte[] frame, int messageType) {
+            int sequence = nextSequence++;
+            int slot = sequence & ringMask;
+            ringFrames[slot] = frame;
+            ringSequences[slot] = sequence;
+            if (messageType != Rtcm3.NOT_RTCM && !Rtcm3.isObservation(messageType)) {
+                snapshot.put(Rtcm3.snapshotKey(frame, messageType), frame);
+            }
+            if (!channel.isWritable()) {
+                // 发送队列已满：丢弃本帧但保留序号和补发缓存，接收方可按序号缺口请求补发
+                dropped++;
+                return;
+            }
+            published++;
+            // 在锁内写出，保证组播数据报按序号顺序进入发送队列
+            channel.writeAndFlush(datagram(0, id, sequence, frame, groupAddress), channel.voidPromise());
+        }
+
+        /**
+         * 补发指定序号范围内仍在缓存中的帧
+         *
+         * @return 发送的数据报数
+         */
+        int retransmit(Channel channel, int fromSequence, int count, int budget, InetSocketAddress recipient) {
+            int limit = Math.min(count, MAX_NACK_COUNT);
+            int sent = 0;
+            synchronized (this) {
+                for (int i = 0; i < limit && sent < budget; i++) {
+                    int sequence = fromSequence + i;
+                    int slot = sequence & ringMask;
+                    if (ringFrames[slot] != null && ringSequences[slot] == sequence) {
+                        channel.write(datagram(FLAG_RETRANSMIT, id, sequence, ringFrames[slot], recipient),
+                                channel.voidPromise());
+                        retransmitted++;
+                        sent++;
+                    } else {
+                        retransmitMisses++;
+                    }
+                }
+            }
+            channel.flush();
+            return sent;
+        }
+
+        /**
+         * 发送同步快照
+         *
+         * @return 发送的数据报数
+         */
+        int resync(Channel channel, int budget, InetSocketAddress recipient) {
+            int sent = 0;
+            synchronized (this) {
+                // 快照数据报携带当前序号，接收方据此衔接实时流
+                int sequence = nextSequence;
+                for (byte[] frame : snapshot.values()) {
+                    if (sent >= budget) {
+                        break;
+                    }
+                    channel.write(datagram(FLAG_SNAPSHOT, id, sequence, frame, recipient), channel.voidPromise());
+                    sent++;
+                }
+                resyncs++;
+            }
+            channel.flush();
+            return sent;
+        }
+
+        synchronized int snapshotSize() {
+            return snapshot.size();
+        }
+
+        synchronized Map<String, Object> getStatus() {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("streamId", id);
+            status.put("mountpoint", mountpoint);
+            status.put("group", groupAddress.getAddress().getHostAddress() + ":" + groupAddress.getPort());
+            status.put("nextSequence", Integer.toUnsignedLong(nextSequence));
+            status.put("published", published);
+            status.put("dropped", dropped);
+            status.put("retransmitted", retransmitted);
+            status.put("retransmitMisses", retransmitMisses);
+            status.put("resyncs", resyncs);
+            status.put("snapshotEntries", snapshot.size());
+            return status;
+        }
+    }
+
+    /**
+     * 未开启控制端口时丢弃收到的数据报
+     */
+    private static final class DiscardHandler extends SimpleChannelInboundHandler<DatagramPacket> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+            // 数据报由基类释放
+        }
+    }
+
+    /**
+     * 单个请求来源的回复额度（令牌桶，按数据报计）
+     */
+    private static final class ReplyBudget {
+        private double tokens;
+        private long lastNanos;
+
+        ReplyBudget(double tokens, long now) {
+            this.tokens = tokens;
+            this.lastNanos = now;
+        }
+    }
+
+    /**
+     * 控制端口请求处理（补发和同步快照）
+     * 只在组播事件循环的单个线程中运行，来源额度表无需同步
+     */
+    private final class ControlHandler extends SimpleChannelInboundHandler<DatagramPacket> {
+
+        /**
+         * 请求来源IP -> 回复额度（按访问顺序，超出上限时淘汰最久未请求的来源）
+         */
+        private final Map<InetAddress, ReplyBudget> budgets =
+                new LinkedHashMap<InetAddress, ReplyBudget>(64, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<InetAddress, ReplyBudget> eldest) {
+                        return size() > MAX_TRACKED_SENDERS;
+                    }
+                };
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+            InetAddress sender = packet.sender().getAddress();
+            if (!inControlSubnet(sender)) {
+                rejectedRequests.incrementAndGet();
+                return;
+            }
+            ByteBuf request = packet.content();
+            if (request.readableBytes() < REQUEST_LENGTH
+                    || request.getUnsignedShort(request.readerIndex()) != MAGIC
+                    || request.getUnsignedByte(request.readerIndex() + 2) != VERSION) {
+                return;
+            }
+            int index = request.readerIndex();
+            int type = request.getUnsignedByte(index + 3);
+            int streamId = request.getUnsignedShort(index + 4);
+            if (streamId >= streams.size()) {
+                return;
+            }
+            Stream stream = streams.get(streamId);
+            ReplyBudget budget = budget(sender);
+            int available = (int) budget.tokens;
+            int requested;
+            int sent;
+            if (type == REQUEST_NACK) {
+                requested = Math.min(request.getUnsignedShort(index + 10), MAX_NACK_COUNT);
+                sent = stream.retransmit(ctx.channel(), request.getInt(index + 6), requested, available,
+                        packet.sender());
+            } else if (type == REQUEST_RESYNC) {
+                log.debug("组播同步快照请求 - 挂载点: {}, 来源: {}", stream.mountpoint, packet.sender());
+                requested = stream.snapshotSize();
+                sent = stream.resync(ctx.channel(), available, packet.sender());
+            } else {
+                return;
+            }
+            budget.tokens -= sent;
+            if (sent < requested && sent == available) {
+                throttledReplies.addAndGet(requested - sent);
+            }
+        }
+
+        /**
+         * 取得来源的回复额度并按经过的时间补充
+         */
+        private ReplyBudget budget(InetAddress sender) {
+            long now = System.nanoTime();
+            double rate = config.getControlReplyRate();
+            ReplyBudget budget = budgets.get(sender);
+            if (budget == null) {
+                budget = new ReplyBudget(rate, now);
+                budgets.put(sender, budget);
+                return budget;
+            }
+            budget.tokens = Math.min(rate, budget.tokens + (now - budget.lastNanos) * rate / 1_000_000_000L);
+            budget.lastNanos = now;
+            return budget;
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.warn("组播控制请求处理失败: {}", cause.getMessage());
+        }
+    }
+}
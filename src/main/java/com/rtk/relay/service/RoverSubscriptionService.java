@@ -0,0 +1,180 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.entity.ConnectionInfo;
+import com.rtk.relay.entity.RoverSubscription;
+import com.rtk.relay.exception.RtkRelayException;
+import com.rtk.relay.rtcm.EpochDecimator;
+import com.rtk.relay.rtcm.MessageTypeFilter;
+import com.rtk.relay.rtcm.MsmForm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+
+/**
+ * 移动站订阅服务
+ * 为新连接的移动站按配置规则生成订阅设置，并支持通过管理接口在运行期间修改
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class RoverSubscriptionService {
+
+    /**
+     * 默认规则匹配地址
+     */
+    private static final String DEFAULT_RULE_ADDRESS = "*";
+
+    /**
+     * RTK配置
+     */
+    private final RtkProperties rtkProperties;
+
+    /**
+     * 连接管理器
+     */
+    private final ConnectionManager connectionManager;
+
+    /**
+     * 发送流量整形与配额
+     */
+    private final TrafficShapingService trafficShapingService;
+
+    /**
+     * 构造函数
+     *
+     * @param rtkProperties RTK配置
+     * @param connectionManager 连接管理器
+     * @param trafficShapingService 发送流量整形与配额
+     */
+    public RoverSubscriptionService(RtkProperties rtkProperties, ConnectionManager connectionManager,
+                                    TrafficShapingService trafficShapingService) {
+        this.rtkProperties = rtkProperties;
+        this.connectionManager = connectionManager;
+        this.trafficShapingService = trafficShapingService;
+    }
+
+    /**
+     * 按配置规则为移动站生成订阅设置
+     * 优先使用与移动站IP地址完全匹配的规则，其次使用默认规则
+     *
+     * @param remoteAddress 移动站IP地址
+     * @return 订阅设置
+     */
+    public RoverSubscription createSubscription(String remoteAddress) {
+        RoverSubscription subscription = new RoverSubscription();
+        RtkProperties.SubscriptionRule rule = findRule(remoteAddress);
+        if (rule != null) {
+            try {
+                subscription.setMessageFilter(buildFilter(rule));
+            } catch (IllegalArgumentException e) {
+                log.warn("移动站订阅规则无效，忽略 - 地址: {}, 原因: {}", rule.getAddress(), e.getMessage());
+            }
+            if (rule.getOutputIntervalMs() > 0) {
+                subscription.setDecimator(new EpochDecimator(rule.getOutputIntervalMs()));
+            }
+            if (rule.getMsmForm() != null) {
+                subscription.setMsmForm(rule.getMsmForm());
+            }
+            // 同一IP地址的移动站共用一个配额账户
+            subscription.setQuota(trafficShapingService.quotaAccount(remoteAddress, rule.getDailyQuotaMb()));
+        }
+        return subscription;
+    }
+
+    /**
+     * 修改移动站的消息类型过滤器
+     *
+     * @param connectionId 移动站连接ID
+     * @param mode 过滤模式
+     * @param types 消息类型列表
+     * @return 生效的过滤器
+     */
+    public MessageTypeFilter updateMessageFilter(String connectionId, MessageTypeFilter.Mode mode,
+                                                 Collection<Integer> types) {
+        RoverSubscription subscription = getSubscription(connectionId);
+        MessageTypeFilter filter;
+        try {
+            filter = MessageTypeFilter.of(mode, types);
+        } catch (IllegalArgumentException e) {
+            throw new RtkRelayException("INVALID_MESSAGE_FILTER", e.getMessage());
+        }
+        subscription.setMessageFilter(filter);
+        log.info("移动站消息过滤器已更新 - 连接ID: {}, 过滤器: {}", connectionId, filter);
+        return filter;
+    }
+
+    /**
+     * 修改移动站的观测值输出间隔
+     *
+     * @param connectionId 移动站连接ID
+     * @param intervalMs 输出间隔（毫秒），0表示按基站原始频率转发
+     */
+    public void updateOutputInterval(String connectionId, int intervalMs) {
+        if (intervalMs < 0) {
+            throw new RtkRelayException("INVALID_OUTPUT_INTERVAL", "输出间隔不能为负数: " + intervalMs);
+        }
+        RoverSubscription subscription = getSubscription(connectionId);
+        subscription.setDecimator(intervalMs > 0 ? new EpochDecimator(intervalMs) : null);
+        log.info("移动站输出间隔已更新 - 连接ID: {}, 间隔: {}ms", connectionId, intervalMs);
+    }
+
+    /**
+     * 修改移动站接收MSM7观测值的形式
+     *
+     * @param connectionId 移动站连接ID
+     * @param form 接收形式
+     */
+    public void updateMsmForm(String connectionId, MsmForm form) {
+        if (form == null) {
+            throw new RtkRelayException("INVALID_MSM_FORM", "MSM形式不能为空");
+        }
+        RoverSubscription subscription = getSubscription(connectionId);
+        subscription.setMsmForm(form);
+        log.info("移动站MSM形式已更新 - 连接ID: {}, 形式: {}", connectionId, form);
+    }
+
+    /**
+     * 获取移动站订阅设置
+     *
+     * @param connectionId 移动站连接ID
+     * @return 订阅设置
+     */
+    public RoverSubscription getSubscription(String connectionId) {
+        ConnectionInfo connectionInfo = connectionManager.getConnectionInfo(connectionId);
+        if (connectionInfo == null || connectionInfo.getSubscription() == null) {
+            throw new RtkRelayException("MOBILE_STATION_NOT_FOUND", "移动站不存在: " + connectionId);
+        }
+        return connectionInfo.getSubscription();
+    }
+
+    /**
+     * 查找匹配的订阅规则
+     */
+    private RtkProperties.SubscriptionRule findRule(String remoteAddress) {
+        RtkProperties.SubscriptionRule defaultRule = null;
+        for (RtkProperties.SubscriptionRule rule : rtkProperties.getServer2().getSubscriptions()) {
+            if (rule.getAddress() == null || DEFAULT_RULE_ADDRESS.equals(rule.getAddress())) {
+                if (defaultRule == null) {
+                    defaultRule = rule;
+                }
+            } else if (rule.getAddress().equals(remoteAddress)) {
+                return rule;
+            }
+        }
+        return defaultRule;
+    }
+
+    /**
+     * 根据规则构建消息类型过滤器
+     */
+    private MessageTypeFilter buildFilter(RtkProperties.SubscriptionRule rule) {
+        if (!rule.getAllowTypes().isEmpty()) {
+            return MessageTypeFilter.of(MessageTypeFilter.Mode.ALLOW, rule.getAllowTypes());
+        }
+        return MessageTypeFilter.of(MessageTypeFilter.Mode.DENY, rule.getDenyTypes());
+    }
+}
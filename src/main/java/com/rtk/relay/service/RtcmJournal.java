@@ -0,0 +1,860 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.exception.RtkRelayException;
+import io.netty.util.internal.PlatformDependent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RTCM原始数据归档
+ * 每一帧经校验的RTCM数据连同纳秒时间戳和基站连接句柄，在Netty I/O线程上只做一次入队，
+ * 由后台写线程追加到按基站划分的内存映射分段文件中（目录 归档根目录/基站IP/，文件名为分段首帧的毫秒时间戳）。
+ * 分段按大小或时长滚动，滚动时落盘、解除映射并截断到实际长度；所有分段的总大小超过磁盘预算时删除最旧的分段。
+ * <p>
+ * 分段格式（大端）：{@value #HEADER_LENGTH} 字节文件头（魔数 "RTKJ"、版本、保留、创建时间毫秒），
+ * 之后为连续的记录：时间戳（Unix纪元纳秒，i64）、连接句柄（i32）、帧长度（u16）、帧数据。
+ * 映射区域初始为零，每条记录最后写入时间戳，因此时间戳为0的位置即数据结束，进程异常退出后未截断的分段同样可读。
+ * 每个分段另有一个每秒一项的稀疏时间索引（见 {@link JournalIndex}），回放时按时间定位，见 {@link #openCursor}。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class RtcmJournal {
+
+    /**
+     * 分段文件魔数 "RTKJ"
+     */
+    public static final int MAGIC = 0x524B544A;
+
+    /**
+     * 分段格式版本
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * 分段文件头长度
+     */
+    public static final int HEADER_LENGTH = 16;
+
+    /**
+     * 记录头长度：时间戳8字节、连接句柄4字节、帧长度2字节
+     */
+    public static final int RECORD_HEADER_LENGTH = 14;
+
+    /**
+     * 分段文件扩展名
+     */
+    public static final String SEGMENT_SUFFIX = ".rtj";
+
+    /**
+     * 回放时间参数上限（Unix毫秒）：记录时间戳为纳秒，超过此值换算时溢出（约2262-04-11）
+     */
+    public static final long MAX_TIME_MILLIS = Long.MAX_VALUE / 1_000_000L;
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    /**
+     * 写线程空闲时检查分段时长的间隔
+     */
+    private static final long ROLL_CHECK_INTERVAL_MS = 1000;
+
+    /**
+     * 纪元时间基准的校准间隔（跟随系统时钟的NTP调整）
+     */
+    private static final long CLOCK_RESYNC_INTERVAL_MS = 60_000;
+
+    /**
+     * 写入失败后暂停写入的时长，避免磁盘满时每帧都重试并刷日志
+     */
+    private static final long ERROR_BACKOFF_MS = 10_000;
+
+    /**
+     * 归档配置
+     */
+    private final RtkProperties.JournalConfig config;
+
+    /**
+     * 待写入帧队列
+     */
+    private final BlockingQueue<Entry> queue;
+
+    /**
+     * 各基站当前写入的分段（仅写线程修改，回放时读取）
+     */
+    private final Map<String, Segment> openSegments = new ConcurrentHashMap<>();
+
+    /**
+     * 已关闭的分段，按创建时间排序（仅写线程访问）
+     */
+    private final PriorityQueue<ClosedSegment> closedSegments = new PriorityQueue<>();
+
+    /**
+     * 已关闭分段的总字节数（仅写线程访问）
+     */
+    private long closedBytes;
+
+    /**
+     * 纪元纳秒 = 基准 + System.nanoTime()
+     */
+    private volatile long epochNanosBase;
+
+    private final AtomicLong queuedFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong writtenFrames = new AtomicLong();
+    private final AtomicLong writtenBytes = new AtomicLong();
+    private final AtomicLong writeErrors = new AtomicLong();
+    private final AtomicLong createdSegments = new AtomicLong();
+    private final AtomicLong deletedSegments = new AtomicLong();
+    private volatile int openSegmentCount;
+    private volatile int closedSegmentCount;
+    private volatile long diskUsageBytes;
+
+    private Path root;
+    private long segmentSize;
+    private long diskBudget;
+    private volatile boolean running;
+    private Thread writer;
+
+    /**
+     * 构造函数
+     *
+     * @param rtkProperties RTK配置
+     */
+    public RtcmJournal(RtkProperties rtkProperties) {
+        this.config = rtkProperties.getJournal();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity()));
+        resyncClock();
+    }
+
+    /**
+     * 启动归档写线程
+     */
+    @PostConstruct
+    public void init() {
+        if (!config.isEnabled()) {
+            log.info("RTCM原始数据归档未启用");
+            return;
+        }
+        if (config.getSegmentSizeMb() < 1 || config.getSegmentSizeMb() > 2047
+                || config.getSegmentMaxAgeMinutes() < 1 || config.getDiskBudgetMb() < config.getSegmentSizeMb()) {
+            throw new RtkRelayException("INVALID_JOURNAL_CONFIG",
+                    "归档配置无效：分段大小须为1-2047MB，时长至少1分钟，磁盘预算不小于分段大小");
+        }
+        segmentSize = config.getSegmentSizeMb() * BYTES_PER_MB;
+        diskBudget = config.getDiskBudgetMb() * BYTES_PER_MB;
+        root = Paths.get(config.getDirectory()).toAbsolutePath();
+        try {
+            Files.createDirectories(root);
+            scanExistingSegments();
+        } catch (IOException e) {
+            throw new RtkRelayException("JOURNAL_START_FAILED", "归档目录不可用: " + root, e);
+        }
+        enforceDiskBudget(0);
+
+        running = true;
+        writer = new Thread(this::writeLoop, "rtk-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("RTCM原始数据归档已启用 - 目录: {}, 分段: {}MB/{}分钟, 磁盘预算: {}MB, 已有分段: {}个",
+                root, config.getSegmentSizeMb(), config.getSegmentMaxAgeMinutes(), config.getDiskBudgetMb(),
+                closedSegmentCount);
+    }
+
+    /**
+     * 归档一帧数据（在Netty I/O线程上调用，只入队不做I/O）
+     *
+     * @param station 基站标识（基站IP地址）
+     * @param handle 基站连接句柄
+     * @param frame 经校验的RTCM帧，调用后不得修改
+     */
+    public void append(String station, int handle, byte[] frame) {
+        if (!running) {
+            return;
+        }
+        if (queue.offer(new Entry(station, handle, epochNanosBase + System.nanoTime(), frame))) {
+            queuedFrames.incrementAndGet();
+        } else {
+            droppedFrames.incrementAndGet();
+        }
+    }
+
+    /**
+     * 是否正在归档
+     *
+     * @return 写线程运行中返回true
+     */
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * 获取归档统计（用于监控）
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", running);
+        if (root != null) {
+            status.put("directory", root.toString());
+        }
+        status.put("segmentSizeMb", config.getSegmentSizeMb());
+        status.put("segmentMaxAgeMinutes", config.getSegmentMaxAgeMinutes());
+        status.put("diskBudgetBytes", config.getDiskBudgetMb() * BYTES_PER_MB);
+        status.put("diskUsageBytes", diskUsageBytes);
+        status.put("openSegments", openSegmentCount);
+        status.put("closedSegments", closedSegmentCount);
+        status.put("createdSegments", createdSegments.get());
+        status.put("deletedSegments", deletedSegments.get());
+        status.put("queuedFrames", queuedFrames.get());
+        status.put("pendingFrames", queue.size());
+        status.put("droppedFrames", droppedFrames.get());
+        status.put("writtenFrames", writtenFrames.get());
+        status.put("writtenBytes", writtenBytes.get());
+        status.put("writeErrors", writeErrors.get());
+        return status;
+    }
+
+    /**
+     * 停止归档：写完队列中的帧，关闭所有分段
+     */
+    @PreDestroy
+    public void destroy() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("归档写线程未在10秒内结束，剩余 {} 帧未写入", queue.size());
+        }
+        log.info("RTCM原始数据归档已停止 - 写入: {}帧, 丢弃: {}帧", writtenFrames.get(), droppedFrames.get());
+    }
+
+    /**
+     * 基站标识转换为目录名（IPv6地址中的冒号等字符替换为下划线）
+     *
+     * @param station 基站标识
+     * @return 目录名
+     */
+    public static String stationDirectory(String station) {
+        return station.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * 打开一个基站在时间窗口内的回放游标
+     * 窗口覆盖的分段为：首帧时间早于窗口终点，且下一分段的首帧时间晚于窗口起点；
+     * 正在写入的分段只读取已写完的部分。
+     *
+     * @param station 基站标识（基站IP地址）
+     * @param fromMillis 窗口起点（含，Unix毫秒）
+     * @param toMillis 窗口终点（不含，Unix毫秒）
+     * @return 回放游标，使用后须关闭
+     * @throws IOException 归档目录无法读取
+     */
+    public JournalCursor openCursor(String station, long fromMillis, long toMillis) throws IOException {
+        List<Path> segments = listSegments(station);
+        Map<Path, Segment> live = new HashMap<>();
+        for (Segment segment : openSegments.values()) {
+            live.put(segment.path, segment);
+        }
+        List<JournalCursor.Span> spans = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = segments.get(i);
+            if (segmentStartMillis(path) >= toMillis) {
+                break;
+            }
+            if (i + 1 < segments.size() && segmentStartMillis(segments.get(i + 1)) <= fromMillis) {
+                continue;
+            }
+            Segment segment = live.get(path);
+            if (segment != null) {
+                spans.add(new JournalCursor.Span(path, segment.committed, segment.index));
+            } else {
+                spans.add(new JournalCursor.Span(path, Long.MAX_VALUE, loadIndex(path)));
+            }
+        }
+        return new JournalCursor(spans, fromMillis, toMillis);
+    }
+
+    /**
+     * 获取各基站的归档范围（用于监控和回放前查询）
+     *
+     * @return 每个基站一项：基站目录、分段数、字节数、最早和最晚的时间（Unix毫秒）
+     * @throws IOException 归档目录无法读取
+     */
+    public List<Map<String, Object>> getStations() throws IOException {
+        requireEnabled();
+        Map<Path, Segment> live = new HashMap<>();
+        for (Segment segment : openSegments.values()) {
+            live.put(segment.path, segment);
+        }
+        List<Map<String, Object>> stations = new ArrayList<>();
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path directory : directories) {
+                List<Path> segments = listSegments(directory.getFileName().toString());
+                if (segments.isEmpty()) {
+                    continue;
+                }
+                long bytes = 0;
+                for (Path path : segments) {
+                    Segment segment = live.get(path);
+                    bytes += segment != null ? segment.committed : Files.size(path);
+                }
+                Path last = segments.get(segments.size() - 1);
+                Segment segment = live.get(last);
+                JournalIndex lastIndex = segment != null ? segment.index : loadIndex(last);
+                Map<String, Object> station = new LinkedHashMap<>();
+                station.put("station", directory.getFileName().toString());
+                station.put("segments", segments.size());
+                station.put("bytes", bytes);
+                station.put("fromMillis", segmentStartMillis(segments.get(0)));
+                station.put("toMillis", lastIndex.size() == 0 ? segmentStartMillis(last)
+                        : (lastIndex.lastSecond() + 1) * 1000L);
+                station.put("writing", segment != null);
+                stations.add(station);
+            }
+        }
+        stations.sort((a, b) -> ((String) a.get("station")).compareTo((String) b.get("station")));
+        return stations;
+    }
+
+    /**
+     * 解析回放时间参数
+     *
+     * @param value Unix毫秒，或ISO-8601时刻（如 2026-10-18T08:00:00Z）
+     * @return Unix毫秒，范围 0 至 {@link #MAX_TIME_MILLIS}
+     */
+    public static long parseTime(String value) {
+        String trimmed = value.trim();
+        long millis;
+        try {
+            if (trimmed.matches("\\d+")) {
+                millis = Long.parseLong(trimmed);
+            } else {
+                millis = Instant.parse(trimmed).toEpochMilli();
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("时间格式无效（应为Unix毫秒或ISO-8601时刻）: " + value);
+        }
+        if (millis < 0 || millis > MAX_TIME_MILLIS) {
+            throw new IllegalArgumentException("时间超出范围（应在1970-01-01至2262-04-11之间）: " + value);
+        }
+        return millis;
+    }
+
+    /**
+     * 分段对应的时间索引文件
+     *
+     * @param segment 分段文件
+     * @return 索引文件
+     */
+    public static Path indexPath(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + ".idx");
+    }
+
+    /**
+     * 列出基站的分段文件，按首帧时间排序
+     */
+    private List<Path> listSegments(String station) throws IOException {
+        requireEnabled();
+        String name = stationDirectory(station);
+        if (name.isEmpty() || name.startsWith(".")) {
+            throw new IllegalArgumentException("基站标识无效: " + station);
+        }
+        Path directory = root.resolve(name);
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : files) {
+                if (segmentStartMillis(path) >= 0) {
+                    segments.add(path);
+                }
+            }
+        }
+        segments.sort((a, b) -> Long.compare(segmentStartMillis(a), segmentStartMillis(b)));
+        return segments;
+    }
+
+    /**
+     * 读取已关闭分段的时间索引，索引文件缺失（进程异常退出）时扫描分段建立
+     */
+    private JournalIndex loadIndex(Path segment) throws IOException {
+        Path indexPath = indexPath(segment);
+        try {
+            return JournalIndex.read(indexPath);
+        } catch (NoSuchFileException e) {
+            try {
+                return JournalIndex.build(segment);
+            } catch (NoSuchFileException deleted) {
+                return new JournalIndex();
+            }
+        }
+    }
+
+    private void requireEnabled() {
+        if (root == null) {
+            throw new RtkRelayException("JOURNAL_DISABLED", "RTCM原始数据归档未启用");
+        }
+    }
+
+    /**
+     * 写线程主循环
+     */
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        long suspendedUntil = 0;
+        long lastResync = System.currentTimeMillis();
+        while (running || !queue.isEmpty()) {
+            Entry first;
+            try {
+                first = queue.poll(ROLL_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long now = System.currentTimeMillis();
+            if (first != null) {
+                batch.add(first);
+                queue.drainTo(batch);
+                for (Entry entry : batch) {
+                    if (now < suspendedUntil) {
+                        writeErrors.incrementAndGet();
+                    } else if (!write(entry)) {
+                        suspendedUntil = now + ERROR_BACKOFF_MS;
+                    }
+                }
+                batch.clear();
+            }
+            rollExpiredSegments(now);
+            if (now - lastResync >= CLOCK_RESYNC_INTERVAL_MS) {
+                resyncClock();
+                lastResync = now;
+            }
+        }
+        for (Segment segment : new ArrayList<>(openSegments.values())) {
+            closeSegment(segment);
+        }
+    }
+
+    /**
+     * 写入一帧
+     *
+     * @return 写入失败返回false
+     */
+    private boolean write(Entry entry) {
+        Segment segment = openSegments.get(entry.station);
+        int recordLength = RECORD_HEADER_LENGTH + entry.frame.length;
+        if (segment != null && segment.buffer.remaining() < recordLength) {
+            closeSegment(segment);
+            segment = null;
+        }
+        try {
+            if (segment == null) {
+                segment = openSegment(entry.station, entry.timestampNanos / 1_000_000L);
+            }
+            segment.append(entry);
+        } catch (IOException | InternalError e) {
+            // InternalError：磁盘空间不足时写入稀疏映射区域触发的总线错误
+            writeErrors.incrementAndGet();
+            log.error("归档写入失败，暂停写入{}秒 - 基站: {}", ERROR_BACKOFF_MS / 1000, entry.station, e);
+            if (segment != null) {
+                closeSegment(segment);
+            }
+            return false;
+        }
+        writtenFrames.incrementAndGet();
+        writtenBytes.addAndGet(recordLength);
+        return true;
+    }
+
+    /**
+     * 为基站创建新分段
+     */
+    private Segment openSegment(String station, long startMillis) throws IOException {
+        Path directory = root.resolve(stationDirectory(station));
+        Files.createDirectories(directory);
+        // 同一毫秒内滚动的分段顺延文件名
+        Path path;
+        long millis = startMillis;
+        do {
+            path = directory.resolve(segmentFileName(millis++));
+        } while (Files.exists(path));
+
+        // 新分段占用整段映射空间，先按预算腾出位置
+        enforceDiskBudget(segmentSize);
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            channel.close();
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        buffer.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0).putLong(System.currentTimeMillis());
+        Segment segment = new Segment(station, path, millis - 1, channel, buffer);
+        openSegments.put(station, segment);
+        createdSegments.incrementAndGet();
+        updateUsage();
+        log.debug("创建归档分段 - 基站: {}, 文件: {}", station, path);
+        return segment;
+    }
+
+    /**
+     * 关闭分段：落盘、解除映射、截断到实际长度、写入时间索引
+     * 截断完成后才从打开分段中移除，回放方看到已关闭的分段时文件长度即实际长度
+     */
+    private void closeSegment(Segment segment) {
+        int length = segment.buffer.position();
+        try {
+            segment.buffer.force();
+        } catch (RuntimeException | InternalError e) {
+            log.warn("归档分段落盘失败 - 文件: {}", segment.path, e);
+        }
+        // 映射区域在GC前不会释放，主动解除映射以便截断和删除
+        PlatformDependent.freeDirectBuffer(segment.buffer);
+        try {
+            segment.channel.truncate(length);
+        } catch (IOException e) {
+            log.warn("归档分段截断失败 - 文件: {}", segment.path, e);
+        }
+        Path indexPath = indexPath(segment.path);
+        try {
+            segment.index.write(indexPath);
+        } catch (IOException e) {
+            log.warn("写入归档索引失败 - 文件: {}", indexPath, e);
+        }
+        long size = length;
+        try {
+            segment.channel.close();
+            size = Files.size(segment.path) + (Files.exists(indexPath) ? Files.size(indexPath) : 0);
+        } catch (IOException e) {
+            log.warn("关闭归档分段失败 - 文件: {}", segment.path, e);
+        }
+        openSegments.remove(segment.station, segment);
+        closedSegments.add(new ClosedSegment(segment.path, segment.startMillis, size));
+        closedBytes += size;
+        enforceDiskBudget(0);
+        updateUsage();
+    }
+
+    /**
+     * 滚动超过时长的分段（基站无数据时同样生效）
+     */
+    private void rollExpiredSegments(long now) {
+        long maxAgeMillis = TimeUnit.MINUTES.toMillis(config.getSegmentMaxAgeMinutes());
+        for (Segment segment : new ArrayList<>(openSegments.values())) {
+            if (now - segment.startMillis >= maxAgeMillis) {
+                closeSegment(segment);
+            }
+        }
+    }
+
+    /**
+     * 总大小（已关闭分段的实际大小 + 打开分段的映射大小）超过磁盘预算时，删除最旧的已关闭分段
+     *
+     * @param reservedBytes 即将创建的分段需要的空间
+     */
+    private void enforceDiskBudget(long reservedBytes) {
+        long openBytes = openSegments.size() * segmentSize + reservedBytes;
+        while (!closedSegments.isEmpty() && closedBytes + openBytes > diskBudget) {
+            ClosedSegment oldest = closedSegments.poll();
+            closedBytes -= oldest.size;
+            try {
+                Files.deleteIfExists(oldest.path);
+                Files.deleteIfExists(indexPath(oldest.path));
+                deletedSegments.incrementAndGet();
+                log.debug("超出磁盘预算，删除归档分段: {}", oldest.path);
+            } catch (IOException e) {
+                log.warn("删除归档分段失败 - 文件: {}", oldest.path, e);
+            }
+        }
+        updateUsage();
+    }
+
+    /**
+     * 启动时登记已有的分段（上次运行的分段均视为已关闭）
+     */
+    private void scanExistingSegments() throws IOException {
+        try (DirectoryStream<Path> stations = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path directory : stations) {
+                try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+                    for (Path path : segments) {
+                        long startMillis = segmentStartMillis(path);
+                        if (startMillis >= 0) {
+                            Path indexPath = indexPath(path);
+                            long size = Files.size(path) + (Files.exists(indexPath) ? Files.size(indexPath) : 0);
+                            closedSegments.add(new ClosedSegment(path, startMillis, size));
+                            closedBytes += size;
+                        }
+                    }
+                }
+            }
+        }
+        updateUsage();
+    }
+
+    private void updateUsage() {
+        openSegmentCount = openSegments.size();
+        closedSegmentCount = closedSegments.size();
+        diskUsageBytes = closedBytes + openSegments.size() * segmentSize;
+    }
+
+    private void resyncClock() {
+        epochNanosBase = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+    }
+
+    /**
+     * 分段文件名：16位补零的首帧毫秒时间戳
+     *
+     * @param startMillis 首帧时间（毫秒）
+     * @return 文件名
+     */
+    public static String segmentFileName(long startMillis) {
+        return String.format("%016d%s", startMillis, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * 从分段文件名解析首帧时间
+     *
+     * @param path 分段文件
+     * @return 首帧时间（毫秒），不是分段文件时返回-1
+     */
+    public static long segmentStartMillis(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 待写入的帧
+     */
+    private static final class Entry {
+        private final String station;
+        private final int handle;
+        private final long timestampNanos;
+        private final byte[] frame;
+
+        Entry(String station, int handle, long timestampNanos, byte[] frame) {
+            this.station = station;
+            this.handle = handle;
+            this.timestampNanos = timestampNanos;
+            this.frame = frame;
+        }
+    }
+
+    /**
+     * 正在写入的分段
+     */
+    private static final class Segment {
+        private final String station;
+        private final Path path;
+        private final long startMillis;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final JournalIndex index = new JournalIndex();
+
+        /**
+         * 已写完的长度，回放方只读取此长度以内的数据
+         */
+        private volatile int committed;
+
+        Segment(String station, Path path, long startMillis, FileChannel channel, MappedByteBuffer buffer) {
+            this.station = station;
+            this.path = path;
+            this.startMillis = startMillis;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.committed = buffer.position();
+        }
+
+        /**
+         * 追加一条记录，时间戳最后写入；每秒的第一条记录登记到时间索引
+         */
+        void append(Entry entry) {
+            int position = buffer.position();
+            buffer.putInt(position + 8, entry.handle);
+            buffer.putShort(position + 12, (short) entry.frame.length);
+            buffer.position(position + RECORD_HEADER_LENGTH);
+            buffer.put(entry.frame);
+            buffer.putLong(position, entry.timestampNanos);
+            index.add(entry.timestampNanos / 1_000_000_000L, position);
+            committed = buffer.position();
+        }
+    }
+
+    /**
+     * 已关闭的分段
+     */
+    private static final class ClosedSegment implements Comparable<ClosedSegment> {
+        private final Path path;
+        private final long startMillis;
+        private final long size;
+
+        ClosedSegment(Path path, long startMillis, long size) {
+            this.path = path;
+            this.startMillis = startMillis;
+            this.size = size;
+        }
+
+        @Override
+        public int compareTo(ClosedSegment other) {
+            return Long.compare(startMillis, other.startMillis);
+        }
+    }
+
+    /**
+     * 分段读取器
+     * 顺序读取一个分段文件中的记录，遇到时间戳为0或文件末尾时结束。
+     */
+    public static final class SegmentReader implements Closeable {
+
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final long createdMillis;
+        private long timestampNanos;
+        private int handle;
+        private int frameOffset;
+        private int frameLength;
+
+        private SegmentReader(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+            this.channel = channel;
+            this.buffer = buffer;
+            if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC) {
+                throw new IOException("不是归档分段文件");
+            }
+            int version = buffer.getShort() & 0xFFFF;
+            if (version != VERSION) {
+                throw new IOException("不支持的归档分段版本: " + version);
+            }
+            buffer.getShort();
+            this.createdMillis = buffer.getLong();
+        }
+
+        /**
+         * 打开分段文件
+         *
+         * @param path 分段文件
+         * @return 读取器
+         * @throws IOException 文件无法读取或格式错误
+         */
+        public static SegmentReader open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                return new SegmentReader(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * 读取下一条记录
+         *
+         * @return 没有更多记录时返回false
+         */
+        public boolean next() {
+            int position = buffer.position();
+            if (buffer.remaining() < RECORD_HEADER_LENGTH || buffer.getLong(position) == 0) {
+                return false;
+            }
+            int length = buffer.getShort(position + 12) & 0xFFFF;
+            if (buffer.remaining() < RECORD_HEADER_LENGTH + length) {
+                return false;
+            }
+            timestampNanos = buffer.getLong(position);
+            handle = buffer.getInt(position + 8);
+            frameOffset = position + RECORD_HEADER_LENGTH;
+            frameLength = length;
+            buffer.position(frameOffset + length);
+            return true;
+        }
+
+        public long getCreatedMillis() {
+            return createdMillis;
+        }
+
+        public long getTimestampNanos() {
+            return timestampNanos;
+        }
+
+        public int getHandle() {
+            return handle;
+        }
+
+        /**
+         * 当前记录帧数据在文件中的偏移
+         */
+        public int getFrameOffset() {
+            return frameOffset;
+        }
+
+        public int getFrameLength() {
+            return frameLength;
+        }
+
+        /**
+         * 复制当前记录的帧数据
+         *
+         * @return 帧数据
+         */
+        public byte[] getFrame() {
+            byte[] frame = new byte[frameLength];
+            ByteBuffer view = buffer.duplicate();
+            view.position(frameOffset);
+            view.get(frame);
+            return frame;
+        }
+
+        @Override
+        public void close() throws IOException {
+            PlatformDependent.freeDirectBuffer(buffer);
+            channel.close();
+        }
+    }
+}
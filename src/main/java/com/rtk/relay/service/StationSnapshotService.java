@@ -0,0 +1,455 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.rtcm.Rtcm3;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * 基站快照
+ * 按挂载点（热备组的挂载点，其他基站为IP地址）保存转发给移动站的基准站坐标、天线信息、星历（按卫星）等
+ * 非观测值消息的最新一份，以及最后一个完整的MSM观测历元；新接入的移动站先收到快照，不必等待基站重发1005和星历。
+ * 热备切换后数据来自另一个基站时，该挂载点的快照整体替换，不会把两个基站的坐标和星历混在一起发给移动站。
+ * <p>
+ * 快照定期和停止时写入检查点文件（先写临时文件再替换，末尾带CRC32校验），启动时恢复，
+ * 超过保留时间的消息在恢复和发送时丢弃，服务重启后重新接入的移动站同样可以立即收到可用的快照。
+ * <p>
+ * 检查点格式（大端）：魔数 "RTKS"、版本（u16）、保存时间毫秒（i64）、挂载点数（u16），
+ * 每个挂载点为：挂载点（UTF）、来源基站IP地址（UTF）、消息数（u16）、每条消息为类别（u8，0为非观测值、1为最后历元）、
+ * 接收时间毫秒（i64）、帧长度（u16）、帧数据；最后为之前所有字节的CRC32（u32）。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class StationSnapshotService {
+
+    private static final int MAGIC = 0x524B5453;
+    private static final int VERSION = 2;
+    private static final int KIND_STATIC = 0;
+    private static final int KIND_EPOCH = 1;
+
+    /**
+     * 一个历元最多记录的观测值消息数，防止缺少历元结束标志时无限增长
+     */
+    private static final int MAX_EPOCH_FRAMES = 64;
+
+    /**
+     * 快照配置
+     */
+    private final RtkProperties.SnapshotConfig config;
+
+    /**
+     * 基站热备切换管理器（确定基站所属的挂载点）
+     */
+    private final FailoverManager failoverManager;
+
+    /**
+     * 各挂载点的快照
+     */
+    private final Map<String, StationState> stations = new ConcurrentHashMap<>();
+
+    private final AtomicLong checkpoints = new AtomicLong();
+    private final AtomicLong checkpointFailures = new AtomicLong();
+    private volatile long lastCheckpointMillis;
+    private volatile int restoredStations;
+    private volatile int restoredFrames;
+    private volatile int discardedStaleFrames;
+
+    private Path file;
+    private volatile boolean enabled;
+    private ScheduledExecutorService checkpointer;
+
+    /**
+     * 构造函数
+     *
+     * @param rtkProperties RTK配置
+     * @param failoverManager 基站热备切换管理器
+     */
+    public StationSnapshotService(RtkProperties rtkProperties, FailoverManager failoverManager) {
+        this.config = rtkProperties.getSnapshot();
+        this.failoverManager = failoverManager;
+    }
+
+    /**
+     * 恢复检查点并启动定期保存
+     */
+    @PostConstruct
+    public void init() {
+        if (!config.isEnabled()) {
+            log.info("基站快照检查点未启用");
+            return;
+        }
+        file = Paths.get(config.getFile()).toAbsolutePath();
+        restore();
+        enabled = true;
+
+        checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rtk-snapshot-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int interval = Math.max(1, config.getCheckpointIntervalSeconds());
+        checkpointer.scheduleWithFixedDelay(this::checkpoint, interval, interval, TimeUnit.SECONDS);
+        log.info("基站快照检查点已启用 - 文件: {}, 间隔: {}秒, 恢复挂载点: {}个, 恢复消息: {}条, 过期丢弃: {}条",
+                file, interval, restoredStations, restoredFrames, discardedStaleFrames);
+    }
+
+    /**
+     * 记录一帧转发给移动站的数据（在Netty I/O线程上调用）
+     *
+     * @param remoteAddress 基站IP地址
+     * @param frame 帧数据，调用后不得修改
+     * @param messageType 消息编号
+     */
+    public void record(String remoteAddress, byte[] frame, int messageType) {
+        if (!enabled || messageType == Rtcm3.NOT_RTCM) {
+            return;
+        }
+        String mountpoint = failoverManager.mountpointOf(remoteAddress);
+        String key = mountpoint == null ? remoteAddress : mountpoint;
+        StationState state = stations.get(key);
+        if (state == null || !state.source.equals(remoteAddress)) {
+            // 新挂载点，或热备切换后数据来自另一个基站：旧基站的快照整体作废
+            state = stations.compute(key, (k, current) -> {
+                if (current != null && current.source.equals(remoteAddress)) {
+                    return current;
+                }
+                if (current != null) {
+                    log.info("基站快照来源变更，已替换 - 挂载点: {}, {} -> {}", k, current.source, remoteAddress);
+                }
+                return new StationState(remoteAddress);
+            });
+        }
+        state.record(frame, messageType, System.currentTimeMillis());
+    }
+
+    /**
+     * 获取新接入移动站的快照：各挂载点未过期的非观测值消息，以及（需要时）未过期的最后一个观测历元
+     *
+     * @param includeEpoch 是否包含最后一个观测历元（最近数据缓冲区为空时，如刚重启）
+     * @return 帧列表，未启用时为空
+     */
+    public List<byte[]> getJoinFrames(boolean includeEpoch) {
+        List<byte[]> frames = new ArrayList<>();
+        if (!enabled) {
+            return frames;
+        }
+        long now = System.currentTimeMillis();
+        long staticSince = now - TimeUnit.MINUTES.toMillis(config.getMaxAgeMinutes());
+        long epochSince = includeEpoch ? now - TimeUnit.SECONDS.toMillis(config.getEpochMaxAgeSeconds()) : Long.MAX_VALUE;
+        for (StationState state : stations.values()) {
+            state.collect(frames, staticSince, epochSince);
+        }
+        return frames;
+    }
+
+    /**
+     * 获取快照统计（用于监控）
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        if (file != null) {
+            status.put("file", file.toString());
+        }
+        List<Map<String, Object>> stationStatus = new ArrayList<>();
+        for (Map.Entry<String, StationState> entry : stations.entrySet()) {
+            Map<String, Object> station = entry.getValue().getStatus();
+            station.put("station", entry.getKey());
+            station.put("source", entry.getValue().source);
+            stationStatus.add(station);
+        }
+        status.put("stations", stationStatus);
+        status.put("checkpoints", checkpoints.get());
+        status.put("checkpointFailures", checkpointFailures.get());
+        status.put("lastCheckpointMillis", lastCheckpointMillis);
+        status.put("restoredStations", restoredStations);
+        status.put("restoredFrames", restoredFrames);
+        status.put("discardedStaleFrames", discardedStaleFrames);
+        return status;
+    }
+
+    /**
+     * 停止定期保存并写入最后一次检查点
+     */
+    @PreDestroy
+    public void destroy() {
+        if (!enabled) {
+            return;
+        }
+        checkpointer.shutdown();
+        try {
+            checkpointer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkpoint();
+        enabled = false;
+        log.info("基站快照检查点已保存 - 挂载点: {}个", stations.size());
+    }
+
+    /**
+     * 写入检查点：临时文件落盘后原子替换，写入中途退出不会破坏上一次的检查点
+     */
+    void checkpoint() {
+        try {
+            byte[] data = serialize(System.currentTimeMillis());
+            Path parent = file.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+                out.write(data);
+                out.getFD().sync();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpoints.incrementAndGet();
+            lastCheckpointMillis = System.currentTimeMillis();
+        } catch (IOException | RuntimeException e) {
+            checkpointFailures.incrementAndGet();
+            log.warn("保存基站快照检查点失败 - 文件: {}, 原因: {}", file, e.getMessage());
+        }
+    }
+
+    private byte[] serialize(long savedMillis) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        Map<String, StationState> snapshot = new LinkedHashMap<>(stations);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(savedMillis);
+        out.writeShort(snapshot.size());
+        for (Map.Entry<String, StationState> station : snapshot.entrySet()) {
+            List<Entry> entries = station.getValue().entries();
+            out.writeUTF(station.getKey());
+            out.writeUTF(station.getValue().source);
+            out.writeShort(entries.size());
+            for (Entry entry : entries) {
+                out.writeByte(entry.kind);
+                out.writeLong(entry.receivedMillis);
+                out.writeShort(entry.frame.length);
+                out.write(entry.frame);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 恢复检查点：校验失败的文件整体丢弃，过期的消息逐条丢弃
+     */
+    private void restore() {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            log.info("基站快照检查点不存在，从空快照开始: {}", file);
+            return;
+        } catch (IOException e) {
+            log.warn("读取基站快照检查点失败，从空快照开始: {}", e.getMessage());
+            return;
+        }
+        try {
+            if (data.length < 4) {
+                throw new IOException("文件过短");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, data.length - 4);
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            if ((int) crc.getValue() != buffer.getInt(data.length - 4)) {
+                throw new IOException("校验和不匹配");
+            }
+            if (buffer.getInt() != MAGIC || (buffer.getShort() & 0xFFFF) != VERSION) {
+                throw new IOException("格式或版本不匹配");
+            }
+            long savedMillis = buffer.getLong();
+            long now = System.currentTimeMillis();
+            long staticSince = now - TimeUnit.MINUTES.toMillis(config.getMaxAgeMinutes());
+            long epochSince = now - TimeUnit.SECONDS.toMillis(config.getEpochMaxAgeSeconds());
+            int stationCount = buffer.getShort() & 0xFFFF;
+            int restored = 0;
+            int stale = 0;
+            for (int i = 0; i < stationCount; i++) {
+                String station = readUtf(buffer);
+                String source = readUtf(buffer);
+                int count = buffer.getShort() & 0xFFFF;
+                StationState state = new StationState(source);
+                for (int j = 0; j < count; j++) {
+                    int kind = buffer.get();
+                    long receivedMillis = buffer.getLong();
+                    byte[] frame = new byte[buffer.getShort() & 0xFFFF];
+                    buffer.get(frame);
+                    int messageType = Rtcm3.messageType(frame);
+                    boolean valid = messageType != Rtcm3.NOT_RTCM
+                            && Rtcm3.crc24q(frame, 0, frame.length - Rtcm3.CRC_LENGTH)
+                            == Rtcm3.getBitU(frame, (frame.length - Rtcm3.CRC_LENGTH) * 8, 24);
+                    if (!valid || receivedMillis < (kind == KIND_EPOCH ? epochSince : staticSince)) {
+                        stale++;
+                        continue;
+                    }
+                    state.restore(kind, frame, messageType, receivedMillis);
+                    restored++;
+                }
+                if (!state.isEmpty()) {
+                    stations.put(station, state);
+                }
+            }
+            restoredStations = stations.size();
+            restoredFrames = restored;
+            discardedStaleFrames = stale;
+            log.info("基站快照检查点已恢复 - 保存于{}秒前", (now - savedMillis) / 1000);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            stations.clear();
+            log.warn("基站快照检查点无效，从空快照开始 - 文件: {}, 原因: {}", file, e.getMessage());
+        }
+    }
+
+    private static String readUtf(ByteBuffer buffer) {
+        byte[] utf = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(utf);
+        // 挂载点和IP地址为ASCII，修改版UTF-8与标准UTF-8在ASCII范围内一致
+        return new String(utf, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 快照中的一条消息
+     */
+    private static final class Entry {
+        private final int kind;
+        private final byte[] frame;
+        private final long receivedMillis;
+
+        Entry(int kind, byte[] frame, long receivedMillis) {
+            this.kind = kind;
+            this.frame = frame;
+            this.receivedMillis = receivedMillis;
+        }
+    }
+
+    /**
+     * 一个挂载点的快照
+     */
+    private static final class StationState {
+
+        /**
+         * 快照数据来源的基站IP地址
+         */
+        private final String source;
+
+        /**
+         * 非观测值消息，按快照键保留最新一份
+         */
+        private final Map<Integer, Entry> staticFrames = new LinkedHashMap<>();
+
+        /**
+         * 正在接收的历元
+         */
+        private List<Entry> building = new ArrayList<>();
+
+        /**
+         * 最后一个完整的历元
+         */
+        private List<Entry> lastEpoch = new ArrayList<>();
+
+        StationState(String source) {
+            this.source = source;
+        }
+
+        synchronized void record(byte[] frame, int messageType, long now) {
+            if (!Rtcm3.isObservation(messageType)) {
+                staticFrames.put(Rtcm3.snapshotKey(frame, messageType), new Entry(KIND_STATIC, frame, now));
+                return;
+            }
+            if (!Rtcm3.isMsm(messageType)) {
+                // 传统观测值消息没有统一的历元结束标志，不记录
+                return;
+            }
+            if (building.size() >= MAX_EPOCH_FRAMES) {
+                building = new ArrayList<>();
+            }
+            building.add(new Entry(KIND_EPOCH, frame, now));
+            if (!Rtcm3.msmMultipleMessage(frame)) {
+                lastEpoch = building;
+                building = new ArrayList<>();
+            }
+        }
+
+        synchronized void restore(int kind, byte[] frame, int messageType, long receivedMillis) {
+            if (kind == KIND_EPOCH) {
+                lastEpoch.add(new Entry(KIND_EPOCH, frame, receivedMillis));
+            } else {
+                staticFrames.put(Rtcm3.snapshotKey(frame, messageType), new Entry(KIND_STATIC, frame, receivedMillis));
+            }
+        }
+
+        synchronized void collect(List<byte[]> frames, long staticSince, long epochSince) {
+            for (Entry entry : staticFrames.values()) {
+                if (entry.receivedMillis >= staticSince) {
+                    frames.add(entry.frame);
+                }
+            }
+            if (!lastEpoch.isEmpty() && lastEpoch.get(lastEpoch.size() - 1).receivedMillis >= epochSince) {
+                for (Entry entry : lastEpoch) {
+                    frames.add(entry.frame);
+                }
+            }
+        }
+
+        synchronized List<Entry> entries() {
+            List<Entry> entries = new ArrayList<>(staticFrames.values());
+            entries.addAll(lastEpoch);
+            return entries;
+        }
+
+        synchronized boolean isEmpty() {
+            return staticFrames.isEmpty() && lastEpoch.isEmpty();
+        }
+
+        synchronized Map<String, Object> getStatus() {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("staticFrames", staticFrames.size());
+            status.put("epochFrames", lastEpoch.size());
+            long latest = 0;
+            for (Entry entry : staticFrames.values()) {
+                latest = Math.max(latest, entry.receivedMillis);
+            }
+            for (Entry entry : lastEpoch) {
+                latest = Math.max(latest, entry.receivedMillis);
+            }
+            status.put("lastUpdateMillis", latest);
+            return status;
+        }
+    }
+}
@@ -1,16 +1,23 @@
 package com.rtk.relay.service;
 
+import com.rtk.relay.config.LiveRelayConfig;
+import com.rtk.relay.config.RelayTuning;
 import com.rtk.relay.config.RtkProperties;
 import com.rtk.relay.exception.RtkRelayException;
 import com.rtk.relay.netty.BaseStationHandler;
+import com.rtk.relay.netty.EpochFlushHandler;
+import com.rtk.relay.netty.HeartbeatHandler;
 import com.rtk.relay.netty.MobileStationHandler;
+import com.rtk.relay.netty.PriorityLaneHandler;
+import com.rtk.relay.netty.Rtcm3FrameDecoder;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.handler.traffic.GlobalChannelTrafficShapingHandler;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
@@ -41,8 +48,37 @@ public class TcpServerService {
     /**
      * 数据转发服务
      */
-    @Autowired
-    private DataRelayService dataRelayService;
+    private final DataRelayService dataRelayService;
+
+    /**
+     * 移动站订阅服务
+     */
+    private final RoverSubscriptionService roverSubscriptionService;
+
+    /**
+     * 移动站新连接接纳控制服务
+     */
+    private final ConnectionAdmissionService admissionService;
+
+    /**
+     * 运行时转发参数（心跳间隔）
+     */
+    private final LiveRelayConfig liveRelayConfig;
+
+    /**
+     * 发送流量整形与配额
+     */
+    private final TrafficShapingService trafficShapingService;
+
+    /**
+     * 移动站心跳处理器（无状态，所有通道共用）
+     */
+    private final HeartbeatHandler heartbeatHandler;
+
+    /**
+     * 已应用到移动站通道的心跳间隔（秒），只在参数变更通知中访问
+     */
+    private int appliedHeartbeatInterval;
 
     /**
      * Server1的Boss事件循环组
@@ -79,11 +115,45 @@ public class TcpServerService {
      * 
      * @param rtkProperties RTK配置
      * @param connectionManager 连接管理器
+     * @param dataRelayService 数据转发服务
+     * @param roverSubscriptionService 移动站订阅服务
+     * @param admissionService 移动站新连接接纳控制服务
+     * @param liveRelayConfig 运行时转发参数
+     * @param trafficShapingService 发送流量整形与配额
      */
     public TcpServerService(RtkProperties rtkProperties, 
-                           ConnectionManager connectionManager) {
+                           ConnectionManager connectionManager,
+                           DataRelayService dataRelayService,
+                           RoverSubscriptionService roverSubscriptionService,
+                           ConnectionAdmissionService admissionService,
+                           LiveRelayConfig liveRelayConfig,
+                           TrafficShapingService trafficShapingService) {
         this.rtkProperties = rtkProperties;
         this.connectionManager = connectionManager;
+        this.dataRelayService = dataRelayService;
+        this.roverSubscriptionService = roverSubscriptionService;
+        this.admissionService = admissionService;
+        this.liveRelayConfig = liveRelayConfig;
+        this.trafficShapingService = trafficShapingService;
+        this.heartbeatHandler = new HeartbeatHandler(liveRelayConfig);
+        this.appliedHeartbeatInterval = liveRelayConfig.current().getHeartbeatInterval();
+        liveRelayConfig.addListener(this::onTuningChanged);
+    }
+
+    /**
+     * 心跳间隔变化时，在各移动站通道的事件循环中调整写空闲检测
+     */
+    private synchronized void onTuningChanged(RelayTuning tuning) {
+        int heartbeatInterval = tuning.getHeartbeatInterval();
+        if (heartbeatInterval == appliedHeartbeatInterval) {
+            return;
+        }
+        appliedHeartbeatInterval = heartbeatInterval;
+        Channel[] channels = connectionManager.getMobileStationChannels();
+        for (Channel channel : channels) {
+            channel.eventLoop().execute(() -> HeartbeatHandler.applyInterval(channel.pipeline(), heartbeatInterval));
+        }
+        log.info("移动站心跳间隔已调整 - 间隔: {}秒, 移动站: {}个", heartbeatInterval, channels.length);
     }
     
     /**
@@ -146,6 +216,9 @@ public class TcpServerService {
                             // 移除空闲状态处理器 - 不再自动断开连接
                             // pipeline.addLast(new ChannelInboundHandlerAdapter() {...}); // 已移除
 
+                            // 按RTCM 3帧切分基站数据流
+                            pipeline.addLast(new Rtcm3FrameDecoder());
+
                             // 添加基站数据处理器
                             pipeline.addLast(new BaseStationHandler(connectionManager, dataRelayService));
                         }
@@ -169,6 +242,11 @@ public class TcpServerService {
     private void startServer2() {
         server2BossGroup = new NioEventLoopGroup(1);
         server2WorkerGroup = new NioEventLoopGroup();
+        boolean admissionEnabled = admissionService.isEnabled();
+        GlobalChannelTrafficShapingHandler channelShaper = trafficShapingService.newChannelShaper(server2WorkerGroup);
+        boolean epochBatching = rtkProperties.getServer2().isEpochBatching();
+        long flushBudgetUs = rtkProperties.getServer2().getFlushBudgetUs();
+        boolean priorityLanes = rtkProperties.getServer2().isPriorityLanes();
         
         try {
             ServerBootstrap bootstrap = new ServerBootstrap();
@@ -190,6 +268,18 @@ public class TcpServerService {
                     .childHandler(new ChannelInitializer<SocketChannel>() {
                         @Override
                         protected void initChannel(SocketChannel ch) {
+                            // 新连接接纳控制：在建立管道之前判断，被拒绝的连接直接关闭，不添加任何处理器
+                            if (admissionEnabled && admissionService.admit(ch.remoteAddress().getAddress())
+                                    != ConnectionAdmissionService.Decision.ACCEPT) {
+                                // 重连风暴时拒绝量很大，只在调试级别逐条记录，汇总见接纳控制统计
+                                if (log.isDebugEnabled()) {
+                                    log.debug("拒绝移动站新连接 - 远程地址: {}:{}",
+                                            ch.remoteAddress().getAddress().getHostAddress(), ch.remoteAddress().getPort());
+                                }
+                                ch.close();
+                                return;
+                            }
+
                             ChannelPipeline pipeline = ch.pipeline();
                             
                             // 移除空闲状态检测 - 保持连接常开
@@ -198,8 +288,31 @@ public class TcpServerService {
                             // 移除空闲状态处理器 - 不再自动断开连接
                             // pipeline.addLast(new ChannelInboundHandlerAdapter() {...}); // 已移除
 
+                            // 全局与单移动站发送整形：位于发送优先级处理器之后（靠近套接字），
+                            // 整形排队过长时通道不可写，后续数据由优先级处理器合并
+                            if (channelShaper != null) {
+                                pipeline.addLast(channelShaper);
+                            }
+
+                            // 写空闲检测：只有超过心跳间隔没有写出数据的移动站才发送心跳
+                            // （写空闲时间即心跳间隔，可运行时调整；0为不发送，不添加空闲检测）
+                            heartbeatHandler.install(pipeline);
+
+                            // 按历元批量发送：合并同一事件循环批次内的flush，并为未结束历元的写入设置刷新时限
+                            if (epochBatching) {
+                                pipeline.addLast(new FlushConsolidationHandler(
+                                        FlushConsolidationHandler.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES, true));
+                                pipeline.addLast(new EpochFlushHandler(flushBudgetUs));
+                            }
+
+                            // 发送优先级：拥塞时按消息类别排队合并，需位于其他出站处理器之前接收转发数据
+                            if (priorityLanes) {
+                                pipeline.addLast(new PriorityLaneHandler());
+                            }
+
                             // 添加移动站数据处理器
-                            pipeline.addLast(new MobileStationHandler(connectionManager, dataRelayService));
+                            pipeline.addLast(new MobileStationHandler(connectionManager, dataRelayService,
+                                    roverSubscriptionService));
                         }
                     });
             
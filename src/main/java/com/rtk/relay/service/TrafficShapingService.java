@@ -0,0 +1,481 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.entity.QuotaAccount;
+import com.rtk.relay.exception.RtkRelayException;
+import com.rtk.relay.rtcm.Rtcm3;
+import io.netty.handler.traffic.GlobalChannelTrafficShapingHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server2发送流量整形与配额
+ * 分三层限制移动站方向的上行带宽，任何一个基站或移动站都不能占满出口：
+ * <ul>
+ *     <li>全局与单通道速率：Server2管道中的 {@link GlobalChannelTrafficShapingHandler}，
+ *     超速的写入延后发送；预计等待超过 max-write-delay-ms 时通道标记为不可写，
+ *     后续数据由发送优先级处理器按类别合并，只保留最新一份</li>
+ *     <li>挂载点速率：每个挂载点（热备组或单个基站）一个令牌桶，按转发给每个移动站的数据量计；
+ *     超出时在历元开始处整历元丢弃观测值，不排队（排队后的历元到达时已经过时），坐标、星历等消息始终转发</li>
+ *     <li>每日配额：按移动站IP地址计，转发线程累加分段计数器，汇总线程定期并入当日用量，
+ *     用完后当天不再向该地址的移动站转发数据（连接和心跳保持）</li>
+ * </ul>
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class TrafficShapingService {
+
+    /**
+     * 配额文件中记录日期的键
+     */
+    private static final String QUOTA_DATE_KEY = "date";
+
+    /**
+     * 整形配置
+     */
+    private final RtkProperties.ShapingConfig config;
+
+    /**
+     * 基站热备切换管理器（热备组内的基站共用挂载点的速率上限）
+     */
+    private final FailoverManager failoverManager;
+
+    /**
+     * 单独配置的挂载点速率上限
+     */
+    private final Map<String, Long> mountpointRates = new HashMap<>();
+
+    /**
+     * 基站IP地址 -> 所属挂载点的限速器
+     */
+    private final ConcurrentHashMap<String, MountpointLimiter> limitersByStation = new ConcurrentHashMap<>();
+
+    /**
+     * 挂载点 -> 限速器
+     */
+    private final ConcurrentHashMap<String, MountpointLimiter> limitersByMountpoint = new ConcurrentHashMap<>();
+
+    /**
+     * 移动站IP地址 -> 配额账户
+     */
+    private final ConcurrentHashMap<String, QuotaAccount> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * 从配额文件恢复、尚未建立账户的当日用量
+     */
+    private final ConcurrentHashMap<String, Long> restoredUsage = new ConcurrentHashMap<>();
+
+    /**
+     * 是否限制挂载点速率
+     */
+    private final boolean mountpointLimited;
+
+    /**
+     * 当前配额日期（只由汇总线程写入）
+     */
+    private volatile LocalDate quotaDay = LocalDate.now();
+
+    private Path quotaFile;
+    private ScheduledExecutorService quotaFlusher;
+    private volatile GlobalChannelTrafficShapingHandler channelShaper;
+
+    /**
+     * 构造函数
+     *
+     * @param rtkProperties RTK配置
+     * @param failoverManager 基站热备切换管理器
+     */
+    public TrafficShapingService(RtkProperties rtkProperties, FailoverManager failoverManager) {
+        this.config = rtkProperties.getServer2().getShaping();
+        this.failoverManager = failoverManager;
+        for (RtkProperties.MountpointLimit limit : config.getMountpointLimits()) {
+            if (limit.getMountpoint() == null || limit.getMountpoint().trim().isEmpty()) {
+                throw new RtkRelayException("INVALID_SHAPING_CONFIG", "挂载点速率上限缺少挂载点名称");
+            }
+            mountpointRates.put(limit.getMountpoint().trim(), Math.max(0, limit.getByteRate()));
+        }
+        boolean anyMountpointRate = config.getMountpointByteRate() > 0;
+        for (long rate : mountpointRates.values()) {
+            anyMountpointRate |= rate > 0;
+        }
+        this.mountpointLimited = config.isEnabled() && anyMountpointRate;
+    }
+
+    /**
+     * 恢复当日配额用量并启动定期汇总
+     */
+    @PostConstruct
+    public void init() {
+        if (!config.isEnabled()) {
+            log.info("发送流量整形未启用");
+            return;
+        }
+        if (config.getQuotaFile() != null && !config.getQuotaFile().trim().isEmpty()) {
+            quotaFile = Paths.get(config.getQuotaFile().trim()).toAbsolutePath();
+            restoreQuotas();
+        }
+        quotaFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rtk-quota-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int interval = Math.max(1, config.getQuotaFlushSeconds());
+        quotaFlusher.scheduleWithFixedDelay(this::flushQuotas, interval, interval, TimeUnit.SECONDS);
+        log.info("发送流量整形已启用 - 全局: {}, 单移动站: {}, 挂载点: {}, 单独配置挂载点: {}个, 配额汇总间隔: {}秒",
+                rate(config.getGlobalByteRate()), rate(config.getChannelByteRate()),
+                rate(config.getMountpointByteRate()), mountpointRates.size(), interval);
+    }
+
+    /**
+     * 是否对移动站通道整形（写入可能被延后发送）
+     *
+     * @return 是否整形
+     */
+    public boolean isShapingChannels() {
+        return config.isEnabled() && (config.getGlobalByteRate() > 0 || config.getChannelByteRate() > 0);
+    }
+
+    /**
+     * 创建Server2管道共用的全局与单通道整形处理器
+     *
+     * @param executor 整形计时使用的执行器（Server2的事件循环组）
+     * @return 整形处理器，未启用通道整形时返回null
+     */
+    public GlobalChannelTrafficShapingHandler newChannelShaper(ScheduledExecutorService executor) {
+        if (!isShapingChannels()) {
+            return null;
+        }
+        GlobalChannelTrafficShapingHandler shaper = new GlobalChannelTrafficShapingHandler(executor,
+                config.getGlobalByteRate(), 0, config.getChannelByteRate(), 0, Math.max(10, config.getCheckIntervalMs()));
+        shaper.setMaxWriteDelay(Math.max(1, config.getMaxWriteDelayMs()));
+        channelShaper = shaper;
+        return shaper;
+    }
+
+    /**
+     * 判断基站的一帧数据是否转发给移动站（挂载点速率上限，在基站I/O线程上调用）
+     *
+     * @param station 基站IP地址
+     * @param frame 帧数据
+     * @param messageType 消息编号
+     * @return 是否转发
+     */
+    public boolean admitToRovers(String station, byte[] frame, int messageType) {
+        if (!mountpointLimited) {
+            return true;
+        }
+        MountpointLimiter limiter = limitersByStation.get(station);
+        if (limiter == null) {
+            limiter = limitersByStation.computeIfAbsent(station, this::newLimiter);
+        }
+        return limiter.admit(frame, messageType, System.nanoTime());
+    }
+
+    /**
+     * 获取（必要时创建）移动站IP地址的每日配额账户
+     *
+     * @param address 移动站IP地址
+     * @param dailyQuotaMb 每日配额（MB），0表示不限制
+     * @return 配额账户，不限制时返回null
+     */
+    public QuotaAccount quotaAccount(String address, long dailyQuotaMb) {
+        if (!config.isEnabled() || dailyQuotaMb <= 0 || address == null) {
+            return null;
+        }
+        return accounts.computeIfAbsent(address, key -> {
+            QuotaAccount account = new QuotaAccount(key, dailyQuotaMb * 1024 * 1024);
+            Long restored = restoredUsage.remove(key);
+            if (restored != null) {
+                account.reset(restored);
+            }
+            return account;
+        });
+    }
+
+    /**
+     * 汇总各账户的当日用量，跨日时清零，并保存配额文件
+     */
+    void flushQuotas() {
+        try {
+            flushQuotas(LocalDate.now());
+        } catch (RuntimeException e) {
+            log.warn("汇总流量配额失败: {}", e.getMessage());
+        }
+    }
+
+    void flushQuotas(LocalDate today) {
+        if (!today.equals(quotaDay)) {
+            for (QuotaAccount account : accounts.values()) {
+                account.reset(0);
+            }
+            restoredUsage.clear();
+            log.info("流量配额已按新的一天清零 - 日期: {}, 账户: {}个", today, accounts.size());
+            quotaDay = today;
+        }
+        int exhausted = 0;
+        for (QuotaAccount account : accounts.values()) {
+            boolean before = account.getUsedBytes() >= account.getLimitBytes();
+            if (account.flush() >= account.getLimitBytes()) {
+                exhausted++;
+                if (!before) {
+                    log.warn("移动站当日流量配额已用完，停止转发至次日 - 地址: {}, 用量: {} 字节, 配额: {} 字节",
+                            account.getAddress(), account.getUsedBytes(), account.getLimitBytes());
+                }
+            }
+        }
+        if (quotaFile != null && (!accounts.isEmpty() || !restoredUsage.isEmpty())) {
+            saveQuotas();
+        }
+        log.debug("流量配额汇总完成 - 账户: {}个, 已用完: {}个", accounts.size(), exhausted);
+    }
+
+    /**
+     * 获取整形与配额统计（用于监控）
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", config.isEnabled());
+        status.put("globalByteRate", config.getGlobalByteRate());
+        status.put("channelByteRate", config.getChannelByteRate());
+        status.put("mountpointByteRate", config.getMountpointByteRate());
+
+        GlobalChannelTrafficShapingHandler shaper = channelShaper;
+        if (shaper != null) {
+            Map<String, Object> channels = new LinkedHashMap<>();
+            channels.put("writeThroughput", shaper.trafficCounter().lastWriteThroughput());
+            channels.put("cumulativeWrittenBytes", shaper.trafficCounter().cumulativeWrittenBytes());
+            channels.put("queuedBytes", shaper.queuesSize());
+            channels.put("shapedChannels", shaper.channelTrafficCounters().size());
+            status.put("channelShaper", channels);
+        }
+
+        List<Map<String, Object>> mountpoints = new ArrayList<>();
+        for (MountpointLimiter limiter : limitersByMountpoint.values()) {
+            mountpoints.add(limiter.getStatus());
+        }
+        status.put("mountpoints", mountpoints);
+
+        List<Map<String, Object>> quotas = new ArrayList<>();
+        for (QuotaAccount account : accounts.values()) {
+            Map<String, Object> quota = new LinkedHashMap<>();
+            quota.put("address", account.getAddress());
+            quota.put("limitBytes", account.getLimitBytes());
+            quota.put("usedBytes", account.getUsedBytes());
+            quota.put("exhausted", account.isExhausted());
+            quotas.add(quota);
+        }
+        status.put("quotaDay", quotaDay.toString());
+        status.put("quotas", quotas);
+        return status;
+    }
+
+    /**
+     * 停止汇总并保存最后一次用量
+     */
+    @PreDestroy
+    public void destroy() {
+        if (quotaFlusher != null) {
+            quotaFlusher.shutdownNow();
+            flushQuotas();
+        }
+        GlobalChannelTrafficShapingHandler shaper = channelShaper;
+        if (shaper != null) {
+            shaper.release();
+        }
+    }
+
+    /**
+     * 热备组内的基站使用组的挂载点，其他基站以IP地址为挂载点
+     */
+    private MountpointLimiter newLimiter(String station) {
+        String mountpoint = failoverManager.mountpointOf(station);
+        String key = mountpoint != null ? mountpoint : station;
+        return limitersByMountpoint.computeIfAbsent(key, k -> {
+            Long rate = mountpointRates.get(k);
+            return new MountpointLimiter(k, rate != null ? rate : config.getMountpointByteRate());
+        });
+    }
+
+    /**
+     * 保存当日用量：临时文件落盘后原子替换
+     */
+    private void saveQuotas() {
+        Properties properties = new Properties();
+        properties.setProperty(QUOTA_DATE_KEY, quotaDay.toString());
+        for (Map.Entry<String, Long> entry : restoredUsage.entrySet()) {
+            properties.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        for (QuotaAccount account : accounts.values()) {
+            properties.setProperty(account.getAddress(), String.valueOf(account.getUsedBytes()));
+        }
+        try {
+            Path parent = quotaFile.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = quotaFile.resolveSibling(quotaFile.getFileName() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+                properties.store(out, "RTK relay daily quota usage (bytes)");
+                out.getFD().sync();
+            }
+            Files.move(temp, quotaFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("保存流量配额用量失败 - 文件: {}, 原因: {}", quotaFile, e.getMessage());
+        }
+    }
+
+    /**
+     * 恢复当日用量，文件不是当天的则忽略
+     */
+    private void restoreQuotas() {
+        if (!Files.exists(quotaFile)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(quotaFile, StandardCharsets.ISO_8859_1)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            log.warn("读取流量配额用量失败，从零开始计 - 文件: {}, 原因: {}", quotaFile, e.getMessage());
+            return;
+        }
+        if (!quotaDay.toString().equals(properties.getProperty(QUOTA_DATE_KEY))) {
+            log.info("流量配额用量文件不是当天的，从零开始计 - 文件: {}", quotaFile);
+            return;
+        }
+        for (String address : properties.stringPropertyNames()) {
+            if (QUOTA_DATE_KEY.equals(address)) {
+                continue;
+            }
+            try {
+                restoredUsage.put(address, Long.parseLong(properties.getProperty(address).trim()));
+            } catch (NumberFormatException e) {
+                log.warn("忽略无效的流量配额用量 - 地址: {}, 值: {}", address, properties.getProperty(address));
+            }
+        }
+        log.info("已恢复当日流量配额用量 - 地址: {}个", restoredUsage.size());
+    }
+
+    private static String rate(long byteRate) {
+        return byteRate > 0 ? byteRate + "B/s" : "不限";
+    }
+
+    /**
+     * 挂载点限速器
+     * 令牌桶容量为一秒的速率；历元第一条MSM消息到达时桶内有余量则整历元转发（允许透支），否则整历元丢弃，
+     * 透支在之后的历元中偿还，长期转发速率不超过上限。坐标、星历等消息始终转发，同样计入用量。
+     * 多电文标志为0的MSM消息结束历元；结束消息丢失时，同一卫星系统的历元时间变化也开始新历元，
+     * 新历元重新判断，不沿用上一历元的结果。
+     */
+    static final class MountpointLimiter {
+
+        private final String mountpoint;
+        private final long byteRate;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefillNanos;
+        private boolean inEpoch;
+        private boolean admitting = true;
+
+        /**
+         * 当前历元各卫星系统的历元时间（-1为本历元尚未收到该系统的消息）
+         */
+        private final int[] epochTimes = new int[Rtcm3.MSM_SYSTEM_COUNT];
+
+        private long forwardedBytes;
+        private long forwardedEpochs;
+        private long droppedBytes;
+        private long droppedEpochs;
+
+        MountpointLimiter(String mountpoint, long byteRate) {
+            this.mountpoint = mountpoint;
+            this.byteRate = byteRate;
+            this.tokensPerNano = (double) byteRate / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = byteRate;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        synchronized boolean admit(byte[] frame, int messageType, long now) {
+            if (Rtcm3.isMsm(messageType)) {
+                int system = Rtcm3.msmSystem(messageType);
+                int epochTime = Rtcm3.msmEpochTime(frame);
+                // 上一历元的结束消息丢失
+                if (inEpoch && epochTimes[system] != -1 && epochTimes[system] != epochTime) {
+                    inEpoch = false;
+                }
+                if (!inEpoch) {
+                    inEpoch = true;
+                    Arrays.fill(epochTimes, -1);
+                    refill(now);
+                    admitting = byteRate <= 0 || tokens > 0;
+                    if (admitting) {
+                        forwardedEpochs++;
+                    } else {
+                        droppedEpochs++;
+                    }
+                }
+                epochTimes[system] = epochTime;
+                // 多电文标志为0的MSM消息结束当前历元
+                if (!Rtcm3.msmMultipleMessage(frame)) {
+                    inEpoch = false;
+                }
+                if (!admitting) {
+                    droppedBytes += frame.length;
+                    return false;
+                }
+            }
+            if (byteRate > 0) {
+                refill(now);
+                tokens -= frame.length;
+            }
+            forwardedBytes += frame.length;
+            return true;
+        }
+
+        synchronized Map<String, Object> getStatus() {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("mountpoint", mountpoint);
+            status.put("byteRate", byteRate);
+            status.put("forwardedBytes", forwardedBytes);
+            status.put("forwardedEpochs", forwardedEpochs);
+            status.put("droppedBytes", droppedBytes);
+            status.put("droppedEpochs", droppedEpochs);
+            return status;
+        }
+
+        private void refill(long now) {
+            long elapsed = now - lastRefillNanos;
+            if (elapsed > 0) {
+                tokens = Math.min(byteRate, tokens + elapsed * tokensPerNano);
+                lastRefillNanos = now;
+            }
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.rtk.relay.util;
 
-import cn.hutool.core.util.IdUtil;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 连接ID生成器工具类
@@ -19,7 +19,7 @@ public class ConnectionIdGenerator {
      * @return 连接ID
      */
     public static String generateBaseStationId(String remoteAddress, int remotePort) {
-        return "BASE_" + remoteAddress.replace(".", "_") + "_" + remotePort + "_" + IdUtil.fastSimpleUUID().substring(0, 8);
+        return "BASE_" + remoteAddress.replace(".", "_") + "_" + remotePort + "_" + randomSuffix();
     }
     
     /**
@@ -30,7 +30,7 @@ public class ConnectionIdGenerator {
      * @return 连接ID
      */
     public static String generateMobileStationId(String remoteAddress, int remotePort) {
-        return "MOBILE_" + remoteAddress.replace(".", "_") + "_" + remotePort + "_" + IdUtil.fastSimpleUUID().substring(0, 8);
+        return "MOBILE_" + remoteAddress.replace(".", "_") + "_" + remotePort + "_" + randomSuffix();
     }
     
     /**
@@ -42,6 +42,14 @@ public class ConnectionIdGenerator {
      * @return 连接ID
      */
     public static String generateConnectionId(String prefix, String remoteAddress, int remotePort) {
-        return prefix + "_" + remoteAddress.replace(".", "_") + "_" + remotePort + "_" + IdUtil.fastSimpleUUID().substring(0, 8);
+        return prefix + "_" + remoteAddress.replace(".", "_") + "_" + remotePort + "_" + randomSuffix();
+    }
+    
+    /**
+     * 8位随机十六进制后缀（不依赖Hutool，精简模式下类路径中没有Hutool）
+     */
+    private static String randomSuffix() {
+        String hex = Integer.toHexString(ThreadLocalRandom.current().nextInt());
+        return "00000000".substring(hex.length()) + hex;
     }
 }
@@ -0,0 +1,111 @@
+package com.rtk.relay;
+
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.rtcm.MsmForm;
+import com.rtk.relay.rtcm.RtcmWorkload;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 精简模式测试：properties配置绑定、不经Spring容器启动转发链路
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class HeadlessRelayApplicationTest {
+
+    @Test
+    void bindsPropertiesLikeApplicationYml() {
+        Properties config = new Properties();
+        config.setProperty("rtk.server1.port", "19003");
+        config.setProperty("rtk.server2.max-connections", "200");
+        config.setProperty("rtk.server2.epochBatching", "true");
+        config.setProperty("rtk.server2.admission.per-ip-rate", "0.5");
+        config.setProperty("rtk.server2.subscriptions[1].address", "192.168.1.201");
+        config.setProperty("rtk.server2.subscriptions[1].allow-types", "1005, 1019,1074");
+        config.setProperty("rtk.server2.subscriptions[1].msm-form", "msm4");
+        config.setProperty("rtk.failover.groups[0].backups", "10.0.0.2,10.0.0.3");
+        config.setProperty("logging.level.com.rtk", "DEBUG");
+
+        RtkProperties properties = HeadlessRelayApplication.bind(config);
+        assertEquals(19003, properties.getServer1().getPort());
+        assertEquals(200, properties.getServer2().getMaxConnections());
+        assertTrue(properties.getServer2().isEpochBatching());
+        assertEquals(0.5, properties.getServer2().getAdmission().getPerIpRate());
+        List<RtkProperties.SubscriptionRule> rules = properties.getServer2().getSubscriptions();
+        assertEquals(2, rules.size());
+        assertEquals("192.168.1.201", rules.get(1).getAddress());
+        assertEquals(Arrays.asList(1005, 1019, 1074), rules.get(1).getAllowTypes());
+        assertEquals(MsmForm.MSM4, rules.get(1).getMsmForm());
+        assertEquals(Arrays.asList("10.0.0.2", "10.0.0.3"), properties.getFailover().getGroups().get(0).getBackups());
+        // 未配置的项保持默认值
+        assertEquals(9002, properties.getServer2().getPort());
+
+        Properties unknown = new Properties();
+        unknown.setProperty("rtk.server2.max-conections", "200");
+        assertThrows(IllegalArgumentException.class, () -> HeadlessRelayApplication.bind(unknown));
+        Properties invalid = new Properties();
+        invalid.setProperty("rtk.server2.priority-lanes", "yes");
+        assertThrows(IllegalArgumentException.class, () -> HeadlessRelayApplication.bind(invalid));
+    }
+
+    @Test
+    void relaysWithoutSpringContext() throws IOException, InterruptedException {
+        Properties config = new Properties();
+        config.setProperty("rtk.server1.port", String.valueOf(freePort()));
+        config.setProperty("rtk.server2.port", String.valueOf(freePort()));
+        RtkProperties properties = HeadlessRelayApplication.bind(config);
+
+        HeadlessRelayApplication application = new HeadlessRelayApplication();
+        application.start(properties);
+        try {
+            assertTrue(application.getTcpServerService().isServerRunning());
+            List<byte[]> frames = RtcmWorkload.frames(5, 31);
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            for (byte[] frame : frames) {
+                expected.write(frame);
+            }
+            try (Socket rover = new Socket("127.0.0.1", properties.getServer2().getPort());
+                 Socket base = new Socket("127.0.0.1", properties.getServer1().getPort())) {
+                rover.setSoTimeout(10_000);
+                // 等待两端连接注册完成
+                Thread.sleep(500);
+                base.getOutputStream().write(expected.toByteArray());
+                base.getOutputStream().flush();
+
+                byte[] received = new byte[expected.size()];
+                InputStream in = rover.getInputStream();
+                int offset = 0;
+                while (offset < received.length) {
+                    int read = in.read(received, offset, received.length - offset);
+                    assertTrue(read > 0, "连接已关闭");
+                    offset += read;
+                }
+                assertArrayEquals(expected.toByteArray(), received);
+            }
+        } finally {
+            application.stop();
+        }
+        assertFalse(application.getTcpServerService().isServerRunning());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            return probe.getLocalPort();
+        }
+    }
+}
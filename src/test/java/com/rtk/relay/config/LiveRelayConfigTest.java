@@ -0,0 +1,144 @@
+package com.rtk.relay.config;
+
+import com.rtk.relay.exception.RtkRelayException;
+import com.rtk.relay.service.LiveConfigWatcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 运行时转发参数测试：整组原子生效、无效修改不生效、参数文件监视、缓冲区上限即时生效
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class LiveRelayConfigTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appliesChangesAsOneVersion() {
+        LiveRelayConfig config = new LiveRelayConfig(new RtkProperties());
+        List<RelayTuning> notified = new ArrayList<>();
+        config.addListener(notified::add);
+        RelayTuning initial = config.current();
+        assertEquals(1, initial.getVersion());
+        assertEquals(10, initial.getMaxConnections());
+        assertEquals(300_000, initial.getBufferMaxAgeMs());
+
+        Map<String, Object> changes = new HashMap<>();
+        changes.put(RelayTuning.MAX_CONNECTIONS, 500);
+        changes.put(RelayTuning.HEARTBEAT_INTERVAL, "5");
+        RelayTuning updated = config.update(changes, "api");
+        assertEquals(2, updated.getVersion());
+        assertEquals(500, updated.getMaxConnections());
+        assertEquals(5, updated.getHeartbeatInterval());
+        assertEquals(initial.getSendTimeoutMs(), updated.getSendTimeoutMs());
+        // 旧快照不受影响
+        assertEquals(10, initial.getMaxConnections());
+        assertEquals(Collections.singletonList(updated), notified);
+
+        // 一组修改中有一个无效时整组不生效
+        Map<String, Object> invalid = new HashMap<>();
+        invalid.put(RelayTuning.MAX_CONNECTIONS, 20);
+        invalid.put(RelayTuning.SEND_TIMEOUT_MS, 0);
+        assertThrows(RtkRelayException.class, () -> config.update(invalid, "api"));
+        Map<String, Object> unknown = new HashMap<>();
+        unknown.put("buffer-size", 8192);
+        assertThrows(RtkRelayException.class, () -> config.update(unknown, "api"));
+        Map<String, Object> notNumber = new HashMap<>();
+        notNumber.put(RelayTuning.BUFFER_MAX_ENTRIES, "many");
+        assertThrows(RtkRelayException.class, () -> config.update(notNumber, "api"));
+        assertEquals(updated, config.current());
+        assertEquals(1, notified.size());
+    }
+
+    @Test
+    void dataBufferFollowsLiveLimits() {
+        LiveRelayConfig config = new LiveRelayConfig(new RtkProperties());
+        RtkDataBuffer buffer = new RtkDataBuffer(config);
+        for (int i = 0; i < 50; i++) {
+            buffer.addData(new byte[100]);
+        }
+        assertEquals(50, buffer.getBufferSize());
+
+        config.update(singleton(RelayTuning.BUFFER_MAX_ENTRIES, 10), "api");
+        buffer.addData(new byte[100]);
+        assertEquals(10, buffer.getBufferSize());
+
+        config.update(singleton(RelayTuning.BUFFER_MAX_BYTES, 2048), "api");
+        for (int i = 0; i < 5; i++) {
+            buffer.addData(new byte[1000]);
+        }
+        assertTrue(buffer.getMemoryUsage() <= 2048, "缓冲区内存超过上限: " + buffer.getMemoryUsage());
+    }
+
+    @Test
+    void watcherAppliesReplacedFile() throws Exception {
+        Path file = directory.resolve("live-relay.properties");
+        write(file, "max-connections=50\n");
+
+        RtkProperties properties = new RtkProperties();
+        properties.getRelay().setLiveConfigFile(file.toString());
+        LiveRelayConfig config = new LiveRelayConfig(properties);
+        LiveConfigWatcher watcher = new LiveConfigWatcher(properties, config);
+        watcher.init();
+        try {
+            // 启动时读取已有文件
+            assertEquals(50, config.current().getMaxConnections());
+
+            // 先写临时文件再改名（编辑器和配置管理工具的常见写法）
+            Path temp = directory.resolve("live-relay.properties.tmp");
+            write(temp, "max-connections=80\nheartbeat-interval=3\n");
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            awaitMaxConnections(config, 80);
+            assertEquals(3, config.current().getHeartbeatInterval());
+
+            // 无效文件不生效，保持当前参数
+            long version = config.current().getVersion();
+            write(file, "max-connections=80\nsync-relay-threshold=-1\n");
+            long deadline = System.currentTimeMillis() + 15_000;
+            while ((Long) watcher.getStatus().get("rejectedReloads") == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(1L, watcher.getStatus().get("rejectedReloads"));
+            assertEquals(version, config.current().getVersion());
+        } finally {
+            watcher.destroy();
+        }
+    }
+
+    private static void awaitMaxConnections(LiveRelayConfig config, int expected) throws InterruptedException {
+        // WatchService在部分平台上是轮询实现，事件可能延迟数秒
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (config.current().getMaxConnections() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, config.current().getMaxConnections());
+    }
+
+    private static Map<String, Object> singleton(String key, Object value) {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put(key, value);
+        return changes;
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
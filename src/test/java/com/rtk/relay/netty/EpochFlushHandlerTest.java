@@ -0,0 +1,77 @@
+package com.rtk.relay.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 历元刷新时限测试：未刷新的写入到期自动刷新，显式刷新后下一批写入重新计时
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class EpochFlushHandlerTest {
+
+    private static final long BUDGET_US = 20_000;
+
+    @Test
+    void flushesHeldWritesAfterBudget() {
+        EmbeddedChannel channel = newChannel();
+        channel.write(frame(1));
+        assertNull(channel.readOutbound());
+
+        advance(channel, BUDGET_US - 1);
+        assertNull(channel.readOutbound());
+        advance(channel, 1);
+        assertMarker(channel, 1);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void restartsBudgetAfterExplicitFlush() {
+        EmbeddedChannel channel = newChannel();
+        channel.write(frame(1));
+        advance(channel, BUDGET_US / 2);
+        channel.flush();
+        assertMarker(channel, 1);
+
+        // 下一历元的写入从自己的第一条写入开始计时，不沿用上一批的定时器
+        advance(channel, BUDGET_US / 4);
+        channel.write(frame(2));
+        advance(channel, BUDGET_US / 2);
+        assertNull(channel.readOutbound(), "上一批的定时器提前刷新了新写入");
+        advance(channel, BUDGET_US / 2);
+        assertMarker(channel, 2);
+        channel.finishAndReleaseAll();
+    }
+
+    private static EmbeddedChannel newChannel() {
+        EmbeddedChannel channel = new EmbeddedChannel(new EpochFlushHandler(BUDGET_US));
+        channel.freezeTime();
+        return channel;
+    }
+
+    private static void advance(EmbeddedChannel channel, long micros) {
+        channel.advanceTimeBy(micros, TimeUnit.MICROSECONDS);
+        channel.runScheduledPendingTasks();
+    }
+
+    private static ByteBuf frame(int marker) {
+        return Unpooled.wrappedBuffer(new byte[]{(byte) marker});
+    }
+
+    private static void assertMarker(EmbeddedChannel channel, int marker) {
+        ByteBuf buf = channel.readOutbound();
+        assertNotNull(buf);
+        assertEquals(marker, buf.readByte());
+        buf.release();
+        assertNull(channel.readOutbound());
+    }
+}
@@ -0,0 +1,104 @@
+package com.rtk.relay.netty;
+
+import com.rtk.relay.config.LiveRelayConfig;
+import com.rtk.relay.config.RelayTuning;
+import com.rtk.relay.config.RtkProperties;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.timeout.IdleStateHandler;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 移动站心跳测试：写空闲时间等于心跳间隔，间隔为0时不做空闲检测，运行时调整替换/添加/移除空闲检测
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class HeartbeatHandlerTest {
+
+    @Test
+    void skipsIdleDetectionWhenDisabled() throws Exception {
+        LiveRelayConfig config = config(0);
+        EmbeddedChannel channel = newChannel(config);
+        channel.register();
+
+        assertNull(channel.pipeline().get(HeartbeatHandler.IDLE_STATE_NAME));
+        // 没有任何定时任务
+        assertEquals(-1, channel.runScheduledPendingTasks());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void sendsHeartbeatAfterInterval() throws Exception {
+        EmbeddedChannel channel = newChannel(config(1));
+        channel.register();
+        assertEquals(1000, idleState(channel.pipeline()).getWriterIdleTimeInMillis());
+
+        // IdleStateHandler按系统时间判断空闲
+        Thread.sleep(1100);
+        channel.runScheduledPendingTasks();
+        ByteBuf heartbeat = channel.readOutbound();
+        assertNotNull(heartbeat);
+        assertTrue(heartbeat.toString(StandardCharsets.US_ASCII).startsWith("$RTKH,HEARTBEAT"));
+        heartbeat.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void adjustsIdleDetectionAtRuntime() throws Exception {
+        EmbeddedChannel channel = newChannel(config(10));
+        channel.register();
+        ChannelPipeline pipeline = channel.pipeline();
+
+        HeartbeatHandler.applyInterval(pipeline, 30);
+        assertEquals(30_000, idleState(pipeline).getWriterIdleTimeInMillis());
+        HeartbeatHandler.applyInterval(pipeline, 0);
+        assertNull(pipeline.get(HeartbeatHandler.IDLE_STATE_NAME));
+        HeartbeatHandler.applyInterval(pipeline, 5);
+        assertEquals(5_000, idleState(pipeline).getWriterIdleTimeInMillis());
+        // 空闲检测位于心跳处理器之前
+        assertEquals(HeartbeatHandler.IDLE_STATE_NAME, pipeline.names().get(pipeline.names().indexOf(HeartbeatHandler.NAME) - 1));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void appliesChangeMadeBeforeActivation() throws Exception {
+        LiveRelayConfig config = config(0);
+        EmbeddedChannel channel = newChannel(config);
+        assertNull(channel.pipeline().get(HeartbeatHandler.IDLE_STATE_NAME));
+
+        // 管道已建立、移动站尚未注册时间隔被调整
+        config.update(Collections.singletonMap(RelayTuning.HEARTBEAT_INTERVAL, 15), "api");
+        channel.register();
+        assertEquals(15_000, idleState(channel.pipeline()).getWriterIdleTimeInMillis());
+        channel.finishAndReleaseAll();
+    }
+
+    private static EmbeddedChannel newChannel(LiveRelayConfig config) {
+        EmbeddedChannel channel = new EmbeddedChannel(DefaultChannelId.newInstance(), false, false);
+        new HeartbeatHandler(config).install(channel.pipeline());
+        return channel;
+    }
+
+    private static IdleStateHandler idleState(ChannelPipeline pipeline) {
+        IdleStateHandler handler = (IdleStateHandler) pipeline.get(HeartbeatHandler.IDLE_STATE_NAME);
+        assertNotNull(handler);
+        return handler;
+    }
+
+    private static LiveRelayConfig config(int heartbeatInterval) {
+        RtkProperties properties = new RtkProperties();
+        properties.getServer2().setHeartbeatInterval(heartbeatInterval);
+        return new LiveRelayConfig(properties);
+    }
+}
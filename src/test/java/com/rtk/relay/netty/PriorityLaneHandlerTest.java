@@ -0,0 +1,150 @@
+package com.rtk.relay.netty;
+
+import com.rtk.relay.rtcm.Rtcm3;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 移动站发送优先级测试：拥塞时拆分MSM历元完整保留，新历元整组替换旧历元
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class PriorityLaneHandlerTest {
+
+    private static final int STATION = 17;
+
+    @Test
+    void keepsSplitMsmEpochWhileCongested() {
+        EmbeddedChannel channel = new EmbeddedChannel(new PriorityLaneHandler());
+        setWritable(channel, false);
+
+        // GPS观测值拆成两条1077，最后一条1127结束历元
+        List<byte[]> epoch = new ArrayList<>();
+        epoch.add(observation(1077, STATION, 1000, true, 1));
+        epoch.add(observation(1077, STATION, 1000, true, 2));
+        epoch.add(observation(1087, STATION, 1000, true, 3));
+        epoch.add(observation(1127, STATION, 1000, false, 4));
+        List<ChannelFuture> futures = writeAll(channel, epoch);
+
+        setWritable(channel, true);
+        assertOutbound(channel, epoch);
+        for (ChannelFuture future : futures) {
+            assertTrue(future.isSuccess());
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void replacesWholeStaleEpoch() {
+        EmbeddedChannel channel = new EmbeddedChannel(new PriorityLaneHandler());
+        setWritable(channel, false);
+
+        List<byte[]> stale = new ArrayList<>();
+        stale.add(observation(1077, STATION, 1000, true, 1));
+        stale.add(observation(1077, STATION, 1000, true, 2));
+        stale.add(observation(1087, STATION, 1000, true, 3));
+        List<ChannelFuture> staleFutures = writeAll(channel, stale);
+
+        // 旧历元的结束消息丢失，新历元到达
+        List<byte[]> fresh = new ArrayList<>();
+        fresh.add(observation(1077, STATION, 2000, true, 5));
+        fresh.add(observation(1087, STATION, 2000, false, 6));
+        writeAll(channel, fresh);
+        // 另一个基站的观测值不受影响
+        byte[] other = observation(1077, STATION + 1, 1000, false, 7);
+        writeAll(channel, single(other));
+
+        for (ChannelFuture future : staleFutures) {
+            assertSame(PriorityLaneHandler.SUPERSEDED, future.cause());
+        }
+
+        setWritable(channel, true);
+        List<byte[]> expected = new ArrayList<>(fresh);
+        expected.add(other);
+        assertOutbound(channel, expected);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void startsNewEpochAfterClosingMessage() {
+        EmbeddedChannel channel = new EmbeddedChannel(new PriorityLaneHandler());
+        setWritable(channel, false);
+
+        List<byte[]> first = new ArrayList<>();
+        first.add(observation(1077, STATION, 1000, true, 1));
+        first.add(observation(1127, STATION, 1000, false, 2));
+        List<ChannelFuture> firstFutures = writeAll(channel, first);
+
+        // 北斗历元时间与GPS不同，只有结束标志能判断新历元开始
+        byte[] next = observation(1127, STATION, 986, false, 3);
+        writeAll(channel, single(next));
+        for (ChannelFuture future : firstFutures) {
+            assertSame(PriorityLaneHandler.SUPERSEDED, future.cause());
+        }
+
+        setWritable(channel, true);
+        assertOutbound(channel, single(next));
+        channel.finishAndReleaseAll();
+    }
+
+    private static List<ChannelFuture> writeAll(EmbeddedChannel channel, List<byte[]> frames) {
+        List<ChannelFuture> futures = new ArrayList<>();
+        for (byte[] frame : frames) {
+            futures.add(channel.write(Unpooled.wrappedBuffer(frame)));
+        }
+        channel.flush();
+        return futures;
+    }
+
+    private static void assertOutbound(EmbeddedChannel channel, List<byte[]> expected) {
+        for (byte[] frame : expected) {
+            ByteBuf buf = channel.readOutbound();
+            byte[] actual = new byte[buf.readableBytes()];
+            buf.readBytes(actual);
+            buf.release();
+            assertArrayEquals(frame, actual);
+        }
+        assertNull(channel.readOutbound());
+    }
+
+    private static void setWritable(EmbeddedChannel channel, boolean writable) {
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, writable);
+        // 可写性变化事件在事件循环中异步触发
+        channel.runPendingTasks();
+        assertEquals(writable, channel.isWritable());
+    }
+
+    private static List<byte[]> single(byte[] frame) {
+        List<byte[]> frames = new ArrayList<>();
+        frames.add(frame);
+        return frames;
+    }
+
+    /**
+     * 构造只含观测值头部的帧（消息编号、基站ID、历元时间、多电文标志），末字节区分内容
+     */
+    private static byte[] observation(int messageType, int station, int epochTime, boolean multiple, int marker) {
+        byte[] frame = new byte[Rtcm3.HEADER_LENGTH + 8 + Rtcm3.CRC_LENGTH];
+        int payload = Rtcm3.HEADER_LENGTH * 8;
+        Rtcm3.setBitU(frame, payload, 12, messageType);
+        Rtcm3.setBitU(frame, payload + 12, 12, station);
+        Rtcm3.setBitU(frame, payload + 24, 30, epochTime);
+        Rtcm3.setBitU(frame, payload + 54, 1, multiple ? 1 : 0);
+        Rtcm3.setBitU(frame, payload + 56, 8, marker);
+        Rtcm3.sealFrame(frame);
+        return frame;
+    }
+}
@@ -0,0 +1,340 @@
+package com.rtk.relay.netty;
+
+import com.rtk.relay.RelayComponents;
+import com.rtk.relay.config.LiveRelayConfig;
+import com.rtk.relay.config.RtkDataBuffer;
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.entity.ConnectionInfo;
+import com.rtk.relay.rtcm.Rtcm3;
+import com.rtk.relay.rtcm.RtcmWorkload;
+import com.rtk.relay.service.ConnectionManager;
+import com.rtk.relay.service.DataRelayService;
+import com.rtk.relay.service.RoverSubscriptionService;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 基站接收与转发路径的内存分配回归测试
+ * 用EmbeddedChannel驱动固定的RTCM数据流经过基站管道（帧解码器、基站处理器）、转发服务和移动站管道，
+ * 按 ThreadMXBean.getThreadAllocatedBytes 统计每转发一帧分配的字节数，超过 allocation-budget.properties
+ * 中的预算即失败。日志级别与生产配置相同（com.rtk为INFO，见 logback-test.xml），只是不输出。
+ * 优化使分配减少后应同步调低预算，使改进不会在之后的修改中悄悄退回。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class RelayAllocationTest {
+
+    /**
+     * 实测值记录器：不在com.rtk下，由 logback-test.xml 单独输出
+     */
+    private static final Logger ALLOCATION_LOG = LoggerFactory.getLogger("allocation");
+
+    private static final AttributeKey<ConnectionInfo> CONNECTION_INFO_KEY = AttributeKey.valueOf("connectionInfo");
+
+    /**
+     * 数据流历元数、TCP分段大小
+     */
+    private static final int EPOCHS = 100;
+    private static final int SEGMENT_SIZE = 1460;
+
+    /**
+     * 预热轮数（JIT编译、缓冲区达到稳定状态）和测量轮数（取最小值，排除偶发的后台分配）
+     */
+    private static final int WARMUP_ROUNDS = 30;
+    private static final int MEASURE_ROUNDS = 5;
+
+    private static final int FRAMES_PER_ROUND = EPOCHS * RtcmWorkload.FRAMES_PER_EPOCH;
+
+    private static com.sun.management.ThreadMXBean threadBean;
+    private static Properties budget;
+    private static byte[] stream;
+
+    private final List<EmbeddedChannel> channels = new ArrayList<>();
+    private final DiscardOutbound discard = new DiscardOutbound();
+    private RtkProperties properties;
+    private RelayComponents components;
+    private ConnectionManager connectionManager;
+    private DataRelayService dataRelayService;
+    private RoverSubscriptionService subscriptionService;
+
+    @BeforeAll
+    static void loadBudget() throws IOException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "JVM不支持按线程统计内存分配");
+        threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported(), "JVM不支持按线程统计内存分配");
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        budget = new Properties();
+        try (InputStream in = RelayAllocationTest.class.getResourceAsStream("/allocation-budget.properties")) {
+            assertNotNull(in, "缺少 allocation-budget.properties");
+            budget.load(in);
+        }
+        stream = RtcmWorkload.stream(EPOCHS, 20240101L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (EmbeddedChannel channel : channels) {
+            channel.finishAndReleaseAll();
+        }
+        if (components != null) {
+            components.stop();
+        }
+    }
+
+    /**
+     * 基站数据经帧解码器和基站处理器进入转发服务，同步转发给3个移动站（移动站数量不超过同步转发阈值）
+     */
+    @Test
+    void ingestAndSyncRelay() throws Exception {
+        setUp();
+        for (int i = 0; i < 3; i++) {
+            addRover(i);
+        }
+        EmbeddedChannel base = addBaseStation();
+
+        ByteBuf[][] segments = new ByteBuf[1][];
+        long perFrame = measure(false, () -> segments[0] = RtcmWorkload.segments(stream, SEGMENT_SIZE), () -> {
+            for (ByteBuf segment : segments[0]) {
+                base.pipeline().fireChannelRead(segment);
+            }
+            base.pipeline().fireChannelReadComplete();
+        });
+
+        assertEquals(3L * FRAMES_PER_ROUND * (WARMUP_ROUNDS + MEASURE_ROUNDS), discard.writes.get());
+        assertWithinBudget("ingest.sync-relay", perFrame);
+    }
+
+    /**
+     * 转发服务异步转发给20个移动站（在转发线程池中发送，统计所有线程的分配）
+     */
+    @Test
+    void asyncRelay() throws Exception {
+        setUp();
+        int rovers = 20;
+        for (int i = 0; i < rovers; i++) {
+            addRover(i);
+        }
+        EmbeddedChannel base = addBaseStation();
+        int handle = base.attr(CONNECTION_INFO_KEY).get().getHandle();
+        List<byte[]> frames = frames(stream);
+
+        long perFrame = measure(true, null, () -> {
+            for (byte[] frame : frames) {
+                long expected = discard.writes.get() + rovers;
+                dataRelayService.relayDataToMobileStations(frame, handle);
+                // 写入任务排在移动站EmbeddedChannel的事件循环中，由测试线程执行
+                awaitWrites(expected);
+            }
+        });
+
+        assertWithinBudget("relay.async", perFrame);
+    }
+
+    /**
+     * 最近数据缓冲区的写入（缓冲区已满，每次写入淘汰最旧的一条）
+     */
+    @Test
+    void dataBufferAdd() {
+        RtkDataBuffer buffer = new RtkDataBuffer(new LiveRelayConfig(new RtkProperties()));
+        List<byte[]> frames = frames(stream);
+
+        long perFrame = measure(false, null, () -> {
+            for (byte[] frame : frames) {
+                buffer.addData(frame);
+            }
+        });
+
+        assertWithinBudget("buffer.add", perFrame);
+    }
+
+    /**
+     * 创建转发路径上的服务（与精简模式相同的装配，数据库未启用）
+     */
+    private void setUp() {
+        properties = new RtkProperties();
+        properties.getServer2().setMaxConnections(100);
+        properties.getServer1().setTimeout(0);
+
+        components = RelayComponents.create(properties);
+        connectionManager = components.getConnectionManager();
+        dataRelayService = components.getDataRelayService();
+        subscriptionService = components.getRoverSubscriptionService();
+    }
+
+    /**
+     * 基站通道：与Server1相同的管道，由基站处理器在通道激活时注册
+     */
+    private EmbeddedChannel addBaseStation() throws Exception {
+        EmbeddedChannel base = channel(new InetSocketAddress("10.0.0.1", 50000),
+                new Rtcm3FrameDecoder(), new BaseStationHandler(connectionManager, dataRelayService));
+        assertNotNull(base.attr(CONNECTION_INFO_KEY).get(), "基站未注册");
+        return base;
+    }
+
+    /**
+     * 移动站通道：写出的数据在管道头部释放，经过与Server2相同的优先级队列处理器。
+     * 按移动站处理器的方式注册（不发送缓存数据，避免测试线程之外的线程写通道）
+     */
+    private void addRover(int index) throws Exception {
+        InetSocketAddress remote = new InetSocketAddress("10.0.1." + (index + 1), 40000 + index);
+        EmbeddedChannel rover = channel(remote, discard, new PriorityLaneHandler());
+
+        ConnectionInfo info = new ConnectionInfo();
+        info.setConnectionId("MOBILE_TEST_" + index);
+        info.setType(ConnectionInfo.ConnectionType.MOBILE_STATION);
+        info.setRemoteAddress(remote.getAddress().getHostAddress());
+        info.setRemotePort(remote.getPort());
+        info.setConnectTime(LocalDateTime.now());
+        info.setStatus(ConnectionInfo.ConnectionStatus.CONNECTED);
+        info.setSubscription(subscriptionService.createSubscription(info.getRemoteAddress()));
+        rover.attr(CONNECTION_INFO_KEY).set(info);
+        connectionManager.registerMobileStation(rover, info);
+    }
+
+    /**
+     * 创建远程地址为IP地址的EmbeddedChannel（处理器按InetSocketAddress读取远程地址）
+     */
+    private EmbeddedChannel channel(InetSocketAddress remote, ChannelHandler... handlers) throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(DefaultChannelId.newInstance(), false, false) {
+            @Override
+            protected SocketAddress remoteAddress0() {
+                return remote;
+            }
+        };
+        channel.pipeline().addLast(handlers);
+        channel.register();
+        channels.add(channel);
+        return channel;
+    }
+
+    /**
+     * 预热后测量每轮数据的分配量，返回每帧分配字节数（各轮最小值）
+     *
+     * @param allThreads 是否统计所有线程（异步转发在线程池中执行）
+     * @param prepare 每轮之前在测量范围外准备输入，可为null
+     * @param round 一轮数据
+     */
+    private static long measure(boolean allThreads, Runnable prepare, Runnable round) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            if (prepare != null) {
+                prepare.run();
+            }
+            round.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            if (prepare != null) {
+                prepare.run();
+            }
+            long before = allocatedBytes(allThreads);
+            round.run();
+            best = Math.min(best, allocatedBytes(allThreads) - before);
+        }
+        return best / FRAMES_PER_ROUND;
+    }
+
+    private static long allocatedBytes(boolean allThreads) {
+        if (!allThreads) {
+            return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        long total = 0;
+        for (long bytes : threadBean.getThreadAllocatedBytes(threadBean.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    private void awaitWrites(long expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (discard.writes.get() < expected) {
+            for (EmbeddedChannel channel : channels) {
+                channel.runPendingTasks();
+            }
+            if (System.nanoTime() > deadline) {
+                fail("异步转发超时 - 已写出: " + discard.writes.get() + ", 期望: " + expected);
+            }
+            Thread.yield();
+        }
+    }
+
+    private static void assertWithinBudget(String scenario, long perFrame) {
+        String value = budget.getProperty(scenario);
+        assertNotNull(value, "allocation-budget.properties 缺少预算: " + scenario);
+        long limit = Long.parseLong(value.trim());
+        ALLOCATION_LOG.info("{}: {} bytes/frame (budget {})", scenario, perFrame, limit);
+        assertTrue(perFrame <= limit, String.format(
+                "%s 每帧分配 %d 字节，超过预算 %d 字节；确需增加时请在提交说明中解释并更新预算", scenario, perFrame, limit));
+    }
+
+    /**
+     * 把数据流切分为帧
+     */
+    private static List<byte[]> frames(byte[] stream) {
+        List<byte[]> frames = new ArrayList<>();
+        int pos = 0;
+        while (pos < stream.length) {
+            int length = Rtcm3.HEADER_LENGTH + (((stream[pos + 1] & 0x03) << 8) | (stream[pos + 2] & 0xFF))
+                    + Rtcm3.CRC_LENGTH;
+            byte[] frame = new byte[length];
+            System.arraycopy(stream, pos, frame, 0, length);
+            frames.add(frame);
+            pos += length;
+        }
+        return frames;
+    }
+
+    /**
+     * 在管道头部释放写出的数据并标记发送成功
+     */
+    @ChannelHandler.Sharable
+    private static final class DiscardOutbound extends ChannelOutboundHandlerAdapter {
+
+        private final AtomicLong writes = new AtomicLong();
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ReferenceCountUtil.release(msg);
+            writes.incrementAndGet();
+            promise.setSuccess();
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.rtk.relay.netty;
+
+import com.rtk.relay.rtcm.Rtcm3;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * RTCM 3 帧解码测试：跨TCP分段的帧、非RTCM数据后重新同步、CRC错误、最大长度消息体
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class Rtcm3FrameDecoderTest {
+
+    @Test
+    void reassemblesFrameSplitAcrossSegments() {
+        EmbeddedChannel channel = new EmbeddedChannel(new Rtcm3FrameDecoder());
+        byte[] frame = frame(1005, 19);
+        byte[] next = frame(1019, 61);
+
+        // 帧头不完整、消息体不完整时都等待后续数据
+        channel.writeInbound(Unpooled.wrappedBuffer(frame, 0, 2));
+        assertNull(channel.readInbound());
+        channel.writeInbound(Unpooled.wrappedBuffer(frame, 2, 10));
+        assertNull(channel.readInbound());
+        // 剩余部分和下一帧的开头在同一个分段中到达
+        channel.writeInbound(Unpooled.wrappedBuffer(concat(Arrays.copyOfRange(frame, 12, frame.length),
+                Arrays.copyOfRange(next, 0, 4))));
+        assertInbound(channel, frame);
+        assertNull(channel.readInbound());
+        channel.writeInbound(Unpooled.wrappedBuffer(next, 4, next.length - 4));
+        assertInbound(channel, next);
+        assertNull(channel.readInbound());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void passesThroughGarbageAndResynchronizes() {
+        EmbeddedChannel channel = new EmbeddedChannel(new Rtcm3FrameDecoder());
+        // NMEA语句和一个保留位非零的伪帧头
+        byte[] garbage = concat("$GPGGA,000000.00,,,,,0,00,,,,,,,*66\r\n".getBytes(StandardCharsets.US_ASCII),
+                new byte[]{(byte) Rtcm3.PREAMBLE, (byte) 0xFF, 0x10, 0x55});
+        byte[] frame = frame(1077, 120);
+
+        channel.writeInbound(Unpooled.wrappedBuffer(concat(garbage, frame)));
+        assertInbound(channel, garbage);
+        assertInbound(channel, frame);
+        assertNull(channel.readInbound());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void passesThroughFrameWithBadCrc() {
+        EmbeddedChannel channel = new EmbeddedChannel(new Rtcm3FrameDecoder());
+        byte[] corrupted = frame(1087, 80);
+        corrupted[corrupted.length - 1] ^= 0x01;
+        byte[] frame = frame(1097, 90);
+
+        channel.writeInbound(Unpooled.wrappedBuffer(concat(corrupted, frame)));
+        // CRC错误的帧不作为RTCM帧向后传递，按非RTCM数据原样透传
+        assertInbound(channel, corrupted);
+        assertInbound(channel, frame);
+        assertNull(channel.readInbound());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void decodesMaximumPayloadLength() {
+        EmbeddedChannel channel = new EmbeddedChannel(new Rtcm3FrameDecoder());
+        byte[] frame = frame(1127, 1023);
+        assertEquals(Rtcm3.HEADER_LENGTH + 1023 + Rtcm3.CRC_LENGTH, frame.length);
+
+        // 按一个TCP分段（1460字节）切分：最大帧和下一帧的开头
+        byte[] next = frame(1005, 19);
+        byte[] stream = concat(frame, next);
+        channel.writeInbound(Unpooled.wrappedBuffer(stream, 0, frame.length + 3));
+        assertInbound(channel, frame);
+        assertNull(channel.readInbound());
+        channel.writeInbound(Unpooled.wrappedBuffer(stream, frame.length + 3, next.length - 3));
+        assertInbound(channel, next);
+        channel.finishAndReleaseAll();
+    }
+
+    private static void assertInbound(EmbeddedChannel channel, byte[] expected) {
+        ByteBuf buf = channel.readInbound();
+        assertNotNull(buf);
+        byte[] actual = new byte[buf.readableBytes()];
+        buf.readBytes(actual);
+        buf.release();
+        assertArrayEquals(expected, actual);
+    }
+
+    /**
+     * 构造CRC正确的帧：消息编号之后的消息体为固定填充值
+     */
+    private static byte[] frame(int messageType, int payloadLength) {
+        byte[] frame = new byte[Rtcm3.HEADER_LENGTH + payloadLength + Rtcm3.CRC_LENGTH];
+        Arrays.fill(frame, Rtcm3.HEADER_LENGTH + 2, Rtcm3.HEADER_LENGTH + payloadLength, (byte) 0x5A);
+        Rtcm3.setBitU(frame, Rtcm3.HEADER_LENGTH * 8, 12, messageType);
+        Rtcm3.sealFrame(frame);
+        return frame;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+}
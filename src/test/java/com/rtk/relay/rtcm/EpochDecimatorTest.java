@@ -0,0 +1,106 @@
+package com.rtk.relay.rtcm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MSM历元抽稀测试：每个时间窗口只转发第一个历元，同一时刻的多系统多条消息结果一致，跨日窗口正确
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class EpochDecimatorTest {
+
+    private static final int HOUR_MS = 3_600_000;
+    private static final int DAY_MS = 24 * HOUR_MS;
+
+    @Test
+    void forwardsFirstEpochOfEachWindow() {
+        EpochDecimator decimator = new EpochDecimator(5000);
+        List<Integer> forwarded = new ArrayList<>();
+        for (int second = 0; second < 16; second++) {
+            if (decimator.accept(msm(1077, second * 1000, false), 1077)) {
+                forwarded.add(second);
+            }
+        }
+        assertEquals(Arrays.asList(0, 5, 10, 15), forwarded);
+    }
+
+    @Test
+    void forwardsFirstEpochAfterMissedWindowBoundary() {
+        EpochDecimator decimator = new EpochDecimator(1000);
+        // 历元时间不在窗口边界上，且窗口1的边界历元丢失
+        int[] epochs = {900, 1200, 1400, 1900, 2100, 2300, 3000, 3999, 4000};
+        boolean[] expected = {true, true, false, false, true, false, true, false, true};
+        for (int i = 0; i < epochs.length; i++) {
+            assertEquals(expected[i], decimator.accept(msm(1077, epochs[i], false), 1077), "历元 " + epochs[i]);
+        }
+    }
+
+    @Test
+    void keepsDecisionForMultipleMessagesOfSameEpoch() {
+        EpochDecimator decimator = new EpochDecimator(2000);
+        for (int second = 0; second < 6; second++) {
+            int gpsMs = 10 * HOUR_MS + second * 1000;
+            boolean forward = second % 2 == 0;
+            // 同一时刻的GPS（拆成两条）、GLONASS、北斗观测值
+            assertEquals(forward, decimator.accept(msm(1077, gpsMs, true), 1077), "GPS " + second);
+            assertEquals(forward, decimator.accept(msm(1077, gpsMs, true), 1077), "GPS第二条 " + second);
+            assertEquals(forward, decimator.accept(msm(1087, glonassEpoch(gpsMs), true), 1087), "GLONASS " + second);
+            assertEquals(forward, decimator.accept(msm(1127, gpsMs - 14_000, false), 1127), "北斗 " + second);
+        }
+    }
+
+    @Test
+    void wrapsWindowAtDayBoundary() {
+        EpochDecimator decimator = new EpochDecimator(30_000);
+        // GPS周内秒跨过午夜：23:59:30 和 00:00:00 属于不同的窗口
+        int dayStart = 3 * DAY_MS;
+        assertTrue(decimator.accept(msm(1077, dayStart - 30_000, false), 1077));
+        assertFalse(decimator.accept(msm(1077, dayStart - 1000, false), 1077));
+        assertTrue(decimator.accept(msm(1077, dayStart, false), 1077));
+        assertFalse(decimator.accept(msm(1077, dayStart + 29_000, false), 1077));
+    }
+
+    @Test
+    void alwaysForwardsNonMsmMessages() {
+        EpochDecimator decimator = new EpochDecimator(5000);
+        byte[] position = new byte[Rtcm3.HEADER_LENGTH + 19 + Rtcm3.CRC_LENGTH];
+        Rtcm3.setBitU(position, Rtcm3.HEADER_LENGTH * 8, 12, 1005);
+        Rtcm3.sealFrame(position);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(decimator.accept(position, 1005));
+            assertTrue(decimator.accept(position, Rtcm3.NOT_RTCM));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new EpochDecimator(0));
+    }
+
+    /**
+     * GPS日内毫秒对应的GLONASS历元时间：星期(3位) + 莫斯科日内毫秒(27位)
+     */
+    private static int glonassEpoch(int gpsMs) {
+        int moscowMs = Math.floorMod(gpsMs - 18_000 + 3 * HOUR_MS, DAY_MS);
+        return (2 << 27) | moscowMs;
+    }
+
+    /**
+     * 构造只含观测值头部的MSM帧（消息编号、历元时间、多电文标志）
+     */
+    private static byte[] msm(int messageType, int epochTime, boolean multipleMessage) {
+        byte[] frame = new byte[Rtcm3.HEADER_LENGTH + 8 + Rtcm3.CRC_LENGTH];
+        int payload = Rtcm3.HEADER_LENGTH * 8;
+        Rtcm3.setBitU(frame, payload, 12, messageType);
+        Rtcm3.setBitU(frame, payload + 24, 30, epochTime);
+        Rtcm3.setBitU(frame, payload + 54, 1, multipleMessage ? 1 : 0);
+        Rtcm3.sealFrame(frame);
+        return frame;
+    }
+}
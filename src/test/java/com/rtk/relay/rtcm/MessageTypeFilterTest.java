@@ -0,0 +1,75 @@
+package com.rtk.relay.rtcm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 消息类型过滤测试：允许/拒绝列表、位图字边界、非RTCM数据和无效消息类型
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class MessageTypeFilterTest {
+
+    @Test
+    void allowListAcceptsOnlyListedTypes() {
+        MessageTypeFilter filter = MessageTypeFilter.of(MessageTypeFilter.Mode.ALLOW,
+                Arrays.asList(1077, 1005, 63, 64, 0, 4095, 1077));
+
+        for (int type : new int[]{0, 63, 64, 1005, 1077, 4095}) {
+            assertTrue(filter.accepts(type), "应当转发: " + type);
+        }
+        // 相邻位和同一位图字中的其他位
+        for (int type : new int[]{1, 62, 65, 127, 128, 1004, 1006, 1076, 1078, 1141, 4094}) {
+            assertFalse(filter.accepts(type), "不应转发: " + type);
+        }
+        assertFalse(filter.accepts(Rtcm3.NOT_RTCM), "允许列表不透传非RTCM数据");
+        assertEquals(Arrays.asList(0, 63, 64, 1005, 1077, 4095), Arrays.asList(filter.getTypes().toArray()));
+        assertEquals("ALLOW[0, 63, 64, 1005, 1077, 4095]", filter.toString());
+    }
+
+    @Test
+    void denyListRejectsOnlyListedTypes() {
+        MessageTypeFilter filter = MessageTypeFilter.of(MessageTypeFilter.Mode.DENY, Arrays.asList(1019, 1020));
+
+        assertFalse(filter.accepts(1019));
+        assertFalse(filter.accepts(1020));
+        for (int type : new int[]{0, 1005, 1018, 1021, 1077, 4095}) {
+            assertTrue(filter.accepts(type), "应当转发: " + type);
+        }
+        assertTrue(filter.accepts(Rtcm3.NOT_RTCM), "拒绝列表透传非RTCM数据");
+    }
+
+    @Test
+    void emptyDenyListAcceptsAll() {
+        assertSame(MessageTypeFilter.ACCEPT_ALL, MessageTypeFilter.of(MessageTypeFilter.Mode.DENY, null));
+        assertSame(MessageTypeFilter.ACCEPT_ALL,
+                MessageTypeFilter.of(MessageTypeFilter.Mode.DENY, Collections.<Integer>emptyList()));
+        for (int type = 0; type < Rtcm3.MESSAGE_TYPE_COUNT; type++) {
+            assertTrue(MessageTypeFilter.ACCEPT_ALL.accepts(type));
+        }
+
+        // 空的允许列表不转发任何消息
+        MessageTypeFilter none = MessageTypeFilter.of(MessageTypeFilter.Mode.ALLOW, null);
+        assertFalse(none.accepts(1005));
+        assertFalse(none.accepts(Rtcm3.NOT_RTCM));
+    }
+
+    @Test
+    void rejectsInvalidTypes() {
+        assertThrows(IllegalArgumentException.class,
+                () -> MessageTypeFilter.of(MessageTypeFilter.Mode.ALLOW, Arrays.asList(1005, 4096)));
+        assertThrows(IllegalArgumentException.class,
+                () -> MessageTypeFilter.of(MessageTypeFilter.Mode.DENY, Arrays.asList(-1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> MessageTypeFilter.of(MessageTypeFilter.Mode.DENY, Arrays.asList(1005, null)));
+    }
+}
@@ -0,0 +1,274 @@
+package com.rtk.relay.rtcm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MSM7降级转换测试：按RTCM 10403.3逐字段核对MSM4/MSM5的位宽、分辨率、无效值、锁定时间和帧封装
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class MsmTranscoderTest {
+
+    private static final int PAYLOAD_BIT = Rtcm3.HEADER_LENGTH * 8;
+
+    /**
+     * 消息头（含卫星/信号掩码）位数和单元掩码位数：2颗卫星 x 2个信号
+     */
+    private static final int HEADER_BITS = 169;
+    private static final int CELL_MASK_BITS = 4;
+
+    /**
+     * 卫星数据（第2颗卫星的整毫秒为无效值255）
+     */
+    private static final int[] ROUGH_MS = {70, 255};
+    private static final int[] EXTENDED_INFO = {3, 12};
+    private static final int[] ROUGH_MODULO = {512, 1023};
+    private static final int[] ROUGH_RATE = {-1200, 8191};
+
+    /**
+     * 信号数据（3个单元：卫星1的两个信号和卫星2的第二个信号）
+     */
+    private static final int[] FINE_PSEUDORANGE = {100017, -(1 << 19), (1 << 19) - 1};
+    private static final int[] FINE_PHASE = {-3000001, (1 << 23) - 1, -(1 << 23)};
+    private static final int[] LOCK_TIME = {0, 100, 704};
+    private static final int[] HALF_CYCLE = {1, 0, 1};
+    private static final int[] CNR = {0, 700, 1023};
+    private static final int[] FINE_RATE = {-(1 << 14), 1234, -5};
+
+    @Test
+    void transcodesToMsm4() {
+        byte[] msm7 = glonassMsm7();
+        byte[] msm4 = MsmTranscoder.transcode(msm7, 1087, MsmForm.MSM4);
+
+        assertSealed(msm4, HEADER_BITS + CELL_MASK_BITS + 2 * 18 + 3 * 48);
+        assertEquals(1084, Rtcm3.messageType(msm4));
+        assertHeaderCopied(msm7, msm4);
+
+        BitReader reader = new BitReader(msm4, PAYLOAD_BIT + HEADER_BITS + CELL_MASK_BITS);
+        // 卫星数据：整毫秒和毫秒余数，不含扩展信息和粗略距离变化率
+        assertEquals(70, reader.unsigned(8));
+        assertEquals(255, reader.unsigned(8));
+        assertEquals(512, reader.unsigned(10));
+        assertEquals(1023, reader.unsigned(10));
+        assertMsm4Signals(reader);
+    }
+
+    @Test
+    void transcodesToMsm5() {
+        byte[] msm7 = glonassMsm7();
+        byte[] msm5 = MsmTranscoder.transcode(msm7, 1087, MsmForm.MSM5);
+
+        assertSealed(msm5, HEADER_BITS + CELL_MASK_BITS + 2 * 36 + 3 * 63);
+        assertEquals(1085, Rtcm3.messageType(msm5));
+        assertHeaderCopied(msm7, msm5);
+
+        BitReader reader = new BitReader(msm5, PAYLOAD_BIT + HEADER_BITS + CELL_MASK_BITS);
+        // 卫星数据与MSM7相同，GLONASS扩展信息（频率号）保留
+        for (int value : ROUGH_MS) {
+            assertEquals(value, reader.unsigned(8));
+        }
+        for (int value : EXTENDED_INFO) {
+            assertEquals(value, reader.unsigned(4));
+        }
+        for (int value : ROUGH_MODULO) {
+            assertEquals(value, reader.unsigned(10));
+        }
+        for (int value : ROUGH_RATE) {
+            assertEquals(value, reader.signed(14));
+        }
+        assertMsm4Signals(reader);
+        // 精距离变化率分辨率相同，原样保留（含无效值-2^14）
+        for (int value : FINE_RATE) {
+            assertEquals(value, reader.signed(15));
+        }
+    }
+
+    @Test
+    void mapsLockTimeIndicator() {
+        // DF407 -> 最小锁定时间（毫秒）
+        assertEquals(0, MsmTranscoder.extendedLockTimeMs(0));
+        assertEquals(63, MsmTranscoder.extendedLockTimeMs(63));
+        assertEquals(64, MsmTranscoder.extendedLockTimeMs(64));
+        assertEquals(126, MsmTranscoder.extendedLockTimeMs(95));
+        assertEquals(128, MsmTranscoder.extendedLockTimeMs(96));
+        assertEquals(256, MsmTranscoder.extendedLockTimeMs(128));
+        assertEquals(67108864, MsmTranscoder.extendedLockTimeMs(704));
+        assertEquals(67108864, MsmTranscoder.extendedLockTimeMs(1023));
+
+        // DF402：0为32ms以下，k为[32*2^(k-1), 32*2^k)，15为524288ms及以上
+        assertEquals(0, MsmTranscoder.toLockTimeIndicator(31));
+        assertEquals(1, MsmTranscoder.toLockTimeIndicator(32));
+        assertEquals(1, MsmTranscoder.toLockTimeIndicator(63));
+        assertEquals(2, MsmTranscoder.toLockTimeIndicator(64));
+        assertEquals(3, MsmTranscoder.toLockTimeIndicator(100));
+        for (int indicator = 0; indicator <= 704; indicator++) {
+            long lockTimeMs = MsmTranscoder.extendedLockTimeMs(indicator);
+            int converted = MsmTranscoder.toLockTimeIndicator(indicator);
+            long lower = converted == 0 ? 0 : 32L << (converted - 1);
+            assertTrue(lockTimeMs >= lower, "DF407=" + indicator);
+            assertTrue(converted == 15 || lockTimeMs < 32L << converted, "DF407=" + indicator);
+        }
+        assertEquals(15, MsmTranscoder.toLockTimeIndicator(704));
+    }
+
+    @Test
+    void leavesOtherFramesUntouched() {
+        byte[] msm7 = glonassMsm7();
+        assertSame(msm7, MsmTranscoder.transcode(msm7, 1087, MsmForm.ORIGINAL));
+
+        byte[] msm4 = MsmTranscoder.transcode(msm7, 1087, MsmForm.MSM4);
+        assertSame(msm4, MsmTranscoder.transcode(msm4, 1084, MsmForm.MSM4));
+
+        // 信号数据不完整的MSM7帧原样返回
+        byte[] truncated = Arrays.copyOf(msm7, msm7.length - 20);
+        Rtcm3.sealFrame(truncated);
+        assertSame(truncated, MsmTranscoder.transcode(truncated, 1087, MsmForm.MSM5));
+    }
+
+    private static void assertMsm4Signals(BitReader reader) {
+        // 精伪距 2^-29ms -> 2^-24ms，四舍五入，超出范围截断，无效值-2^19 -> -2^14
+        assertEquals(3126, reader.signed(15));
+        assertEquals(-(1 << 14), reader.signed(15));
+        assertEquals((1 << 14) - 1, reader.signed(15));
+        // 精相位 2^-31ms -> 2^-29ms，无效值-2^23 -> -2^21
+        assertEquals(-750000, reader.signed(22));
+        assertEquals((1 << 21) - 1, reader.signed(22));
+        assertEquals(-(1 << 21), reader.signed(22));
+        // 锁定时间 DF407 -> DF402：0ms、144ms、2^26ms
+        assertEquals(0, reader.unsigned(4));
+        assertEquals(3, reader.unsigned(4));
+        assertEquals(15, reader.unsigned(4));
+        for (int value : HALF_CYCLE) {
+            assertEquals(value, reader.unsigned(1));
+        }
+        // 载噪比 2^-4 dB-Hz -> 1 dB-Hz，0表示未计算，上限63
+        assertEquals(0, reader.unsigned(6));
+        assertEquals(44, reader.unsigned(6));
+        assertEquals(63, reader.unsigned(6));
+    }
+
+    /**
+     * 检查帧封装：结构完整、长度为重新计算的消息体长度、CRC正确、填充位为0
+     */
+    private static void assertSealed(byte[] frame, int payloadBits) {
+        int payloadLength = (payloadBits + 7) / 8;
+        assertTrue(Rtcm3.isFrame(frame));
+        assertEquals(payloadLength, Rtcm3.payloadLength(frame));
+        assertEquals(Rtcm3.HEADER_LENGTH + payloadLength + Rtcm3.CRC_LENGTH, frame.length);
+        int crcOffset = frame.length - Rtcm3.CRC_LENGTH;
+        assertEquals(Rtcm3.crc24q(frame, 0, crcOffset), Rtcm3.getBitU(frame, crcOffset * 8, 24));
+        int padding = payloadLength * 8 - payloadBits;
+        assertEquals(0, Rtcm3.getBitU(frame, PAYLOAD_BIT + payloadBits, padding));
+    }
+
+    /**
+     * 检查消息头（消息编号之后到单元掩码结束）原样复制
+     */
+    private static void assertHeaderCopied(byte[] msm7, byte[] converted) {
+        int bits = HEADER_BITS + CELL_MASK_BITS - 12;
+        BitReader expected = new BitReader(msm7, PAYLOAD_BIT + 12);
+        BitReader actual = new BitReader(converted, PAYLOAD_BIT + 12);
+        for (int i = 0; i < bits; i++) {
+            assertEquals(expected.unsigned(1), actual.unsigned(1), "消息头第" + (12 + i) + "位");
+        }
+    }
+
+    /**
+     * 手工构造一帧GLONASS MSM7（1087）：卫星3和10，信号2和3，单元掩码1101
+     */
+    private static byte[] glonassMsm7() {
+        int payloadBits = HEADER_BITS + CELL_MASK_BITS + 2 * 36 + 3 * 80;
+        byte[] frame = new byte[Rtcm3.HEADER_LENGTH + (payloadBits + 7) / 8 + Rtcm3.CRC_LENGTH];
+        BitWriter writer = new BitWriter(frame, PAYLOAD_BIT);
+        writer.put(12, 1087);
+        writer.put(12, 42);
+        // GLONASS历元时间：星期(3) + 日内毫秒(27)
+        writer.put(30, (2 << 27) | 45_296_000);
+        writer.put(1, 0);
+        writer.put(3, 5);
+        writer.put(7, 0);
+        writer.put(2, 1);
+        writer.put(2, 0);
+        writer.put(1, 1);
+        writer.put(3, 4);
+        // 卫星掩码（64位）
+        writer.put(32, (1 << (31 - 2)) | (1 << (31 - 9)));
+        writer.put(32, 0);
+        // 信号掩码（32位）
+        writer.put(32, (1 << (31 - 1)) | (1 << (31 - 2)));
+        writer.put(CELL_MASK_BITS, 0b1101);
+        assertEquals(PAYLOAD_BIT + HEADER_BITS + CELL_MASK_BITS, writer.position);
+
+        writer.putAll(8, ROUGH_MS);
+        writer.putAll(4, EXTENDED_INFO);
+        writer.putAll(10, ROUGH_MODULO);
+        writer.putAll(14, ROUGH_RATE);
+        writer.putAll(20, FINE_PSEUDORANGE);
+        writer.putAll(24, FINE_PHASE);
+        writer.putAll(10, LOCK_TIME);
+        writer.putAll(1, HALF_CYCLE);
+        writer.putAll(10, CNR);
+        writer.putAll(15, FINE_RATE);
+        assertEquals(PAYLOAD_BIT + payloadBits, writer.position);
+
+        Rtcm3.sealFrame(frame);
+        assertTrue(Rtcm3.isFrame(frame));
+        return frame;
+    }
+
+    /**
+     * 顺序写入位字段
+     */
+    private static final class BitWriter {
+        private final byte[] data;
+        private int position;
+
+        BitWriter(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        void put(int bits, int value) {
+            Rtcm3.setBitU(data, position, bits, value);
+            position += bits;
+        }
+
+        void putAll(int bits, int[] values) {
+            for (int value : values) {
+                put(bits, value);
+            }
+        }
+    }
+
+    /**
+     * 顺序读取位字段
+     */
+    private static final class BitReader {
+        private final byte[] data;
+        private int position;
+
+        BitReader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        int unsigned(int bits) {
+            int value = Rtcm3.getBitU(data, position, bits);
+            position += bits;
+            return value;
+        }
+
+        int signed(int bits) {
+            int value = Rtcm3.getBitS(data, position, bits);
+            position += bits;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.rtk.relay.rtcm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RTCM语料文件格式测试：读写一致、基站元数据更新、录制中断后的读取
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class RtcmCorpusTest {
+
+    private static final long START_TIME = 1_700_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void roundTrip() throws IOException {
+        List<byte[]> frames = RtcmWorkload.frames(20, 7);
+        Path file = tempDir.resolve("corpus.rtcm");
+        try (RtcmCorpus.Writer writer = RtcmCorpus.create(file, START_TIME)) {
+            writer.defineStation(new RtcmCorpus.Station(0, "base-a", RtcmCorpus.UNKNOWN_REFERENCE_STATION, ""));
+            writer.defineStation(new RtcmCorpus.Station(1, "base-b", 12, "10.0.0.2:40001"));
+            for (int i = 0; i < frames.size(); i++) {
+                writer.writeFrame(i * 200_000L, i % 2, frames.get(i));
+            }
+            writer.defineStation(new RtcmCorpus.Station(0, "base-a", 7, "从1005得到参考站ID"));
+            assertEquals(frames.size(), writer.getFrameCount());
+        }
+
+        try (RtcmCorpus.Reader reader = RtcmCorpus.open(file)) {
+            assertEquals(START_TIME, reader.getStartTimeMillis());
+            for (int i = 0; i < frames.size(); i++) {
+                RtcmCorpus.Frame frame = reader.next();
+                assertNotNull(frame, "第" + i + "帧缺失");
+                assertEquals(i * 200_000L, frame.getOffsetMicros());
+                assertEquals(i % 2, frame.getStation());
+                assertArrayEquals(frames.get(i), frame.getData());
+            }
+            assertNull(reader.next());
+            assertFalse(reader.isTruncated());
+            assertEquals(7, reader.getStation(0).getReferenceStationId());
+            assertEquals("10.0.0.2:40001", reader.getStation(1).getDescription());
+        }
+
+        // 固定开销：每帧1字节类型 + 时间差 + 基站序号
+        long payload = 0;
+        for (byte[] frame : frames) {
+            payload += frame.length;
+        }
+        assertTrue(Files.size(file) - payload < frames.size() * 8L + 200);
+    }
+
+    @Test
+    void outOfOrderTimestampsKeepFileOrder() throws IOException {
+        List<byte[]> frames = RtcmWorkload.frames(1, 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RtcmCorpus.Writer writer = new RtcmCorpus.Writer(out, START_TIME)) {
+            writer.defineStation(new RtcmCorpus.Station(0, "base", 1, ""));
+            writer.writeFrame(5_000, 0, frames.get(0));
+            writer.writeFrame(3_000, 0, frames.get(1));
+            assertThrows(IllegalArgumentException.class, () -> writer.writeFrame(6_000, 1, frames.get(2)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.writeFrame(6_000, 0, Arrays.copyOf(frames.get(2), 10)));
+        }
+
+        try (RtcmCorpus.Reader reader = new RtcmCorpus.Reader(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(5_000, reader.next().getOffsetMicros());
+            assertEquals(5_000, reader.next().getOffsetMicros());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void truncatedTailIsIgnored() throws IOException {
+        List<byte[]> frames = RtcmWorkload.frames(2, 11);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RtcmCorpus.Writer writer = new RtcmCorpus.Writer(out, START_TIME)) {
+            writer.defineStation(new RtcmCorpus.Station(0, "base", 1, ""));
+            for (byte[] frame : frames) {
+                writer.writeFrame(0, 0, frame);
+            }
+        }
+        byte[] data = out.toByteArray();
+        byte[] cut = Arrays.copyOf(data, data.length - 5);
+
+        int read = 0;
+        try (RtcmCorpus.Reader reader = new RtcmCorpus.Reader(new ByteArrayInputStream(cut))) {
+            while (reader.next() != null) {
+                read++;
+            }
+            assertTrue(reader.isTruncated());
+        }
+        assertEquals(frames.size() - 1, read);
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        byte[] data = "RTCMDATA\u0000\u0001".getBytes();
+        assertThrows(IOException.class, () -> new RtcmCorpus.Reader(new ByteArrayInputStream(data)));
+    }
+}
@@ -0,0 +1,152 @@
+package com.rtk.relay.rtcm;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 测试用的确定性RTCM 3数据流
+ * 每个历元依次为：基准站坐标（1005）、一条GPS星历（1019，卫星轮换）、四个系统的MSM7观测值（1077/1087/1097/1127，
+ * 最后一条的多电文标志为0）。同一种子生成的数据完全相同，CRC24Q正确。
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+public final class RtcmWorkload {
+
+    /**
+     * MSM7观测值消息类型
+     */
+    public static final int[] MSM7_TYPES = {1077, 1087, 1097, 1127};
+
+    /**
+     * 每个历元的帧数
+     */
+    public static final int FRAMES_PER_EPOCH = 2 + MSM7_TYPES.length;
+
+    /**
+     * 1005消息体长度（152位）和1019消息体长度（488位）
+     */
+    private static final int STATION_PAYLOAD_LENGTH = 19;
+    private static final int EPHEMERIS_PAYLOAD_LENGTH = 61;
+
+    /**
+     * MSM消息头字段位置（相对消息体）
+     */
+    private static final int EPOCH_TIME_BIT = 24;
+    private static final int MULTIPLE_MESSAGE_BIT = 54;
+    private static final int SATELLITE_MASK_BIT = 73;
+    private static final int SIGNAL_MASK_BIT = 137;
+    private static final int CELL_MASK_BIT = 169;
+
+    /**
+     * 每个系统的卫星数和信号数（单元掩码全1）
+     */
+    private static final int SATELLITES = 10;
+    private static final int[] SIGNALS = {1, 14};
+
+    private RtcmWorkload() {
+    }
+
+    /**
+     * 生成连续的数据流
+     *
+     * @param epochs 历元数
+     * @param seed 随机种子
+     * @return 数据流
+     */
+    public static byte[] stream(int epochs, long seed) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] frame : frames(epochs, seed)) {
+            out.write(frame, 0, frame.length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 生成逐帧的数据（与 {@link #stream} 相同种子时内容一致）
+     *
+     * @param epochs 历元数
+     * @param seed 随机种子
+     * @return 按发送顺序排列的帧
+     */
+    public static List<byte[]> frames(int epochs, long seed) {
+        Random random = new Random(seed);
+        List<byte[]> frames = new ArrayList<>(epochs * FRAMES_PER_EPOCH);
+        for (int e = 0; e < epochs; e++) {
+            int epochTime = e * 1000;
+            frames.add(frame(1005, STATION_PAYLOAD_LENGTH, random));
+            byte[] ephemeris = frame(1019, EPHEMERIS_PAYLOAD_LENGTH, random);
+            Rtcm3.setBitU(ephemeris, Rtcm3.EPHEMERIS_SATELLITE_BIT, 6, 1 + e % 32);
+            Rtcm3.sealFrame(ephemeris);
+            frames.add(ephemeris);
+            for (int m = 0; m < MSM7_TYPES.length; m++) {
+                frames.add(msm7Frame(MSM7_TYPES[m], epochTime, m < MSM7_TYPES.length - 1, random));
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * 按TCP分段大小切分数据流（模拟基站数据到达时的分段，帧可能跨段）
+     *
+     * @param stream 数据流
+     * @param segmentSize 分段大小
+     * @return 分段，每段为独立的堆内ByteBuf
+     */
+    public static ByteBuf[] segments(byte[] stream, int segmentSize) {
+        int count = (stream.length + segmentSize - 1) / segmentSize;
+        ByteBuf[] segments = new ByteBuf[count];
+        for (int i = 0; i < count; i++) {
+            int offset = i * segmentSize;
+            segments[i] = Unpooled.copiedBuffer(stream, offset, Math.min(segmentSize, stream.length - offset));
+        }
+        return segments;
+    }
+
+    /**
+     * 生成指定类型的帧，消息体为随机数据
+     */
+    private static byte[] frame(int messageType, int payloadLength, Random random) {
+        byte[] frame = new byte[Rtcm3.HEADER_LENGTH + payloadLength + Rtcm3.CRC_LENGTH];
+        random.nextBytes(frame);
+        Rtcm3.setBitU(frame, Rtcm3.HEADER_LENGTH * 8, 12, messageType);
+        Rtcm3.sealFrame(frame);
+        return frame;
+    }
+
+    /**
+     * 按RTCM 10403.3的MSM7结构生成一帧，卫星数据和信号数据为随机值
+     */
+    private static byte[] msm7Frame(int messageType, int epochTime, boolean multipleMessage, Random random) {
+        int cells = SATELLITES * SIGNALS.length;
+        int payloadBits = CELL_MASK_BIT + cells + SATELLITES * 36 + cells * 80;
+        int payloadLength = (payloadBits + 7) / 8;
+        byte[] frame = new byte[Rtcm3.HEADER_LENGTH + payloadLength + Rtcm3.CRC_LENGTH];
+        random.nextBytes(frame);
+
+        int payload = Rtcm3.HEADER_LENGTH * 8;
+        Rtcm3.setBitU(frame, payload, 12, messageType);
+        Rtcm3.setBitU(frame, payload + EPOCH_TIME_BIT, 30, epochTime);
+        Rtcm3.setBitU(frame, payload + MULTIPLE_MESSAGE_BIT, 1, multipleMessage ? 1 : 0);
+        Rtcm3.setBitU(frame, payload + SATELLITE_MASK_BIT, 32, 0);
+        Rtcm3.setBitU(frame, payload + SATELLITE_MASK_BIT + 32, 32, 0);
+        for (int s = 0; s < SATELLITES; s++) {
+            Rtcm3.setBitU(frame, payload + SATELLITE_MASK_BIT + s, 1, 1);
+        }
+        Rtcm3.setBitU(frame, payload + SIGNAL_MASK_BIT, 32, 0);
+        for (int signal : SIGNALS) {
+            Rtcm3.setBitU(frame, payload + SIGNAL_MASK_BIT + signal, 1, 1);
+        }
+        for (int c = 0; c < cells; c++) {
+            Rtcm3.setBitU(frame, payload + CELL_MASK_BIT + c, 1, 1);
+        }
+        Rtcm3.setBitU(frame, payload + payloadBits, payloadLength * 8 - payloadBits, 0);
+        Rtcm3.sealFrame(frame);
+        return frame;
+    }
+}
@@ -0,0 +1,112 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.RelayComponents;
+import com.rtk.relay.config.RtkProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 新连接接纳控制测试：单IP令牌桶和全局令牌桶的突发、限速与按时间补充
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class ConnectionAdmissionServiceTest {
+
+    private RelayComponents components;
+
+    @AfterEach
+    void tearDown() {
+        if (components != null) {
+            components.stop();
+        }
+    }
+
+    @Test
+    void limitsNewConnectionsPerAddress() throws Exception {
+        RtkProperties properties = new RtkProperties();
+        RtkProperties.AdmissionConfig config = properties.getServer2().getAdmission();
+        config.setPerIpRate(2.0);
+        config.setPerIpBurst(3);
+        ConnectionAdmissionService service = newService(properties);
+        InetAddress address = InetAddress.getByName("10.0.1.1");
+        long start = System.nanoTime();
+
+        // 突发3个，之后按每秒2个补充
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ConnectionAdmissionService.Decision.ACCEPT, service.admit(address, start));
+        }
+        assertEquals(ConnectionAdmissionService.Decision.REJECT_IP_RATE, service.admit(address, start));
+        assertEquals(ConnectionAdmissionService.Decision.REJECT_IP_RATE, service.admit(address, at(start, 400)));
+        assertEquals(ConnectionAdmissionService.Decision.ACCEPT, service.admit(address, at(start, 600)));
+        assertEquals(ConnectionAdmissionService.Decision.REJECT_IP_RATE, service.admit(address, at(start, 600)));
+
+        // 其他地址有自己的令牌桶
+        InetAddress other = InetAddress.getByName("10.0.1.2");
+        assertEquals(ConnectionAdmissionService.Decision.ACCEPT, service.admit(other, at(start, 600)));
+
+        // 长时间空闲后最多回满到突发数
+        long later = at(start, 60_000);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ConnectionAdmissionService.Decision.ACCEPT, service.admit(address, later));
+        }
+        assertEquals(ConnectionAdmissionService.Decision.REJECT_IP_RATE, service.admit(address, later));
+
+        Map<String, Long> decisions = decisions(service);
+        assertEquals(8L, decisions.get("ACCEPT"));
+        assertEquals(4L, decisions.get("REJECT_IP_RATE"));
+    }
+
+    @Test
+    void limitsNewConnectionsGlobally() throws Exception {
+        RtkProperties properties = new RtkProperties();
+        RtkProperties.AdmissionConfig config = properties.getServer2().getAdmission();
+        config.setGlobalRate(10.0);
+        config.setGlobalBurst(5);
+        ConnectionAdmissionService service = newService(properties);
+        long start = System.nanoTime();
+
+        // 每个连接来自不同地址，单IP令牌桶不起作用
+        for (int i = 0; i < 5; i++) {
+            assertEquals(ConnectionAdmissionService.Decision.ACCEPT, service.admit(address(i), start));
+        }
+        assertEquals(ConnectionAdmissionService.Decision.REJECT_GLOBAL_RATE, service.admit(address(5), start));
+        // 每100毫秒补充一个
+        assertEquals(ConnectionAdmissionService.Decision.REJECT_GLOBAL_RATE, service.admit(address(6), at(start, 50)));
+        assertEquals(ConnectionAdmissionService.Decision.ACCEPT, service.admit(address(7), at(start, 150)));
+        assertEquals(ConnectionAdmissionService.Decision.REJECT_GLOBAL_RATE, service.admit(address(8), at(start, 150)));
+
+        // 持续的连接请求按速率接纳：之后一秒内接纳10个
+        int accepted = 0;
+        for (int ms = 160; ms <= 1150; ms += 10) {
+            if (service.admit(address(1000 + ms), at(start, ms)) == ConnectionAdmissionService.Decision.ACCEPT) {
+                accepted++;
+            }
+        }
+        assertEquals(10, accepted);
+    }
+
+    private ConnectionAdmissionService newService(RtkProperties properties) {
+        components = RelayComponents.create(properties);
+        return new ConnectionAdmissionService(properties, components.getConnectionManager());
+    }
+
+    private static long at(long start, long ms) {
+        return start + TimeUnit.MILLISECONDS.toNanos(ms);
+    }
+
+    private static InetAddress address(int index) throws Exception {
+        return InetAddress.getByAddress(new byte[]{10, 0, (byte) (index >> 8), (byte) index});
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Long> decisions(ConnectionAdmissionService service) {
+        return (Map<String, Long>) service.getStatus().get("decisions");
+    }
+}
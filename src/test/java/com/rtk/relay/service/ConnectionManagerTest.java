@@ -0,0 +1,94 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.RelayComponents;
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.entity.ConnectionInfo;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 基站连接超时测试：时间轮到期时按最后活跃时刻重新安排，持续活动的基站不断开，静默超时的基站被关闭并注销
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class ConnectionManagerTest {
+
+    private RelayComponents components;
+    private ConnectionManager connectionManager;
+
+    @BeforeEach
+    void setUp() {
+        RtkProperties properties = new RtkProperties();
+        properties.getServer1().setTimeout(1);
+        properties.getRelay().setTimeoutTickMs(10);
+        components = RelayComponents.create(properties);
+        connectionManager = components.getConnectionManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        components.stop();
+    }
+
+    @Test
+    void activityPostponesTimeout() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ConnectionInfo info = baseStation();
+        int handle = connectionManager.registerBaseStation(channel, info);
+
+        // 持续收到数据，总时长超过两个超时时间，期间时间轮多次到期并按剩余时间重新安排
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(2500);
+        while (System.nanoTime() < deadline) {
+            info.recordReceived(100);
+            Thread.sleep(100);
+            assertTrue(channel.isOpen(), "持续活动的基站不应超时");
+        }
+        assertSame(info, connectionManager.getBaseStationInfo(handle));
+        channel.close();
+    }
+
+    @Test
+    void inactivityClosesChannel() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ConnectionInfo info = baseStation();
+        int handle = connectionManager.registerBaseStation(channel, info);
+        info.recordReceived(100);
+
+        // 超时前仍然注册
+        Thread.sleep(500);
+        assertTrue(channel.isOpen());
+        assertNotNull(connectionManager.getBaseStationInfo(handle));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (channel.isOpen() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(channel.isOpen(), "静默超时的基站应当被关闭");
+        assertNull(connectionManager.getBaseStationInfo(handle));
+        assertEquals(0, connectionManager.getBaseStationCount());
+    }
+
+    private static ConnectionInfo baseStation() {
+        ConnectionInfo info = new ConnectionInfo();
+        info.setConnectionId("BASE_TEST");
+        info.setType(ConnectionInfo.ConnectionType.BASE_STATION);
+        info.setRemoteAddress("10.0.0.1");
+        info.setRemotePort(50000);
+        info.setConnectTime(LocalDateTime.now());
+        info.setStatus(ConnectionInfo.ConnectionStatus.CONNECTED);
+        return info;
+    }
+}
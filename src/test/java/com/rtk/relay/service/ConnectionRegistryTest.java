@@ -0,0 +1,95 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.entity.ConnectionInfo;
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 连接注册表测试：槽位复用后旧句柄失效，扩容和清空后句柄仍按代数校验
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class ConnectionRegistryTest {
+
+    /**
+     * 句柄低20位为槽位号
+     */
+    private static final int SLOT_MASK = (1 << 20) - 1;
+
+    @Test
+    void staleHandleMissesAfterSlotIsReused() {
+        ConnectionRegistry registry = new ConnectionRegistry();
+        Channel first = new EmbeddedChannel();
+        ConnectionInfo firstInfo = info("MOBILE_1");
+        int staleHandle = registry.register(first, firstInfo);
+        assertSame(firstInfo, registry.get(staleHandle));
+        assertSame(first, registry.getChannel(staleHandle));
+
+        assertSame(firstInfo, registry.remove(staleHandle));
+        assertNull(registry.get(staleHandle));
+        assertNull(registry.remove(staleHandle), "重复注销不做任何操作");
+
+        // 新连接复用同一槽位，代数不同
+        Channel second = new EmbeddedChannel();
+        ConnectionInfo secondInfo = info("MOBILE_2");
+        int handle = registry.register(second, secondInfo);
+        assertEquals(staleHandle & SLOT_MASK, handle & SLOT_MASK);
+        assertNotEquals(staleHandle, handle);
+        assertEquals(handle, secondInfo.getHandle());
+
+        assertNull(registry.get(staleHandle), "旧句柄不应找到复用槽位的新连接");
+        assertNull(registry.getChannel(staleHandle));
+        assertNull(registry.remove(staleHandle), "旧句柄不应注销新连接");
+        assertSame(secondInfo, registry.get(handle));
+        assertSame(second, registry.getChannel(handle));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void keepsHandlesValidAcrossGrowthAndInvalidatesThemOnClear() {
+        ConnectionRegistry registry = new ConnectionRegistry();
+        List<Integer> handles = new ArrayList<>();
+        List<ConnectionInfo> infos = new ArrayList<>();
+        // 超过初始容量64，触发扩容
+        for (int i = 0; i < 200; i++) {
+            ConnectionInfo info = info("MOBILE_" + i);
+            handles.add(registry.register(new EmbeddedChannel(), info));
+            infos.add(info);
+        }
+        for (int i = 0; i < handles.size(); i++) {
+            assertTrue(handles.get(i) >= 0);
+            assertSame(infos.get(i), registry.get(handles.get(i)));
+        }
+        assertEquals(200, registry.size());
+        assertEquals(200, registry.infos().size());
+
+        registry.clear();
+        assertEquals(0, registry.size());
+        for (int handle : handles) {
+            assertNull(registry.get(handle));
+        }
+        // 清空后重新注册的连接使用新的代数
+        int handle = registry.register(new EmbeddedChannel(), info("MOBILE_NEW"));
+        assertFalse(handles.contains(handle));
+        assertNull(registry.get(ConnectionRegistry.INVALID_HANDLE));
+    }
+
+    private static ConnectionInfo info(String connectionId) {
+        ConnectionInfo info = new ConnectionInfo();
+        info.setConnectionId(connectionId);
+        info.setType(ConnectionInfo.ConnectionType.MOBILE_STATION);
+        return info;
+    }
+}
@@ -0,0 +1,185 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.RelayComponents;
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.entity.ConnectionInfo;
+import com.rtk.relay.netty.EpochFlushHandler;
+import com.rtk.relay.rtcm.Rtcm3;
+import com.rtk.relay.rtcm.RtcmWorkload;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 转发测试：按历元批量异步发送时，每个移动站的历元中间写入和历元结束刷新按接收顺序执行；
+ * 超出挂载点速率丢弃的历元不进入最近数据缓冲区
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class DataRelayServiceTest {
+
+    private static final AttributeKey<ConnectionInfo> CONNECTION_INFO_KEY = AttributeKey.valueOf("connectionInfo");
+
+    private static final int EPOCHS = 5;
+
+    @Test
+    void keepsEpochOrderPerRoverWhenRelayingAsynchronously() {
+        RtkProperties properties = new RtkProperties();
+        properties.getServer1().setTimeout(0);
+        properties.getServer2().setEpochBatching(true);
+        RelayComponents components = RelayComponents.create(properties);
+        try {
+            ConnectionManager connectionManager = components.getConnectionManager();
+            // 移动站数量超过同步转发阈值，走异步转发
+            int roverCount = properties.getRelay().getSyncRelayThreshold() + 3;
+            List<EmbeddedChannel> rovers = new ArrayList<>();
+            List<List<String>> events = new ArrayList<>();
+            for (int i = 0; i < roverCount; i++) {
+                List<String> roverEvents = new ArrayList<>();
+                EmbeddedChannel rover = new EmbeddedChannel(new Recorder(roverEvents),
+                        new EpochFlushHandler(properties.getServer2().getFlushBudgetUs()));
+                register(components, rover, i);
+                rovers.add(rover);
+                events.add(roverEvents);
+            }
+            EmbeddedChannel base = new EmbeddedChannel();
+            int handle = connectionManager.registerBaseStation(base, connectionInfo("BASE_TEST",
+                    ConnectionInfo.ConnectionType.BASE_STATION, "10.0.0.1"));
+
+            List<byte[]> frames = RtcmWorkload.frames(EPOCHS, 81);
+            List<String> expected = new ArrayList<>();
+            for (byte[] frame : frames) {
+                components.getDataRelayService().relayDataToMobileStations(frame, handle);
+                int messageType = Rtcm3.messageType(frame);
+                expected.add("write " + messageType);
+                if (messageType == RtcmWorkload.MSM7_TYPES[RtcmWorkload.MSM7_TYPES.length - 1]) {
+                    expected.add("flush");
+                }
+            }
+
+            // 写入任务排在各移动站的事件循环中，不在转发调用线程中执行
+            for (List<String> roverEvents : events) {
+                assertTrue(roverEvents.isEmpty(), "写入未切换到移动站的事件循环");
+            }
+            for (int i = 0; i < roverCount; i++) {
+                rovers.get(i).runPendingTasks();
+                assertEquals(expected, events.get(i), "移动站" + i);
+            }
+            for (EmbeddedChannel rover : rovers) {
+                rover.finishAndReleaseAll();
+            }
+            base.finishAndReleaseAll();
+        } finally {
+            components.stop();
+        }
+    }
+
+    @Test
+    void bufferKeepsOnlyAdmittedEpochs() {
+        RtkProperties properties = new RtkProperties();
+        properties.getServer1().setTimeout(0);
+        properties.getServer2().getShaping().setEnabled(true);
+        // 挂载点速率远低于数据量，第一个历元之后的观测值整历元丢弃
+        properties.getServer2().getShaping().setMountpointByteRate(1);
+        RelayComponents components = RelayComponents.create(properties);
+        try {
+            List<String> relayed = new ArrayList<>();
+            EmbeddedChannel rover = new EmbeddedChannel(new Recorder(relayed));
+            register(components, rover, 0);
+            EmbeddedChannel base = new EmbeddedChannel();
+            int handle = components.getConnectionManager().registerBaseStation(base, connectionInfo("BASE_TEST",
+                    ConnectionInfo.ConnectionType.BASE_STATION, "10.0.0.1"));
+
+            List<byte[]> frames = RtcmWorkload.frames(EPOCHS, 82);
+            for (byte[] frame : frames) {
+                components.getDataRelayService().relayDataToMobileStations(frame, handle);
+            }
+            rover.runPendingTasks();
+            assertTrue(relayed.size() < frames.size(), "没有历元被丢弃");
+
+            // 新接入的移动站收到的最近数据与已转发的数据一致，不含被丢弃的历元
+            List<String> joined = new ArrayList<>();
+            EmbeddedChannel newRover = new EmbeddedChannel(new Recorder(joined));
+            register(components, newRover, 1);
+            components.getDataRelayService().sendBufferedDataToNewMobileStation(newRover, "MOBILE_TEST_1");
+            newRover.runPendingTasks();
+            List<String> expected = new ArrayList<>();
+            for (String event : relayed) {
+                if (event.startsWith("write")) {
+                    expected.add(event);
+                }
+            }
+            List<String> actual = new ArrayList<>();
+            for (String event : joined) {
+                if (event.startsWith("write")) {
+                    actual.add(event);
+                }
+            }
+            assertEquals(expected, actual);
+            rover.finishAndReleaseAll();
+            newRover.finishAndReleaseAll();
+            base.finishAndReleaseAll();
+        } finally {
+            components.stop();
+        }
+    }
+
+    private static void register(RelayComponents components, EmbeddedChannel rover, int index) {
+        ConnectionInfo info = connectionInfo("MOBILE_TEST_" + index, ConnectionInfo.ConnectionType.MOBILE_STATION,
+                "10.0.1." + (index + 1));
+        info.setSubscription(components.getRoverSubscriptionService().createSubscription(info.getRemoteAddress()));
+        rover.attr(CONNECTION_INFO_KEY).set(info);
+        components.getConnectionManager().registerMobileStation(rover, info);
+    }
+
+    private static ConnectionInfo connectionInfo(String connectionId, ConnectionInfo.ConnectionType type,
+                                                 String address) {
+        ConnectionInfo info = new ConnectionInfo();
+        info.setConnectionId(connectionId);
+        info.setType(type);
+        info.setRemoteAddress(address);
+        info.setRemotePort(40000);
+        info.setConnectTime(LocalDateTime.now());
+        info.setStatus(ConnectionInfo.ConnectionStatus.CONNECTED);
+        return info;
+    }
+
+    /**
+     * 在管道头部记录写入的消息类型和刷新，消息在此释放
+     */
+    private static final class Recorder extends ChannelOutboundHandlerAdapter {
+        private final List<String> events;
+
+        Recorder(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ByteBuf buf = (ByteBuf) msg;
+            byte[] frame = new byte[buf.readableBytes()];
+            buf.getBytes(buf.readerIndex(), frame);
+            events.add("write " + Rtcm3.messageType(frame));
+            ReferenceCountUtil.release(msg);
+            promise.setSuccess();
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            events.add("flush");
+        }
+    }
+}
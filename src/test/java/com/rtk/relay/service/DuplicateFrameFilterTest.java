@@ -0,0 +1,71 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.rtcm.Rtcm3;
+import com.rtk.relay.rtcm.RtcmWorkload;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 重复帧抑制测试：多链路接入时只转发首帧，同一链路的周期性重发不被抑制
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class DuplicateFrameFilterTest {
+
+    @Test
+    void suppressesCopyFromSecondLink() {
+        DuplicateFrameFilter filter = newFilter();
+        List<byte[]> frames = RtcmWorkload.frames(2, 61);
+
+        for (byte[] frame : frames) {
+            int messageType = Rtcm3.messageType(frame);
+            assertTrue(filter.firstArrival(frame, messageType, "fiber"), "首帧应当转发: " + messageType);
+            assertFalse(filter.firstArrival(frame, messageType, "lte"), "第二条链路的重复帧应当抑制: " + messageType);
+        }
+
+        Map<String, Object> status = filter.getStatus();
+        assertEquals((long) frames.size(), status.get("suppressedFrames"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> links = (List<Map<String, Object>>) status.get("links");
+        for (Map<String, Object> link : links) {
+            if ("fiber".equals(link.get("connectionId"))) {
+                assertEquals((long) frames.size(), link.get("firstArrivals"));
+            } else {
+                assertEquals((long) frames.size(), link.get("duplicates"));
+            }
+        }
+    }
+
+    @Test
+    void passesRepeatsFromSameLink() {
+        DuplicateFrameFilter filter = newFilter();
+        List<byte[]> frames = RtcmWorkload.frames(1, 62);
+        // 1005基站坐标和星历没有历元，基站在时间窗口内重发的内容完全相同
+        byte[] position = frames.get(0);
+        byte[] ephemeris = frames.get(1);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(filter.firstArrival(position, Rtcm3.messageType(position), "fiber"));
+            assertTrue(filter.firstArrival(ephemeris, Rtcm3.messageType(ephemeris), "fiber"));
+        }
+        assertEquals(0L, filter.getStatus().get("suppressedFrames"));
+
+        // 同一链路重发后，其他链路送来的副本仍然被抑制
+        assertFalse(filter.firstArrival(position, Rtcm3.messageType(position), "lte"));
+        assertEquals(1L, filter.getStatus().get("suppressedFrames"));
+    }
+
+    private static DuplicateFrameFilter newFilter() {
+        RtkProperties properties = new RtkProperties();
+        properties.getDedup().setEnabled(true);
+        return new DuplicateFrameFilter(properties);
+    }
+}
@@ -0,0 +1,127 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 基站热备切换测试：主基站静默切换到备用基站，主基站抖动时保持备用，稳定后切回
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class FailoverManagerTest {
+
+    private static final String PRIMARY = "BASE_PRIMARY";
+    private static final String BACKUP = "BASE_BACKUP";
+
+    /**
+     * 数据间隔（毫秒）
+     */
+    private static final long STEP_MS = 500;
+
+    private FailoverManager manager;
+    private long start;
+
+    @BeforeEach
+    void setUp() {
+        RtkProperties properties = new RtkProperties();
+        RtkProperties.FailoverConfig config = properties.getFailover();
+        config.setEnabled(true);
+        config.setGapThresholdMs(2000);
+        config.setSwitchBackHoldMs(10000);
+        // 时间轮不在测试期间触发，检查由测试按模拟时间调用
+        config.setTickMs(TimeUnit.MINUTES.toMillis(10));
+        RtkProperties.FailoverGroupConfig group = new RtkProperties.FailoverGroupConfig();
+        group.setMountpoint("SITE_A");
+        group.setPrimary("10.0.0.1");
+        group.setBackups(Arrays.asList("10.0.0.2"));
+        config.getGroups().add(group);
+
+        manager = new FailoverManager(properties);
+        manager.init();
+        manager.onStationConnected(PRIMARY, "10.0.0.1");
+        manager.onStationConnected(BACKUP, "10.0.0.2");
+        start = System.nanoTime();
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.destroy();
+    }
+
+    @Test
+    void switchesToBackupWhenPrimaryIsSilent() {
+        feed(0, 1000, PRIMARY, BACKUP);
+        assertActive("10.0.0.1", 0);
+
+        // 主基站静默，未超过阈值前不切换
+        feed(1500, 3000, BACKUP);
+        assertActive("10.0.0.1", 0);
+        feed(3500, 3500, BACKUP);
+        assertActive("10.0.0.2", 1);
+        assertTrue(manager.acceptData(BACKUP, at(4000)));
+        assertFalse(manager.acceptData(PRIMARY, at(4000)));
+    }
+
+    @Test
+    void holdsBackupWhilePrimaryFlaps() {
+        feed(0, 1000, PRIMARY, BACKUP);
+        feed(1500, 3500, BACKUP);
+        assertActive("10.0.0.2", 1);
+
+        // 主基站恢复后每隔几秒静默一次，连续稳定时间始终不足切回保持时间
+        for (long from = 4000; from < 40000; from += 7500) {
+            feed(from, from + 4500, PRIMARY, BACKUP);
+            feed(from + 5000, from + 7000, BACKUP);
+            assertActive("10.0.0.2", 1);
+        }
+    }
+
+    @Test
+    void returnsToPrimaryAfterHold() {
+        feed(0, 1000, PRIMARY, BACKUP);
+        feed(1500, 3500, BACKUP);
+        assertActive("10.0.0.2", 1);
+
+        // 主基站连续稳定10秒后切回
+        feed(4000, 13500, PRIMARY, BACKUP);
+        assertActive("10.0.0.2", 1);
+        feed(14000, 14000, PRIMARY, BACKUP);
+        assertActive("10.0.0.1", 2);
+        assertTrue(manager.acceptData(PRIMARY, at(14500)));
+        assertFalse(manager.acceptData(BACKUP, at(14500)));
+    }
+
+    /**
+     * 在 [fromMs, toMs] 内每隔 STEP_MS 由指定基站送达数据，每次送达后按同一时间检查
+     */
+    private void feed(long fromMs, long toMs, String... connections) {
+        for (long ms = fromMs; ms <= toMs; ms += STEP_MS) {
+            for (String connection : connections) {
+                manager.acceptData(connection, at(ms));
+            }
+            manager.evaluateAll(at(ms));
+        }
+    }
+
+    private long at(long ms) {
+        return start + TimeUnit.MILLISECONDS.toNanos(ms);
+    }
+
+    private void assertActive(String address, int switchCount) {
+        List<Map<String, Object>> groups = manager.getGroupStatus();
+        assertEquals(address, groups.get(0).get("activeStation"));
+        assertEquals(switchCount, groups.get(0).get("switchCount"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.rtcm.Rtcm3;
+import com.rtk.relay.rtcm.RtcmWorkload;
+import org.junit.jupiter.api.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * UDP组播控制端口测试：绑定网卡地址、按来源限制回复数据报数
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class MulticastPublisherTest {
+
+    @Test
+    void limitsRepliesPerSender() throws Exception {
+        RtkProperties properties = new RtkProperties();
+        RtkProperties.MulticastConfig config = properties.getMulticast();
+        config.setEnabled(true);
+        config.setNetworkInterface("lo");
+        config.setControlPort(freePort());
+        config.setControlReplyRate(4);
+        RtkProperties.MulticastStreamConfig stream = new RtkProperties.MulticastStreamConfig();
+        stream.setMountpoint("SITE_A");
+        stream.setGroup("239.255.10.1");
+        config.getStreams().add(stream);
+
+        MulticastPublisher publisher = new MulticastPublisher(properties);
+        publisher.init();
+        try (DatagramSocket rover = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            rover.setSoTimeout(500);
+            List<byte[]> frames = RtcmWorkload.frames(2, 71);
+            for (byte[] frame : frames) {
+                publisher.publish(frame, Rtcm3.messageType(frame), "10.0.0.1");
+            }
+
+            // 请求补发全部12帧，额度只够4个
+            byte[] request = {'R', 'M', 1, 'N', 0, 0, 0, 0, 0, 0, 0, (byte) frames.size()};
+            rover.send(new DatagramPacket(request, request.length, InetAddress.getLoopbackAddress(),
+                    config.getControlPort()));
+            assertEquals(4, receiveAll(rover));
+
+            Map<String, Object> status = publisher.getStatus();
+            assertEquals("127.0.0.1/8", status.get("controlAddress"));
+            assertEquals((long) frames.size() - 4, status.get("throttledReplies"));
+            assertEquals(0L, status.get("rejectedRequests"));
+        } finally {
+            publisher.destroy();
+        }
+    }
+
+    private static int receiveAll(DatagramSocket socket) throws Exception {
+        int received = 0;
+        byte[] buffer = new byte[2048];
+        while (true) {
+            try {
+                socket.receive(new DatagramPacket(buffer, buffer.length));
+                assertEquals(MulticastPublisher.FLAG_RETRANSMIT, buffer[3]);
+                received++;
+            } catch (SocketTimeoutException e) {
+                return received;
+            }
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.rtcm.RtcmWorkload;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RTCM原始数据归档测试：按基站写入与读回、分段滚动、磁盘预算、按时间窗口回放
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class RtcmJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void appendAndReadBack() throws IOException {
+        RtcmJournal journal = start(64, 1024);
+        List<byte[]> frames = RtcmWorkload.frames(50, 11);
+        for (int i = 0; i < frames.size(); i++) {
+            journal.append(i % 2 == 0 ? "192.168.1.100" : "fe80::1", i % 2, frames.get(i));
+        }
+        journal.destroy();
+
+        List<Path> even = segments("192.168.1.100");
+        List<Path> odd = segments(RtcmJournal.stationDirectory("fe80::1"));
+        assertEquals(1, even.size());
+        assertEquals(1, odd.size());
+        // 关闭时截断到实际长度
+        assertTrue(Files.size(even.get(0)) < 1024 * 1024);
+
+        List<byte[]> read = new ArrayList<>();
+        long previous = 0;
+        try (RtcmJournal.SegmentReader reader = RtcmJournal.SegmentReader.open(even.get(0))) {
+            while (reader.next()) {
+                assertEquals(0, reader.getHandle());
+                assertTrue(reader.getTimestampNanos() >= previous);
+                previous = reader.getTimestampNanos();
+                read.add(reader.getFrame());
+            }
+        }
+        assertEquals(frames.size() / 2, read.size());
+        for (int i = 0; i < read.size(); i++) {
+            assertArrayEquals(frames.get(i * 2), read.get(i));
+        }
+        assertEquals((long) frames.size(), journal.getStatus().get("writtenFrames"));
+    }
+
+    @Test
+    void rollsBySizeAndEnforcesDiskBudget() throws IOException {
+        RtcmJournal journal = start(1, 3);
+        List<byte[]> frames = RtcmWorkload.frames(200, 5);
+        long bytes = 0;
+        int handle = 0;
+        while (bytes < 6L * 1024 * 1024) {
+            for (byte[] frame : frames) {
+                journal.append("10.0.0.1", handle, frame);
+                bytes += RtcmJournal.RECORD_HEADER_LENGTH + frame.length;
+            }
+            handle++;
+            // 队列容量有限，等待写线程跟上
+            while ((int) journal.getStatus().get("pendingFrames") > 0) {
+                Thread.yield();
+            }
+        }
+        journal.destroy();
+
+        List<Path> remaining = segments("10.0.0.1");
+        long total = 0;
+        for (Path path : remaining) {
+            total += Files.size(path) + Files.size(RtcmJournal.indexPath(path));
+        }
+        assertTrue(total <= 3L * 1024 * 1024, "总大小超出磁盘预算: " + total);
+        assertTrue((long) journal.getStatus().get("deletedSegments") > 0);
+        assertEquals(0L, journal.getStatus().get("droppedFrames"));
+
+        // 保留的分段依次衔接，每个分段都能完整读出
+        long previous = 0;
+        for (Path path : remaining) {
+            try (RtcmJournal.SegmentReader reader = RtcmJournal.SegmentReader.open(path)) {
+                assertTrue(reader.next());
+                assertTrue(reader.getTimestampNanos() >= previous);
+                while (reader.next()) {
+                    previous = reader.getTimestampNanos();
+                }
+            }
+        }
+
+        // 重启后登记已有分段，不超出预算
+        RtcmJournal restarted = start(1, 3);
+        assertEquals(remaining.size(), restarted.getStatus().get("closedSegments"));
+        restarted.destroy();
+        assertFalse(restarted.isEnabled());
+    }
+
+    @Test
+    void cursorSeeksByTimeWindow() throws IOException {
+        RtcmJournal journal = start(64, 1024);
+        List<byte[]> frames = RtcmWorkload.frames(100, 3);
+        for (byte[] frame : frames) {
+            journal.append("10.0.0.2", 7, frame);
+        }
+        // 等待写入后再读取正在写入的分段
+        while ((long) journal.getStatus().get("writtenFrames") < frames.size()) {
+            Thread.yield();
+        }
+
+        List<Long> timestamps = new ArrayList<>();
+        // 终点超出纳秒时间戳范围时按上限处理，不溢出为空窗口
+        try (JournalCursor cursor = journal.openCursor("10.0.0.2", 0, Long.MAX_VALUE)) {
+            while (cursor.next()) {
+                timestamps.add(cursor.getTimestampNanos());
+            }
+        }
+        assertEquals(frames.size(), timestamps.size());
+
+        long fromMillis = timestamps.get(200) / 1_000_000L + 1;
+        long toMillis = timestamps.get(400) / 1_000_000L + 1;
+        List<byte[]> expected = new ArrayList<>();
+        for (int i = 0; i < frames.size(); i++) {
+            long millis = timestamps.get(i) / 1_000_000L;
+            if (millis >= fromMillis && millis < toMillis) {
+                expected.add(frames.get(i));
+            }
+        }
+        try (JournalCursor cursor = journal.openCursor("10.0.0.2", fromMillis, toMillis)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            cursor.writeTo(out);
+            ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+            for (byte[] frame : expected) {
+                concatenated.write(frame);
+            }
+            assertArrayEquals(concatenated.toByteArray(), out.toByteArray());
+        }
+        journal.destroy();
+
+        // 关闭后从索引文件定位
+        assertTrue(Files.exists(RtcmJournal.indexPath(segments("10.0.0.2").get(0))));
+        try (JournalCursor cursor = journal.openCursor("10.0.0.2", fromMillis, toMillis)) {
+            int count = 0;
+            while (cursor.next()) {
+                count++;
+            }
+            assertEquals(expected.size(), count);
+        }
+    }
+
+    @Test
+    void parseTimeRejectsOutOfRange() {
+        assertEquals(1_792_310_400_000L, RtcmJournal.parseTime("1792310400000"));
+        assertEquals(1_792_310_400_000L, RtcmJournal.parseTime("2026-10-18T08:00:00Z"));
+        assertEquals(RtcmJournal.MAX_TIME_MILLIS, RtcmJournal.parseTime(String.valueOf(RtcmJournal.MAX_TIME_MILLIS)));
+        assertThrows(IllegalArgumentException.class,
+                () -> RtcmJournal.parseTime(String.valueOf(RtcmJournal.MAX_TIME_MILLIS + 1)));
+        assertThrows(IllegalArgumentException.class, () -> RtcmJournal.parseTime("99999999999999999999"));
+        assertThrows(IllegalArgumentException.class, () -> RtcmJournal.parseTime("1969-12-31T23:59:59Z"));
+        assertThrows(IllegalArgumentException.class, () -> RtcmJournal.parseTime("+300000-01-01T00:00:00Z"));
+    }
+
+    @Test
+    void indexFindsFloorEntry() {
+        JournalIndex index = new JournalIndex();
+        index.add(100, 16);
+        index.add(101, 500);
+        index.add(101, 600);
+        index.add(105, 900);
+        assertEquals(-1, index.floorOffset(99));
+        assertEquals(16, index.floorOffset(100));
+        assertEquals(500, index.floorOffset(101));
+        assertEquals(500, index.floorOffset(104));
+        assertEquals(900, index.floorOffset(200));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void replayServerStreamsWindow() throws IOException {
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        RtkProperties properties = properties(64, 1024);
+        properties.getJournal().setReplayPort(port);
+        RtcmJournal journal = new RtcmJournal(properties);
+        journal.init();
+        JournalReplayServer server = new JournalReplayServer(properties, journal);
+        server.init();
+        try {
+            List<byte[]> frames = RtcmWorkload.frames(200, 9);
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            for (byte[] frame : frames) {
+                journal.append("10.0.0.3", 1, frame);
+                expected.write(frame);
+            }
+            while ((long) journal.getStatus().get("writtenFrames") < frames.size()) {
+                Thread.yield();
+            }
+
+            String window = "10.0.0.3 0 " + Long.MAX_VALUE / 1_000_000L;
+            assertArrayEquals(expected.toByteArray(), request(port, window));
+            // 按原始到达间隔实时回放
+            assertArrayEquals(expected.toByteArray(), request(port, window + " 1"));
+            String error = new String(request(port, "10.0.0.3 later"), StandardCharsets.UTF_8);
+            assertTrue(error.startsWith("ERROR "), error);
+            assertEquals(0, request(port, "10.0.0.9 0 1000").length);
+        } finally {
+            server.destroy();
+            journal.destroy();
+        }
+    }
+
+    private static byte[] request(int port, String line) throws IOException {
+        try (Socket socket = new Socket("127.0.0.1", port)) {
+            socket.setSoTimeout(10_000);
+            socket.getOutputStream().write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            InputStream in = socket.getInputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                received.write(chunk, 0, read);
+            }
+            return received.toByteArray();
+        }
+    }
+
+    private RtcmJournal start(int segmentSizeMb, long diskBudgetMb) {
+        RtcmJournal journal = new RtcmJournal(properties(segmentSizeMb, diskBudgetMb));
+        journal.init();
+        return journal;
+    }
+
+    private RtkProperties properties(int segmentSizeMb, long diskBudgetMb) {
+        RtkProperties properties = new RtkProperties();
+        RtkProperties.JournalConfig config = properties.getJournal();
+        config.setEnabled(true);
+        config.setDirectory(tempDir.toString());
+        config.setSegmentSizeMb(segmentSizeMb);
+        config.setDiskBudgetMb(diskBudgetMb);
+        config.setQueueCapacity(4096);
+        config.setReplayPort(0);
+        return properties;
+    }
+
+    private List<Path> segments(String directory) throws IOException {
+        try (Stream<Path> files = Files.list(tempDir.resolve(directory))) {
+            return files.filter(path -> path.toString().endsWith(RtcmJournal.SEGMENT_SUFFIX))
+                    .sorted().collect(Collectors.toList());
+        }
+    }
+}
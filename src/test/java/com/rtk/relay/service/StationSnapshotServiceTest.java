@@ -0,0 +1,155 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.rtcm.Rtcm3;
+import com.rtk.relay.rtcm.RtcmWorkload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 基站快照测试：检查点保存与恢复、过期丢弃、损坏文件、热备切换后替换快照
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class StationSnapshotServiceTest {
+
+    /**
+     * 50个历元：1005一份、星历32颗卫星各一份、最后历元4条MSM7
+     */
+    private static final int EPOCHS = 50;
+    private static final int STATIC_FRAMES = 1 + 32;
+    private static final int EPOCH_FRAMES = RtcmWorkload.MSM7_TYPES.length;
+
+    @TempDir
+    Path tempDir;
+
+    private RtkProperties properties;
+    private FailoverManager failoverManager;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RtkProperties();
+        RtkProperties.FailoverGroupConfig group = new RtkProperties.FailoverGroupConfig();
+        group.setMountpoint("SITE_A");
+        group.setPrimary("10.0.0.1");
+        group.setBackups(Collections.singletonList("10.0.0.2"));
+        properties.getFailover().setEnabled(true);
+        properties.getFailover().getGroups().add(group);
+        failoverManager = new FailoverManager(properties);
+        failoverManager.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        failoverManager.destroy();
+    }
+
+    @Test
+    void restoresCheckpointAfterRestart() {
+        List<byte[]> frames = RtcmWorkload.frames(EPOCHS, 21);
+        StationSnapshotService before = start(30);
+        for (byte[] frame : frames) {
+            before.record("192.168.1.100", frame, Rtcm3.messageType(frame));
+            before.record("192.168.1.101", frame, Rtcm3.messageType(frame));
+        }
+        assertEquals(2 * (STATIC_FRAMES + EPOCH_FRAMES), before.getJoinFrames(true).size());
+        before.destroy();
+
+        StationSnapshotService after = start(30);
+        assertEquals(2, after.getStatus().get("restoredStations"));
+        List<byte[]> join = after.getJoinFrames(true);
+        assertEquals(2 * (STATIC_FRAMES + EPOCH_FRAMES), join.size());
+        assertEquals(2 * STATIC_FRAMES, after.getJoinFrames(false).size());
+
+        // 每个基站先发非观测值消息，再发最后一个历元
+        List<byte[]> lastEpoch = frames.subList(frames.size() - EPOCH_FRAMES, frames.size());
+        List<byte[]> firstStation = join.subList(0, STATIC_FRAMES + EPOCH_FRAMES);
+        assertEquals(1005, Rtcm3.messageType(firstStation.get(0)));
+        for (int i = 0; i < EPOCH_FRAMES; i++) {
+            assertArrayEquals(lastEpoch.get(i), firstStation.get(STATIC_FRAMES + i));
+        }
+        after.destroy();
+    }
+
+    @Test
+    void discardsStaleEpochAndCorruptFile() throws IOException, InterruptedException {
+        List<byte[]> frames = RtcmWorkload.frames(EPOCHS, 22);
+        StationSnapshotService before = start(0);
+        for (byte[] frame : frames) {
+            before.record("10.0.0.1", frame, Rtcm3.messageType(frame));
+        }
+        before.destroy();
+        Thread.sleep(5);
+
+        StationSnapshotService after = start(0);
+        assertEquals(STATIC_FRAMES, after.getStatus().get("restoredFrames"));
+        assertEquals(EPOCH_FRAMES, after.getStatus().get("discardedStaleFrames"));
+        after.destroy();
+
+        Path file = tempDir.resolve("snapshot.bin");
+        byte[] data = Files.readAllBytes(file);
+        data[data.length / 2] ^= 0x01;
+        Files.write(file, data);
+        StationSnapshotService corrupted = start(0);
+        assertTrue(corrupted.getJoinFrames(true).isEmpty());
+        assertEquals(0, corrupted.getStatus().get("restoredStations"));
+        corrupted.destroy();
+    }
+
+    @Test
+    void replacesSnapshotAfterFailover() {
+        List<byte[]> primary = RtcmWorkload.frames(EPOCHS, 23);
+        List<byte[]> backup = RtcmWorkload.frames(2, 24);
+        StationSnapshotService service = start(30);
+        for (byte[] frame : primary) {
+            service.record("10.0.0.1", frame, Rtcm3.messageType(frame));
+        }
+        assertEquals(STATIC_FRAMES + EPOCH_FRAMES, service.getJoinFrames(true).size());
+
+        // 切换到备用基站：只发送备用基站的坐标、星历和历元，不混入主基站的
+        for (byte[] frame : backup) {
+            service.record("10.0.0.2", frame, Rtcm3.messageType(frame));
+        }
+        List<byte[]> join = service.getJoinFrames(true);
+        assertEquals(1 + 2 + EPOCH_FRAMES, join.size());
+        for (byte[] frame : join) {
+            assertTrue(backup.stream().anyMatch(sent -> Arrays.equals(sent, frame)));
+        }
+        // 不属于热备组的基站仍按IP地址单独保存
+        service.record("10.0.0.9", primary.get(0), Rtcm3.messageType(primary.get(0)));
+        assertEquals(1 + 2 + EPOCH_FRAMES + 1, service.getJoinFrames(true).size());
+        service.destroy();
+
+        // 恢复后保留来源：同一基站继续更新，另一个基站接替时替换
+        StationSnapshotService after = start(30);
+        after.record("10.0.0.2", backup.get(0), Rtcm3.messageType(backup.get(0)));
+        assertEquals(1 + 2 + EPOCH_FRAMES + 1, after.getJoinFrames(true).size());
+        after.record("10.0.0.1", primary.get(0), Rtcm3.messageType(primary.get(0)));
+        assertEquals(1 + 1, after.getJoinFrames(true).size());
+        after.destroy();
+    }
+
+    private StationSnapshotService start(int epochMaxAgeSeconds) {
+        RtkProperties.SnapshotConfig config = properties.getSnapshot();
+        config.setEnabled(true);
+        config.setFile(tempDir.resolve("snapshot.bin").toString());
+        config.setEpochMaxAgeSeconds(epochMaxAgeSeconds);
+        StationSnapshotService service = new StationSnapshotService(properties, failoverManager);
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,246 @@
+package com.rtk.relay.service;
+
+import com.rtk.relay.config.RtkProperties;
+import com.rtk.relay.entity.QuotaAccount;
+import com.rtk.relay.entity.RoverSubscription;
+import com.rtk.relay.rtcm.RelayFrame;
+import com.rtk.relay.rtcm.Rtcm3;
+import com.rtk.relay.rtcm.RtcmWorkload;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 发送流量整形测试：挂载点超速整历元丢弃、热备组共用挂载点、每日配额汇总/恢复/跨日清零、并发汇总
+ *
+ * @author RTK Team
+ * @version 1.0.0
+ */
+class TrafficShapingServiceTest {
+
+    private static final int EPOCHS = 60;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void dropsWholeEpochsOverMountpointRate() {
+        List<byte[]> frames = RtcmWorkload.frames(EPOCHS, 51);
+        int epochBytes = 0;
+        for (int i = 0; i < RtcmWorkload.FRAMES_PER_EPOCH; i++) {
+            epochBytes += frames.get(i).length;
+        }
+        // 1Hz数据流，速率上限约为数据量的一半
+        long byteRate = epochBytes / 2;
+        TrafficShapingService.MountpointLimiter limiter = new TrafficShapingService.MountpointLimiter("SITE_A", byteRate);
+
+        long start = System.nanoTime();
+        long forwardedBytes = 0;
+        int forwardedEpochs = 0;
+        for (int e = 0; e < EPOCHS; e++) {
+            long now = start + TimeUnit.SECONDS.toNanos(e);
+            int admittedMsm = 0;
+            for (int i = 0; i < RtcmWorkload.FRAMES_PER_EPOCH; i++) {
+                byte[] frame = frames.get(e * RtcmWorkload.FRAMES_PER_EPOCH + i);
+                int messageType = Rtcm3.messageType(frame);
+                boolean admitted = limiter.admit(frame, messageType, now);
+                if (!Rtcm3.isMsm(messageType)) {
+                    assertTrue(admitted, "坐标和星历不应丢弃");
+                } else if (admitted) {
+                    admittedMsm++;
+                }
+                if (admitted) {
+                    forwardedBytes += frame.length;
+                }
+            }
+            // 一个历元的观测值全部转发或全部丢弃
+            assertTrue(admittedMsm == 0 || admittedMsm == RtcmWorkload.MSM7_TYPES.length, "历元被拆分: " + e);
+            if (admittedMsm > 0) {
+                forwardedEpochs++;
+            }
+        }
+
+        Map<String, Object> status = limiter.getStatus();
+        assertEquals((long) forwardedEpochs, status.get("forwardedEpochs"));
+        assertEquals((long) (EPOCHS - forwardedEpochs), status.get("droppedEpochs"));
+        assertTrue(forwardedEpochs > EPOCHS / 4 && forwardedEpochs < EPOCHS * 3 / 4, "转发历元数: " + forwardedEpochs);
+        // 长期速率不超过上限（允许一秒突发和最后一个历元的透支）
+        assertTrue(forwardedBytes <= byteRate * (EPOCHS + 1) + epochBytes, "转发字节数: " + forwardedBytes);
+    }
+
+    @Test
+    void startsNewEpochWhenClosingMessageIsLost() {
+        List<byte[]> frames = RtcmWorkload.frames(3, 54);
+        int epochBytes = 0;
+        for (int i = 0; i < RtcmWorkload.FRAMES_PER_EPOCH; i++) {
+            epochBytes += frames.get(i).length;
+        }
+        // 速率上限为数据量的一半，转发一个历元后透支
+        TrafficShapingService.MountpointLimiter limiter =
+                new TrafficShapingService.MountpointLimiter("SITE_A", epochBytes / 2);
+        long start = System.nanoTime();
+
+        // 第一个历元丢失最后一条MSM消息（多电文标志为0），只转发了前面的观测值
+        for (int i = 0; i < RtcmWorkload.FRAMES_PER_EPOCH - 1; i++) {
+            byte[] frame = frames.get(i);
+            assertTrue(limiter.admit(frame, Rtcm3.messageType(frame), start));
+        }
+        // 第二个历元在透支状态下到达，历元时间变化后重新判断并整历元丢弃
+        assertEpoch(limiter, frames, 1, start, false);
+        // 一秒后令牌恢复，第三个历元整历元转发，不沿用上一历元的丢弃结果
+        assertEpoch(limiter, frames, 2, start + TimeUnit.SECONDS.toNanos(2), true);
+
+        Map<String, Object> status = limiter.getStatus();
+        assertEquals(2L, status.get("forwardedEpochs"));
+        assertEquals(1L, status.get("droppedEpochs"));
+    }
+
+    private static void assertEpoch(TrafficShapingService.MountpointLimiter limiter, List<byte[]> frames, int epoch,
+                                    long now, boolean admitted) {
+        for (int i = 0; i < RtcmWorkload.FRAMES_PER_EPOCH; i++) {
+            byte[] frame = frames.get(epoch * RtcmWorkload.FRAMES_PER_EPOCH + i);
+            int messageType = Rtcm3.messageType(frame);
+            assertEquals(admitted || !Rtcm3.isMsm(messageType), limiter.admit(frame, messageType, now),
+                    "历元" + epoch + ", 消息类型: " + messageType);
+        }
+    }
+
+    @Test
+    void failoverGroupSharesMountpointLimit() {
+        RtkProperties properties = new RtkProperties();
+        RtkProperties.FailoverGroupConfig group = new RtkProperties.FailoverGroupConfig();
+        group.setMountpoint("SITE_A");
+        group.setPrimary("10.0.0.1");
+        group.setBackups(Arrays.asList("10.0.0.2"));
+        properties.getFailover().setEnabled(true);
+        properties.getFailover().getGroups().add(group);
+        RtkProperties.MountpointLimit limit = new RtkProperties.MountpointLimit();
+        limit.setMountpoint("SITE_A");
+        limit.setByteRate(1000);
+        properties.getServer2().getShaping().setEnabled(true);
+        properties.getServer2().getShaping().getMountpointLimits().add(limit);
+
+        FailoverManager failoverManager = new FailoverManager(properties);
+        failoverManager.init();
+        try {
+            TrafficShapingService service = new TrafficShapingService(properties, failoverManager);
+            byte[] frame = RtcmWorkload.frames(1, 52).get(2);
+            int messageType = Rtcm3.messageType(frame);
+            assertTrue(service.admitToRovers("10.0.0.1", frame, messageType));
+            assertTrue(service.admitToRovers("10.0.0.2", frame, messageType));
+            // 未单独配置且没有默认上限的基站不限速
+            assertTrue(service.admitToRovers("10.0.0.3", frame, messageType));
+
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> mountpoints = (List<Map<String, Object>>) service.getStatus().get("mountpoints");
+            assertEquals(2, mountpoints.size());
+            for (Map<String, Object> mountpoint : mountpoints) {
+                if ("SITE_A".equals(mountpoint.get("mountpoint"))) {
+                    assertEquals(1000L, mountpoint.get("byteRate"));
+                    assertEquals(2L * frame.length, mountpoint.get("forwardedBytes"));
+                } else {
+                    assertEquals("10.0.0.3", mountpoint.get("mountpoint"));
+                    assertEquals(0L, mountpoint.get("byteRate"));
+                }
+            }
+        } finally {
+            failoverManager.destroy();
+        }
+    }
+
+    @Test
+    void stopsRelayWhenDailyQuotaIsUsed() {
+        Path quotaFile = tempDir.resolve("quota.properties");
+        RtkProperties properties = new RtkProperties();
+        properties.getServer2().getShaping().setEnabled(true);
+        properties.getServer2().getShaping().setQuotaFile(quotaFile.toString());
+        LocalDate today = LocalDate.now();
+
+        TrafficShapingService service = new TrafficShapingService(properties, new FailoverManager(properties));
+        service.init();
+        try {
+            assertNull(service.quotaAccount("10.0.1.1", 0), "未配置配额时不建立账户");
+            QuotaAccount account = service.quotaAccount("10.0.1.1", 1);
+            assertNotNull(account);
+            assertSame(account, service.quotaAccount("10.0.1.1", 1), "同一IP地址共用账户");
+
+            RoverSubscription subscription = new RoverSubscription();
+            subscription.setQuota(account);
+            byte[] data = RtcmWorkload.frames(1, 53).get(0);
+            RelayFrame frame = new RelayFrame(data, Rtcm3.messageType(data));
+            for (int i = 0; i < 1023; i++) {
+                subscription.recordSent(1024);
+            }
+            assertNotNull(subscription.select(frame));
+            subscription.recordSent(1024);
+            // 汇总之前按未汇总的用量立即停止转发
+            assertTrue(account.isExhausted());
+            assertNull(subscription.select(frame));
+            service.flushQuotas(today);
+            assertTrue(account.isExhausted());
+            assertEquals(1024L * 1024, account.getUsedBytes());
+            assertNull(subscription.select(frame));
+        } finally {
+            service.destroy();
+        }
+
+        // 重启后恢复当日用量
+        TrafficShapingService restarted = new TrafficShapingService(properties, new FailoverManager(properties));
+        restarted.init();
+        try {
+            QuotaAccount account = restarted.quotaAccount("10.0.1.1", 1);
+            assertTrue(account.isExhausted());
+            QuotaAccount other = restarted.quotaAccount("10.0.1.2", 1);
+            assertFalse(other.isExhausted());
+
+            // 新的一天清零
+            restarted.flushQuotas(today.plusDays(1));
+            assertFalse(account.isExhausted());
+            assertEquals(0, account.getUsedBytes());
+        } finally {
+            restarted.destroy();
+        }
+    }
+
+    @Test
+    void quotaFlushKeepsConcurrentSends() throws InterruptedException {
+        QuotaAccount account = new QuotaAccount("10.0.1.3", Long.MAX_VALUE);
+        account.reset(1000);
+        int threads = 4;
+        int sends = 200_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < sends; i++) {
+                    account.record(1);
+                }
+                done.countDown();
+            }).start();
+        }
+        // 汇总与转发线程的记录并发进行，不丢失汇总过程中记录的字节数
+        while (done.getCount() > 0) {
+            account.flush();
+        }
+        done.await();
+        assertEquals(1000L + threads * sends, account.flush());
+
+        // 新的一天从零开始计算
+        account.reset(0);
+        account.record(512);
+        assertEquals(512, account.flush());
+    }
+}